@@ -0,0 +1,65 @@
+/**
+ * Example triggers to notify SolarSSH when security token details change, so
+ * cached token details can be evicted right away. Configure SolarSSH with
+ *
+ *     cache.actor.invalidationChannel: solarssh_token
+ *
+ * The notification payload is the changed token ID. An empty payload tells
+ * SolarSSH to clear its whole token cache.
+ *
+ * To try this against a local database, start SolarSSH with the property
+ * above and then run something like:
+ *
+ *     SELECT pg_notify('solarssh_token', 'my-token-id');
+ *
+ * A log message is written at DEBUG level for every evicted token.
+ */
+
+CREATE OR REPLACE FUNCTION solaruser.solarssh_notify_token_change()
+	RETURNS "trigger" LANGUAGE plpgsql VOLATILE AS
+$$
+BEGIN
+	CASE TG_OP
+		WHEN 'DELETE' THEN
+			PERFORM pg_notify('solarssh_token', OLD.auth_token);
+			RETURN OLD;
+		ELSE
+			PERFORM pg_notify('solarssh_token', NEW.auth_token);
+			RETURN NEW;
+	END CASE;
+END;
+$$;
+
+/**
+ * Inserts are notified too, because SolarSSH remembers unknown tokens in its
+ * negative cache, and a newly created token must be usable at once.
+ */
+CREATE TRIGGER solarssh_notify_token_change
+	AFTER INSERT OR UPDATE OR DELETE ON solaruser.user_auth_token
+	FOR EACH ROW EXECUTE PROCEDURE solaruser.solarssh_notify_token_change();
+
+/**
+ * Node ownership changes alter the node IDs of every token of the node's
+ * owner, so notify each of them.
+ */
+CREATE OR REPLACE FUNCTION solaruser.solarssh_notify_user_node_change()
+	RETURNS "trigger" LANGUAGE plpgsql VOLATILE AS
+$$
+DECLARE
+	uid BIGINT := CASE TG_OP WHEN 'DELETE' THEN OLD.user_id ELSE NEW.user_id END;
+BEGIN
+	PERFORM pg_notify('solarssh_token', t.auth_token)
+	FROM solaruser.user_auth_token t
+	WHERE t.user_id = uid;
+	IF TG_OP = 'UPDATE' AND OLD.user_id <> NEW.user_id THEN
+		PERFORM pg_notify('solarssh_token', t.auth_token)
+		FROM solaruser.user_auth_token t
+		WHERE t.user_id = OLD.user_id;
+	END IF;
+	RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER solarssh_notify_user_node_change
+	AFTER INSERT OR UPDATE OR DELETE ON solaruser.user_node
+	FOR EACH ROW EXECUTE PROCEDURE solaruser.solarssh_notify_user_node_change();
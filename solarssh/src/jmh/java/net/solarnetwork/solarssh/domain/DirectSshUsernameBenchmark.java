@@ -0,0 +1,84 @@
+/* ==================================================================
+ * DirectSshUsernameBenchmark.java - 20/10/2026 5:06:38 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.domain;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing SSH usernames with {@link DirectSshUsername#valueOf(String)}, as the first step of every
+ * direct SSH login.
+ *
+ * <p>
+ * Invalid usernames, such as from SSH scanners, throw an exception that the authenticator catches,
+ * so that path includes the cost of creating the exception.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DirectSshUsernameBenchmark {
+
+  private String valid = "123456:a09sjds-f9asdhgq3q8tzm";
+  private String invalid = "root";
+
+  /**
+   * Parse a valid username.
+   *
+   * @return the username
+   */
+  @Benchmark
+  public DirectSshUsername parseValid() {
+    return DirectSshUsername.valueOf(valid);
+  }
+
+  /**
+   * Parse an invalid username.
+   *
+   * @return {@literal null}
+   */
+  @Benchmark
+  public DirectSshUsername parseInvalid() {
+    try {
+      return DirectSshUsername.valueOf(invalid);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+/* ==================================================================
+ * NodeIdSetBenchmark.java - 19/10/2026 5:21:48 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.domain;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compare node ID membership tests and memory use of a boxed {@code LinkedHashSet} against
+ * {@link NodeIdSet}, as held by a cached {@link ActorDetails}.
+ *
+ * <p>
+ * The retained size of each structure is logged once per trial.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeIdSetBenchmark {
+
+  private static final Logger log = LoggerFactory.getLogger(NodeIdSetBenchmark.class);
+
+  private static final int LOOKUPS = 1024;
+
+  @Param({ "10", "1000", "10000" })
+  private int size;
+
+  private Set<Long> boxed;
+  private NodeIdSet primitive;
+  private ActorDetails actor;
+  private Long[] boxedLookups;
+  private long[] lookups;
+
+  /**
+   * Create the sets, with node IDs spread like a real deployment, and lookups that hit about half
+   * the time.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    SplittableRandom rng = new SplittableRandom(size);
+    long[] ids = new long[size];
+    long id = 100;
+    for (int i = 0; i < size; i++) {
+      id += 1 + rng.nextInt(20);
+      ids[i] = id;
+    }
+    boxed = new LinkedHashSet<>(size);
+    for (long v : ids) {
+      boxed.add(v);
+    }
+    primitive = NodeIdSet.of(ids);
+    actor = new ActorDetails("token", 1L, null, boxed);
+
+    lookups = new long[LOOKUPS];
+    boxedLookups = new Long[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      lookups[i] = (rng.nextBoolean() ? ids[rng.nextInt(size)] : id + 1 + rng.nextInt(1000));
+      boxedLookups[i] = lookups[i];
+    }
+
+    log.info("Retained bytes for {} node IDs: LinkedHashSet {}, NodeIdSet {}, ActorDetails {}",
+        size, GraphLayout.parseInstance(boxed).totalSize(),
+        GraphLayout.parseInstance(primitive).totalSize(),
+        GraphLayout.parseInstance(actor).totalSize());
+  }
+
+  /**
+   * Membership tests against the boxed set.
+   *
+   * @return the hit count
+   */
+  @Benchmark
+  public int containsBoxed() {
+    int hits = 0;
+    for (Long v : boxedLookups) {
+      if (boxed.contains(v)) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Membership tests against the primitive set, with primitive keys.
+   *
+   * @return the hit count
+   */
+  @Benchmark
+  public int containsPrimitive() {
+    int hits = 0;
+    for (long v : lookups) {
+      if (primitive.contains(v)) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Membership tests the way {@code JdbcActorDao} performs them, with a boxed key.
+   *
+   * @return the hit count
+   */
+  @Benchmark
+  public int containsActorAllowed() {
+    int hits = 0;
+    for (Long v : boxedLookups) {
+      if (actor.getAllowedNodeIds().contains(v)) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+
+}
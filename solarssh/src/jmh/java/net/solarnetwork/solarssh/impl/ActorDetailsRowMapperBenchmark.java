@@ -0,0 +1,145 @@
+/* ==================================================================
+ * ActorDetailsRowMapperBenchmark.java - 20/10/2026 4:31:50 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.solarnetwork.solarssh.domain.Actor;
+
+/**
+ * Mapping an actor row with {@link ActorDetailsRowMapper}: the security policy JSON and the node
+ * ID array.
+ *
+ * <p>
+ * {@code nodeIds} selects whether the driver offers the array as a Postgres literal from
+ * {@code getString()}, like the Postgres driver, or only as boxed values from {@code getArray()}.
+ * With {@code policy} set to {@literal nodes} the token has a policy restricting it to some of the
+ * user's nodes, so the allowed node IDs are an intersection.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActorDetailsRowMapperBenchmark {
+
+  /** The most node IDs included in a policy. */
+  public static final int MAX_POLICY_NODES = 10;
+
+  private static final String TOKEN_ID = "a09sjds-f9asdhgq3q8tzm";
+
+  /** The number of nodes owned by the user. */
+  @Param({ "1", "100", "10000" })
+  public int nodeCount;
+
+  /** The token policy, either {@literal none} or {@literal nodes}. */
+  @Param({ "none", "nodes" })
+  public String policy;
+
+  /** How the node ID array is read, either {@literal text} or {@literal array}. */
+  @Param({ "text", "array" })
+  public String nodeIds;
+
+  private ResultSet rs;
+  private ActorDetailsRowMapper internedMapper;
+  private ActorDetailsRowMapper parsingMapper;
+
+  /**
+   * Create the row and mappers.
+   */
+  @Setup
+  public void setup() {
+    long[] ids = new long[nodeCount];
+    for (int i = 0; i < nodeCount; i++) {
+      ids[i] = 100L + i * 3L;
+    }
+    String policyJson = null;
+    if ("nodes".equals(policy)) {
+      StringBuilder buf = new StringBuilder("{\"nodeIds\":[");
+      for (int i = 0, n = Math.min(nodeCount, MAX_POLICY_NODES); i < n; i++) {
+        if (i > 0) {
+          buf.append(',');
+        }
+        buf.append(ids[i * (nodeCount / n)]);
+      }
+      buf.append("],\"sourceIds\":[\"/**/GEN/*\",\"/**/CON/*\"],\"minAggregation\":\"Hour\"}");
+      policyJson = buf.toString();
+    }
+    rs = StubJdbcOperations.resultSet(TOKEN_ID,
+        new StubJdbcOperations.TokenRow(1L, "ReadNodeData", policyJson, ids),
+        "text".equals(nodeIds));
+    internedMapper = new ActorDetailsRowMapper(TOKEN_ID, new SecurityPolicyInterner());
+    parsingMapper = new ActorDetailsRowMapper(TOKEN_ID);
+  }
+
+  private Actor map(ActorDetailsRowMapper mapper) throws SQLException {
+    rs.beforeFirst();
+    rs.next();
+    return mapper.mapRow(rs, 0);
+  }
+
+  /**
+   * Map the row, sharing parsed policies through a {@link SecurityPolicyInterner} as
+   * {@link JdbcActorDao} does.
+   *
+   * @return the actor
+   * @throws SQLException
+   *         if any SQL error occurs
+   */
+  @Benchmark
+  public Actor mapWithInterner() throws SQLException {
+    return map(internedMapper);
+  }
+
+  /**
+   * Map the row, parsing the policy every time.
+   *
+   * @return the actor
+   * @throws SQLException
+   *         if any SQL error occurs
+   */
+  @Benchmark
+  public Actor mapParsingPolicy() throws SQLException {
+    return map(parsingMapper);
+  }
+
+}
@@ -0,0 +1,459 @@
+/* ==================================================================
+ * DirectTcpipForwardingBenchmark.java - 20/10/2026 3:08:26 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static net.solarnetwork.solarssh.service.SolarNetClient.INSTRUCTION_TOPIC_START_REMOTE_SSH;
+import static net.solarnetwork.solarssh.service.SolarNetClient.REVERSE_PORT_PARAM;
+import static net.solarnetwork.solarssh.service.SolarNetClient.USER_PARAM;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.channel.ChannelDirectTcpip;
+import org.apache.sshd.client.config.hosts.HostConfigEntryResolver;
+import org.apache.sshd.client.keyverifier.AcceptAllServerKeyVerifier;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.SyspropsMapWrapper;
+import org.apache.sshd.common.cipher.BuiltinCiphers;
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyEncryptionContext;
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyPairResourceWriter;
+import org.apache.sshd.common.keyprovider.KeyIdentityProvider;
+import org.apache.sshd.common.util.net.SshdSocketAddress;
+import org.apache.sshd.core.CoreModuleProperties;
+import org.apache.sshd.server.forward.AcceptAllForwardingFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.FileSystemResource;
+
+import net.solarnetwork.solarssh.domain.Actor;
+import net.solarnetwork.solarssh.domain.ActorDetails;
+import net.solarnetwork.solarssh.test.ProcessCpuProfiler;
+
+/**
+ * Data forwarded through a direct SSH connection, from the {@code direct-tcpip} channel on
+ * {@link DefaultSolarSshdDirectServer} through {@link DynamicDirectTcpipFactory} and the node's
+ * reverse tunnel on {@link DefaultSolarSshdServer}.
+ *
+ * <p>
+ * Both servers run in-process with a {@link StubSolarNetClient} whose instruction handler plays
+ * the node: when {@literal StartRemoteSsh} is queued it connects to the reverse server and forwards
+ * the reverse port to a local target, just like SolarNode. Node {@value #SINK_NODE_ID} forwards to
+ * a sink that counts and discards what it receives, and node {@value #ECHO_NODE_ID} to an echo
+ * server. Each hop is a full SSH connection, so every byte is encrypted and decrypted twice.
+ * </p>
+ *
+ * <p>
+ * {@code bulkUpload} sends {@value #BULK_BYTES} bytes per operation and waits for the sink to
+ * receive them, so its score is MiB per second. {@code interactiveRoundTrip} sends
+ * {@value #INTERACTIVE_BYTES} bytes and waits for the echo, like a keystroke in a terminal. The
+ * {@code cipher} applies to both hops, and {@code windowSize} to every SSH channel. At the end of
+ * each iteration {@link ProcessCpuProfiler} reports the process CPU time per operation, so per MiB
+ * or per round trip, as {@literal ·cpu.time.norm} in the results; that covers both servers, the
+ * node and the client, all of which would be on different hosts in production.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DirectTcpipForwardingBenchmark {
+
+  /** The bytes sent per bulk operation. */
+  public static final int BULK_BYTES = 1024 * 1024;
+
+  /** The bytes sent per interactive round trip. */
+  public static final int INTERACTIVE_BYTES = 32;
+
+  /** The ID of the node that forwards to the sink. */
+  public static final long SINK_NODE_ID = 1L;
+
+  /** The ID of the node that forwards to the echo server. */
+  public static final long ECHO_NODE_ID = 2L;
+
+  private static final int WRITE_BYTES = 32 * 1024;
+  private static final String LOOPBACK = "127.0.0.1";
+  private static final String TOKEN_ID = "benchmark";
+  private static final String TOKEN_SECRET = "benchmark-secret";
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  /** The cipher used on both SSH hops. */
+  @Param({ "aes128-ctr", "aes128-gcm@openssh.com", "chacha20-poly1305@openssh.com" })
+  public String cipher;
+
+  /** The SSH channel window size, in bytes. */
+  @Param({ "262144", "2097152", "8388608" })
+  public long windowSize;
+
+  private final Map<Long, CompletableFuture<ClientSession>> nodeSessions
+      = new ConcurrentHashMap<>();
+  private final byte[] bulk = new byte[BULK_BYTES];
+  private final byte[] interactive = new byte[INTERACTIVE_BYTES];
+  private final byte[] reply = new byte[INTERACTIVE_BYTES];
+
+  private Path serverKey;
+  private KeyPair nodeKey;
+  private TargetServer sink;
+  private TargetServer echo;
+  private int reversePort;
+  private DefaultSolarSshdServer reverseServer;
+  private DefaultSolarSshdDirectServer directServer;
+  private SshClient client;
+  private ClientSession sinkUser;
+  private ClientSession echoUser;
+  private OutputStream sinkOut;
+  private OutputStream echoOut;
+  private InputStream echoIn;
+
+  private long sent;
+
+  /**
+   * Start the servers and the node targets, and open a direct connection to each node.
+   *
+   * @throws Exception
+   *         if any error occurs
+   */
+  @Setup
+  public void setup() throws Exception {
+    // the servers create their own MINA instances, so set the window size where MINA falls back to
+    System.setProperty(SyspropsMapWrapper.SYSPROPS_MAPPED_PREFIX + "."
+        + CoreModuleProperties.WINDOW_SIZE.getName(), String.valueOf(windowSize));
+
+    Arrays.fill(bulk, (byte) 'x');
+    Arrays.fill(interactive, (byte) 'k');
+
+    nodeKey = generateKey();
+    serverKey = Files.createTempFile("solarssh-benchmark-", ".key");
+    writeKey(serverKey, generateKey());
+    sink = new TargetServer(false);
+    echo = new TargetServer(true);
+
+    StubSolarNetClient solarNetClient = new StubSolarNetClient();
+    solarNetClient.setInstructionHandler(this::instructionQueued);
+
+    reversePort = freePort();
+    DefaultSolarSshService service = new DefaultSolarSshService(solarNetClient);
+    service.setHost(LOOPBACK);
+    service.setPort(reversePort);
+
+    reverseServer = new DefaultSolarSshdServer(service);
+    configureServer(reverseServer, reversePort);
+    reverseServer.start();
+
+    directServer = new DefaultSolarSshdDirectServer(service, this::authenticatedActor);
+    configureServer(directServer, freePort());
+    directServer.setInstructionCompletedWaitMs(10);
+    directServer.setInstructionIncompleteWaitMs(10);
+    directServer.start();
+
+    BuiltinCiphers cipherFactory = BuiltinCiphers.fromFactoryName(cipher);
+    if (cipherFactory == null) {
+      throw new IllegalArgumentException("Unsupported cipher [" + cipher + "]");
+    }
+    client = SshClient.setUpDefaultClient();
+    client.setServerKeyVerifier(AcceptAllServerKeyVerifier.INSTANCE);
+    // the client rejects forwarded channels by default, which would close every node tunnel
+    client.setForwardingFilter(AcceptAllForwardingFilter.INSTANCE);
+    client.setHostConfigEntryResolver(HostConfigEntryResolver.EMPTY);
+    client.setKeyIdentityProvider(KeyIdentityProvider.EMPTY_KEYS_PROVIDER);
+    client.setCipherFactories(Collections.singletonList(cipherFactory));
+    client.start();
+
+    sinkUser = directSession(SINK_NODE_ID, directServer.getPort());
+    sinkOut = directChannel(sinkUser).getInvertedIn();
+
+    echoUser = directSession(ECHO_NODE_ID, directServer.getPort());
+    ChannelDirectTcpip echoChannel = directChannel(echoUser);
+    echoOut = echoChannel.getInvertedIn();
+    echoIn = echoChannel.getInvertedOut();
+  }
+
+  /**
+   * Close all connections and stop the servers.
+   *
+   * @throws Exception
+   *         if any error occurs
+   */
+  @TearDown
+  public void tearDown() throws Exception {
+    if (sinkUser != null) {
+      sinkUser.close(true);
+    }
+    if (echoUser != null) {
+      echoUser.close(true);
+    }
+    for (CompletableFuture<ClientSession> node : nodeSessions.values()) {
+      ClientSession s = node.getNow(null);
+      if (s != null) {
+        s.close(true);
+      }
+    }
+    if (client != null) {
+      client.stop();
+    }
+    if (directServer != null) {
+      directServer.stop();
+    }
+    if (reverseServer != null) {
+      reverseServer.stop();
+    }
+    if (sink != null) {
+      sink.close();
+    }
+    if (echo != null) {
+      echo.close();
+    }
+    if (serverKey != null) {
+      Files.deleteIfExists(serverKey);
+    }
+  }
+
+  /**
+   * Send a bulk payload to the sink and wait for it to arrive.
+   *
+   * @throws Exception
+   *         if any error occurs
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void bulkUpload() throws Exception {
+    for (int off = 0; off < BULK_BYTES; off += WRITE_BYTES) {
+      sinkOut.write(bulk, off, WRITE_BYTES);
+    }
+    sinkOut.flush();
+    sent += BULK_BYTES;
+    sink.awaitReceived(sent, TIMEOUT);
+  }
+
+  /**
+   * Send a keystroke-sized payload to the echo server and read it back.
+   *
+   * @return the first byte read, to consume the reply
+   * @throws IOException
+   *         if any communication error occurs
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public byte interactiveRoundTrip() throws IOException {
+    echoOut.write(interactive);
+    echoOut.flush();
+    int len = 0;
+    while (len < INTERACTIVE_BYTES) {
+      int count = echoIn.read(reply, len, INTERACTIVE_BYTES - len);
+      if (count < 0) {
+        throw new EOFException("Echo channel closed.");
+      }
+      len += count;
+    }
+    return reply[0];
+  }
+
+  private void configureServer(AbstractSshdServer server, int port) {
+    server.setPort(port);
+    server.setServerKeyResource(new FileSystemResource(serverKey));
+    server.setServerKeyPassword("");
+    server.setSnHost("localhost");
+  }
+
+  private Actor authenticatedActor(Long nodeId, String tokenId, String tokenSecret) {
+    if (TOKEN_ID.equals(tokenId) && TOKEN_SECRET.equals(tokenSecret)) {
+      return new ActorDetails(TOKEN_ID, 1L, null, Set.of(SINK_NODE_ID, ECHO_NODE_ID));
+    }
+    return null;
+  }
+
+  private void instructionQueued(String topic, Long nodeId, Map<String, String> params) {
+    if (!INSTRUCTION_TOPIC_START_REMOTE_SSH.equals(topic)) {
+      return;
+    }
+    final CompletableFuture<ClientSession> node = nodeSessions.computeIfAbsent(nodeId,
+        k -> new CompletableFuture<>());
+    final SshdSocketAddress target = (nodeId.longValue() == SINK_NODE_ID ? sink : echo)
+        .address();
+
+    // the authenticator waits for the node to connect, so connect from another thread
+    Thread t = new Thread(() -> {
+      try {
+        ClientSession session = client.connect(params.get(USER_PARAM), LOOPBACK, reversePort)
+            .verify(TIMEOUT).getSession();
+        session.addPublicKeyIdentity(nodeKey);
+        session.auth().verify(TIMEOUT);
+        int rport = Integer.parseInt(params.get(REVERSE_PORT_PARAM));
+        session.startRemotePortForwarding(new SshdSocketAddress(LOOPBACK, rport), target);
+        node.complete(session);
+      } catch (Exception e) {
+        node.completeExceptionally(e);
+      }
+    }, "Node-" + nodeId);
+    t.setDaemon(true);
+    t.start();
+  }
+
+  private ClientSession directSession(long nodeId, int port) throws Exception {
+    ClientSession session = client.connect(nodeId + ":" + TOKEN_ID, LOOPBACK, port)
+        .verify(TIMEOUT).getSession();
+    session.addPasswordIdentity(TOKEN_SECRET);
+    session.auth().verify(TIMEOUT);
+
+    // authentication completes once the node connects, which can be before its tunnel is ready
+    nodeSessions.get(nodeId).get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    return session;
+  }
+
+  private static ChannelDirectTcpip directChannel(ClientSession session) throws IOException {
+    // the destination is ignored: DynamicDirectTcpipFactory always connects to the node tunnel
+    ChannelDirectTcpip channel = session.createDirectTcpipChannel(
+        new SshdSocketAddress(LOOPBACK, 0), new SshdSocketAddress(LOOPBACK, 22));
+    channel.open().verify(TIMEOUT);
+    return channel;
+  }
+
+  private static KeyPair generateKey() throws GeneralSecurityException {
+    KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC");
+    keyGen.initialize(256);
+    return keyGen.generateKeyPair();
+  }
+
+  private static void writeKey(Path keyFile, KeyPair keyPair)
+      throws IOException, GeneralSecurityException {
+    try (OutputStream out = Files.newOutputStream(keyFile)) {
+      OpenSSHKeyPairResourceWriter.INSTANCE.writePrivateKey(keyPair, "solarssh-benchmark",
+          (OpenSSHKeyEncryptionContext) null, out);
+    }
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket s = new ServerSocket(0)) {
+      return s.getLocalPort();
+    }
+  }
+
+  /**
+   * A node-side forwarding target that either echoes or counts and discards what it receives.
+   */
+  private static final class TargetServer implements AutoCloseable {
+
+    private final ServerSocket server;
+    private final boolean echo;
+    private long received;
+
+    private TargetServer(boolean echo) throws IOException {
+      super();
+      this.echo = echo;
+      this.server = new ServerSocket(0);
+      Thread t = new Thread(this::accept, echo ? "EchoTarget" : "SinkTarget");
+      t.setDaemon(true);
+      t.start();
+    }
+
+    private SshdSocketAddress address() {
+      return new SshdSocketAddress(LOOPBACK, server.getLocalPort());
+    }
+
+    private void accept() {
+      while (!server.isClosed()) {
+        try {
+          Socket s = server.accept();
+          s.setTcpNoDelay(true);
+          Thread t = new Thread(() -> handle(s), "TargetConnection");
+          t.setDaemon(true);
+          t.start();
+        } catch (IOException e) {
+          // closed
+        }
+      }
+    }
+
+    private void handle(Socket s) {
+      byte[] buf = new byte[64 * 1024];
+      try (s; InputStream in = s.getInputStream(); OutputStream out = s.getOutputStream()) {
+        int count;
+        while ((count = in.read(buf)) >= 0) {
+          if (echo) {
+            out.write(buf, 0, count);
+            out.flush();
+          } else {
+            synchronized (this) {
+              received += count;
+              notifyAll();
+            }
+          }
+        }
+      } catch (IOException e) {
+        // closed
+      }
+    }
+
+    private synchronized void awaitReceived(long count, Duration timeout)
+        throws InterruptedException, IOException {
+      final long expire = System.nanoTime() + timeout.toNanos();
+      while (received < count) {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(expire - System.nanoTime());
+        if (remaining <= 0) {
+          throw new IOException(
+              "Timeout waiting for " + count + " bytes; received " + received + ".");
+        }
+        wait(remaining);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      server.close();
+    }
+
+  }
+
+}
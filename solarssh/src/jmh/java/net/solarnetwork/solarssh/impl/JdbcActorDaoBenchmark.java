@@ -0,0 +1,151 @@
+/* ==================================================================
+ * JdbcActorDaoBenchmark.java - 20/10/2026 4:48:03 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.solarnetwork.solarssh.domain.Actor;
+
+/**
+ * Token authentication through {@link JdbcActorDao}, against a {@link StubJdbcOperations} with a
+ * configurable query latency instead of Postgres.
+ *
+ * <p>
+ * The DAO is configured like the application: with an actor cache, a negative cache, a signing key
+ * cache and a policy interner. With a {@code latencyMicros} of {@literal 0} the score is the DAO's
+ * own cost, including building the SNWS2 signature for the query; otherwise it shows how much each
+ * path's queries dominate.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdbcActorDaoBenchmark {
+
+  private static final String TOKEN_ID = "a09sjds-f9asdhgq3q8tzm";
+  private static final String TOKEN_SECRET = "5gdfg0a9s8dfu3LKD93j3kls8sd";
+  private static final String UNKNOWN_TOKEN_ID = "unknown-token";
+  private static final Long NODE_ID = 150L;
+  private static final int NODE_COUNT = 100;
+
+  /** The time each query takes, in microseconds. */
+  @Param({ "0", "250" })
+  public int latencyMicros;
+
+  private RefreshAheadCache<String, Actor> actorCache;
+  private JdbcActorDao dao;
+  private JdbcActorDao uncachedDao;
+
+  /**
+   * Create the DAOs and warm the caches.
+   */
+  @Setup
+  public void setup() {
+    long[] nodeIds = new long[NODE_COUNT];
+    for (int i = 0; i < NODE_COUNT; i++) {
+      nodeIds[i] = 100L + i;
+    }
+    StubJdbcOperations jdbc = new StubJdbcOperations(TimeUnit.MICROSECONDS.toNanos(latencyMicros),
+        true);
+    jdbc.addToken(TOKEN_ID, new StubJdbcOperations.TokenRow(1L, "ReadNodeData", null, nodeIds));
+
+    // refreshes start only after minutes, so never during a trial
+    actorCache = new RefreshAheadCache<>("actor", Runnable::run);
+    dao = new JdbcActorDao(jdbc.getJdbcOperations());
+    dao.setActorCache(actorCache);
+    dao.setNegativeCache(new NegativeTokenCache());
+    dao.setSigningKeyCache(new SigningKeyCache());
+
+    // an older schema without the combined query, and no caches
+    uncachedDao = new JdbcActorDao(jdbc.getJdbcOperations());
+    uncachedDao.setAuthenticateAndAuthorizeCall(null);
+    uncachedDao.setPolicyInterner(null);
+
+    if (dao.getAuthenticatedActor(NODE_ID, TOKEN_ID, TOKEN_SECRET) == null
+        || dao.getAuthenticatedActor(NODE_ID, UNKNOWN_TOKEN_ID, TOKEN_SECRET) != null) {
+      throw new IllegalStateException("Stub JDBC did not authenticate as expected.");
+    }
+  }
+
+  /**
+   * Authenticate a token whose actor is cached: one query to verify the signature.
+   *
+   * @return the actor
+   */
+  @Benchmark
+  public Actor actorCacheHit() {
+    return dao.getAuthenticatedActor(NODE_ID, TOKEN_ID, TOKEN_SECRET);
+  }
+
+  /**
+   * Authenticate a token whose actor is not cached: one combined query to verify the signature
+   * and load the actor, which is then cached.
+   *
+   * @return the actor
+   */
+  @Benchmark
+  public Actor actorCacheMiss() {
+    actorCache.remove(TOKEN_ID);
+    return dao.getAuthenticatedActor(NODE_ID, TOKEN_ID, TOKEN_SECRET);
+  }
+
+  /**
+   * Authenticate without any caches or the combined query: one query to verify the signature and
+   * another to load the actor, with the policy parsed every time.
+   *
+   * @return the actor
+   */
+  @Benchmark
+  public Actor uncached() {
+    return uncachedDao.getAuthenticatedActor(NODE_ID, TOKEN_ID, TOKEN_SECRET);
+  }
+
+  /**
+   * Reject a token already known to be invalid, without a query.
+   *
+   * @return the actor, always {@literal null}
+   */
+  @Benchmark
+  public Actor negativeCacheHit() {
+    return dao.getAuthenticatedActor(NODE_ID, UNKNOWN_TOKEN_ID, TOKEN_SECRET);
+  }
+
+}
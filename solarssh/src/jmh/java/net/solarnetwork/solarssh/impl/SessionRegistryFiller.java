@@ -0,0 +1,90 @@
+/* ==================================================================
+ * SessionRegistryFiller.java - 22/10/2026 8:05:31 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentMap;
+
+import net.solarnetwork.solarssh.domain.SshSession;
+
+/**
+ * Fill the session registry of a {@link DefaultSolarSshService} directly, without allocating
+ * reverse ports.
+ *
+ * <p>
+ * This lets benchmarks register more sessions than a port range could hold, or ports that are
+ * outside the valid TCP range, without the service needing an API for it. The registry maps are
+ * reached by reflection.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public final class SessionRegistryFiller {
+
+  private final ConcurrentMap<Integer, SshSession> portSessionMap;
+  private final ConcurrentMap<String, SshSession> sessionMap;
+
+  /**
+   * Constructor.
+   *
+   * @param service
+   *        the service whose registry to fill
+   * @throws IllegalStateException
+   *         if the registry cannot be accessed
+   */
+  public SessionRegistryFiller(DefaultSolarSshService service) {
+    super();
+    this.portSessionMap = registry(service, "portSessionMap");
+    this.sessionMap = registry(service, "sessionMap");
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K> ConcurrentMap<K, SshSession> registry(DefaultSolarSshService service,
+      String name) {
+    try {
+      Field f = DefaultSolarSshService.class.getDeclaredField(name);
+      f.setAccessible(true);
+      return (ConcurrentMap<K, SshSession>) f.get(service);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot access session registry " + name, e);
+    }
+  }
+
+  /**
+   * Register a session.
+   *
+   * @param sess
+   *        the session to add
+   * @return {@literal true} if the session was added, {@literal false} if its reverse port was
+   *         already taken
+   */
+  public boolean add(SshSession sess) {
+    if (portSessionMap.putIfAbsent(sess.getReverseSshPort(), sess) != null) {
+      return false;
+    }
+    sessionMap.put(sess.getId(), sess);
+    return true;
+  }
+
+}
@@ -0,0 +1,128 @@
+/* ==================================================================
+ * Snws2AuthorizationBenchmark.java - 19/10/2026 6:48:20 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static java.util.Collections.singletonMap;
+import static net.solarnetwork.util.StringUtils.delimitedStringToMap;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.solarnetwork.security.Snws2AuthorizationBuilder;
+
+/**
+ * Cost of building an SNWS2 authorization header, with and without a {@link SigningKeyCache}.
+ *
+ * <p>
+ * The {@code authSignature} benchmarks build the signature {@link JdbcActorDao} passes to the
+ * database to verify a token, and extract it from the header as the DAO does.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Snws2AuthorizationBenchmark {
+
+  private static final String TOKEN_ID = "a09sjds-f9asdhgq3q8tzm";
+  private static final String TOKEN_SECRET = "5gdfg0a9s8dfu3LKD93j3kls8sd";
+  private static final String HOST = "data.solarnetwork.net";
+
+  private SigningKeyCache cache;
+
+  /**
+   * Create the cache.
+   */
+  @Setup
+  public void setup() {
+    cache = new SigningKeyCache();
+  }
+
+  private static Snws2AuthorizationBuilder configure(Snws2AuthorizationBuilder builder) {
+    return builder.date(Instant.now()).host(HOST).path("/solaruser/api/v1/sec/instr/view")
+        .queryParams(singletonMap("id", "123456"));
+  }
+
+  /**
+   * Derive the signing key for every request, as a new builder does.
+   *
+   * @return the authorization header value
+   */
+  @Benchmark
+  public String buildDerivingKey() {
+    return configure(new Snws2AuthorizationBuilder(TOKEN_ID)).build(TOKEN_SECRET);
+  }
+
+  /**
+   * Take the signing key from the cache.
+   *
+   * @return the authorization header value
+   */
+  @Benchmark
+  public String buildWithCachedKey() {
+    return configure(cache.authorizationBuilder(TOKEN_ID)).build(TOKEN_SECRET);
+  }
+
+  private static String authSignature(Snws2AuthorizationBuilder builder) {
+    String auth = builder.useSnDate(true).date(Instant.now()).host(HOST)
+        .path(JdbcActorDao.DEFAULT_SN_PATH).build(TOKEN_SECRET);
+    return delimitedStringToMap(auth, ",", "=").get(JdbcActorDao.SIGNATURE_TOKEN);
+  }
+
+  /**
+   * Build the token verification signature, deriving the signing key.
+   *
+   * @return the signature
+   */
+  @Benchmark
+  public String authSignatureDerivingKey() {
+    return authSignature(new Snws2AuthorizationBuilder(TOKEN_ID));
+  }
+
+  /**
+   * Build the token verification signature, taking the signing key from the cache.
+   *
+   * @return the signature
+   */
+  @Benchmark
+  public String authSignatureWithCachedKey() {
+    return authSignature(cache.authorizationBuilder(TOKEN_ID));
+  }
+
+}
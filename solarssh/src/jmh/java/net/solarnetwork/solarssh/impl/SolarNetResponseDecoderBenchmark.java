@@ -0,0 +1,158 @@
+/* ==================================================================
+ * SolarNetResponseDecoderBenchmark.java - 19/10/2026 9:08:17 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+
+/**
+ * Decoding SolarNet responses via a {@code JsonNode} tree, compared to
+ * {@link SolarNetResponseDecoder}.
+ *
+ * <p>
+ * Run with the {@code gc} profiler (the default for this project) to compare the
+ * {@code gc.alloc.rate.norm} bytes allocated per call.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolarNetResponseDecoderBenchmark {
+
+  private static final TypeReference<List<SolarNetInstruction>> SNI_LIST_TYPE =
+      new TypeReference<>() {
+        // nothing to add
+      };
+
+  /** The number of pending instructions in the response. */
+  @Param({ "1", "20" })
+  public int instructionCount;
+
+  private ObjectMapper mapper;
+  private byte[] instructionsJson;
+  private byte[] metadataJson;
+
+  /**
+   * Create the response bodies.
+   */
+  @Setup
+  public void setup() {
+    mapper = SolarNetResponseDecoder.mapper();
+    StringBuilder buf = new StringBuilder("{\"success\":true,\"data\":[");
+    for (int i = 0; i < instructionCount; i++) {
+      if (i > 0) {
+        buf.append(',');
+      }
+      buf.append("{\"id\":").append(1000 + i).append(",\"created\":\"2026-10-19 08:00:00.000Z\"")
+          .append(",\"nodeId\":123,\"topic\":\"StartRemoteSsh\",\"state\":\"Queued\"")
+          .append(",\"instructionDate\":\"2026-10-19 08:00:00.000Z\",\"parameters\":[")
+          .append("{\"name\":\"host\",\"value\":\"ssh.solarnetwork.net\"},")
+          .append("{\"name\":\"user\",\"value\":\"a09sjds-f9asdhgq3q8tzm\"},")
+          .append("{\"name\":\"port\",\"value\":\"8022\"},")
+          .append("{\"name\":\"rport\",\"value\":\"50123\"}]}");
+    }
+    instructionsJson = buf.append("]}").toString().getBytes(UTF_8);
+    metadataJson = ("{\"success\":true,\"data\":{\"nodeId\":123,"
+        + "\"m\":{\"a\":1,\"b\":\"two\"},\"pm\":{\"ssh\":{\"key\":\"AAAAB3NzaC1yc2EAAAADAQAB\"}},"
+        + "\"t\":[\"solarssh\",\"test\"]}}").getBytes(UTF_8);
+  }
+
+  /**
+   * Decode instructions by building a tree and re-binding its {@code data} subtree.
+   *
+   * @return the instructions
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  @Benchmark
+  public List<SolarNetInstruction> instructionsViaTree() throws IOException {
+    JsonNode node = mapper.readTree(instructionsJson);
+    return mapper.readValue(mapper.treeAsTokens(node.path("data")), SNI_LIST_TYPE);
+  }
+
+  /**
+   * Decode instructions in a single streaming pass.
+   *
+   * @return the instructions
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  @Benchmark
+  public List<SolarNetInstruction> instructionsStreaming() throws IOException {
+    return SolarNetResponseDecoder.instructions(instructionsJson);
+  }
+
+  /**
+   * Decode metadata by building a tree and converting its {@code data} subtree.
+   *
+   * @return the metadata
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  @Benchmark
+  public GeneralDatumMetadata metadataViaTree() throws IOException {
+    JsonNode node = mapper.readTree(metadataJson);
+    return mapper.treeToValue(node.path("data"), GeneralDatumMetadata.class);
+  }
+
+  /**
+   * Decode metadata in a single streaming pass.
+   *
+   * @return the metadata
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  @Benchmark
+  public GeneralDatumMetadata metadataStreaming() throws IOException {
+    return SolarNetResponseDecoder.metadata(metadataJson);
+  }
+
+}
@@ -0,0 +1,211 @@
+/* ==================================================================
+ * SolarSshPasswordAuthenticatorBenchmark.java - 20/10/2026 5:19:44 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static net.solarnetwork.solarssh.service.SolarNetClient.INSTRUCTION_TOPIC_START_REMOTE_SSH;
+import static net.solarnetwork.solarssh.service.SolarNetClient.USER_PARAM;
+
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.server.session.ServerSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.solarnetwork.solarssh.domain.Actor;
+import net.solarnetwork.solarssh.domain.SshSession;
+
+/**
+ * The full direct SSH login in {@link SolarSshPasswordAuthenticator}, with a {@link JdbcActorDao}
+ * over a {@link StubJdbcOperations} instead of Postgres.
+ *
+ * <p>
+ * A login parses the username, authenticates the token, allocates a session and its reverse ports,
+ * signs and queues the {@literal StartRemoteSsh} instruction, and waits for the node to connect.
+ * The {@link StubSolarNetClient} completes instructions immediately and its instruction handler
+ * marks the node connected as soon as the instruction is queued, so there is no waiting. Each
+ * successful login is followed by deleting its session, to free the ports.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolarSshPasswordAuthenticatorBenchmark {
+
+  private static final String TOKEN_ID = "a09sjds-f9asdhgq3q8tzm";
+  private static final String TOKEN_SECRET = "5gdfg0a9s8dfu3LKD93j3kls8sd";
+  private static final Long NODE_ID = 150L;
+  private static final int NODE_COUNT = 100;
+
+  /** The time each database query takes, in microseconds. */
+  @Param({ "0", "250" })
+  public int latencyMicros;
+
+  private final String username = NODE_ID + ":" + TOKEN_ID;
+  private final String unknownTokenUsername = NODE_ID + ":unknown-token";
+  private final String invalidUsername = "root";
+
+  private RefreshAheadCache<String, Actor> actorCache;
+  private DefaultSolarSshService service;
+  private SolarSshPasswordAuthenticator authenticator;
+  private ServerSession directSession;
+  private ServerSession nodeSession;
+  private String sessionId;
+
+  /**
+   * Create the authenticator.
+   */
+  @Setup
+  public void setup() {
+    long[] nodeIds = new long[NODE_COUNT];
+    for (int i = 0; i < NODE_COUNT; i++) {
+      nodeIds[i] = 100L + i;
+    }
+    StubJdbcOperations jdbc = new StubJdbcOperations(TimeUnit.MICROSECONDS.toNanos(latencyMicros),
+        true);
+    jdbc.addToken(TOKEN_ID, new StubJdbcOperations.TokenRow(1L, "ReadNodeData", null, nodeIds));
+
+    SigningKeyCache signingKeyCache = new SigningKeyCache();
+    actorCache = new RefreshAheadCache<>("actor", Runnable::run);
+    JdbcActorDao dao = new JdbcActorDao(jdbc.getJdbcOperations());
+    dao.setActorCache(actorCache);
+    dao.setNegativeCache(new NegativeTokenCache());
+    dao.setSigningKeyCache(signingKeyCache);
+
+    directSession = serverSession();
+    nodeSession = serverSession();
+
+    StubSolarNetClient solarNetClient = new StubSolarNetClient();
+    service = new DefaultSolarSshService(solarNetClient);
+    service.setHost("localhost");
+    service.setPort(8022);
+    service.setMinPort(46000);
+    service.setMaxPort(46200);
+    solarNetClient.setInstructionHandler((topic, nodeId, params) -> {
+      if (INSTRUCTION_TOPIC_START_REMOTE_SSH.equals(topic)) {
+        // the node connects instantly
+        sessionId = params.get(USER_PARAM);
+        service.findOne(sessionId).setServerSession(nodeSession);
+      }
+    });
+
+    authenticator = new SolarSshPasswordAuthenticator(service, dao);
+    authenticator.setSnHost("localhost");
+    authenticator.setSigningKeyCache(signingKeyCache);
+  }
+
+  private static ServerSession serverSession() {
+    final InetSocketAddress addr = new InetSocketAddress("127.0.0.1", 50000);
+    return (ServerSession) Proxy.newProxyInstance(ServerSession.class.getClassLoader(),
+        new Class<?>[] { ServerSession.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getRemoteAddress":
+              return addr;
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            case "toString":
+              return "BenchmarkServerSession";
+            default:
+              return (method.getReturnType() == boolean.class ? false : null);
+          }
+        });
+  }
+
+  private boolean login() throws Exception {
+    boolean result = authenticator.authenticate(username, TOKEN_SECRET, directSession);
+    SshSession sess = service.findOne(sessionId);
+    if (!result || sess == null) {
+      throw new IllegalStateException("Login failed.");
+    }
+    service.delete(sess);
+    return result;
+  }
+
+  /**
+   * Log in with the token's actor cached.
+   *
+   * @return {@literal true}
+   * @throws Exception
+   *         if any error occurs
+   */
+  @Benchmark
+  public boolean loginActorCacheHit() throws Exception {
+    return login();
+  }
+
+  /**
+   * Log in without the token's actor cached.
+   *
+   * @return {@literal true}
+   * @throws Exception
+   *         if any error occurs
+   */
+  @Benchmark
+  public boolean loginActorCacheMiss() throws Exception {
+    actorCache.remove(TOKEN_ID);
+    return login();
+  }
+
+  /**
+   * Reject a token already known to be invalid.
+   *
+   * @return {@literal false}
+   * @throws Exception
+   *         if any error occurs
+   */
+  @Benchmark
+  public boolean rejectUnknownToken() throws Exception {
+    return authenticator.authenticate(unknownTokenUsername, TOKEN_SECRET, directSession);
+  }
+
+  /**
+   * Reject a username that is not a direct SSH username.
+   *
+   * @return {@literal false}
+   * @throws Exception
+   *         if any error occurs
+   */
+  @Benchmark
+  public boolean rejectInvalidUsername() throws Exception {
+    return authenticator.authenticate(invalidUsername, TOKEN_SECRET, directSession);
+  }
+
+}
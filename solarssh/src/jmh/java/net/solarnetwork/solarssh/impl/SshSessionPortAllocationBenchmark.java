@@ -0,0 +1,109 @@
+/* ==================================================================
+ * SshSessionPortAllocationBenchmark.java - 20/10/2026 11:41:27 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.solarnetwork.solarssh.domain.SshSession;
+
+/**
+ * Reverse port allocation in {@link DefaultSolarSshService#createNewSession(Long, long, String)}
+ * as the port range fills up.
+ *
+ * <p>
+ * The lowest {@code fillPercent} of the port pairs are taken by registered sessions, which is
+ * where allocation leaves them because it always scans from the bottom of the range. Each
+ * operation allocates a session, which binds and releases its two ports, then deletes it. Ports
+ * held by other processes are skipped like taken ones, so run on a quiet machine.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SshSessionPortAllocationBenchmark {
+
+  private static final int MIN_PORT = 40000;
+  private static final int MAX_PORT = 50000;
+
+  /** The percentage of the port range already allocated. */
+  @Param({ "0", "50", "90", "99" })
+  public int fillPercent;
+
+  private DefaultSolarSshService service;
+
+  /**
+   * Create the service and allocate the lowest part of its port range.
+   */
+  @Setup
+  public void setup() {
+    service = new DefaultSolarSshService(new StubSolarNetClient());
+    service.setHost("localhost");
+    service.setMinPort(MIN_PORT);
+    service.setMaxPort(MAX_PORT);
+
+    final SessionRegistryFiller registry = new SessionRegistryFiller(service);
+    final int pairs = (MAX_PORT - MIN_PORT) / 2;
+    final int filled = pairs * fillPercent / 100;
+    final long now = System.currentTimeMillis();
+    for (int i = 0; i < filled; i++) {
+      final int rport = MIN_PORT + i * 2;
+      registry.add(new SshSession(now, UUID.randomUUID().toString(), (long) i, "localhost",
+          8022, rport, rport + 1));
+    }
+  }
+
+  /**
+   * Allocate a session and delete it again.
+   *
+   * @return the session
+   * @throws IOException
+   *         if no port is available
+   */
+  @Benchmark
+  public SshSession createNewSession() throws IOException {
+    SshSession sess = service.createNewSession(1L, System.currentTimeMillis(), "");
+    service.delete(sess);
+    return sess;
+  }
+
+}
@@ -0,0 +1,244 @@
+/* ==================================================================
+ * SshSessionRegistryBenchmark.java - 20/10/2026 11:20:05 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.common.session.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.solarnetwork.service.PingTest;
+import net.solarnetwork.solarssh.domain.SshSession;
+
+/**
+ * Session registry lookups, expiry scans and ping tests on {@link DefaultSolarSshService}, at
+ * increasing session counts.
+ *
+ * <p>
+ * The registry is filled directly, with reverse ports outside any real port range, so the session
+ * count is not limited by free ports. Half the sessions are established with a server session and a
+ * quarter have a direct server session, like a busy deployment. No session is old enough to
+ * expire, so {@link #cleanupExpiredSessions()} measures the periodic scan.
+ * </p>
+ *
+ * <p>
+ * The {@code mixed} group runs ID lookups, session lookups and session create/stop cycles
+ * concurrently, the last binding real ports from a small range.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SshSessionRegistryBenchmark {
+
+  /** The first reverse port of the pre-filled sessions; outside the valid TCP port range. */
+  private static final int FILL_PORT_START = 100_000;
+
+  /** The real port range used by {@code createNewSession}. */
+  private static final int MIN_PORT = 47000;
+  private static final int MAX_PORT = 47400;
+
+  /** The number of sessions in the registry. */
+  @Param({ "100", "10000", "50000" })
+  public int sessionCount;
+
+  private DefaultSolarSshService service;
+  private String[] ids;
+  private Session[] sessions;
+  private Session unknownSession;
+
+  /**
+   * Create the service and fill its registry.
+   */
+  @Setup
+  public void setup() {
+    service = new DefaultSolarSshService(new StubSolarNetClient());
+    service.setHost("localhost");
+    service.setMinPort(MIN_PORT);
+    service.setMaxPort(MAX_PORT);
+    service.setSessionExpireSeconds((int) TimeUnit.DAYS.toSeconds(1));
+
+    final SessionRegistryFiller registry = new SessionRegistryFiller(service);
+    final SplittableRandom rng = new SplittableRandom(sessionCount);
+    final long now = System.currentTimeMillis();
+    final List<Session> attached = new ArrayList<>(sessionCount);
+    ids = new String[sessionCount];
+    for (int i = 0; i < sessionCount; i++) {
+      final int rport = FILL_PORT_START + i * 2;
+      SshSession sess = new SshSession(now - rng.nextInt(60_000), UUID.randomUUID().toString(),
+          (long) (1 + rng.nextInt(sessionCount)), "localhost", 8022, rport, rport + 1);
+      if (i % 2 == 0) {
+        Session s = session();
+        sess.setServerSession(s);
+        sess.setEstablished(true);
+        attached.add(s);
+      } else if (i % 4 == 1) {
+        Session s = session();
+        sess.setDirectServerSession(s);
+        attached.add(s);
+      }
+      registry.add(sess);
+      ids[i] = sess.getId();
+    }
+    sessions = attached.toArray(Session[]::new);
+    unknownSession = session();
+  }
+
+  /**
+   * Create a session placeholder, only ever compared by identity.
+   */
+  private static Session session() {
+    return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+        new Class<?>[] { Session.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            case "toString":
+              return "BenchmarkSession@" + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+              return null;
+          }
+        });
+  }
+
+  /**
+   * Look up a session by ID, as every REST and WebSocket request does.
+   *
+   * @return the session
+   */
+  @Benchmark
+  public SshSession findOneById() {
+    return service.findOne(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+  }
+
+  /**
+   * Look up a session by its SSH server or direct server session, as every forwarding request
+   * does.
+   *
+   * @return the session
+   */
+  @Benchmark
+  public SshSession findOneBySession() {
+    return service.findOne(sessions[ThreadLocalRandom.current().nextInt(sessions.length)]);
+  }
+
+  /**
+   * Look up an SSH session that is not registered, the worst case for a session lookup.
+   *
+   * @return the session, always {@literal null}
+   */
+  @Benchmark
+  public SshSession findOneBySessionMiss() {
+    return service.findOne(unknownSession);
+  }
+
+  /**
+   * Scan for expired sessions, none of which are.
+   */
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void cleanupExpiredSessions() {
+    service.cleanupExpiredSessions();
+  }
+
+  /**
+   * Run the ping test, which counts sessions.
+   *
+   * @return the result
+   * @throws Exception
+   *         if any error occurs
+   */
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public PingTest.Result performPingTest() throws Exception {
+    return service.performPingTest();
+  }
+
+  /**
+   * Look up sessions by ID, concurrently with the rest of the {@code mixed} group.
+   *
+   * @return the session
+   */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(6)
+  public SshSession mixedFindOneById() {
+    return findOneById();
+  }
+
+  /**
+   * Look up sessions by SSH session, concurrently with the rest of the {@code mixed} group.
+   *
+   * @return the session
+   */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public SshSession mixedFindOneBySession() {
+    return findOneBySession();
+  }
+
+  /**
+   * Create and stop sessions, concurrently with the rest of the {@code mixed} group.
+   *
+   * @return the session
+   * @throws IOException
+   *         if no port is available
+   */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public SshSession mixedCreateAndDelete() throws IOException {
+    SshSession sess = service.createNewSession(1L, System.currentTimeMillis(), "");
+    service.delete(sess);
+    return sess;
+  }
+
+}
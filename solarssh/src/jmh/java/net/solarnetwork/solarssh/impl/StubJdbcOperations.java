@@ -0,0 +1,277 @@
+/* ==================================================================
+ * StubJdbcOperations.java - 20/10/2026 4:02:17 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * {@link JdbcOperations} that answers {@link JdbcActorDao} queries from an in-memory token table,
+ * after a delay standing in for the database round trip.
+ *
+ * <p>
+ * Only {@code query(PreparedStatementCreator, RowMapper)} and
+ * {@code query(PreparedStatementCreator, ResultSetExtractor)} are supported. Each statement is
+ * created against a stub connection, so the parameters the DAO sets, including the SNWS2 signature,
+ * are part of every query. The first parameter is taken as the token ID, and any signature is
+ * accepted for a known token.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class StubJdbcOperations {
+
+  private final Map<String, TokenRow> tokens = new ConcurrentHashMap<>();
+  private final long latencyNanos;
+  private final boolean textArrays;
+  private final LongAdder queryCount = new LongAdder();
+  private final JdbcOperations jdbcOperations;
+
+  /**
+   * A token table row.
+   */
+  public static final class TokenRow {
+
+    private final Long userId;
+    private final String tokenType;
+    private final String policyJson;
+    private final long[] nodeIds;
+
+    /**
+     * Constructor.
+     *
+     * @param userId
+     *        the owner user ID
+     * @param tokenType
+     *        the token type
+     * @param policyJson
+     *        the security policy JSON, or {@literal null} for none
+     * @param nodeIds
+     *        the IDs of the nodes owned by {@code userId}
+     */
+    public TokenRow(Long userId, String tokenType, String policyJson, long[] nodeIds) {
+      super();
+      this.userId = userId;
+      this.tokenType = tokenType;
+      this.policyJson = policyJson;
+      this.nodeIds = nodeIds;
+    }
+
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param latencyNanos
+   *        the time each query takes, in nanoseconds
+   * @param textArrays
+   *        {@literal true} to return node ID arrays from {@code getString()} as Postgres array
+   *        literals, like the Postgres driver, or {@literal false} to only return them from
+   *        {@code getArray()} as boxed values
+   */
+  public StubJdbcOperations(long latencyNanos, boolean textArrays) {
+    super();
+    this.latencyNanos = latencyNanos;
+    this.textArrays = textArrays;
+    this.jdbcOperations = (JdbcOperations) Proxy.newProxyInstance(
+        JdbcOperations.class.getClassLoader(), new Class<?>[] { JdbcOperations.class },
+        (proxy, method, args) -> {
+          if ("query".equals(method.getName()) && args.length == 2
+              && args[0] instanceof PreparedStatementCreator psc) {
+            return query(psc, args[1]);
+          }
+          throw new UnsupportedOperationException(method.toString());
+        });
+  }
+
+  /**
+   * Add a token.
+   *
+   * @param tokenId
+   *        the token ID
+   * @param row
+   *        the token details
+   */
+  public void addToken(String tokenId, TokenRow row) {
+    tokens.put(tokenId, row);
+  }
+
+  /**
+   * Get the JDBC operations.
+   *
+   * @return the operations
+   */
+  public JdbcOperations getJdbcOperations() {
+    return jdbcOperations;
+  }
+
+  /**
+   * Get the number of queries executed.
+   *
+   * @return the query count
+   */
+  public long getQueryCount() {
+    return queryCount.sum();
+  }
+
+  /**
+   * Create a result set with one token row in the {@link ActorDetailsRowMapper} column layout.
+   *
+   * <p>
+   * The result set is positioned before the row, and can be rewound with {@code beforeFirst()}.
+   * Column 5 is {@literal true} for {@code getBoolean()}, as a verified combined query result, and
+   * {@code tokenId} for {@code getString()}, as a preload query result.
+   * </p>
+   *
+   * @param tokenId
+   *        the token ID
+   * @param row
+   *        the row, or {@literal null} for an empty result set
+   * @param textArrays
+   *        {@literal true} to return the node IDs from {@code getString()} as a Postgres array
+   *        literal
+   * @return the result set
+   */
+  public static ResultSet resultSet(String tokenId, TokenRow row, boolean textArrays) {
+    final String nodeIdsLiteral = (row != null && textArrays ? arrayLiteral(row.nodeIds) : null);
+    final Array nodeIdsArray = (row != null ? array(row.nodeIds) : null);
+    final int[] pos = new int[1];
+    return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+        new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "next":
+              return (row != null && ++pos[0] == 1);
+            case "beforeFirst":
+              pos[0] = 0;
+              return null;
+            case "getLong":
+              return row.userId;
+            case "getString":
+              switch ((Integer) args[0]) {
+                case 2:
+                  return row.tokenType;
+                case 3:
+                  return row.policyJson;
+                case 4:
+                  return nodeIdsLiteral;
+                default:
+                  return tokenId;
+              }
+            case "getBoolean":
+              return true;
+            case "getArray":
+              return nodeIdsArray;
+            case "wasNull":
+              return false;
+            case "close":
+              return null;
+            default:
+              throw new UnsupportedOperationException(method.toString());
+          }
+        });
+  }
+
+  private Object query(PreparedStatementCreator psc, Object handler) throws SQLException {
+    final Object[] params = new Object[8];
+    final PreparedStatement stmt = (PreparedStatement) Proxy.newProxyInstance(
+        PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class },
+        (proxy, method, args) -> {
+          if (method.getName().startsWith("set") && args != null && args.length == 2
+              && args[0] instanceof Integer idx && idx < params.length) {
+            params[idx] = args[1];
+            return null;
+          }
+          throw new UnsupportedOperationException(method.toString());
+        });
+    final Connection con = (Connection) Proxy.newProxyInstance(
+        Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+        (proxy, method, args) -> {
+          if ("prepareStatement".equals(method.getName())) {
+            return stmt;
+          }
+          throw new UnsupportedOperationException(method.toString());
+        });
+    psc.createPreparedStatement(con);
+
+    queryCount.increment();
+    final long end = System.nanoTime() + latencyNanos;
+    for (long remaining = latencyNanos; remaining > 0; remaining = end - System.nanoTime()) {
+      LockSupport.parkNanos(remaining);
+    }
+
+    final String tokenId = (params[1] instanceof String s ? s : null);
+    final ResultSet rs = resultSet(tokenId, tokenId != null ? tokens.get(tokenId) : null,
+        textArrays);
+    if (handler instanceof RowMapper<?> mapper) {
+      List<Object> results = new ArrayList<>(1);
+      for (int i = 0; rs.next(); i++) {
+        results.add(mapper.mapRow(rs, i));
+      }
+      return results;
+    }
+    return ((ResultSetExtractor<?>) handler).extractData(rs);
+  }
+
+  private static String arrayLiteral(long[] ids) {
+    StringBuilder buf = new StringBuilder(ids.length * 8 + 2).append('{');
+    for (int i = 0; i < ids.length; i++) {
+      if (i > 0) {
+        buf.append(',');
+      }
+      buf.append(ids[i]);
+    }
+    return buf.append('}').toString();
+  }
+
+  private static Array array(long[] ids) {
+    return (Array) Proxy.newProxyInstance(Array.class.getClassLoader(),
+        new Class<?>[] { Array.class }, (proxy, method, args) -> {
+          if ("getArray".equals(method.getName()) && args == null) {
+            // like the Postgres driver, a new boxed array for every call
+            Long[] result = new Long[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+              result[i] = ids[i];
+            }
+            return result;
+          }
+          throw new UnsupportedOperationException(method.toString());
+        });
+  }
+
+}
@@ -0,0 +1,123 @@
+/* ==================================================================
+ * StubSolarNetClient.java - 20/10/2026 11:12:40 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+import net.solarnetwork.solarssh.domain.SolarNodeInstructionState;
+import net.solarnetwork.solarssh.service.SolarNetClient;
+
+/**
+ * {@link SolarNetClient} that answers immediately, so benchmarks measure only SolarSSH itself.
+ *
+ * <p>
+ * There are never any pending instructions, queued instructions complete immediately, and every
+ * node has empty metadata. An {@link InstructionHandler} can act as the node, for example by
+ * connecting to SolarSSH when a {@literal StartRemoteSsh} instruction is queued.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class StubSolarNetClient implements SolarNetClient {
+
+  private final AtomicLong instructionIds = new AtomicLong();
+  private InstructionHandler instructionHandler;
+
+  /**
+   * Handler for queued instructions.
+   */
+  @FunctionalInterface
+  public interface InstructionHandler {
+
+    /**
+     * Handle a queued instruction.
+     *
+     * @param topic
+     *        the instruction topic
+     * @param nodeId
+     *        the node ID
+     * @param parameters
+     *        the instruction parameters, as name/value pairs
+     */
+    void instructionQueued(String topic, Long nodeId, Map<String, String> parameters);
+
+  }
+
+  @Override
+  public List<SolarNetInstruction> pendingInstructions(Long nodeId, long authorizationDate,
+      String authorization) {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public SolarNetInstruction getInstruction(Long id, long authorizationDate,
+      String authorization) {
+    SolarNetInstruction instr = new SolarNetInstruction();
+    instr.setId(id);
+    instr.setState(SolarNodeInstructionState.Completed);
+    return instr;
+  }
+
+  @Override
+  public Long queueInstruction(String topic, Long nodeId, Map<String, ?> parameters,
+      long authorizationDate, String authorization) {
+    final InstructionHandler handler = this.instructionHandler;
+    if (handler != null) {
+      // decode the parameters[i].name and parameters[i].value form parameters
+      Map<String, String> params = new LinkedHashMap<>(parameters.size() / 2);
+      for (int i = 0;; i++) {
+        Object name = parameters.get("parameters[" + i + "].name");
+        if (name == null) {
+          break;
+        }
+        params.put(name.toString(), String.valueOf(parameters.get("parameters[" + i + "].value")));
+      }
+      handler.instructionQueued(topic, nodeId, params);
+    }
+    return instructionIds.incrementAndGet();
+  }
+
+  @Override
+  public GeneralDatumMetadata getNodeMetadata(Long nodeId, long authorizationDate,
+      String authorization) {
+    return new GeneralDatumMetadata();
+  }
+
+  /**
+   * Set the instruction handler.
+   *
+   * @param instructionHandler
+   *        the handler to call when an instruction is queued, or {@literal null} for none
+   */
+  public void setInstructionHandler(InstructionHandler instructionHandler) {
+    this.instructionHandler = instructionHandler;
+  }
+
+}
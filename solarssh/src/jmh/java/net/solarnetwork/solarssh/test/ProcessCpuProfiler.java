@@ -0,0 +1,84 @@
+/* ==================================================================
+ * ProcessCpuProfiler.java - 19/10/2026 10:41:03 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+
+package net.solarnetwork.solarssh.test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * JMH profiler that reports the process CPU time used per benchmark operation.
+ *
+ * <p>
+ * The CPU time of the whole benchmark JVM is sampled before and after each iteration and divided
+ * by the operations the iteration performed, as the {@literal ·cpu.time.norm} secondary result.
+ * Unlike the primary score this includes work done on threads other than the benchmark thread,
+ * such as the I/O threads of an in-process server. Enable it with
+ * {@code -prof net.solarnetwork.solarssh.test.ProcessCpuProfiler}, or via {@code profilers} in
+ * the Gradle {@code jmh} configuration.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class ProcessCpuProfiler implements InternalProfiler {
+
+  private long startCpu;
+
+  @Override
+  public String getDescription() {
+    return "Process CPU time per operation";
+  }
+
+  @Override
+  public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    startCpu = processCpuTime();
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+      IterationParams iterationParams, IterationResult result) {
+    final long cpu = processCpuTime() - startCpu;
+    final long ops = result.getMetadata().getAllOps();
+    if (startCpu < 0 || ops < 1) {
+      return Collections.emptyList();
+    }
+    return Collections.singletonList(
+        new ScalarResult("cpu.time.norm", (double) cpu / ops, "ns/op", AggregationPolicy.AVG));
+  }
+
+  private static long processCpuTime() {
+    return ((com.sun.management.OperatingSystemMXBean) ManagementFactory
+        .getOperatingSystemMXBean()).getProcessCpuTime();
+  }
+
+}
@@ -0,0 +1,176 @@
+/* ==================================================================
+ * AsyncTextOutputStreamBenchmark.java - 20/10/2026 1:31:09 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.web;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Terminal output through {@link AsyncTextOutputStream}, from the node shell to the websocket.
+ *
+ * <p>
+ * Each invocation writes one {@value #PAYLOAD_BYTES} byte payload and flushes, and counts as one
+ * operation per byte: the score is bytes per second and {@code gc.alloc.rate.norm} is the
+ * allocation per byte. The {@code frames} and {@code frameBytes} counters are rates on the same
+ * scale, so dividing them by the score gives websocket frames and encoded bytes per input byte.
+ * Writes that split a multi-byte UTF-8 character produce replacement characters, which shows up
+ * as {@code frameBytes} differing from the score.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncTextOutputStreamBenchmark {
+
+  /** The payload size written per invocation. */
+  public static final int PAYLOAD_BYTES = 4096;
+
+  /** The chunk size of small writes, like an interactive shell echoing a short line. */
+  public static final int CHUNK_BYTES = 16;
+
+  /** The payload content type. */
+  @Param({ TerminalPayloads.ASCII, TerminalPayloads.UTF8 })
+  public String content;
+
+  private CountingAsyncRemote remote;
+  private AsyncTextOutputStream out;
+  private byte[] payload;
+
+  /**
+   * Websocket frame counters, reported alongside the score.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Frames {
+
+    /** The number of websocket text frames sent. */
+    public long frames;
+
+    /** The number of UTF-8 bytes sent in websocket text frames. */
+    public long frameBytes;
+
+    /**
+     * Reset the counters.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+      frames = 0;
+      frameBytes = 0;
+    }
+
+    private void take(CountingAsyncRemote remote) {
+      frames += remote.getFrames();
+      frameBytes += remote.getBytes();
+      remote.reset();
+    }
+
+  }
+
+  /**
+   * Create the output stream and payload.
+   *
+   * @throws IOException
+   *         if the stream cannot be created
+   */
+  @Setup
+  public void setup() throws IOException {
+    remote = new CountingAsyncRemote();
+    out = new AsyncTextOutputStream(CountingAsyncRemote.session(remote, Collections.emptyMap()));
+    payload = TerminalPayloads.bytes(content, PAYLOAD_BYTES);
+  }
+
+  /**
+   * Write the payload one byte at a time, like a naive stream copy.
+   *
+   * @param frames
+   *        the frame counters
+   * @throws IOException
+   *         if a write fails
+   */
+  @Benchmark
+  @OperationsPerInvocation(PAYLOAD_BYTES)
+  public void writeByteAtATime(Frames frames) throws IOException {
+    for (byte b : payload) {
+      out.write(b);
+    }
+    out.flush();
+    frames.take(remote);
+  }
+
+  /**
+   * Write the payload in {@value #CHUNK_BYTES} byte chunks.
+   *
+   * @param frames
+   *        the frame counters
+   * @throws IOException
+   *         if a write fails
+   */
+  @Benchmark
+  @OperationsPerInvocation(PAYLOAD_BYTES)
+  public void writeSmallChunks(Frames frames) throws IOException {
+    for (int off = 0; off < payload.length; off += CHUNK_BYTES) {
+      out.write(payload, off, Math.min(CHUNK_BYTES, payload.length - off));
+    }
+    out.flush();
+    frames.take(remote);
+  }
+
+  /**
+   * Write the payload in one call, like an SSH channel delivering a full packet.
+   *
+   * @param frames
+   *        the frame counters
+   * @throws IOException
+   *         if a write fails
+   */
+  @Benchmark
+  @OperationsPerInvocation(PAYLOAD_BYTES)
+  public void writeBulk(Frames frames) throws IOException {
+    out.write(payload, 0, payload.length);
+    out.flush();
+    frames.take(remote);
+  }
+
+}
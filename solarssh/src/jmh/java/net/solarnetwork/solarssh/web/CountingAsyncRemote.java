@@ -0,0 +1,219 @@
+/* ==================================================================
+ * CountingAsyncRemote.java - 20/10/2026 1:05:17 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.web;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+
+/**
+ * {@link RemoteEndpoint.Async} that discards messages, counting the text frames and their UTF-8
+ * encoded bytes.
+ *
+ * <p>
+ * Counting does not allocate, so it does not distort allocation profiles.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class CountingAsyncRemote implements RemoteEndpoint.Async {
+
+  private static final Future<Void> DONE = CompletableFuture.completedFuture(null);
+
+  private boolean batchingAllowed;
+  private long sendTimeout;
+  private long frames;
+  private long bytes;
+  private long flushes;
+
+  /**
+   * Create a websocket session that uses a remote and offers request parameters.
+   *
+   * <p>
+   * Only {@code getAsyncRemote()}, {@code getRequestParameterMap()} and {@code getId()} return
+   * anything; every other method does nothing.
+   * </p>
+   *
+   * @param remote
+   *        the remote to use
+   * @param params
+   *        the request parameters
+   * @return the session
+   */
+  public static Session session(RemoteEndpoint.Async remote, Map<String, List<String>> params) {
+    return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+        new Class<?>[] { Session.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getAsyncRemote":
+              return remote;
+            case "getRequestParameterMap":
+              return params;
+            case "getId":
+              return "benchmark";
+            case "isOpen":
+              return true;
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            case "toString":
+              return "BenchmarkWebsocketSession";
+            default:
+              return null;
+          }
+        });
+  }
+
+  /**
+   * Get the number of text frames sent.
+   *
+   * @return the frame count
+   */
+  public long getFrames() {
+    return frames;
+  }
+
+  /**
+   * Get the number of UTF-8 bytes sent in text frames.
+   *
+   * @return the byte count
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Get the number of batch flushes.
+   *
+   * @return the flush count
+   */
+  public long getFlushes() {
+    return flushes;
+  }
+
+  /**
+   * Reset all counts to zero.
+   */
+  public void reset() {
+    frames = 0;
+    bytes = 0;
+    flushes = 0;
+  }
+
+  private void count(String text) {
+    frames++;
+    long len = 0;
+    for (int i = 0, n = text.length(); i < n; i++) {
+      char c = text.charAt(i);
+      if (c < 0x80) {
+        len++;
+      } else if (c < 0x800) {
+        len += 2;
+      } else if (Character.isHighSurrogate(c)) {
+        // the low surrogate follows; the pair encodes as 4 bytes
+        len += 4;
+        i++;
+      } else {
+        len += 3;
+      }
+    }
+    bytes += len;
+  }
+
+  @Override
+  public void setBatchingAllowed(boolean allowed) {
+    this.batchingAllowed = allowed;
+  }
+
+  @Override
+  public boolean getBatchingAllowed() {
+    return batchingAllowed;
+  }
+
+  @Override
+  public void flushBatch() {
+    flushes++;
+  }
+
+  @Override
+  public void sendPing(ByteBuffer applicationData) {
+    // ignore
+  }
+
+  @Override
+  public void sendPong(ByteBuffer applicationData) {
+    // ignore
+  }
+
+  @Override
+  public long getSendTimeout() {
+    return sendTimeout;
+  }
+
+  @Override
+  public void setSendTimeout(long timeoutmillis) {
+    this.sendTimeout = timeoutmillis;
+  }
+
+  @Override
+  public void sendText(String text, SendHandler handler) {
+    count(text);
+    handler.onResult(new SendResult());
+  }
+
+  @Override
+  public Future<Void> sendText(String text) {
+    count(text);
+    return DONE;
+  }
+
+  @Override
+  public Future<Void> sendBinary(ByteBuffer data) {
+    return DONE;
+  }
+
+  @Override
+  public void sendBinary(ByteBuffer data, SendHandler handler) {
+    handler.onResult(new SendResult());
+  }
+
+  @Override
+  public Future<Void> sendObject(Object data) {
+    return DONE;
+  }
+
+  @Override
+  public void sendObject(Object data, SendHandler handler) {
+    handler.onResult(new SendResult());
+  }
+
+}
@@ -0,0 +1,175 @@
+/* ==================================================================
+ * SolarSshEndpointBenchmark.java - 20/10/2026 1:52:44 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.web;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.solarnetwork.solarssh.domain.SshSession;
+import net.solarnetwork.solarssh.service.SolarSshService;
+
+/**
+ * Terminal input through {@link SolarSshEndpoint}, from websocket text messages to the node shell
+ * input stream.
+ *
+ * <p>
+ * The endpoint is attached to a stub service that hands the shell input stream to a drain thread,
+ * standing in for the SSH channel. Each invocation sends {@value #PAYLOAD_BYTES} bytes as messages
+ * of {@code messageBytes} bytes and counts as one operation per byte, so the score is bytes per
+ * second and {@code gc.alloc.rate.norm} is the allocation per byte. One byte messages are
+ * keystrokes, and are always ASCII. Output from the shell goes through
+ * {@link AsyncTextOutputStream}, measured by {@link AsyncTextOutputStreamBenchmark}.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolarSshEndpointBenchmark {
+
+  /** The bytes sent per invocation. */
+  public static final int PAYLOAD_BYTES = 4096;
+
+  private static final String SESSION_ID = "benchmark";
+
+  private static final String ATTACH_MESSAGE = "{\"cmd\":\"attach-ssh\",\"data\":{"
+      + "\"authorization\":\"SNWS2 Credential=benchmark\",\"authorization-date\":1,"
+      + "\"username\":\"solar\",\"password\":\"solar\"}}";
+
+  /** The size of each message, in bytes. */
+  @Param({ "1", "64", "4096" })
+  public int messageBytes;
+
+  /** The message content type. */
+  @Param({ TerminalPayloads.ASCII, TerminalPayloads.UTF8 })
+  public String content;
+
+  private SolarSshEndpoint endpoint;
+  private String[] messages;
+  private InputStream shellInput;
+  private Thread drain;
+
+  /**
+   * Attach the endpoint and start draining the shell input.
+   *
+   * @throws IOException
+   *         if the endpoint does not attach
+   */
+  @Setup
+  public void setup() throws IOException {
+    final SshSession sess = new SshSession(System.currentTimeMillis(), SESSION_ID, 1L,
+        "localhost", 8022, 50000, 50001);
+    final AtomicReference<InputStream> in = new AtomicReference<>();
+    SolarSshService service = (SolarSshService) Proxy.newProxyInstance(
+        SolarSshService.class.getClassLoader(), new Class<?>[] { SolarSshService.class },
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "findOne":
+              return sess;
+            case "attachTerminal":
+              in.set((InputStream) args[5]);
+              return sess;
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+
+    endpoint = new SolarSshEndpoint(service);
+    endpoint.onOpen(CountingAsyncRemote.session(new CountingAsyncRemote(),
+        singletonMap("sessionId", singletonList(SESSION_ID))), null);
+    endpoint.onMessage(ATTACH_MESSAGE);
+    shellInput = in.get();
+    if (shellInput == null) {
+      throw new IOException("Endpoint did not attach.");
+    }
+
+    messages = new String[PAYLOAD_BYTES / messageBytes];
+    for (int i = 0; i < messages.length; i++) {
+      messages[i] = TerminalPayloads.text(content, messageBytes);
+    }
+
+    drain = new Thread(() -> {
+      byte[] buf = new byte[8192];
+      try {
+        while (shellInput.read(buf) >= 0) {
+          // discard
+        }
+      } catch (IOException e) {
+        // closed at tear down
+      }
+    }, "ShellInputDrain");
+    drain.setDaemon(true);
+    drain.start();
+  }
+
+  /**
+   * Stop draining the shell input.
+   *
+   * @throws Exception
+   *         if any error occurs
+   */
+  @TearDown
+  public void tearDown() throws Exception {
+    shellInput.close();
+    // a blocked pipe read only notices the close once the writing thread ends
+    drain.interrupt();
+    drain.join(TimeUnit.SECONDS.toMillis(5));
+  }
+
+  /**
+   * Send terminal input messages.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PAYLOAD_BYTES)
+  public void terminalInput() {
+    for (String msg : messages) {
+      endpoint.onMessage(msg);
+    }
+  }
+
+}
@@ -0,0 +1,111 @@
+/* ==================================================================
+ * TerminalPayloads.java - 20/10/2026 1:14:52 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.web;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Terminal-like text payloads for benchmarks.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public final class TerminalPayloads {
+
+  /** Plain ASCII content, like a directory listing. */
+  public static final String ASCII = "ascii";
+
+  /** Content with 2, 3 and 4 byte UTF-8 characters, like a styled prompt or TUI borders. */
+  public static final String UTF8 = "utf8";
+
+  private static final String ASCII_LINE = "-rw-r--r-- 1 solar solar  4096 Oct 20 13:14 "
+      + "solarnode.log\r\n";
+
+  // box drawing, accented text, symbols and an emoji
+  private static final String UTF8_LINE = "\u250C\u2500 solar@node \u2500\u2510 "
+      + "Temp\u00E9rature 21.5\u00B0C \u26A1 \uD83D\uDD0B 98%\r\n";
+
+  private TerminalPayloads() {
+    // not available
+  }
+
+  /**
+   * Create a payload of exactly {@code size} UTF-8 bytes.
+   *
+   * <p>
+   * Characters are never split; when the next character would not fit the payload is padded with
+   * spaces.
+   * </p>
+   *
+   * @param content
+   *        either {@link #ASCII} or {@link #UTF8}
+   * @param size
+   *        the payload size, in bytes
+   * @return the payload text
+   * @throws IllegalArgumentException
+   *         if {@code content} is not supported
+   */
+  public static String text(String content, int size) {
+    final String line;
+    if (ASCII.equals(content)) {
+      line = ASCII_LINE;
+    } else if (UTF8.equals(content)) {
+      line = UTF8_LINE;
+    } else {
+      throw new IllegalArgumentException("Unsupported content [" + content + "]");
+    }
+    StringBuilder buf = new StringBuilder(size);
+    int len = 0;
+    int i = 0;
+    while (len < size) {
+      int cp = line.codePointAt(i);
+      int cpLen = new String(Character.toChars(cp)).getBytes(UTF_8).length;
+      if (len + cpLen > size) {
+        buf.append(' ');
+        len++;
+        continue;
+      }
+      buf.appendCodePoint(cp);
+      len += cpLen;
+      i = (i + Character.charCount(cp)) % line.length();
+    }
+    return buf.toString();
+  }
+
+  /**
+   * Create a payload of exactly {@code size} UTF-8 bytes.
+   *
+   * @param content
+   *        either {@link #ASCII} or {@link #UTF8}
+   * @param size
+   *        the payload size, in bytes
+   * @return the payload bytes
+   * @throws IllegalArgumentException
+   *         if {@code content} is not supported
+   * @see #text(String, int)
+   */
+  public static byte[] bytes(String content, int size) {
+    return text(content, size).getBytes(UTF_8);
+  }
+
+}
@@ -0,0 +1,150 @@
+/* ==================================================================
+ * DirectSshUser.java - 20/10/2026 9:46:11 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.load;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.channel.ChannelShell;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.util.net.SshdSocketAddress;
+
+/**
+ * A user that logs in to a node through the SolarSSH direct server, using it as a jump host.
+ *
+ * <p>
+ * This mirrors {@code ssh -J NODE:TOKEN@solarssh user@localhost}: the user authenticates to the
+ * direct server with the token secret as the password, which blocks until the node has opened its
+ * reverse tunnel, and then opens an SSH session to the node over a forwarded channel.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class DirectSshUser extends SimulatedUser {
+
+  private static final String LOOPBACK = "127.0.0.1";
+
+  private final SshClient client;
+  private final int directPort;
+
+  private ClientSession jumpSession;
+  private ClientSession nodeSession;
+  private ChannelShell shell;
+  private OutputStream toShell;
+  private InputStream fromShell;
+  private byte[] readBuffer;
+
+  /**
+   * Constructor.
+   *
+   * @param client
+   *        the SSH client to use, which must accept all forwarding
+   * @param directPort
+   *        the direct server port
+   * @param nodeId
+   *        the node to connect to
+   * @param tokenId
+   *        the token ID to authenticate with
+   * @param tokenSecret
+   *        the token secret
+   * @param settings
+   *        the settings
+   * @param metrics
+   *        the metrics to update
+   */
+  public DirectSshUser(SshClient client, int directPort, Long nodeId, String tokenId,
+      String tokenSecret, LoadSettings settings, LoadMetrics metrics) {
+    super(nodeId, tokenId, tokenSecret, settings, metrics);
+    this.client = client;
+    this.directPort = directPort;
+  }
+
+  @Override
+  protected void connect() throws Exception {
+    final long start = System.currentTimeMillis();
+    jumpSession = client.connect(nodeId + ":" + tokenId, LOOPBACK, directPort)
+        .verify(STEP_TIMEOUT).getSession();
+    jumpSession.addPasswordIdentity(tokenSecret);
+    final long authStart = System.currentTimeMillis();
+    jumpSession.auth().verify(STEP_TIMEOUT);
+    metrics.recordLatency(LoadMetrics.DIRECT_LOGIN, System.currentTimeMillis() - authStart);
+
+    // the direct server forces every direct-tcpip channel to the session's reverse port
+    SshdSocketAddress local = jumpSession.startLocalPortForwarding(
+        new SshdSocketAddress(LOOPBACK, 0), new SshdSocketAddress(LOOPBACK, 22));
+    nodeSession = client.connect(NODE_USERNAME, LOOPBACK, local.getPort()).verify(STEP_TIMEOUT)
+        .getSession();
+    nodeSession.addPasswordIdentity(NODE_PASSWORD);
+    nodeSession.auth().verify(STEP_TIMEOUT);
+
+    shell = nodeSession.createShellChannel();
+    shell.setUsePty(false);
+    shell.open().verify(STEP_TIMEOUT);
+    toShell = shell.getInvertedIn();
+    fromShell = shell.getInvertedOut();
+    metrics.recordLatency(LoadMetrics.DIRECT_SETUP, System.currentTimeMillis() - start);
+  }
+
+  @Override
+  protected void echo(String message) throws IOException {
+    byte[] data = message.getBytes(StandardCharsets.US_ASCII);
+    if (readBuffer == null || readBuffer.length < data.length) {
+      readBuffer = new byte[data.length];
+    }
+    toShell.write(data);
+    toShell.flush();
+    int read = 0;
+    while (read < data.length) {
+      int len = fromShell.read(readBuffer, read, data.length - read);
+      if (len < 0) {
+        throw new EOFException("Shell closed.");
+      }
+      read += len;
+    }
+  }
+
+  @Override
+  protected void disconnect() {
+    if (shell != null) {
+      shell.close(true);
+      shell = null;
+    }
+    if (nodeSession != null) {
+      nodeSession.close(true);
+      nodeSession = null;
+    }
+    if (jumpSession != null) {
+      // closing the direct session makes SolarSSH stop the node's reverse tunnel
+      jumpSession.close(false);
+      jumpSession = null;
+    }
+    toShell = null;
+    fromShell = null;
+  }
+
+}
@@ -0,0 +1,101 @@
+/* ==================================================================
+ * LoadActorDao.java - 20/10/2026 8:41:15 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.load;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.solarnetwork.solarssh.dao.ActorDao;
+import net.solarnetwork.solarssh.domain.Actor;
+import net.solarnetwork.solarssh.domain.ActorDetails;
+
+/**
+ * In-memory {@link ActorDao}, standing in for the SolarNet database during load tests.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class LoadActorDao implements ActorDao {
+
+  private final ConcurrentMap<String, Token> tokens = new ConcurrentHashMap<>(64);
+  private long latencyMillis;
+
+  private static final class Token {
+
+    private final String secret;
+    private final Actor actor;
+
+    private Token(String secret, Actor actor) {
+      super();
+      this.secret = secret;
+      this.actor = actor;
+    }
+
+  }
+
+  /**
+   * Add a token.
+   *
+   * @param tokenId
+   *        the token ID
+   * @param secret
+   *        the token secret
+   * @param userId
+   *        the user that owns the token
+   * @param nodeIds
+   *        the nodes the token is allowed to access
+   */
+  public void addToken(String tokenId, String secret, Long userId, Set<Long> nodeIds) {
+    tokens.put(tokenId, new Token(secret, new ActorDetails(tokenId, userId, null, nodeIds)));
+  }
+
+  @Override
+  public Actor getAuthenticatedActor(Long nodeId, String tokenId, String tokenSecret) {
+    if (latencyMillis > 0) {
+      try {
+        Thread.sleep(latencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+    Token token = tokens.get(tokenId);
+    if (token == null || !token.secret.equals(tokenSecret)) {
+      return null;
+    }
+    Actor actor = token.actor;
+    return (actor.getAllowedNodeIds().contains(nodeId) ? actor : null);
+  }
+
+  /**
+   * Set the simulated query latency.
+   *
+   * @param latencyMillis
+   *        the time each lookup takes, in milliseconds; defaults to {@literal 0}
+   */
+  public void setLatencyMillis(long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+}
@@ -0,0 +1,352 @@
+/* ==================================================================
+ * LoadHarness.java - 20/10/2026 10:31:52 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.load;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.config.hosts.HostConfigEntryResolver;
+import org.apache.sshd.client.keyverifier.AcceptAllServerKeyVerifier;
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyEncryptionContext;
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyPairResourceWriter;
+import org.apache.sshd.common.keyprovider.KeyIdentityProvider;
+import org.apache.sshd.server.forward.AcceptAllForwardingFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.SolarSshApp;
+import net.solarnetwork.solarssh.dao.ActorDao;
+import net.solarnetwork.solarssh.test.FakeSolarNetServer;
+import net.solarnetwork.solarssh.test.SimulatedNode;
+
+/**
+ * End-to-end load harness that runs SolarSSH against simulated nodes and users.
+ *
+ * <p>
+ * The harness starts, in one JVM:
+ * </p>
+ *
+ * <ol>
+ * <li>a {@link FakeSolarNetServer} standing in for the SolarNet API</li>
+ * <li>a {@link NodeSshServer} that every node tunnel leads to</li>
+ * <li>{@code nodes} {@link SimulatedNode} instances that open reverse tunnels when asked</li>
+ * <li>the SolarSSH application itself, with a {@link LoadActorDao} in place of the database</li>
+ * <li>{@link DirectSshUser} and {@link TerminalUser} instances that repeatedly log in to nodes
+ * and echo data through them</li>
+ * </ol>
+ *
+ * <p>
+ * Run it with {@code ./gradlew loadTest -Pload.nodes=100 -Pload.directUsers=50 ...}; see
+ * {@link LoadSettings} for the available settings. Any {@code load.app.}-prefixed property is
+ * passed to the application with the prefix removed, for example
+ * {@code -Pload.app.solarnet.client.async=false}. Every {@code reportSeconds} a sample of connected
+ * users, open tunnels, login and byte rates, failures, thread count and heap use is logged; a
+ * summary with latency percentiles is logged at the end, and written to {@code reportFile} if
+ * configured. The thread and heap figures include the simulators, so compare runs against each
+ * other rather than reading them as absolute server costs.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+public final class LoadHarness {
+
+  /** The prefix of properties passed through to the application. */
+  public static final String APP_PROPERTY_PREFIX = LoadSettings.PROPERTY_PREFIX + "app.";
+
+  private static final Logger log = LoggerFactory.getLogger(LoadHarness.class);
+
+  private LoadHarness() {
+    // not available
+  }
+
+  /**
+   * Run the harness.
+   *
+   * @param args
+   *        ignored; settings are read from system properties
+   * @throws Exception
+   *         if any error occurs
+   */
+  public static void main(String[] args) throws Exception {
+    final LoadSettings settings = LoadSettings.fromProperties(System.getProperties());
+    final int userCount = settings.getDirectUsers() + settings.getTerminalUsers();
+    if (settings.getNodes() < userCount) {
+      log.warn("Only {} nodes for {} users: users sharing a node will wait on each other",
+          settings.getNodes(), userCount);
+    }
+    final Path workDir = Files.createTempDirectory("solarssh-load-");
+    final LoadMetrics metrics = new LoadMetrics();
+    final List<SimulatedNode> nodes = new ArrayList<>(settings.getNodes());
+    final List<SimulatedUser> users = new ArrayList<>(userCount);
+    final List<Thread> userThreads = new ArrayList<>(userCount);
+
+    try (FakeSolarNetServer solarNet = new FakeSolarNetServer();
+        NodeSshServer nodeServer = new NodeSshServer(SimulatedUser.NODE_USERNAME,
+            SimulatedUser.NODE_PASSWORD)) {
+      solarNet.setLatencyMillis(settings.getSolarNetLatencyMillis());
+      solarNet.setLatencyJitterMillis(settings.getSolarNetJitterMillis());
+      solarNet.setErrorRate(settings.getSolarNetErrorRate());
+      solarNet.setCompletionDelayMillis(settings.getInstructionCompletionMillis());
+      solarNet.start();
+      nodeServer.start();
+
+      final Set<Long> nodeIds = new HashSet<>(settings.getNodes());
+      for (int i = 1; i <= settings.getNodes(); i++) {
+        SimulatedNode node = new SimulatedNode((long) i);
+        node.setSshTarget(nodeServer.getAddress());
+        node.setHttpTarget(nodeServer.getAddress());
+        node.start(solarNet);
+        solarNet.setNodeMetadata(node.getNodeId(), new GeneralDatumMetadata());
+        nodes.add(node);
+        nodeIds.add(node.getNodeId());
+      }
+
+      final LoadActorDao actorDao = new LoadActorDao();
+      actorDao.setLatencyMillis(settings.getActorDaoLatencyMillis());
+      final Map<String, String> tokens = new LinkedHashMap<>(userCount);
+      for (int i = 0; i < userCount; i++) {
+        String tokenId = String.format("load-%05d", i);
+        String secret = UUID.randomUUID().toString();
+        actorDao.addToken(tokenId, secret, (long) (i + 1), nodeIds);
+        tokens.put(tokenId, secret);
+      }
+
+      final int directPort = freePort();
+      try (ConfigurableApplicationContext app = startApp(solarNet, actorDao, workDir, directPort,
+          appProperties())) {
+        final int webPort = ((WebServerApplicationContext) app).getWebServer().getPort();
+        final String webBaseUrl = "http://127.0.0.1:" + webPort;
+        log.info("SolarSSH started: web port {}, direct SSH port {}", webPort, directPort);
+
+        final SshClient client = SshClient.setUpDefaultClient();
+        client.setServerKeyVerifier(AcceptAllServerKeyVerifier.INSTANCE);
+        client.setForwardingFilter(AcceptAllForwardingFilter.INSTANCE);
+        client.setHostConfigEntryResolver(HostConfigEntryResolver.EMPTY);
+        client.setKeyIdentityProvider(KeyIdentityProvider.EMPTY_KEYS_PROVIDER);
+        client.start();
+        final HttpClient http = HttpClient.newBuilder().build();
+        try {
+          int i = 0;
+          for (Map.Entry<String, String> token : tokens.entrySet()) {
+            Long nodeId = (long) ((i % settings.getNodes()) + 1);
+            users.add(i < settings.getDirectUsers()
+                ? new DirectSshUser(client, directPort, nodeId, token.getKey(), token.getValue(),
+                    settings, metrics)
+                : new TerminalUser(http, webBaseUrl, solarNet, nodeId, token.getKey(),
+                    token.getValue(), settings, metrics));
+            i++;
+          }
+          runUsers(settings, metrics, nodes, users, userThreads);
+        } finally {
+          for (SimulatedUser user : users) {
+            user.stop();
+          }
+          for (Thread t : userThreads) {
+            t.join(SimulatedUser.STEP_TIMEOUT.toMillis());
+          }
+          client.stop();
+          http.close();
+        }
+      }
+    } finally {
+      for (SimulatedNode node : nodes) {
+        node.close();
+      }
+    }
+
+    report(settings, metrics);
+  }
+
+  private static void runUsers(LoadSettings settings, LoadMetrics metrics,
+      List<SimulatedNode> nodes, List<SimulatedUser> users, List<Thread> userThreads)
+      throws InterruptedException {
+    final long rampMillis = TimeUnit.SECONDS.toMillis(settings.getRampSeconds());
+    final long reportMillis = TimeUnit.SECONDS.toMillis(settings.getReportSeconds());
+    final long start = System.currentTimeMillis();
+    final long end = start + rampMillis
+        + TimeUnit.SECONDS.toMillis(settings.getDurationSeconds());
+    long nextReport = start + reportMillis;
+    int started = 0;
+    while (true) {
+      final long now = System.currentTimeMillis();
+      if (now >= end) {
+        break;
+      }
+      // spread user start times evenly over the ramp
+      while (started < users.size() && (rampMillis < 1
+          || (now - start) * users.size() >= started * rampMillis)) {
+        SimulatedUser user = users.get(started);
+        userThreads.add(Thread.ofVirtual().name("LoadUser-" + started).start(user));
+        started++;
+      }
+      if (now >= nextReport) {
+        log.info("Load sample: {}", metrics.sample(openTunnels(nodes)));
+        nextReport += reportMillis;
+      }
+      Thread.sleep(Math.min(100, end - now));
+    }
+    log.info("Load sample: {}", metrics.sample(openTunnels(nodes)));
+  }
+
+  private static int openTunnels(List<SimulatedNode> nodes) {
+    int result = 0;
+    for (SimulatedNode node : nodes) {
+      result += node.getOpenTunnelCount();
+    }
+    return result;
+  }
+
+  private static Map<String, String> appProperties() {
+    Map<String, String> props = new LinkedHashMap<>(8);
+    for (String name : System.getProperties().stringPropertyNames()) {
+      if (name.startsWith(APP_PROPERTY_PREFIX)) {
+        props.put(name.substring(APP_PROPERTY_PREFIX.length()), System.getProperty(name));
+      }
+    }
+    return props;
+  }
+
+  /**
+   * Start the SolarSSH application.
+   *
+   * <p>
+   * The application listens for HTTP on a random port, uses a new server key in {@code workDir},
+   * effectively has no rate limits, and uses {@code actorDao} in place of the database.
+   * </p>
+   *
+   * @param solarNet
+   *        the SolarNet stand-in
+   * @param actorDao
+   *        the DAO to authenticate tokens with
+   * @param workDir
+   *        the directory for the server key and caches
+   * @param directPort
+   *        the direct SSH port
+   * @param appProps
+   *        additional application properties, which override the defaults
+   * @return the application context
+   * @throws IOException
+   *         if the server key cannot be created
+   */
+  static ConfigurableApplicationContext startApp(FakeSolarNetServer solarNet, ActorDao actorDao,
+      Path workDir, int directPort, Map<String, String> appProps) throws IOException {
+    final Path keyFile = workDir.resolve("sshd-server-key");
+    writeServerKey(keyFile);
+    final Path cacheDir = Files.createDirectories(workDir.resolve("cache"));
+
+    Map<String, String> props = new LinkedHashMap<>(32);
+    props.put("server.port", "0");
+    props.put("ssh.host", "127.0.0.1");
+    props.put("ssh.port", String.valueOf(freePort()));
+    props.put("ssh.direct.port", String.valueOf(directPort));
+    props.put("ssh.keyResource", keyFile.toUri().toString());
+    props.put("ssh.keyPassword", "");
+    props.put("solarnet.baseUrl", solarNet.getBaseUrl());
+    props.put("app.cache.persistence.path", cacheDir.toString());
+    for (String type : new String[] { "address", "token", "node" }) {
+      props.put("ssh.rateLimit." + type + ".perMinute", "1000000");
+      props.put("ssh.rateLimit." + type + ".burst", "1000000");
+    }
+    props.putAll(appProps);
+
+    List<String> args = new ArrayList<>(props.size());
+    for (Map.Entry<String, String> e : props.entrySet()) {
+      args.add("--" + e.getKey() + "=" + e.getValue());
+    }
+
+    SpringApplication app = new SpringApplication(SolarSshApp.class);
+    app.addInitializers(ctx -> ((GenericApplicationContext) ctx).registerBean("loadActorDao",
+        ActorDao.class, () -> actorDao, bd -> bd.setPrimary(true)));
+    return app.run(args.toArray(String[]::new));
+  }
+
+  private static void writeServerKey(Path keyFile) throws IOException {
+    KeyPair keyPair;
+    try {
+      KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC");
+      keyGen.initialize(256);
+      keyPair = keyGen.generateKeyPair();
+    } catch (GeneralSecurityException e) {
+      throw new IOException("Error generating server key: " + e.getMessage(), e);
+    }
+    try (OutputStream out = Files.newOutputStream(keyFile)) {
+      OpenSSHKeyPairResourceWriter.INSTANCE.writePrivateKey(keyPair, "solarssh-load",
+          (OpenSSHKeyEncryptionContext) null, out);
+    } catch (GeneralSecurityException e) {
+      throw new IOException("Error writing server key: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Find a free local port.
+   *
+   * @return the port
+   * @throws IOException
+   *         if no port is available
+   */
+  static int freePort() throws IOException {
+    try (ServerSocket s = new ServerSocket(0)) {
+      return s.getLocalPort();
+    }
+  }
+
+  private static void report(LoadSettings settings, LoadMetrics metrics) throws IOException {
+    Map<String, Object> report = new LinkedHashMap<>(2);
+    report.put("settings", settings.toMap());
+    report.put("results", metrics.summary());
+    ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    String json = mapper.writeValueAsString(report);
+    log.info("Load test complete:\n{}", json);
+    if (settings.getReportFile() != null && !settings.getReportFile().isEmpty()) {
+      Files.writeString(Paths.get(settings.getReportFile()), json);
+      log.info("Load report written to {}", settings.getReportFile());
+    }
+  }
+
+}
@@ -0,0 +1,168 @@
+/* ==================================================================
+ * LoadMetrics.java - 20/10/2026 9:17:52 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.solarnetwork.solarssh.impl.LatencyHistogram;
+
+/**
+ * Metrics collected during a load run.
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class LoadMetrics {
+
+  /** The latency from starting a direct connection to a node shell being open. */
+  public static final String DIRECT_SETUP = "directSetup";
+
+  /** The latency of direct server password authentication, which waits for the tunnel. */
+  public static final String DIRECT_LOGIN = "directLogin";
+
+  /** The latency from requesting a new session to a WebSocket terminal being attached. */
+  public static final String TERMINAL_SETUP = "terminalSetup";
+
+  /** The latency from requesting a new session to the node accepting HTTP proxy requests. */
+  public static final String PROXY_SETUP = "proxySetup";
+
+  /** The latency of one message echoed through a tunnel. */
+  public static final String ECHO = "echo";
+
+  private final ConcurrentMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>(8);
+  private final LongAdder logins = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder bytes = new LongAdder();
+  private final AtomicInteger connected = new AtomicInteger();
+  private final List<Map<String, Object>> samples = new ArrayList<>(64);
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+  private final long started = System.currentTimeMillis();
+
+  private long lastSampleTime = started;
+  private long lastLogins;
+  private long lastBytes;
+
+  /**
+   * Record a latency sample.
+   *
+   * @param name
+   *        the latency name, for example {@link #DIRECT_SETUP}
+   * @param millis
+   *        the latency, in milliseconds
+   */
+  public void recordLatency(String name, long millis) {
+    latencies.computeIfAbsent(name, k -> new LatencyHistogram()).record(millis);
+  }
+
+  /**
+   * Record a successful login, after which the user is connected.
+   */
+  public void loginSucceeded() {
+    logins.increment();
+    connected.incrementAndGet();
+  }
+
+  /**
+   * Record a disconnection following a successful login.
+   */
+  public void disconnected() {
+    connected.decrementAndGet();
+  }
+
+  /**
+   * Record a failed session setup or a session that ended with an error.
+   */
+  public void failed() {
+    failures.increment();
+  }
+
+  /**
+   * Record terminal bytes echoed back to a user.
+   *
+   * @param count
+   *        the number of bytes
+   */
+  public void bytesEchoed(long count) {
+    bytes.add(count);
+  }
+
+  /**
+   * Take a sample of the rates since the previous sample and the current JVM state.
+   *
+   * @param openTunnels
+   *        the number of reverse tunnels currently open
+   * @return the sample
+   */
+  public synchronized Map<String, Object> sample(int openTunnels) {
+    final long now = System.currentTimeMillis();
+    final double secs = Math.max(1, now - lastSampleTime) / 1000.0;
+    final long totalLogins = logins.sum();
+    final long totalBytes = bytes.sum();
+    Map<String, Object> s = new LinkedHashMap<>(12);
+    s.put("elapsed", (now - started) / 1000);
+    s.put("connected", connected.get());
+    s.put("tunnels", openTunnels);
+    s.put("loginsPerSec", Math.round((totalLogins - lastLogins) / secs * 10) / 10.0);
+    s.put("bytesPerSec", Math.round((totalBytes - lastBytes) / secs));
+    s.put("failures", failures.sum());
+    s.put("threads", threads.getThreadCount());
+    s.put("heapUsedMb", memory.getHeapMemoryUsage().getUsed() / (1024 * 1024));
+    lastSampleTime = now;
+    lastLogins = totalLogins;
+    lastBytes = totalBytes;
+    samples.add(s);
+    return s;
+  }
+
+  /**
+   * Get a summary of the whole run.
+   *
+   * @return the summary, including all samples taken
+   */
+  public synchronized Map<String, Object> summary() {
+    final double secs = Math.max(1, System.currentTimeMillis() - started) / 1000.0;
+    Map<String, Object> result = new LinkedHashMap<>(8);
+    result.put("logins", logins.sum());
+    result.put("loginsPerSec", Math.round(logins.sum() / secs * 10) / 10.0);
+    result.put("failures", failures.sum());
+    result.put("bytesPerSec", Math.round(bytes.sum() / secs));
+    result.put("peakThreads", threads.getPeakThreadCount());
+    Map<String, Object> lat = new LinkedHashMap<>(latencies.size());
+    latencies.forEach((k, v) -> lat.put(k, v.summary()));
+    result.put("latencies", lat);
+    result.put("samples", new ArrayList<>(samples));
+    return result;
+  }
+
+}
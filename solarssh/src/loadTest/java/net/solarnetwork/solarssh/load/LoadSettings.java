@@ -0,0 +1,265 @@
+/* ==================================================================
+ * LoadSettings.java - 20/10/2026 9:03:27 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.load;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Load harness settings.
+ *
+ * <p>
+ * Every setting is read from a {@code load.}-prefixed property, for example {@code load.nodes}.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class LoadSettings {
+
+  /** The property name prefix. */
+  public static final String PROPERTY_PREFIX = "load.";
+
+  private int nodes = 10;
+  private int directUsers = 5;
+  private int terminalUsers = 5;
+  private int durationSeconds = 60;
+  private int rampSeconds = 10;
+  private int reportSeconds = 5;
+  private int payloadBytes = 1024;
+  private int messagesPerSession = 100;
+  private long thinkMillis = 0;
+  private long solarNetLatencyMillis = 20;
+  private long solarNetJitterMillis = 10;
+  private double solarNetErrorRate = 0;
+  private long instructionCompletionMillis = 500;
+  private long actorDaoLatencyMillis = 2;
+  private String reportFile;
+
+  /**
+   * Create settings from properties.
+   *
+   * @param props
+   *        the properties, for example {@link System#getProperties()}
+   * @return the settings
+   * @throws IllegalArgumentException
+   *         if a property value is not valid
+   */
+  public static LoadSettings fromProperties(Properties props) {
+    LoadSettings s = new LoadSettings();
+    s.nodes = intProp(props, "nodes", s.nodes);
+    s.directUsers = intProp(props, "directUsers", s.directUsers);
+    s.terminalUsers = intProp(props, "terminalUsers", s.terminalUsers);
+    s.durationSeconds = intProp(props, "durationSeconds", s.durationSeconds);
+    s.rampSeconds = intProp(props, "rampSeconds", s.rampSeconds);
+    s.reportSeconds = intProp(props, "reportSeconds", s.reportSeconds);
+    s.payloadBytes = intProp(props, "payloadBytes", s.payloadBytes);
+    s.messagesPerSession = intProp(props, "messagesPerSession", s.messagesPerSession);
+    s.thinkMillis = longProp(props, "thinkMs", s.thinkMillis);
+    s.solarNetLatencyMillis = longProp(props, "solarnet.latencyMs", s.solarNetLatencyMillis);
+    s.solarNetJitterMillis = longProp(props, "solarnet.jitterMs", s.solarNetJitterMillis);
+    s.solarNetErrorRate = Double.parseDouble(props.getProperty(
+        PROPERTY_PREFIX + "solarnet.errorRate", String.valueOf(s.solarNetErrorRate)));
+    s.instructionCompletionMillis = longProp(props, "solarnet.completionMs",
+        s.instructionCompletionMillis);
+    s.actorDaoLatencyMillis = longProp(props, "actorDao.latencyMs", s.actorDaoLatencyMillis);
+    s.reportFile = props.getProperty(PROPERTY_PREFIX + "reportFile");
+    if (s.nodes < 1) {
+      throw new IllegalArgumentException("At least one node is required.");
+    }
+    if (s.reportSeconds < 1) {
+      throw new IllegalArgumentException("The report interval must be at least 1 second.");
+    }
+    return s;
+  }
+
+  private static int intProp(Properties props, String name, int defaultValue) {
+    return Integer.parseInt(props.getProperty(PROPERTY_PREFIX + name,
+        String.valueOf(defaultValue)));
+  }
+
+  private static long longProp(Properties props, String name, long defaultValue) {
+    return Long.parseLong(props.getProperty(PROPERTY_PREFIX + name,
+        String.valueOf(defaultValue)));
+  }
+
+  /**
+   * Get the settings as a map, suitable for reporting.
+   *
+   * @return the settings
+   */
+  public Map<String, Object> toMap() {
+    Map<String, Object> result = new LinkedHashMap<>(16);
+    result.put("nodes", nodes);
+    result.put("directUsers", directUsers);
+    result.put("terminalUsers", terminalUsers);
+    result.put("durationSeconds", durationSeconds);
+    result.put("rampSeconds", rampSeconds);
+    result.put("payloadBytes", payloadBytes);
+    result.put("messagesPerSession", messagesPerSession);
+    result.put("thinkMs", thinkMillis);
+    result.put("solarNetLatencyMs", solarNetLatencyMillis);
+    result.put("solarNetJitterMs", solarNetJitterMillis);
+    result.put("solarNetErrorRate", solarNetErrorRate);
+    result.put("instructionCompletionMs", instructionCompletionMillis);
+    result.put("actorDaoLatencyMs", actorDaoLatencyMillis);
+    return result;
+  }
+
+  /**
+   * Get the number of simulated nodes.
+   *
+   * @return the node count; defaults to {@literal 10}
+   */
+  public int getNodes() {
+    return nodes;
+  }
+
+  /**
+   * Get the number of simulated users connecting through the direct SSH server.
+   *
+   * @return the user count; defaults to {@literal 5}
+   */
+  public int getDirectUsers() {
+    return directUsers;
+  }
+
+  /**
+   * Get the number of simulated users connecting through the WebSocket terminal.
+   *
+   * @return the user count; defaults to {@literal 5}
+   */
+  public int getTerminalUsers() {
+    return terminalUsers;
+  }
+
+  /**
+   * Get the test duration, after ramp up.
+   *
+   * @return the duration, in seconds; defaults to {@literal 60}
+   */
+  public int getDurationSeconds() {
+    return durationSeconds;
+  }
+
+  /**
+   * Get the ramp up time, over which user start times are spread.
+   *
+   * @return the ramp time, in seconds; defaults to {@literal 10}
+   */
+  public int getRampSeconds() {
+    return rampSeconds;
+  }
+
+  /**
+   * Get the report interval.
+   *
+   * @return the interval, in seconds; defaults to {@literal 5}
+   */
+  public int getReportSeconds() {
+    return reportSeconds;
+  }
+
+  /**
+   * Get the size of each terminal message.
+   *
+   * @return the size, in bytes; defaults to {@literal 1024}
+   */
+  public int getPayloadBytes() {
+    return payloadBytes;
+  }
+
+  /**
+   * Get the number of messages each user echoes before disconnecting and logging in again.
+   *
+   * @return the message count; defaults to {@literal 100}
+   */
+  public int getMessagesPerSession() {
+    return messagesPerSession;
+  }
+
+  /**
+   * Get the pause between messages.
+   *
+   * @return the pause, in milliseconds; defaults to {@literal 0}
+   */
+  public long getThinkMillis() {
+    return thinkMillis;
+  }
+
+  /**
+   * Get the fixed SolarNet response latency.
+   *
+   * @return the latency, in milliseconds; defaults to {@literal 20}
+   */
+  public long getSolarNetLatencyMillis() {
+    return solarNetLatencyMillis;
+  }
+
+  /**
+   * Get the random SolarNet response latency.
+   *
+   * @return the maximum jitter, in milliseconds; defaults to {@literal 10}
+   */
+  public long getSolarNetJitterMillis() {
+    return solarNetJitterMillis;
+  }
+
+  /**
+   * Get the SolarNet error rate.
+   *
+   * @return the fraction of SolarNet requests that fail; defaults to {@literal 0}
+   */
+  public double getSolarNetErrorRate() {
+    return solarNetErrorRate;
+  }
+
+  /**
+   * Get the time SolarNet takes to hand a queued instruction to its node.
+   *
+   * @return the delay, in milliseconds; defaults to {@literal 500}
+   */
+  public long getInstructionCompletionMillis() {
+    return instructionCompletionMillis;
+  }
+
+  /**
+   * Get the simulated actor lookup latency.
+   *
+   * @return the latency, in milliseconds; defaults to {@literal 2}
+   */
+  public long getActorDaoLatencyMillis() {
+    return actorDaoLatencyMillis;
+  }
+
+  /**
+   * Get the path of a JSON report file to write.
+   *
+   * @return the path, or {@literal null} to only log the results
+   */
+  public String getReportFile() {
+    return reportFile;
+  }
+
+}
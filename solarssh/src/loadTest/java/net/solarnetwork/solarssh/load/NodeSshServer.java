@@ -0,0 +1,174 @@
+/* ==================================================================
+ * NodeSshServer.java - 20/10/2026 8:52:40 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.load;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+
+import org.apache.sshd.common.util.net.SshdSocketAddress;
+import org.apache.sshd.server.Environment;
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.channel.ChannelSession;
+import org.apache.sshd.server.command.Command;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+
+/**
+ * The SSH server of the simulated nodes, offering a shell that echoes its input.
+ *
+ * <p>
+ * Every simulated node forwards its reverse SSH port here, so terminal sessions opened through
+ * SolarSSH have a real SSH server at the far end of the tunnel. Echoing lets users measure round
+ * trip latency and throughput.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class NodeSshServer implements Closeable {
+
+  private final String username;
+  private final String password;
+  private SshServer server;
+
+  /**
+   * Constructor.
+   *
+   * @param username
+   *        the username to accept
+   * @param password
+   *        the password to accept
+   */
+  public NodeSshServer(String username, String password) {
+    super();
+    this.username = username;
+    this.password = password;
+  }
+
+  /**
+   * Start the server on an ephemeral loopback port.
+   *
+   * @throws IOException
+   *         if the server cannot be started
+   */
+  public synchronized void start() throws IOException {
+    if (server != null) {
+      return;
+    }
+    SshServer s = SshServer.setUpDefaultServer();
+    s.setHost(InetAddress.getLoopbackAddress().getHostAddress());
+    s.setPort(0);
+    s.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+    s.setPasswordAuthenticator(
+        (u, p, session) -> username.equals(u) && password.equals(p));
+    s.setShellFactory(channel -> new EchoShell());
+    s.start();
+    server = s;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (server != null) {
+      server.stop(true);
+      server = null;
+    }
+  }
+
+  /**
+   * Get the address of the server.
+   *
+   * @return the address
+   * @throws IllegalStateException
+   *         if the server has not been started
+   */
+  public synchronized SshdSocketAddress getAddress() {
+    if (server == null) {
+      throw new IllegalStateException("Server not started.");
+    }
+    return new SshdSocketAddress(server.getHost(), server.getPort());
+  }
+
+  /**
+   * A shell that writes back everything it reads.
+   */
+  private static final class EchoShell implements Command, Runnable {
+
+    private InputStream in;
+    private OutputStream out;
+    private ExitCallback callback;
+    private Thread thread;
+
+    @Override
+    public void setInputStream(InputStream in) {
+      this.in = in;
+    }
+
+    @Override
+    public void setOutputStream(OutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void setErrorStream(OutputStream err) {
+      // not used
+    }
+
+    @Override
+    public void setExitCallback(ExitCallback callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public void start(ChannelSession channel, Environment env) throws IOException {
+      thread = Thread.ofVirtual().name("NodeSshServer-echo").start(this);
+    }
+
+    @Override
+    public void destroy(ChannelSession channel) throws Exception {
+      if (thread != null) {
+        thread.interrupt();
+      }
+    }
+
+    @Override
+    public void run() {
+      byte[] buf = new byte[8192];
+      try {
+        int len;
+        while ((len = in.read(buf)) >= 0) {
+          out.write(buf, 0, len);
+          out.flush();
+        }
+      } catch (IOException e) {
+        // closed
+      } finally {
+        callback.onExit(0);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,95 @@
+/* ==================================================================
+ * ProxyUser.java - 21/10/2026 9:12:27 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import net.solarnetwork.solarssh.test.FakeSolarNetServer;
+
+/**
+ * A user that sends HTTP requests to a node through the SolarSSH node proxy.
+ *
+ * <p>
+ * This follows the same steps as the SolarNetwork web terminal opening the node's web UI: create a
+ * session, start it, wait for the {@code StartRemoteSsh} instruction to complete, then send
+ * requests to {@literal /nodeproxy/{sessionId}/}. Each message is posted to the node, whose HTTP
+ * target must echo the request body back.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class ProxyUser extends TerminalUser {
+
+  /**
+   * Constructor.
+   *
+   * @param http
+   *        the HTTP client to use
+   * @param baseUrl
+   *        the SolarSSH web base URL, for example {@literal http://127.0.0.1:8081}
+   * @param solarNet
+   *        the SolarNet stand-in, used to follow instruction state
+   * @param nodeId
+   *        the node to connect to
+   * @param tokenId
+   *        the token ID to authenticate with
+   * @param tokenSecret
+   *        the token secret
+   * @param settings
+   *        the settings
+   * @param metrics
+   *        the metrics to update
+   */
+  public ProxyUser(HttpClient http, String baseUrl, FakeSolarNetServer solarNet, Long nodeId,
+      String tokenId, String tokenSecret, LoadSettings settings, LoadMetrics metrics) {
+    super(http, baseUrl, solarNet, nodeId, tokenId, tokenSecret, settings, metrics);
+  }
+
+  @Override
+  protected void connect() throws Exception {
+    final long start = System.currentTimeMillis();
+    startSession();
+    metrics.recordLatency(LoadMetrics.PROXY_SETUP, System.currentTimeMillis() - start);
+  }
+
+  @Override
+  protected void echo(String message) throws Exception {
+    HttpRequest req = HttpRequest
+        .newBuilder(URI.create(baseUrl + "/nodeproxy/" + getSessionId() + "/echo"))
+        .timeout(STEP_TIMEOUT).header("Content-Type", "text/plain")
+        .POST(HttpRequest.BodyPublishers.ofString(message)).build();
+    HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+    if (res.statusCode() != 200) {
+      throw new IOException("Proxy request failed: HTTP " + res.statusCode());
+    }
+    if (!message.equals(res.body())) {
+      throw new IOException("Proxy response did not echo the request.");
+    }
+  }
+
+}
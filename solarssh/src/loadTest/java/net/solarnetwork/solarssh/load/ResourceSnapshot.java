@@ -0,0 +1,147 @@
+/* ==================================================================
+ * ResourceSnapshot.java - 21/10/2026 9:40:12 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+
+import net.solarnetwork.solarssh.impl.DefaultSolarSshService;
+import net.solarnetwork.solarssh.web.SolarSshHttpProxyController;
+
+/**
+ * The resources held by the JVM and the SolarSSH session registries at one point in time.
+ *
+ * <p>
+ * The heap figure is taken after requesting a garbage collection, so two snapshots can be compared
+ * to spot resources that are not released.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public final class ResourceSnapshot {
+
+  /** The number of platform threads allowed above a baseline. */
+  public static final int THREAD_SLACK = 8;
+
+  /** The number of open file descriptors allowed above a baseline. */
+  public static final long FD_SLACK = 16;
+
+  /** The minimum heap bytes allowed above a baseline. */
+  public static final long HEAP_SLACK_BYTES = 32L * 1024 * 1024;
+
+  private final int threads;
+  private final long heapBytes;
+  private final long openFds;
+  private final int sessions;
+  private final int allocatedPorts;
+  private final int proxies;
+
+  private ResourceSnapshot(int threads, long heapBytes, long openFds, int sessions,
+      int allocatedPorts, int proxies) {
+    super();
+    this.threads = threads;
+    this.heapBytes = heapBytes;
+    this.openFds = openFds;
+    this.sessions = sessions;
+    this.allocatedPorts = allocatedPorts;
+    this.proxies = proxies;
+  }
+
+  /**
+   * Take a snapshot.
+   *
+   * @param service
+   *        the service to read the session registry sizes from
+   * @param proxyController
+   *        the controller to read the HTTP proxy count from
+   * @return the snapshot
+   */
+  public static ResourceSnapshot take(DefaultSolarSshService service,
+      SolarSshHttpProxyController proxyController) {
+    System.gc();
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    return new ResourceSnapshot(ManagementFactory.getThreadMXBean().getThreadCount(),
+        ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+        os instanceof UnixOperatingSystemMXBean unix ? unix.getOpenFileDescriptorCount() : -1,
+        service.getSessionCount(), service.getAllocatedPortCount(),
+        proxyController.getSessionProxyCount());
+  }
+
+  /**
+   * Compare this snapshot to a baseline.
+   *
+   * <p>
+   * Thread, file descriptor and heap figures may exceed the baseline by a small slack, to allow
+   * for idle pools and caches; the heap slack is the larger of {@link #HEAP_SLACK_BYTES} and a
+   * quarter of the baseline. Registry sizes must not exceed the baseline at all.
+   * </p>
+   *
+   * @param baseline
+   *        the baseline snapshot
+   * @return a description of each resource above the baseline, empty if none
+   */
+  public List<String> leaksSince(ResourceSnapshot baseline) {
+    List<String> result = new ArrayList<>(6);
+    if (threads > baseline.threads + THREAD_SLACK) {
+      result.add("threads " + baseline.threads + " -> " + threads);
+    }
+    if (heapBytes > baseline.heapBytes + Math.max(HEAP_SLACK_BYTES, baseline.heapBytes / 4)) {
+      result.add("heap " + baseline.heapBytes + " -> " + heapBytes);
+    }
+    if (openFds >= 0 && baseline.openFds >= 0 && openFds > baseline.openFds + FD_SLACK) {
+      result.add("open file descriptors " + baseline.openFds + " -> " + openFds);
+    }
+    if (sessions > baseline.sessions) {
+      result.add("sessions " + baseline.sessions + " -> " + sessions);
+    }
+    if (allocatedPorts > baseline.allocatedPorts) {
+      result.add("allocated ports " + baseline.allocatedPorts + " -> " + allocatedPorts);
+    }
+    if (proxies > baseline.proxies) {
+      result.add("HTTP proxies " + baseline.proxies + " -> " + proxies);
+    }
+    return result;
+  }
+
+  /**
+   * Test if the session registries are empty.
+   *
+   * @return {@literal true} if there are no sessions, allocated ports or HTTP proxies
+   */
+  public boolean isIdle() {
+    return sessions == 0 && allocatedPorts == 0 && proxies == 0;
+  }
+
+  @Override
+  public String toString() {
+    return "ResourceSnapshot{threads=" + threads + ", heapBytes=" + heapBytes + ", openFds="
+        + openFds + ", sessions=" + sessions + ", allocatedPorts=" + allocatedPorts
+        + ", proxies=" + proxies + "}";
+  }
+
+}
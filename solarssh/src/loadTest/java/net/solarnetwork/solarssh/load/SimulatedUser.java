@@ -0,0 +1,171 @@
+/* ==================================================================
+ * SimulatedUser.java - 20/10/2026 9:32:06 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.load;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for a simulated user that repeatedly logs in to a node and echoes terminal data.
+ *
+ * <p>
+ * Each cycle connects, echoes {@code messagesPerSession} messages of {@code payloadBytes} ASCII
+ * characters through the node shell, and disconnects, until {@link #stop()} is called.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public abstract class SimulatedUser implements Runnable {
+
+  /** The timeout for any single step of a session. */
+  public static final Duration STEP_TIMEOUT = Duration.ofSeconds(60);
+
+  /** The node SSH username. */
+  public static final String NODE_USERNAME = "solar";
+
+  /** The node SSH password. */
+  public static final String NODE_PASSWORD = "solar";
+
+  /** A class-level logger. */
+  protected final Logger log = LoggerFactory.getLogger(getClass());
+
+  /** The node ID. */
+  protected final Long nodeId;
+
+  /** The token ID. */
+  protected final String tokenId;
+
+  /** The token secret. */
+  protected final String tokenSecret;
+
+  /** The settings. */
+  protected final LoadSettings settings;
+
+  /** The metrics. */
+  protected final LoadMetrics metrics;
+
+  private final String payload;
+  private volatile boolean running = true;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeId
+   *        the node to connect to
+   * @param tokenId
+   *        the token ID to authenticate with
+   * @param tokenSecret
+   *        the token secret
+   * @param settings
+   *        the settings
+   * @param metrics
+   *        the metrics to update
+   */
+  public SimulatedUser(Long nodeId, String tokenId, String tokenSecret, LoadSettings settings,
+      LoadMetrics metrics) {
+    super();
+    this.nodeId = nodeId;
+    this.tokenId = tokenId;
+    this.tokenSecret = tokenSecret;
+    this.settings = settings;
+    this.metrics = metrics;
+    StringBuilder buf = new StringBuilder(settings.getPayloadBytes());
+    for (int i = 0; i < settings.getPayloadBytes(); i++) {
+      buf.append((char) ('a' + (i % 26)));
+    }
+    this.payload = buf.toString();
+  }
+
+  /**
+   * Stop the user after the current message.
+   */
+  public void stop() {
+    running = false;
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      boolean connected = false;
+      try {
+        connect();
+        connected = true;
+        metrics.loginSucceeded();
+        for (int i = 0; running && i < settings.getMessagesPerSession(); i++) {
+          final long start = System.currentTimeMillis();
+          echo(payload);
+          metrics.recordLatency(LoadMetrics.ECHO, System.currentTimeMillis() - start);
+          metrics.bytesEchoed(payload.length());
+          if (settings.getThinkMillis() > 0) {
+            Thread.sleep(settings.getThinkMillis());
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        running = false;
+      } catch (Exception e) {
+        metrics.failed();
+        log.debug("User {} node {} session failed: {}", tokenId, nodeId, e.toString());
+        try {
+          // back off so a broken setup does not spin
+          Thread.sleep(1000);
+        } catch (InterruptedException e2) {
+          Thread.currentThread().interrupt();
+          running = false;
+        }
+      } finally {
+        disconnect();
+        if (connected) {
+          metrics.disconnected();
+        }
+      }
+    }
+  }
+
+  /**
+   * Log in and open a shell on the node, recording setup latencies.
+   *
+   * @throws Exception
+   *         if any error occurs
+   */
+  protected abstract void connect() throws Exception;
+
+  /**
+   * Send a message to the node shell and wait for it to be echoed back.
+   *
+   * @param message
+   *        the message
+   * @throws Exception
+   *         if any error occurs
+   */
+  protected abstract void echo(String message) throws Exception;
+
+  /**
+   * Close any open connection; must not throw exceptions.
+   */
+  protected abstract void disconnect();
+
+}
@@ -0,0 +1,292 @@
+/* ==================================================================
+ * SolarSshSoakTests.java - 21/10/2026 10:05:51 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.load;
+
+import static net.solarnetwork.solarssh.load.SimulatedUser.NODE_PASSWORD;
+import static net.solarnetwork.solarssh.load.SimulatedUser.NODE_USERNAME;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.config.hosts.HostConfigEntryResolver;
+import org.apache.sshd.client.keyverifier.AcceptAllServerKeyVerifier;
+import org.apache.sshd.common.keyprovider.KeyIdentityProvider;
+import org.apache.sshd.common.util.net.SshdSocketAddress;
+import org.apache.sshd.server.forward.AcceptAllForwardingFilter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.sun.net.httpserver.HttpServer;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.impl.DefaultSolarSshService;
+import net.solarnetwork.solarssh.test.FakeSolarNetServer;
+import net.solarnetwork.solarssh.test.SimulatedNode;
+import net.solarnetwork.solarssh.web.SolarSshHttpProxyController;
+
+/**
+ * Leak and soak tests that repeat complete session life cycles through each way of reaching a
+ * node, and verify that the server releases everything each cycle used.
+ *
+ * <p>
+ * Each test runs some warmup cycles, waits for the session registries to empty and takes a
+ * {@link ResourceSnapshot} baseline, runs {@code soak.cycles} cycles one after another, and then
+ * waits up to {@code soak.settleSeconds} for the platform thread count, heap use after garbage
+ * collection, open file descriptors, and the session, port and HTTP proxy registries to return to
+ * the baseline. The simulated nodes and users run in the same JVM, so they are created before the
+ * baseline and reused by every cycle.
+ * </p>
+ *
+ * <p>
+ * Run with {@code ./gradlew soakTest -Psoak.cycles=5000}; the tests are not part of {@code check}.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class SolarSshSoakTests {
+
+  /** The system property for the number of cycles to run in each test. */
+  public static final String CYCLES_PROPERTY = "soak.cycles";
+
+  /** The default number of cycles to run in each test. */
+  public static final int DEFAULT_CYCLES = 1000;
+
+  /** The system property for the seconds to wait for resources to be released. */
+  public static final String SETTLE_SECONDS_PROPERTY = "soak.settleSeconds";
+
+  /** The default seconds to wait for resources to be released. */
+  public static final int DEFAULT_SETTLE_SECONDS = 30;
+
+  private static final int WARMUP_CYCLES = 20;
+  private static final int NODE_COUNT = 4;
+  private static final int MESSAGES_PER_CYCLE = 2;
+  private static final String MESSAGE = "The quick brown fox jumps over the lazy dog.";
+  private static final String TOKEN_ID = "soak-token";
+  private static final String TOKEN_SECRET = "soak-secret";
+
+  private static final Logger log = LoggerFactory.getLogger(SolarSshSoakTests.class);
+
+  private static final List<SimulatedNode> nodes = new ArrayList<>(NODE_COUNT);
+  private static FakeSolarNetServer solarNet;
+  private static NodeSshServer nodeServer;
+  private static HttpServer nodeHttpServer;
+  private static ConfigurableApplicationContext app;
+  private static DefaultSolarSshService service;
+  private static SolarSshHttpProxyController proxyController;
+  private static SshClient client;
+  private static HttpClient http;
+  private static String webBaseUrl;
+  private static int directPort;
+  private static LoadSettings settings;
+  private static LoadMetrics metrics;
+
+  private final int cycles = Integer.getInteger(CYCLES_PROPERTY, DEFAULT_CYCLES);
+  private final long settleMillis = Integer.getInteger(SETTLE_SECONDS_PROPERTY,
+      DEFAULT_SETTLE_SECONDS) * 1000L;
+
+  @BeforeAll
+  public static void setup() throws Exception {
+    final Path workDir = Files.createTempDirectory("solarssh-soak-");
+    solarNet = new FakeSolarNetServer();
+    solarNet.setCompletionDelayMillis(10);
+    solarNet.start();
+    nodeServer = new NodeSshServer(NODE_USERNAME, NODE_PASSWORD);
+    nodeServer.start();
+    nodeHttpServer = startNodeHttpServer();
+
+    final Set<Long> nodeIds = new HashSet<>(NODE_COUNT);
+    for (int i = 1; i <= NODE_COUNT; i++) {
+      SimulatedNode node = new SimulatedNode((long) i);
+      node.setSshTarget(nodeServer.getAddress());
+      node.setHttpTarget(new SshdSocketAddress(nodeHttpServer.getAddress().getHostString(),
+          nodeHttpServer.getAddress().getPort()));
+      node.start(solarNet);
+      solarNet.setNodeMetadata(node.getNodeId(), new GeneralDatumMetadata());
+      nodes.add(node);
+      nodeIds.add(node.getNodeId());
+    }
+
+    final LoadActorDao actorDao = new LoadActorDao();
+    actorDao.addToken(TOKEN_ID, TOKEN_SECRET, 1L, nodeIds);
+
+    directPort = LoadHarness.freePort();
+    app = LoadHarness.startApp(solarNet, actorDao, workDir, directPort,
+        Map.of("solarnet.auth.instructionCompletedWaitMs", "20",
+            "solarnet.auth.instructionIncompleteWaitMs", "20",
+            "ssh.sessionProxyExpireCleanupJobMs", "500"));
+    service = app.getBean(DefaultSolarSshService.class);
+    proxyController = app.getBean(SolarSshHttpProxyController.class);
+    webBaseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+
+    client = SshClient.setUpDefaultClient();
+    client.setServerKeyVerifier(AcceptAllServerKeyVerifier.INSTANCE);
+    client.setForwardingFilter(AcceptAllForwardingFilter.INSTANCE);
+    client.setHostConfigEntryResolver(HostConfigEntryResolver.EMPTY);
+    client.setKeyIdentityProvider(KeyIdentityProvider.EMPTY_KEYS_PROVIDER);
+    client.start();
+    http = HttpClient.newHttpClient();
+    settings = LoadSettings.fromProperties(new Properties());
+    metrics = new LoadMetrics();
+  }
+
+  @AfterAll
+  public static void teardown() throws IOException {
+    if (client != null) {
+      client.stop();
+    }
+    if (http != null) {
+      http.close();
+    }
+    if (app != null) {
+      app.close();
+    }
+    for (SimulatedNode node : nodes) {
+      node.close();
+    }
+    nodes.clear();
+    if (nodeHttpServer != null) {
+      nodeHttpServer.stop(0);
+    }
+    if (nodeServer != null) {
+      nodeServer.close();
+    }
+    if (solarNet != null) {
+      solarNet.close();
+    }
+  }
+
+  private static HttpServer startNodeHttpServer() throws IOException {
+    HttpServer server = HttpServer
+        .create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", exchange -> {
+      try (exchange; InputStream in = exchange.getRequestBody()) {
+        byte[] body = in.readAllBytes();
+        exchange.sendResponseHeaders(200, body.length > 0 ? body.length : -1);
+        if (body.length > 0) {
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+          }
+        }
+      }
+    });
+    server.start();
+    return server;
+  }
+
+  private void soak(String name, int messages, Function<Long, SimulatedUser> userFactory)
+      throws Exception {
+    final List<SimulatedUser> users = new ArrayList<>(NODE_COUNT);
+    for (SimulatedNode node : nodes) {
+      users.add(userFactory.apply(node.getNodeId()));
+    }
+    for (int i = 0; i < WARMUP_CYCLES; i++) {
+      cycle(users.get(i % users.size()), messages);
+    }
+    final ResourceSnapshot baseline = settle(null);
+    assertTrue(baseline.isIdle(), () -> name + " sessions not released after warmup: " + baseline);
+    log.info("{} soak baseline: {}", name, baseline);
+
+    final long start = System.currentTimeMillis();
+    for (int i = 0; i < cycles; i++) {
+      cycle(users.get(i % users.size()), messages);
+    }
+    log.info("{} soak ran {} cycles in {}ms", name, cycles, System.currentTimeMillis() - start);
+
+    final ResourceSnapshot end = settle(baseline);
+    final List<String> leaks = end.leaksSince(baseline);
+    log.info("{} soak end: {}", name, end);
+    assertTrue(leaks.isEmpty(), () -> name + " resources not released after " + cycles
+        + " cycles: " + leaks + "; baseline " + baseline + ", end " + end);
+  }
+
+  private static void cycle(SimulatedUser user, int messages) throws Exception {
+    try {
+      user.connect();
+      for (int i = 0; i < messages; i++) {
+        user.echo(MESSAGE);
+      }
+    } finally {
+      user.disconnect();
+    }
+  }
+
+  // wait to return to a baseline, or for the session registries to empty without one
+  private ResourceSnapshot settle(ResourceSnapshot baseline) throws InterruptedException {
+    final long expire = System.currentTimeMillis() + settleMillis;
+    while (true) {
+      ResourceSnapshot snap = ResourceSnapshot.take(service, proxyController);
+      if ((baseline == null ? snap.isIdle() : snap.leaksSince(baseline).isEmpty())
+          || System.currentTimeMillis() > expire) {
+        return snap;
+      }
+      Thread.sleep(250);
+    }
+  }
+
+  @Test
+  public void restSessions() throws Exception {
+    // a proxy user without messages only creates, starts and stops sessions
+    soak("REST", 0, nodeId -> new ProxyUser(http, webBaseUrl, solarNet, nodeId, TOKEN_ID,
+        TOKEN_SECRET, settings, metrics));
+  }
+
+  @Test
+  public void webSocketTerminals() throws Exception {
+    soak("WebSocket", MESSAGES_PER_CYCLE, nodeId -> new TerminalUser(http, webBaseUrl, solarNet,
+        nodeId, TOKEN_ID, TOKEN_SECRET, settings, metrics));
+  }
+
+  @Test
+  public void directSsh() throws Exception {
+    soak("Direct SSH", MESSAGES_PER_CYCLE, nodeId -> new DirectSshUser(client, directPort, nodeId,
+        TOKEN_ID, TOKEN_SECRET, settings, metrics));
+  }
+
+  @Test
+  public void httpProxy() throws Exception {
+    soak("HTTP proxy", MESSAGES_PER_CYCLE, nodeId -> new ProxyUser(http, webBaseUrl, solarNet,
+        nodeId, TOKEN_ID, TOKEN_SECRET, settings, metrics));
+  }
+
+}
@@ -0,0 +1,305 @@
+/* ==================================================================
+ * TerminalUser.java - 20/10/2026 10:04:38 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.load;
+
+import static java.util.Collections.singletonMap;
+import static net.solarnetwork.solarssh.web.WebConstants.PRESIGN_AUTHORIZATION_HEADER;
+import static net.solarnetwork.solarssh.web.WebConstants.SOLARSSH_WEBSOCKET_PROTOCOL;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.solarnetwork.security.Snws2AuthorizationBuilder;
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+import net.solarnetwork.solarssh.domain.SolarNodeInstructionState;
+import net.solarnetwork.solarssh.test.FakeSolarNetServer;
+import net.solarnetwork.web.jakarta.security.WebConstants;
+
+/**
+ * A user that opens a node terminal through the SolarSSH web API and WebSocket endpoint.
+ *
+ * <p>
+ * This follows the same steps as the SolarNetwork web terminal: create a session, start it, wait
+ * for the {@code StartRemoteSsh} instruction to complete, then attach over a WebSocket.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class TerminalUser extends SimulatedUser {
+
+  private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME
+      .withZone(ZoneOffset.UTC);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /** The HTTP client. */
+  protected final HttpClient http;
+
+  /** The SolarSSH web base URL. */
+  protected final String baseUrl;
+
+  private final String snHost;
+  private final FakeSolarNetServer solarNet;
+
+  private String sessionId;
+  private WebSocket webSocket;
+  private Receiver receiver;
+
+  /**
+   * Constructor.
+   *
+   * @param http
+   *        the HTTP client to use
+   * @param baseUrl
+   *        the SolarSSH web base URL, for example {@literal http://127.0.0.1:8081}
+   * @param solarNet
+   *        the SolarNet stand-in, used to follow instruction state
+   * @param nodeId
+   *        the node to connect to
+   * @param tokenId
+   *        the token ID to authenticate with
+   * @param tokenSecret
+   *        the token secret
+   * @param settings
+   *        the settings
+   * @param metrics
+   *        the metrics to update
+   */
+  public TerminalUser(HttpClient http, String baseUrl, FakeSolarNetServer solarNet, Long nodeId,
+      String tokenId, String tokenSecret, LoadSettings settings, LoadMetrics metrics) {
+    super(nodeId, tokenId, tokenSecret, settings, metrics);
+    this.http = http;
+    this.baseUrl = baseUrl;
+    this.solarNet = solarNet;
+    this.snHost = URI.create(solarNet.getBaseUrl()).getAuthority();
+  }
+
+  private Snws2AuthorizationBuilder auth(Instant date, String path) {
+    return new Snws2AuthorizationBuilder(tokenId).useSnDate(true).date(date).host(snHost)
+        .path(FakeSolarNetServer.API_PATH + "/" + path).saveSigningKey(tokenSecret);
+  }
+
+  private JsonNode sessionRequest(String path, Instant date, String authorization)
+      throws IOException, InterruptedException {
+    HttpRequest req = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/ssh/session/" + path))
+        .timeout(STEP_TIMEOUT).header(WebConstants.HEADER_DATE, HTTP_DATE.format(date))
+        .header(PRESIGN_AUTHORIZATION_HEADER, authorization).GET().build();
+    HttpResponse<byte[]> res = http.send(req, HttpResponse.BodyHandlers.ofByteArray());
+    if (res.statusCode() != 200) {
+      throw new IOException("Session request " + path + " failed: HTTP " + res.statusCode());
+    }
+    return MAPPER.readTree(res.body()).path("data");
+  }
+
+  /**
+   * Create and start a session, and wait for the node to connect.
+   *
+   * @throws IOException
+   *         if any communication error occurs
+   * @throws InterruptedException
+   *         if interrupted waiting for the node
+   */
+  protected void startSession() throws IOException, InterruptedException {
+    Instant date = Instant.now();
+    JsonNode sess = sessionRequest("new?nodeId=" + nodeId, date,
+        auth(date, FakeSolarNetServer.ENDPOINT_VIEW_PENDING)
+            .queryParams(singletonMap("nodeId", nodeId.toString())).build());
+    sessionId = sess.path("sessionId").asText();
+
+    // the stand-in does not verify signatures, so the instruction parameters are not signed
+    date = Instant.now();
+    sess = sessionRequest(sessionId + "/start", date,
+        auth(date, FakeSolarNetServer.ENDPOINT_ADD).method("POST").build());
+    awaitInstruction(sess.path("startInstructionId").asLong());
+  }
+
+  /**
+   * Get the ID of the current session.
+   *
+   * @return the session ID, or {@literal null} if not connected
+   */
+  protected String getSessionId() {
+    return sessionId;
+  }
+
+  @Override
+  protected void connect() throws Exception {
+    final long start = System.currentTimeMillis();
+    startSession();
+
+    receiver = new Receiver();
+    webSocket = http.newWebSocketBuilder().subprotocols(SOLARSSH_WEBSOCKET_PROTOCOL)
+        .buildAsync(URI.create(baseUrl.replaceFirst("^http", "ws") + "/ssh?sessionId="
+            + sessionId), receiver)
+        .get(STEP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+
+    Instant date = Instant.now();
+    Map<String, Object> data = new LinkedHashMap<>(4);
+    data.put("authorization",
+        auth(date, FakeSolarNetServer.ENDPOINT_NODE_METADATA + "/" + nodeId).build());
+    data.put("authorization-date", date.toEpochMilli());
+    data.put("username", NODE_USERNAME);
+    data.put("password", NODE_PASSWORD);
+    Map<String, Object> msg = new LinkedHashMap<>(2);
+    msg.put("cmd", "attach-ssh");
+    msg.put("data", data);
+    webSocket.sendText(MAPPER.writeValueAsString(msg), true).join();
+    String reply = receiver.attached.get(STEP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    if (!reply.contains("\"success\":true")) {
+      throw new IOException("Attach failed: " + reply);
+    }
+    metrics.recordLatency(LoadMetrics.TERMINAL_SETUP, System.currentTimeMillis() - start);
+  }
+
+  private void awaitInstruction(Long id) throws IOException, InterruptedException {
+    final long expire = System.currentTimeMillis() + STEP_TIMEOUT.toMillis();
+    while (System.currentTimeMillis() < expire) {
+      SolarNetInstruction instr = solarNet.getInstruction(id);
+      SolarNodeInstructionState state = (instr != null ? instr.getState() : null);
+      if (state == SolarNodeInstructionState.Completed) {
+        return;
+      } else if (state == SolarNodeInstructionState.Declined) {
+        throw new IOException("Instruction " + id + " declined.");
+      }
+      Thread.sleep(50);
+    }
+    throw new IOException("Timeout waiting for instruction " + id + " to complete.");
+  }
+
+  @Override
+  protected void echo(String message) throws Exception {
+    final long target = receiver.expect(message.length());
+    webSocket.sendText(message, true).join();
+    receiver.await(target, STEP_TIMEOUT.toMillis());
+  }
+
+  @Override
+  protected void disconnect() {
+    if (webSocket != null) {
+      webSocket.abort();
+      webSocket = null;
+    }
+    if (sessionId != null) {
+      try {
+        Instant date = Instant.now();
+        sessionRequest(sessionId + "/stop", date,
+            auth(date, FakeSolarNetServer.ENDPOINT_ADD).method("POST").build());
+      } catch (IOException e) {
+        log.debug("User {} error stopping session {}: {}", tokenId, sessionId, e.toString());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      sessionId = null;
+    }
+    receiver = null;
+  }
+
+  /**
+   * WebSocket listener that hands over the attach reply, then counts echoed characters.
+   */
+  private static final class Receiver implements WebSocket.Listener {
+
+    private final CompletableFuture<String> attached = new CompletableFuture<>();
+    private final StringBuilder reply = new StringBuilder();
+    private long expected;
+    private long received;
+    private boolean closed;
+
+    private synchronized long expect(int count) {
+      expected += count;
+      return expected;
+    }
+
+    private synchronized void await(long target, long timeoutMillis)
+        throws IOException, InterruptedException, TimeoutException {
+      final long expire = System.currentTimeMillis() + timeoutMillis;
+      while (received < target) {
+        if (closed) {
+          throw new EOFException("WebSocket closed.");
+        }
+        long wait = expire - System.currentTimeMillis();
+        if (wait < 1) {
+          throw new TimeoutException("Timeout waiting for echo.");
+        }
+        wait(wait);
+      }
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+      if (!attached.isDone()) {
+        reply.append(data);
+        if (last) {
+          attached.complete(reply.toString());
+        }
+      } else {
+        synchronized (this) {
+          received += data.length();
+          notifyAll();
+        }
+      }
+      webSocket.request(1);
+      return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+      attached.completeExceptionally(
+          new IOException("WebSocket closed: " + statusCode + " " + reason));
+      synchronized (this) {
+        closed = true;
+        notifyAll();
+      }
+      return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+      attached.completeExceptionally(error);
+      synchronized (this) {
+        closed = true;
+        notifyAll();
+      }
+    }
+
+  }
+
+}
@@ -17,133 +17,265 @@
 
 package net.solarnetwork.solarssh.config;
 
-import java.net.InetAddress;
 import java.nio.file.Path;
 import java.util.concurrent.TimeUnit;
 
-import javax.cache.Cache;
-import javax.cache.CacheManager;
-import javax.cache.Caching;
-import javax.cache.configuration.MutableConfiguration;
-import javax.cache.expiry.CreatedExpiryPolicy;
-import javax.cache.expiry.Duration;
-import javax.cache.spi.CachingProvider;
-
-import org.ehcache.config.CacheConfiguration;
-import org.ehcache.config.builders.CacheConfigurationBuilder;
-import org.ehcache.config.builders.ExpiryPolicyBuilder;
-import org.ehcache.config.builders.ResourcePoolsBuilder;
-import org.ehcache.config.units.MemoryUnit;
-import org.ehcache.core.config.DefaultConfiguration;
-import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
-import org.ehcache.jsr107.Eh107Configuration;
-import org.ehcache.jsr107.EhcacheCachingProvider;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import net.solarnetwork.solarssh.domain.Actor;
+import net.solarnetwork.solarssh.impl.ActorLoginJournal;
+import net.solarnetwork.solarssh.impl.BruteForceAttemptTracker;
+import net.solarnetwork.solarssh.impl.NegativeTokenCache;
+import net.solarnetwork.solarssh.impl.NodeMetadataCache;
+import net.solarnetwork.solarssh.impl.PgActorCacheInvalidator;
+import net.solarnetwork.solarssh.impl.RefreshAheadCache;
+import net.solarnetwork.solarssh.impl.SigningKeyCache;
 
 /**
  * Configuration for application-level caching.
  * 
  * @author matt
- * @version 1.0
+ * @version 1.9
  */
 @Configuration
-@EnableCaching
-public class CacheConfig {
+public class CacheConfig implements DisposableBean {
 
   /**
    * A cache name to use for lists of {@link Actor} objects.
    */
   public static final String ACTOR_CACHE_NAME = "Actor";
 
+  /**
+   * The file name used for actor login journal snapshots, within the persistence path.
+   */
+  public static final String ACTOR_LOGIN_JOURNAL_SNAPSHOT_NAME = "actor-login-journal.dat";
+
+  /**
+   * The file name used for brute force deny list snapshots, within the persistence path.
+   */
+  public static final String BRUTE_FORCE_DENY_LIST_SNAPSHOT_NAME = "brute-force-deny-list.dat";
+
   @Value("${cache.actor.ttl:900}")
   private int actorCacheSeconds = 900;
 
+  @Value("${cache.actor.refreshAfter:600}")
+  private int actorCacheRefreshAfterSeconds = 600;
+
+  @Value("${cache.actor.stale:900}")
+  private int actorCacheStaleSeconds = 900;
+
+  @Value("${cache.actor.maxEntries:10000}")
+  private int actorCacheMaxEntries = RefreshAheadCache.DEFAULT_MAX_ENTRIES;
+
+  @Value("${cache.actor.invalidationChannel:}")
+  private String actorCacheInvalidationChannel;
+
+  @Value("${cache.actor.preload.maxEntries:2000}")
+  private int actorPreloadMaxEntries = ActorLoginJournal.DEFAULT_MAX_ENTRIES;
+
+  @Value("${cache.actor.preload.maxAge:24}")
+  private int actorPreloadMaxAgeHours = 24;
+
+  @Value("${cache.actorReject.ttl:60}")
+  private int actorRejectCacheSeconds = 60;
+
+  @Value("${cache.actorReject.maxEntries:10000}")
+  private int actorRejectCacheMaxEntries = NegativeTokenCache.DEFAULT_MAX_ENTRIES;
+
+  @Value("${cache.signingKey.maxEntries:1024}")
+  private int signingKeyCacheMaxEntries = SigningKeyCache.DEFAULT_MAX_ENTRIES;
+
+  @Value("${cache.nodeMetadata.ttl:60}")
+  private int nodeMetadataCacheSeconds = 60;
+
+  @Value("${cache.nodeMetadata.revalidate:3600}")
+  private int nodeMetadataCacheRevalidateSeconds = 3600;
+
+  @Value("${cache.nodeMetadata.maxEntries:1000}")
+  private int nodeMetadataCacheMaxEntries = NodeMetadataCache.DEFAULT_MAX_ENTRIES;
+
   @Value("${cache.bruteForceDeny.ttl:24}")
   private int bruteForceDenyCacheHours = 24;
 
-  @Value("${cache.bruteForceDeny.maxRamEntries:5000}")
-  private int bruteForceDenyCacheMaxRamEntries = 5000;
+  @Value("${cache.bruteForceDeny.maxEntries:${cache.bruteForceDeny.maxRamEntries:100000}}")
+  private int bruteForceDenyCacheMaxEntries = BruteForceAttemptTracker.DEFAULT_MAX_ENTRIES;
+
+  @Value("${ssh.bruteForce.ipv4PrefixLength:32}")
+  private int bruteForceIpv4PrefixLength = BruteForceAttemptTracker.DEFAULT_IPV4_PREFIX_LENGTH;
 
-  @Value("${cache.bruteForceDeny.maxDiskMb:100}")
-  private int bruteForceDenyCacheMaxDiskMb = 100;
+  @Value("${ssh.bruteForce.ipv6PrefixLength:64}")
+  private int bruteForceIpv6PrefixLength = BruteForceAttemptTracker.DEFAULT_IPV6_PREFIX_LENGTH;
+
+  @Value("${ssh.bruteForce.allow:}")
+  private String[] bruteForceAllowList;
+
+  @Value("${ssh.bruteForce.deny:}")
+  private String[] bruteForceDenyList;
 
   @Value("${app.cache.persistence.path}")
   private Path persistencePath;
 
+  // not a bean: any Executor bean stops Spring Boot creating its default applicationTaskExecutor
+  private final ThreadPoolTaskExecutor cacheRefreshExecutor = newCacheRefreshExecutor();
+
+  private static ThreadPoolTaskExecutor newCacheRefreshExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(2);
+    executor.setMaxPoolSize(2);
+    executor.setQueueCapacity(1000);
+    executor.setThreadNamePrefix("CacheRefresh-");
+    executor.setDaemon(true);
+    executor.initialize();
+    return executor;
+  }
+
+  @Override
+  public void destroy() {
+    cacheRefreshExecutor.shutdown();
+  }
+
   /**
-   * Get the cache manager.
+   * Get the actor cache, keyed by token ID.
+   * 
+   * <p>
+   * Entries are refreshed in the background once they are older than {@code refreshAfter}
+   * seconds, and a stale entry can still be served for up to {@code stale} seconds past the
+   * {@code ttl} when the database is slow to respond.
+   * </p>
    * 
-   * @return the manager.
+   * @return the actor cache
    */
   @Bean
-  public CacheManager appCacheManager() {
-    CachingProvider cachingProvider = Caching.getCachingProvider();
-    if (cachingProvider instanceof EhcacheCachingProvider) {
-      DefaultConfiguration configuration = new DefaultConfiguration(
-          cachingProvider.getDefaultClassLoader(),
-          new DefaultPersistenceConfiguration(persistencePath.toFile()));
-      return ((EhcacheCachingProvider) cachingProvider)
-          .getCacheManager(cachingProvider.getDefaultURI(), configuration);
-    } else {
-      return cachingProvider.getCacheManager();
-    }
+  @Qualifier("actor")
+  @Profile("!default")
+  public RefreshAheadCache<String, Actor> actorCache() {
+    RefreshAheadCache<String, Actor> cache = new RefreshAheadCache<>(ACTOR_CACHE_NAME,
+        cacheRefreshExecutor);
+    cache.setExpireMillis(TimeUnit.SECONDS.toMillis(actorCacheSeconds));
+    cache.setRefreshAfterMillis(
+        TimeUnit.SECONDS.toMillis(Math.min(actorCacheRefreshAfterSeconds, actorCacheSeconds)));
+    cache.setStaleMillis(TimeUnit.SECONDS.toMillis(actorCacheStaleSeconds));
+    cache.setMaxEntries(actorCacheMaxEntries);
+    return cache;
   }
 
   /**
-   * Get the actor cache.
+   * Get the journal of recent token logins, used to preload the actor cache at startup.
    * 
-   * @return the actor cache
+   * @return the journal
+   */
+  @Bean(initMethod = "loadSnapshot", destroyMethod = "saveSnapshot")
+  @Profile("!default")
+  @ConditionalOnProperty(name = "cache.actor.preload.enabled", havingValue = "true",
+      matchIfMissing = true)
+  public ActorLoginJournal actorLoginJournal() {
+    ActorLoginJournal journal = new ActorLoginJournal();
+    journal.setMaxEntries(actorPreloadMaxEntries);
+    journal.setMaxAgeMillis(TimeUnit.HOURS.toMillis(actorPreloadMaxAgeHours));
+    journal.setSnapshotPath(persistencePath.resolve(ACTOR_LOGIN_JOURNAL_SNAPSHOT_NAME));
+    return journal;
+  }
+
+  /**
+   * Get the negative actor cache, of tokens that failed to authenticate.
+   * 
+   * @return the cache
    */
   @Bean
-  @Qualifier("actor")
   @Profile("!default")
-  public Cache<String, Actor> actorCache(CacheManager cacheManager) {
-    return cacheManager.createCache(ACTOR_CACHE_NAME, actorCacheConfiguration());
+  public NegativeTokenCache actorRejectCache() {
+    NegativeTokenCache cache = new NegativeTokenCache();
+    cache.setExpireMillis(TimeUnit.SECONDS.toMillis(actorRejectCacheSeconds));
+    cache.setMaxEntries(actorRejectCacheMaxEntries);
+    return cache;
   }
 
-  // CHECKSTYLE IGNORE LineLength FOR NEXT 1 LINE
-  private javax.cache.configuration.Configuration<String, Actor> actorCacheConfiguration() {
-    MutableConfiguration<String, Actor> conf = new MutableConfiguration<>();
-    conf.setExpiryPolicyFactory(
-        CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.SECONDS, actorCacheSeconds)));
-    conf.setStoreByValue(false);
-    return conf;
+  /**
+   * Get the actor cache invalidator, which listens for token changes on a Postgres notification
+   * channel.
+   * 
+   * <p>
+   * The listener holds its connection open for as long as it runs, so it connects with the
+   * configured data source settings but outside the connection pool, leaving every pooled
+   * connection free for queries.
+   * </p>
+   * 
+   * @param dataSourceProperties
+   *        the data source settings
+   * @return the invalidator
+   */
+  @Bean(initMethod = "start", destroyMethod = "stop")
+  @Profile("!default")
+  @ConditionalOnProperty("cache.actor.invalidationChannel")
+  public PgActorCacheInvalidator actorCacheInvalidator(DataSourceProperties dataSourceProperties) {
+    DataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+        .type(SimpleDriverDataSource.class).build();
+    PgActorCacheInvalidator invalidator = new PgActorCacheInvalidator(dataSource,
+        actorCacheInvalidationChannel, actorCache());
+    invalidator.setNegativeCache(actorRejectCache());
+    return invalidator;
   }
 
   /**
-   * The brute-force mitigation deny list.
+   * Get the SNWS2 signing key cache.
    * 
    * @return the cache
    */
   @Bean
-  @Qualifier("brute-force-deny-list")
-  @Profile("!default")
-  public Cache<InetAddress, Byte> bruteForceDenyListCache(CacheManager cacheManager) {
-    if (cacheManager == null) {
-      return null;
-    }
-    return cacheManager.createCache("brute-force-deny-list",
-        bruteForceDenyListCacheConfiguration());
+  public SigningKeyCache signingKeyCache() {
+    SigningKeyCache cache = new SigningKeyCache();
+    cache.setMaxEntries(signingKeyCacheMaxEntries);
+    return cache;
+  }
+
+  /**
+   * Get the node metadata cache, used to verify terminal attach authorization.
+   * 
+   * @return the cache
+   */
+  @Bean
+  public NodeMetadataCache nodeMetadataCache() {
+    NodeMetadataCache cache = new NodeMetadataCache();
+    cache.setExpireMillis(TimeUnit.SECONDS.toMillis(nodeMetadataCacheSeconds));
+    cache.setRevalidateMillis(TimeUnit.SECONDS.toMillis(nodeMetadataCacheRevalidateSeconds));
+    cache.setMaxEntries(nodeMetadataCacheMaxEntries);
+    return cache;
   }
 
-  // CHECKSTYLE OFF: LineLength
-  private javax.cache.configuration.Configuration<InetAddress, Byte> bruteForceDenyListCacheConfiguration() {
-    CacheConfiguration<InetAddress, Byte> conf = CacheConfigurationBuilder
-        .newCacheConfigurationBuilder(InetAddress.class, Byte.class,
-            ResourcePoolsBuilder.heap(bruteForceDenyCacheMaxRamEntries)
-                .disk(bruteForceDenyCacheMaxDiskMb, MemoryUnit.MB, true))
-        .withExpiry(ExpiryPolicyBuilder
-            .timeToLiveExpiration(java.time.Duration.ofHours(bruteForceDenyCacheHours)))
-        .build();
-    return Eh107Configuration.fromEhcacheCacheConfiguration(conf);
+  /**
+   * The brute-force mitigation deny list.
+   * 
+   * <p>
+   * The deny list is held purely in memory; it is snapshotted to the persistence path by a
+   * background job and restored from there at startup.
+   * </p>
+   * 
+   * @return the deny list
+   */
+  @Bean(initMethod = "loadSnapshot", destroyMethod = "saveSnapshot")
+  @Qualifier("brute-force-deny-list")
+  @Profile("!default")
+  public BruteForceAttemptTracker bruteForceDenyList() {
+    BruteForceAttemptTracker tracker = new BruteForceAttemptTracker();
+    tracker.setExpireMillis(TimeUnit.HOURS.toMillis(bruteForceDenyCacheHours));
+    tracker.setMaxEntries(bruteForceDenyCacheMaxEntries);
+    tracker.setIpv4PrefixLength(bruteForceIpv4PrefixLength);
+    tracker.setIpv6PrefixLength(bruteForceIpv6PrefixLength);
+    tracker.setAllowList(bruteForceAllowList);
+    tracker.setDenyList(bruteForceDenyList);
+    tracker.setSnapshotPath(persistencePath.resolve(BRUTE_FORCE_DENY_LIST_SNAPSHOT_NAME));
+    return tracker;
   }
-  // CHECKSTYLE ON: LineLength
 
 }
@@ -22,27 +22,40 @@
 
 package net.solarnetwork.solarssh.config;
 
-import java.net.InetAddress;
 import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
-import javax.cache.Cache;
-
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 
+import net.solarnetwork.solarssh.dao.ActorDao;
+import net.solarnetwork.solarssh.impl.ActorLoginJournal;
+import net.solarnetwork.solarssh.impl.BruteForceAttemptTracker;
+import net.solarnetwork.solarssh.impl.CircuitBreaker;
+import net.solarnetwork.solarssh.impl.DefaultBruteForceService;
 import net.solarnetwork.solarssh.impl.DefaultSolarNetClient;
 import net.solarnetwork.solarssh.impl.DefaultSolarSshService;
 import net.solarnetwork.solarssh.impl.DefaultSolarSshdDirectServer;
 import net.solarnetwork.solarssh.impl.DefaultSolarSshdServer;
+import net.solarnetwork.solarssh.impl.HttpSolarNetClient;
 import net.solarnetwork.solarssh.impl.JdbcActorDao;
+import net.solarnetwork.solarssh.impl.NodeMetadataCache;
+import net.solarnetwork.solarssh.impl.ResilientSolarNetClient;
+import net.solarnetwork.solarssh.impl.SessionRateLimiter;
+import net.solarnetwork.solarssh.impl.SigningKeyCache;
+import net.solarnetwork.solarssh.impl.TokenBucketRateLimiter;
+import net.solarnetwork.solarssh.service.BruteForceService;
 import net.solarnetwork.solarssh.service.SolarNetClient;
 import net.solarnetwork.solarssh.service.SolarSshService;
 
@@ -50,7 +63,7 @@ import net.solarnetwork.solarssh.service.SolarSshService;
  * Main service configuration.
  * 
  * @author matt
- * @version 1.0
+ * @version 1.11
  */
 @Configuration
 @EnableScheduling
@@ -92,22 +105,97 @@ public class ServiceConfig {
   @Value("${solarnet.baseUrl:https://data.solarnetwork.net}")
   private String solarNetBaseUrl = "https://data.solarnetwork.net";
 
+  @Value("${solarnet.client.async:false}")
+  private boolean solarNetClientAsync = false;
+
+  @Value("${solarnet.client.coalesce:true}")
+  private boolean solarNetClientCoalesce = true;
+
+  @Value("${solarnet.client.requestTimeoutSeconds:60}")
+  private int solarNetClientRequestTimeoutSeconds = 60;
+
+  @Value("${solarnet.client.resilience.enabled:true}")
+  private boolean solarNetResilienceEnabled = true;
+
+  @Value("${solarnet.client.resilience.budgetMs:10000}")
+  private long solarNetBudgetMs = ResilientSolarNetClient.DEFAULT_BUDGET_MILLIS;
+
+  @Value("${solarnet.client.resilience.pendingInstructionsBudgetMs:0}")
+  private long solarNetPendingInstructionsBudgetMs = 0;
+
+  @Value("${solarnet.client.resilience.getInstructionBudgetMs:0}")
+  private long solarNetGetInstructionBudgetMs = 0;
+
+  @Value("${solarnet.client.resilience.queueInstructionBudgetMs:0}")
+  private long solarNetQueueInstructionBudgetMs = 0;
+
+  @Value("${solarnet.client.resilience.getNodeMetadataBudgetMs:0}")
+  private long solarNetGetNodeMetadataBudgetMs = 0;
+
+  @Value("${solarnet.client.resilience.hedgeDelayMs:0}")
+  private long solarNetHedgeDelayMs = 0;
+
+  @Value("${solarnet.client.resilience.maxConcurrency:32}")
+  private int solarNetMaxConcurrency = ResilientSolarNetClient.DEFAULT_MAX_CONCURRENCY;
+
+  @Value("${solarnet.client.resilience.queueCapacity:64}")
+  private int solarNetQueueCapacity = ResilientSolarNetClient.DEFAULT_QUEUE_CAPACITY;
+
+  @Value("${solarnet.client.resilience.failureThreshold:5}")
+  private int solarNetFailureThreshold = CircuitBreaker.DEFAULT_FAILURE_THRESHOLD;
+
+  @Value("${solarnet.client.resilience.openSeconds:30}")
+  private int solarNetOpenSeconds = 30;
+
   @Value("${ssh.direct.port:9022}")
   private int sshDirectPort = 9022;
 
+  @Value("${ssh.rateLimit.slots:4096}")
+  private int rateLimitSlots = TokenBucketRateLimiter.DEFAULT_SLOTS;
+
+  @Value("${ssh.rateLimit.address.slots:65536}")
+  private int rateLimitAddressSlots = 65536;
+
+  @Value("${ssh.rateLimit.address.perMinute:30}")
+  private double rateLimitAddressPerMinute = 30;
+
+  @Value("${ssh.rateLimit.address.burst:10}")
+  private int rateLimitAddressBurst = 10;
+
+  @Value("${ssh.rateLimit.token.perMinute:30}")
+  private double rateLimitTokenPerMinute = 30;
+
+  @Value("${ssh.rateLimit.token.burst:10}")
+  private int rateLimitTokenBurst = 10;
+
+  @Value("${ssh.rateLimit.node.perMinute:10}")
+  private double rateLimitNodePerMinute = 10;
+
+  @Value("${ssh.rateLimit.node.burst:5}")
+  private int rateLimitNodeBurst = 5;
+
   @Autowired
   private JdbcOperations jdbcOps;
 
   @Autowired(required = false)
   @Qualifier("brute-force-deny-list")
-  private Cache<InetAddress, Byte> bruteForceDenyList;
+  private BruteForceAttemptTracker bruteForceDenyList;
+
+  @Autowired(required = false)
+  private SigningKeyCache signingKeyCache;
+
+  @Autowired(required = false)
+  private ActorLoginJournal actorLoginJournal;
+
+  @Autowired(required = false)
+  private NodeMetadataCache nodeMetadataCache;
 
   /**
    * Initialize the {@link SolarSshService} service.
    * 
    * @return the service
    */
-  @Bean(initMethod = "init")
+  @Bean(initMethod = "init", destroyMethod = "shutdown")
   public DefaultSolarSshService solarSshService() {
     DefaultSolarSshService service = new DefaultSolarSshService(solarNetClient());
     service.setHost(sshHost);
@@ -115,6 +203,7 @@ public class ServiceConfig {
     service.setMinPort(sshReversePortMin);
     service.setMaxPort(sshReversePortMax);
     service.setSessionExpireSeconds(sessionExpireSeconds);
+    service.setNodeMetadataCache(nodeMetadataCache);
     return service;
   }
 
@@ -123,43 +212,153 @@ public class ServiceConfig {
     solarSshService().cleanupExpiredSessions();
   }
 
+  /**
+   * Purge expired brute force entries and save a snapshot of those remaining.
+   */
+  @Scheduled(fixedDelayString = "${cache.bruteForceDeny.snapshotJobMs:60000}")
+  public void snapshotBruteForceDenyList() {
+    if (bruteForceDenyList != null) {
+      bruteForceDenyList.purgeExpired();
+      bruteForceDenyList.saveSnapshot();
+    }
+  }
+
+  /**
+   * Purge expired actor login journal entries and save a snapshot of those remaining.
+   */
+  @Scheduled(fixedDelayString = "${cache.actor.preload.snapshotJobMs:300000}")
+  public void snapshotActorLoginJournal() {
+    if (actorLoginJournal != null) {
+      actorLoginJournal.purgeExpired();
+      actorLoginJournal.saveSnapshot();
+    }
+  }
+
+  /**
+   * Initialize the brute force service.
+   * 
+   * @param denyList
+   *        the deny list to use
+   * @return the service
+   */
+  @Bean
+  @Profile("!default")
+  public DefaultBruteForceService bruteForceService(
+      @Qualifier("brute-force-deny-list") BruteForceAttemptTracker denyList) {
+    DefaultBruteForceService service = new DefaultBruteForceService(denyList);
+    service.setMaxFails(bruteForceMaxTries);
+    return service;
+  }
+
+  /**
+   * Initialize the session rate limiter.
+   * 
+   * @return the rate limiter
+   */
+  @Bean
+  public SessionRateLimiter sessionRateLimiter() {
+    return new SessionRateLimiter(
+        new TokenBucketRateLimiter(rateLimitAddressSlots, rateLimitAddressPerMinute,
+            rateLimitAddressBurst),
+        new TokenBucketRateLimiter(rateLimitSlots, rateLimitTokenPerMinute, rateLimitTokenBurst),
+        new TokenBucketRateLimiter(rateLimitSlots, rateLimitNodePerMinute, rateLimitNodeBurst));
+  }
+
   /**
    * Initialize the SolarNetClient.
    * 
+   * <p>
+   * Unless disabled, the client is wrapped by a {@link ResilientSolarNetClient} that applies
+   * latency budgets, a circuit breaker, and optional hedging.
+   * </p>
+   * 
    * @return the client
    */
   @Bean(initMethod = "init")
   public SolarNetClient solarNetClient() {
+    SolarNetClient client = createSolarNetClient(solarNetClientCoalesce);
+    if (!solarNetResilienceEnabled) {
+      return client;
+    }
+    initSolarNetClient(client);
+    CircuitBreaker breaker = new CircuitBreaker();
+    breaker.setFailureThreshold(solarNetFailureThreshold);
+    breaker.setOpenMillis(TimeUnit.SECONDS.toMillis(solarNetOpenSeconds));
+    ResilientSolarNetClient resilient = new ResilientSolarNetClient(client, breaker);
+    resilient.setDefaultBudgetMillis(solarNetBudgetMs);
+    resilient.setBudgetMillis(ResilientSolarNetClient.ENDPOINT_PENDING_INSTRUCTIONS,
+        solarNetPendingInstructionsBudgetMs);
+    resilient.setBudgetMillis(ResilientSolarNetClient.ENDPOINT_GET_INSTRUCTION,
+        solarNetGetInstructionBudgetMs);
+    resilient.setBudgetMillis(ResilientSolarNetClient.ENDPOINT_QUEUE_INSTRUCTION,
+        solarNetQueueInstructionBudgetMs);
+    resilient.setBudgetMillis(ResilientSolarNetClient.ENDPOINT_GET_NODE_METADATA,
+        solarNetGetNodeMetadataBudgetMs);
+    resilient.setMaxConcurrency(solarNetMaxConcurrency);
+    resilient.setQueueCapacity(solarNetQueueCapacity);
+    resilient.setHedgeDelayMillis(solarNetHedgeDelayMs);
+    if (solarNetHedgeDelayMs > 0 && solarNetClientCoalesce && !solarNetClientAsync) {
+      // hedged requests must not be coalesced with the requests they hedge
+      SolarNetClient hedgeClient = createSolarNetClient(false);
+      initSolarNetClient(hedgeClient);
+      resilient.setHedgeDelegate(hedgeClient);
+    }
+    return resilient;
+  }
+
+  private SolarNetClient createSolarNetClient(boolean coalesce) {
+    if (solarNetClientAsync) {
+      HttpSolarNetClient client = new HttpSolarNetClient();
+      client.setApiBaseUrl(solarNetBaseUrl);
+      client.setRequestTimeout(Duration.ofSeconds(solarNetClientRequestTimeoutSeconds));
+      return client;
+    }
     DefaultSolarNetClient client = new DefaultSolarNetClient();
     client.setApiBaseUrl(solarNetBaseUrl);
+    client.setCoalesceRequests(coalesce);
     return client;
   }
 
+  private static void initSolarNetClient(SolarNetClient client) {
+    if (client instanceof HttpSolarNetClient c) {
+      c.init();
+    } else if (client instanceof DefaultSolarNetClient c) {
+      c.init();
+    }
+  }
+
   /**
    * Initialize the SSHD server service.
    * 
+   * @param bruteForceService
+   *        the optional brute force service
    * @return the service.
    */
   @Bean(initMethod = "start", destroyMethod = "stop")
-  public DefaultSolarSshdServer solarSshdService() {
+  public DefaultSolarSshdServer solarSshdService(
+      ObjectProvider<BruteForceService> bruteForceService) {
     DefaultSolarSshdServer service = new DefaultSolarSshdServer(solarSshService());
     service.setPort(sshPort);
     service.setServerKeyResource(sshKeyResource);
     service.setServerKeyPassword(sshKeyPassword);
-    service.setBruteForceDenyList(bruteForceDenyList);
-    service.setBruteForceMaxTries(bruteForceMaxTries);
+    service.setBruteForceService(bruteForceService.getIfAvailable());
     return service;
   }
 
   /**
    * Initialize the SSHD server service.
    * 
+   * @param bruteForceService
+   *        the optional brute force service
+   * @param actorDao
+   *        the actor DAO; a {@code @Primary} bean can be provided to replace {@link #actorDao()}
    * @return the service.
    */
   @Bean(initMethod = "start", destroyMethod = "stop")
-  public DefaultSolarSshdDirectServer solarSshdDirectService() {
+  public DefaultSolarSshdDirectServer solarSshdDirectService(
+      ObjectProvider<BruteForceService> bruteForceService, ActorDao actorDao) {
     DefaultSolarSshdDirectServer service = new DefaultSolarSshdDirectServer(solarSshService(),
-        actorDao());
+        actorDao);
     service.setPort(sshDirectPort);
     service.setServerKeyResource(sshKeyResource);
     service.setServerKeyPassword(sshKeyPassword);
@@ -167,8 +366,9 @@ public class ServiceConfig {
     service.setAuthTimeoutSecs(authTimeoutSecs);
     service.setInstructionCompletedWaitMs(instructionCompletedWaitMs);
     service.setInstructionIncompleteWaitMs(instructionIncompleteWaitMs);
-    service.setBruteForceDenyList(bruteForceDenyList);
-    service.setBruteForceMaxTries(bruteForceMaxTries);
+    service.setSessionRateLimiter(sessionRateLimiter());
+    service.setSigningKeyCache(signingKeyCache);
+    service.setBruteForceService(bruteForceService.getIfAvailable());
     return service;
   }
 
@@ -186,7 +386,7 @@ public class ServiceConfig {
    * 
    * @return the actor DAO
    */
-  @Bean
+  @Bean(initMethod = "init")
   public JdbcActorDao actorDao() {
     JdbcActorDao dao = new JdbcActorDao(jdbcOps);
     return dao;
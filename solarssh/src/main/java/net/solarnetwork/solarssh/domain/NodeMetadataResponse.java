@@ -0,0 +1,108 @@
+/* ==================================================================
+ * NodeMetadataResponse.java - 19/10/2026 9:31:48 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.domain;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+
+/**
+ * Node metadata along with the HTTP cache validators SolarNet returned for it.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class NodeMetadataResponse {
+
+  private final GeneralDatumMetadata metadata;
+  private final String etag;
+  private final long lastModified;
+  private final boolean notModified;
+
+  /**
+   * Constructor.
+   *
+   * @param metadata
+   *        the metadata
+   * @param etag
+   *        the {@code ETag} response header value, or {@literal null}
+   * @param lastModified
+   *        the {@code Last-Modified} response header value, or {@literal 0} if not available
+   * @param notModified
+   *        {@literal true} if SolarNet responded that the metadata has not been modified since the
+   *        validators given in the request
+   */
+  public NodeMetadataResponse(GeneralDatumMetadata metadata, String etag, long lastModified,
+      boolean notModified) {
+    super();
+    this.metadata = metadata;
+    this.etag = etag;
+    this.lastModified = lastModified;
+    this.notModified = notModified;
+  }
+
+  /**
+   * Create a not-modified copy of this response.
+   *
+   * @return the new response, with the same metadata and validators as this response
+   */
+  public NodeMetadataResponse asNotModified() {
+    return new NodeMetadataResponse(metadata, etag, lastModified, true);
+  }
+
+  /**
+   * Get the metadata.
+   *
+   * @return the metadata
+   */
+  public GeneralDatumMetadata getMetadata() {
+    return metadata;
+  }
+
+  /**
+   * Get the entity tag.
+   *
+   * @return the {@code ETag} response header value, or {@literal null}
+   */
+  public String getEtag() {
+    return etag;
+  }
+
+  /**
+   * Get the last modified date.
+   *
+   * @return the {@code Last-Modified} response header value as an epoch millisecond value, or
+   *         {@literal 0} if not available
+   */
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * Get the not-modified flag.
+   *
+   * @return {@literal true} if SolarNet responded with {@literal 304 Not Modified}
+   */
+  public boolean isNotModified() {
+    return notModified;
+  }
+
+}
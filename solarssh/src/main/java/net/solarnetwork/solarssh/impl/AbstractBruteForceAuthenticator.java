@@ -22,123 +22,70 @@
 
 package net.solarnetwork.solarssh.impl;
 
-import static net.solarnetwork.codec.JsonUtils.getJSONString;
-import static net.solarnetwork.solarssh.Globals.AUDIT_LOG;
-
-import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.util.Map;
-
-import javax.cache.Cache;
 
 import org.apache.sshd.common.RuntimeSshException;
 import org.apache.sshd.server.session.ServerSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import net.solarnetwork.solarssh.Globals;
+import net.solarnetwork.solarssh.service.BruteForceService;
 
 /**
  * Base class for brute force mitigation authenticators.
  * 
  * @author matt
- * @version 1.3
+ * @version 2.0
  */
 public abstract class AbstractBruteForceAuthenticator {
 
   /** The audit event name when an IP address is tracked after an authentication failure. */
-  public static final String AUDIT_EVENT_IP_TRACKING_FAILED_ATTEMPT = "IP-TRACK-FAIL";
+  public static final String AUDIT_EVENT_IP_TRACKING_FAILED_ATTEMPT =
+      BruteForceService.AUDIT_EVENT_FAILED_ATTEMPT;
 
   /** The audit event name when an IP address is blocked. */
-  public static final String AUDIT_EVENT_IP_TRACKING_BLOCKED = "IP-TRACK-BLOCKED";
+  public static final String AUDIT_EVENT_IP_TRACKING_BLOCKED =
+      BruteForceService.AUDIT_EVENT_BLOCKED;
 
   protected final Logger log = LoggerFactory.getLogger(getClass());
 
-  private final Cache<InetAddress, Byte> denyList;
-  private int maxFails = 1;
+  private final BruteForceService bruteForceService;
 
   /**
    * Constructor.
    * 
-   * @param denyList
-   *        the deny list to use
+   * @param bruteForceService
+   *        the brute force service to use
    * @throws IllegalArgumentException
    *         if any argument is {@literal null}
    */
-  public AbstractBruteForceAuthenticator(Cache<InetAddress, Byte> denyList) {
+  public AbstractBruteForceAuthenticator(BruteForceService bruteForceService) {
     super();
-    if (denyList == null) {
-      throw new IllegalArgumentException("The denyList argument must not be null.");
+    if (bruteForceService == null) {
+      throw new IllegalArgumentException("The bruteForceService argument must not be null.");
     }
-    this.denyList = denyList;
+    this.bruteForceService = bruteForceService;
   }
 
   /**
    * Handle an authentication failure.
    * 
+   * <p>
+   * If the failure causes the remote address to be blocked, the session is closed and a
+   * {@link RuntimeSshException} thrown.
+   * </p>
+   * 
    * @param username
    *        the username
    * @param session
    *        the session
    */
   protected void handleAuthenticationFailure(String username, ServerSession session) {
-    if (session.getRemoteAddress() instanceof InetSocketAddress) {
-      InetAddress src = ((InetSocketAddress) session.getRemoteAddress()).getAddress();
-      if (!src.isLoopbackAddress()) {
-        final Byte currCount = denyList.get(src);
-        byte count = 0;
-        if (currCount == null) {
-          count = (byte) 1;
-        } else if (currCount.byteValue() != (byte) 0xFF) {
-          count = (byte) ((currCount.byteValue() & 0xFF) + 1);
-        }
-        final int attempts = Byte.toUnsignedInt(count);
-        if (attempts >= maxFails) {
-          session.close(false);
-          log.info("{} authentication attempt [{}] blocked after {} attempts", src, username,
-              attempts);
-          auditBruteForceEvent(session, username, src, attempts, AUDIT_EVENT_IP_TRACKING_BLOCKED);
-          throw new RuntimeSshException("Blocked.");
-        } else {
-          log.info("{} authentication attempt [{}] failed: attempt {}", src, username, attempts);
-          if (currCount == null) {
-            denyList.putIfAbsent(src, count);
-          } else {
-            denyList.replace(src, currCount, count);
-          }
-          auditBruteForceEvent(session, username, src, attempts,
-              AUDIT_EVENT_IP_TRACKING_FAILED_ATTEMPT);
-        }
-      }
+    if (session.getRemoteAddress() instanceof InetSocketAddress addr
+        && bruteForceService.handleFailure(addr.getAddress(), session.getUsername(), username)) {
+      session.close(false);
+      throw new RuntimeSshException("Blocked.");
     }
   }
 
-  private void auditBruteForceEvent(ServerSession session, String username, InetAddress src,
-      int count, String auditEventName) {
-    Map<String, Object> auditProps = Globals.auditEventMap(session, null, auditEventName);
-    auditProps.put("remoteAddress", src);
-    auditProps.put("attempts", count);
-    auditProps.put("username", username);
-    AUDIT_LOG.info(getJSONString(auditProps, "{}"));
-  }
-
-  /**
-   * Get the max fails count.
-   * 
-   * @return the max fails before closing connection; defaults to {@literal 1}
-   */
-  public int getMaxFails() {
-    return maxFails;
-  }
-
-  /**
-   * Set the max fails count.
-   * 
-   * @param maxFails
-   *        the count to set
-   */
-  public void setMaxFails(int maxFails) {
-    this.maxFails = maxFails;
-  }
-
 }
@@ -27,11 +27,8 @@ import static net.solarnetwork.solarssh.Globals.AUDIT_LOG;
 import static net.solarnetwork.solarssh.Globals.DEFAULT_SN_HOST;
 
 import java.io.IOException;
-import java.net.InetAddress;
 import java.util.Map;
 
-import javax.cache.Cache;
-
 import org.apache.sshd.common.channel.Channel;
 import org.apache.sshd.common.channel.ChannelListener;
 import org.apache.sshd.common.config.keys.FilePasswordProvider;
@@ -48,12 +45,13 @@ import org.springframework.core.io.Resource;
 import net.solarnetwork.solarssh.Globals;
 import net.solarnetwork.solarssh.dao.SshSessionDao;
 import net.solarnetwork.solarssh.domain.SshSession;
+import net.solarnetwork.solarssh.service.BruteForceService;
 
 /**
  * Abstract base class for SolarSSH SSHD server instances.
  * 
  * @author matt
- * @version 1.2
+ * @version 2.0
  */
 public abstract class AbstractSshdServer implements SessionListener, ChannelListener {
 
@@ -72,8 +70,7 @@ public abstract class AbstractSshdServer implements SessionListener, ChannelList
   private int authTimeoutSecs = DEFAULT_AUTH_TIMEOUT_SECS;
   private Resource serverKeyResource;
   private String serverKeyPassword;
-  private Cache<InetAddress, Byte> bruteForceDenyList;
-  private int bruteForceMaxTries = 1;
+  private BruteForceService bruteForceService;
 
   /** A class-level logger. */
   protected final Logger log = LoggerFactory.getLogger(getClass());
@@ -116,10 +113,8 @@ public abstract class AbstractSshdServer implements SessionListener, ChannelList
 
     s.getProperties().put(CoreModuleProperties.AUTH_TIMEOUT.getName(), authTimeoutSecs * 1000L);
 
-    if (bruteForceDenyList != null) {
-      BruteForceDenyEventListener listener = new BruteForceDenyEventListener(bruteForceDenyList);
-      listener.setMaxFails(bruteForceMaxTries);
-      s.setIoServiceEventListener(listener);
+    if (bruteForceService != null) {
+      s.setIoServiceEventListener(new BruteForceDenyEventListener(bruteForceService));
     }
 
     return s;
@@ -268,41 +263,22 @@ public abstract class AbstractSshdServer implements SessionListener, ChannelList
   }
 
   /**
-   * Get the brute force deny list.
-   * 
-   * @return the deny list
-   */
-  public Cache<InetAddress, Byte> getBruteForceDenyList() {
-    return bruteForceDenyList;
-  }
-
-  /**
-   * Set the brute force deny list.
-   * 
-   * @param bruteForceDenyList
-   *        the deny list to set
-   */
-  public void setBruteForceDenyList(Cache<InetAddress, Byte> bruteForceDenyList) {
-    this.bruteForceDenyList = bruteForceDenyList;
-  }
-
-  /**
-   * Get the brute force max tries.
+   * Get the brute force service.
    * 
-   * @return the max tries
+   * @return the service
    */
-  public int getBruteForceMaxTries() {
-    return bruteForceMaxTries;
+  public BruteForceService getBruteForceService() {
+    return bruteForceService;
   }
 
   /**
-   * Set the brute force max tries.
+   * Set the brute force service.
    * 
-   * @param bruteForceMaxTries
-   *        the count to set
+   * @param bruteForceService
+   *        the service to set, or {@literal null} to disable brute force mitigation
    */
-  public void setBruteForceMaxTries(int bruteForceMaxTries) {
-    this.bruteForceMaxTries = bruteForceMaxTries;
+  public void setBruteForceService(BruteForceService bruteForceService) {
+    this.bruteForceService = bruteForceService;
   }
 
 }
@@ -20,8 +20,7 @@ package net.solarnetwork.solarssh.impl;
 import java.sql.Array;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,12 +31,13 @@ import net.solarnetwork.central.security.SecurityPolicy;
 import net.solarnetwork.codec.JsonUtils;
 import net.solarnetwork.solarssh.domain.Actor;
 import net.solarnetwork.solarssh.domain.ActorDetails;
+import net.solarnetwork.solarssh.domain.NodeIdSet;
 
 /**
  * {@link RowMapper} for {@link ActorDetails}.
  * 
  * @author matt
- * @version 1.1
+ * @version 1.3
  */
 public class ActorDetailsRowMapper implements RowMapper<Actor> {
 
@@ -68,6 +68,7 @@ public class ActorDetailsRowMapper implements RowMapper<Actor> {
   private final int tokenTypeCol;
   private final int policyCol;
   private final int nodeIdsCol;
+  private final SecurityPolicyInterner policyInterner;
 
   /**
    * Constructor with default settings.
@@ -77,7 +78,20 @@ public class ActorDetailsRowMapper implements RowMapper<Actor> {
    */
   public ActorDetailsRowMapper(String tokenId) {
     this(tokenId, DEFAULT_USER_ID_COL, DEFAULT_TOKEN_TYPE_COL, DEFAULT_POLICY_COL,
-        DEFAULT_NODE_IDS_COL);
+        DEFAULT_NODE_IDS_COL, null);
+  }
+
+  /**
+   * Constructor with default columns and a policy interner.
+   * 
+   * @param tokenId
+   *        the token ID
+   * @param policyInterner
+   *        the interner to share parsed policies with, or {@literal null} to parse every policy
+   */
+  public ActorDetailsRowMapper(String tokenId, SecurityPolicyInterner policyInterner) {
+    this(tokenId, DEFAULT_USER_ID_COL, DEFAULT_TOKEN_TYPE_COL, DEFAULT_POLICY_COL,
+        DEFAULT_NODE_IDS_COL, policyInterner);
   }
 
   /**
@@ -96,12 +110,34 @@ public class ActorDetailsRowMapper implements RowMapper<Actor> {
    */
   public ActorDetailsRowMapper(String tokenId, int userIdCol, int tokenTypeCol, int policyCol,
       int nodeIdsCol) {
+    this(tokenId, userIdCol, tokenTypeCol, policyCol, nodeIdsCol, null);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param tokenId
+   *        the token ID
+   * @param userIdCol
+   *        the JDBC column for the user ID
+   * @param tokenTypeCol
+   *        the JDBC column for the token type
+   * @param policyCol
+   *        the JDBC column for the policy
+   * @param nodeIdsCol
+   *        the JDBC column for the node IDs array
+   * @param policyInterner
+   *        the interner to share parsed policies with, or {@literal null} to parse every policy
+   */
+  public ActorDetailsRowMapper(String tokenId, int userIdCol, int tokenTypeCol, int policyCol,
+      int nodeIdsCol, SecurityPolicyInterner policyInterner) {
     super();
     this.tokenId = tokenId;
     this.userIdCol = userIdCol;
     this.tokenTypeCol = tokenTypeCol;
     this.policyCol = policyCol;
     this.nodeIdsCol = nodeIdsCol;
+    this.policyInterner = policyInterner;
   }
 
   @Override
@@ -111,31 +147,43 @@ public class ActorDetailsRowMapper implements RowMapper<Actor> {
     String tokenType = rs.getString(tokenTypeCol);
     String policyJson = rs.getString(policyCol);
     SecurityPolicy policy = null;
-    if (policyJson != null) {
+    if (policyInterner != null) {
+      policy = policyInterner.intern(policyJson);
+    } else if (policyJson != null) {
       policy = JsonUtils.getObjectFromJSON(policyJson, BasicSecurityPolicy.class);
     }
 
-    Set<Long> nodeIds = null;
-    Array dbNodeIds = rs.getArray(nodeIdsCol);
-    if (dbNodeIds != null) {
-      Object data = dbNodeIds.getArray();
-      if (data != null && data.getClass().isArray()) {
-        Object[] arrayData = (Object[]) data;
-        nodeIds = new LinkedHashSet<>(arrayData.length);
-        for (int i = 0; i < arrayData.length; i++) {
-          Object val = arrayData[i];
-          if (val instanceof Long) {
-            nodeIds.add((Long) val);
-          } else if (val instanceof Number) {
-            nodeIds.add(((Number) val).longValue());
-          } else {
-            log.warn("Unexpected non-Number node ID array value returned from DB: [{}]", val);
-          }
-        }
-      }
+    // parse the text form directly to avoid boxing every element of a large array
+    NodeIdSet nodeIds = NodeIdSet.parseArrayLiteral(rs.getString(nodeIdsCol));
+    if (nodeIds == null) {
+      nodeIds = nodeIds(rs.getArray(nodeIdsCol));
     }
 
     return new ActorDetails(this.tokenId, userId, policy, nodeIds);
   }
 
+  private static NodeIdSet nodeIds(Array dbNodeIds) throws SQLException {
+    if (dbNodeIds == null) {
+      return null;
+    }
+    Object data = dbNodeIds.getArray();
+    if (data instanceof long[] primitiveData) {
+      return NodeIdSet.of(primitiveData);
+    }
+    if (!(data instanceof Object[] arrayData)) {
+      return null;
+    }
+    long[] ids = new long[arrayData.length];
+    int len = 0;
+    for (int i = 0; i < arrayData.length; i++) {
+      Object val = arrayData[i];
+      if (val instanceof Number n) {
+        ids[len++] = n.longValue();
+      } else {
+        log.warn("Unexpected non-Number node ID array value returned from DB: [{}]", val);
+      }
+    }
+    return NodeIdSet.of(len == ids.length ? ids : Arrays.copyOf(ids, len));
+  }
+
 }
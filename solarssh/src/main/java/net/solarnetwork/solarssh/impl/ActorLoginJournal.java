@@ -0,0 +1,300 @@
+/* ==================================================================
+ * ActorLoginJournal.java - 19/10/2026 7:16:52 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Journal of the security tokens that have recently logged in, used to warm up caches at startup.
+ *
+ * <p>
+ * Logins are recorded in memory, and the journal is saved to {@code snapshotPath} periodically
+ * and at shutdown in a compact binary form. Only token IDs and login dates are recorded, never
+ * secrets.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class ActorLoginJournal {
+
+  /** The default value for the {@code maxEntries} property. */
+  public static final int DEFAULT_MAX_ENTRIES = 2000;
+
+  /** The default value for the {@code maxAgeMillis} property: 1 day. */
+  public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  /** The snapshot file magic number: {@literal SSAJ}. */
+  private static final int SNAPSHOT_MAGIC = 0x5353414A;
+
+  private static final short SNAPSHOT_VERSION = 1;
+
+  private static final int SNAPSHOT_HEADER_SIZE = 10;
+
+  private static final int MAX_TOKEN_LENGTH = 255;
+
+  private static final Logger log = LoggerFactory.getLogger(ActorLoginJournal.class);
+
+  private final ConcurrentMap<String, Long> logins = new ConcurrentHashMap<>(64);
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+  private long maxAgeMillis = DEFAULT_MAX_AGE_MILLIS;
+  private Path snapshotPath;
+  private volatile boolean modified;
+
+  /**
+   * Record a login.
+   *
+   * @param tokenId
+   *        the ID of the token that logged in
+   */
+  public void record(String tokenId) {
+    if (tokenId == null || tokenId.length() > MAX_TOKEN_LENGTH) {
+      return;
+    }
+    logins.put(tokenId, System.currentTimeMillis());
+    modified = true;
+    if (logins.size() > maxEntries) {
+      prune();
+    }
+  }
+
+  private synchronized void prune() {
+    if (logins.size() <= maxEntries) {
+      return;
+    }
+    // keep the most recent logins, with some headroom so this does not run on every login
+    List<String> recent = recentTokenIds();
+    for (int i = maxEntries - (maxEntries / 10); i < recent.size(); i++) {
+      logins.remove(recent.get(i));
+    }
+  }
+
+  /**
+   * Remove all entries older than {@code maxAgeMillis}.
+   */
+  public void purgeExpired() {
+    final long min = System.currentTimeMillis() - maxAgeMillis;
+    if (logins.values().removeIf(d -> d.longValue() < min)) {
+      modified = true;
+    }
+  }
+
+  /**
+   * Get the IDs of tokens that logged in within {@code maxAgeMillis}.
+   *
+   * @return the token IDs, most recent first
+   */
+  public List<String> recentTokenIds() {
+    final long min = System.currentTimeMillis() - maxAgeMillis;
+    List<Map.Entry<String, Long>> entries = new ArrayList<>(logins.size());
+    for (Map.Entry<String, Long> e : logins.entrySet()) {
+      if (e.getValue().longValue() >= min) {
+        entries.add(Map.entry(e.getKey(), e.getValue()));
+      }
+    }
+    if (entries.isEmpty()) {
+      return Collections.emptyList();
+    }
+    entries.sort(Map.Entry.<String, Long> comparingByValue().reversed());
+    List<String> result = new ArrayList<>(entries.size());
+    for (Map.Entry<String, Long> e : entries) {
+      result.add(e.getKey());
+    }
+    return result;
+  }
+
+  /**
+   * Get the number of recorded tokens.
+   *
+   * @return the count
+   */
+  public int size() {
+    return logins.size();
+  }
+
+  /**
+   * Load the entries saved by a previous call to {@link #saveSnapshot()}.
+   *
+   * <p>
+   * Entries older than {@code maxAgeMillis} are dropped. If no {@code snapshotPath} is configured,
+   * the file does not exist, or it is not a valid snapshot, nothing is loaded.
+   * </p>
+   */
+  public void loadSnapshot() {
+    final Path path = snapshotPath;
+    if (path == null || !Files.isReadable(path)) {
+      return;
+    }
+    final long min = System.currentTimeMillis() - maxAgeMillis;
+    int loaded = 0;
+    try {
+      final ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(path));
+      if (buf.remaining() < SNAPSHOT_HEADER_SIZE || buf.getInt() != SNAPSHOT_MAGIC
+          || buf.getShort() != SNAPSHOT_VERSION) {
+        log.warn("Ignoring invalid actor login journal {}", path);
+        return;
+      }
+      final int count = buf.getInt();
+      int read = 0;
+      while (read < count && buf.remaining() > Long.BYTES) {
+        final long date = buf.getLong();
+        final int len = Byte.toUnsignedInt(buf.get());
+        if (buf.remaining() < len) {
+          break;
+        }
+        final byte[] token = new byte[len];
+        buf.get(token);
+        read++;
+        if (date >= min && logins.size() < maxEntries
+            && logins.putIfAbsent(new String(token, US_ASCII), date) == null) {
+          loaded++;
+        }
+      }
+      if (read < count) {
+        log.warn("Actor login journal {} truncated after {} of {} entries", path, read, count);
+      }
+    } catch (IOException e) {
+      log.warn("Error loading actor login journal {}: {}", path, e.toString());
+    }
+    log.info("Loaded {} recent token logins from {}", loaded, path);
+  }
+
+  /**
+   * Save all entries to the configured {@code snapshotPath}.
+   *
+   * <p>
+   * The snapshot is written to a temporary file and then moved into place, so a crash part way
+   * through never leaves a corrupt snapshot. Nothing is written if no logins have been recorded
+   * since the last snapshot.
+   * </p>
+   */
+  public void saveSnapshot() {
+    final Path path = snapshotPath;
+    if (path == null || !modified) {
+      return;
+    }
+    modified = false;
+    final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      List<Map.Entry<String, Long>> entries = new ArrayList<>(logins.entrySet());
+      ByteBuffer buf = ByteBuffer
+          .allocate(SNAPSHOT_HEADER_SIZE + entries.size() * (Long.BYTES + 1 + 32));
+      buf.putInt(SNAPSHOT_MAGIC).putShort(SNAPSHOT_VERSION).putInt(0);
+      int count = 0;
+      for (Map.Entry<String, Long> e : entries) {
+        final byte[] token = e.getKey().getBytes(US_ASCII);
+        if (buf.remaining() < Long.BYTES + 1 + token.length) {
+          ByteBuffer bigger = ByteBuffer.allocate(buf.capacity() * 2 + token.length);
+          buf = bigger.put(buf.flip());
+        }
+        buf.putLong(e.getValue()).put((byte) token.length).put(token);
+        count++;
+      }
+      buf.putInt(Integer.BYTES + Short.BYTES, count);
+      Files.createDirectories(path.getParent());
+      Files.write(tmp, Arrays.copyOf(buf.array(), buf.position()));
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      log.debug("Saved {} recent token logins to {}", count, path);
+    } catch (IOException e) {
+      modified = true;
+      log.warn("Error saving actor login journal {}: {}", path, e.toString());
+    }
+  }
+
+  /**
+   * Get the maximum number of entries.
+   *
+   * @return the maximum number of tokens to record; defaults to {@link #DEFAULT_MAX_ENTRIES}
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Set the maximum number of entries.
+   *
+   * @param maxEntries
+   *        the maximum number of tokens to record
+   */
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Get the maximum login age.
+   *
+   * @return the number of milliseconds after which a login is forgotten; defaults to
+   *         {@link #DEFAULT_MAX_AGE_MILLIS}
+   */
+  public long getMaxAgeMillis() {
+    return maxAgeMillis;
+  }
+
+  /**
+   * Set the maximum login age.
+   *
+   * @param maxAgeMillis
+   *        the number of milliseconds after which a login is forgotten
+   */
+  public void setMaxAgeMillis(long maxAgeMillis) {
+    this.maxAgeMillis = maxAgeMillis;
+  }
+
+  /**
+   * Get the snapshot file path.
+   *
+   * @return the path, or {@literal null} if snapshots are not used
+   */
+  public Path getSnapshotPath() {
+    return snapshotPath;
+  }
+
+  /**
+   * Set the snapshot file path.
+   *
+   * @param snapshotPath
+   *        the path to save and load snapshots to, or {@literal null} to disable snapshots
+   */
+  public void setSnapshotPath(Path snapshotPath) {
+    this.snapshotPath = snapshotPath;
+  }
+
+}
@@ -0,0 +1,233 @@
+/* ==================================================================
+ * AddressKey.java - 19/10/2026 9:48:03 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Compact, immutable IP address value, optionally truncated to a network prefix.
+ *
+ * <p>
+ * Both IPv4 and IPv6 addresses are stored as a 128-bit value; IPv4 addresses use the IPv4-mapped
+ * IPv6 form {@literal ::ffff:a.b.c.d}. Bit positions and prefix lengths are always relative to the
+ * address family, so for IPv4 they range from {@literal 0} to {@literal 32}.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+public final class AddressKey {
+
+  /** The number of bits in an IPv4 address. */
+  public static final int IPV4_BITS = 32;
+
+  /** The number of bits in an IPv6 address. */
+  public static final int IPV6_BITS = 128;
+
+  private static final long IPV4_MAPPED_PREFIX = 0xFFFFL << 32;
+
+  private final long hi;
+  private final long lo;
+
+  private AddressKey(long hi, long lo) {
+    super();
+    this.hi = hi;
+    this.lo = lo;
+  }
+
+  /**
+   * Create a key from an address.
+   *
+   * @param address
+   *        the address
+   * @return the key
+   */
+  public static AddressKey of(InetAddress address) {
+    return of(address.getAddress());
+  }
+
+  /**
+   * Create a key from raw address bytes.
+   *
+   * @param address
+   *        the 4 or 16 address bytes, in network byte order
+   * @return the key
+   * @throws IllegalArgumentException
+   *         if {@code address} is not 4 or 16 bytes long
+   */
+  public static AddressKey of(byte[] address) {
+    if (address.length == 4) {
+      return new AddressKey(0L, IPV4_MAPPED_PREFIX | (readLong(address, 0, 4) & 0xFFFFFFFFL));
+    } else if (address.length == 16) {
+      return new AddressKey(readLong(address, 0, 8), readLong(address, 8, 8));
+    }
+    throw new IllegalArgumentException("Invalid address length " + address.length);
+  }
+
+  /**
+   * Create a key from its raw 128-bit value.
+   *
+   * @param hi
+   *        the high 64 bits
+   * @param lo
+   *        the low 64 bits
+   * @return the key
+   */
+  static AddressKey of(long hi, long lo) {
+    return new AddressKey(hi, lo);
+  }
+
+  /**
+   * Get the high 64 bits of the raw 128-bit value.
+   *
+   * @return the high bits
+   */
+  long high() {
+    return hi;
+  }
+
+  /**
+   * Get the low 64 bits of the raw 128-bit value.
+   *
+   * @return the low bits
+   */
+  long low() {
+    return lo;
+  }
+
+  private static long readLong(byte[] data, int offset, int len) {
+    long result = 0L;
+    for (int i = offset, end = offset + len; i < end; i++) {
+      result = (result << 8) | (data[i] & 0xFFL);
+    }
+    return result;
+  }
+
+  /**
+   * Test if this is an IPv4 address.
+   *
+   * @return {@literal true} if this is an IPv4 address
+   */
+  public boolean isIpv4() {
+    return hi == 0L && (lo & 0xFFFFFFFF00000000L) == IPV4_MAPPED_PREFIX;
+  }
+
+  /**
+   * Get the number of bits in this address family.
+   *
+   * @return {@link #IPV4_BITS} or {@link #IPV6_BITS}
+   */
+  public int bitLength() {
+    return (isIpv4() ? IPV4_BITS : IPV6_BITS);
+  }
+
+  /**
+   * Get a single bit of the address.
+   *
+   * @param index
+   *        the bit index, from {@literal 0} (the most significant bit) to {@link #bitLength()}
+   *        exclusive
+   * @return the bit value, {@literal 0} or {@literal 1}
+   */
+  public int bit(int index) {
+    int i = (isIpv4() ? index + (IPV6_BITS - IPV4_BITS) : index);
+    if (i < 64) {
+      return (int) ((hi >>> (63 - i)) & 1L);
+    }
+    return (int) ((lo >>> (127 - i)) & 1L);
+  }
+
+  /**
+   * Get a copy of this key with all bits beyond a given prefix length cleared.
+   *
+   * @param prefixLength
+   *        the number of leading bits to keep
+   * @return the key, which will be this instance if no bits need to be cleared
+   */
+  public AddressKey withPrefix(int prefixLength) {
+    final int bits = bitLength();
+    if (prefixLength >= bits) {
+      return this;
+    }
+    final int p = Math.max(0, prefixLength) + (IPV6_BITS - bits);
+    final long hiMask = (p >= 64 ? -1L : p == 0 ? 0L : -1L << (64 - p));
+    final long loMask = (p <= 64 ? 0L : -1L << (128 - p));
+    return new AddressKey(hi & hiMask, lo & loMask);
+  }
+
+  /**
+   * Get the address bytes.
+   *
+   * @return the 4 (for IPv4) or 16 address bytes, in network byte order
+   */
+  public byte[] toBytes() {
+    if (isIpv4()) {
+      int v = (int) lo;
+      return new byte[] { (byte) (v >>> 24), (byte) (v >>> 16), (byte) (v >>> 8), (byte) v };
+    }
+    byte[] result = new byte[16];
+    for (int i = 0; i < 8; i++) {
+      result[i] = (byte) (hi >>> (56 - (i * 8)));
+      result[i + 8] = (byte) (lo >>> (56 - (i * 8)));
+    }
+    return result;
+  }
+
+  /**
+   * Get this key as an address.
+   *
+   * @return the address
+   */
+  public InetAddress toInetAddress() {
+    try {
+      return InetAddress.getByAddress(toBytes());
+    } catch (UnknownHostException e) {
+      // should not get here, as address length always valid
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(hi) * 31 + Long.hashCode(lo);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof AddressKey)) {
+      return false;
+    }
+    AddressKey other = (AddressKey) obj;
+    return hi == other.hi && lo == other.lo;
+  }
+
+  @Override
+  public String toString() {
+    return toInetAddress().getHostAddress();
+  }
+
+}
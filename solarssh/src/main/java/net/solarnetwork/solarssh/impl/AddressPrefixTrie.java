@@ -0,0 +1,191 @@
+/* ==================================================================
+ * AddressPrefixTrie.java - 19/10/2026 10:21:36 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+
+/**
+ * Compact binary prefix trie of IPv4 and IPv6 CIDR blocks, for longest-prefix matching.
+ *
+ * <p>
+ * Each CIDR block added to the trie is associated with a non-zero {@code byte} value. A lookup
+ * walks at most one node per address bit, returning the value of the longest matching block. Nodes
+ * are stored in primitive arrays rather than as objects, so even large lists take little memory.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe while being modified. Populate the trie fully and then publish
+ * it, after which any number of threads may perform lookups concurrently.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class AddressPrefixTrie {
+
+  /** The value returned from lookups when no block matches. */
+  public static final byte NO_MATCH = 0;
+
+  private static final int IPV4_ROOT = 0;
+  private static final int IPV6_ROOT = 1;
+
+  // child node indexes, two per node; 0 means no child as the root nodes are never children
+  private int[] children = new int[64];
+  private byte[] values = new byte[32];
+  private int nodeCount = 2;
+
+  /**
+   * Constructor.
+   */
+  public AddressPrefixTrie() {
+    super();
+  }
+
+  /**
+   * Add a CIDR block.
+   *
+   * @param cidr
+   *        the block, in {@literal address/prefix} form, for example {@literal 192.168.0.0/16} or
+   *        {@literal 2001:db8::/32}; if no prefix is given then the block matches just the one
+   *        address; IPv4-mapped IPv6 blocks such as {@literal ::ffff:10.0.0.0/104} are treated as
+   *        the equivalent IPv4 block
+   * @param value
+   *        the non-zero value to associate with the block
+   * @return this object
+   * @throws IllegalArgumentException
+   *         if {@code cidr} cannot be parsed or {@code value} is {@link #NO_MATCH}
+   */
+  public AddressPrefixTrie add(String cidr, byte value) {
+    if (cidr == null) {
+      throw new IllegalArgumentException("The cidr argument must not be null.");
+    }
+    final int slash = cidr.indexOf('/');
+    final String literal = (slash < 0 ? cidr : cidr.substring(0, slash));
+    final InetAddress addr = InetAddressUtils.parseLiteral(literal);
+    if (addr == null) {
+      throw new IllegalArgumentException("Invalid CIDR address [" + cidr + "]");
+    }
+    final AddressKey key = AddressKey.of(addr);
+    int prefixLength = key.bitLength();
+    if (slash >= 0) {
+      try {
+        prefixLength = Integer.parseInt(cidr.substring(slash + 1).trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid CIDR prefix length [" + cidr + "]");
+      }
+      if (key.isIpv4() && literal.indexOf(':') >= 0) {
+        // IPv4-mapped IPv6 form, which parses as IPv4 so the prefix is relative to 128 bits
+        prefixLength -= (AddressKey.IPV6_BITS - AddressKey.IPV4_BITS);
+      }
+      if (prefixLength < 0 || prefixLength > key.bitLength()) {
+        throw new IllegalArgumentException("Invalid CIDR prefix length [" + cidr + "]");
+      }
+    }
+    return add(key, prefixLength, value);
+  }
+
+  /**
+   * Add a CIDR block.
+   *
+   * @param key
+   *        the block address
+   * @param prefixLength
+   *        the block prefix length
+   * @param value
+   *        the non-zero value to associate with the block
+   * @return this object
+   * @throws IllegalArgumentException
+   *         if {@code value} is {@link #NO_MATCH}
+   */
+  public AddressPrefixTrie add(AddressKey key, int prefixLength, byte value) {
+    if (value == NO_MATCH) {
+      throw new IllegalArgumentException("The value must not be 0.");
+    }
+    int node = (key.isIpv4() ? IPV4_ROOT : IPV6_ROOT);
+    final int len = Math.min(prefixLength, key.bitLength());
+    for (int i = 0; i < len; i++) {
+      final int idx = (node << 1) | key.bit(i);
+      int child = children[idx];
+      if (child == 0) {
+        child = newNode();
+        children[idx] = child;
+      }
+      node = child;
+    }
+    values[node] = value;
+    return this;
+  }
+
+  private int newNode() {
+    final int node = nodeCount++;
+    if (node >= values.length) {
+      values = Arrays.copyOf(values, values.length * 2);
+      children = Arrays.copyOf(children, children.length * 2);
+    }
+    return node;
+  }
+
+  /**
+   * Find the value of the longest block matching an address.
+   *
+   * @param address
+   *        the address to look up
+   * @return the matching value, or {@link #NO_MATCH}
+   */
+  public byte lookup(InetAddress address) {
+    return lookup(AddressKey.of(address));
+  }
+
+  /**
+   * Find the value of the longest block matching an address.
+   *
+   * @param key
+   *        the address to look up
+   * @return the matching value, or {@link #NO_MATCH}
+   */
+  public byte lookup(AddressKey key) {
+    int node = (key.isIpv4() ? IPV4_ROOT : IPV6_ROOT);
+    byte result = values[node];
+    for (int i = 0, len = key.bitLength(); i < len; i++) {
+      node = children[(node << 1) | key.bit(i)];
+      if (node == 0) {
+        break;
+      }
+      if (values[node] != NO_MATCH) {
+        result = values[node];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Test if the trie contains no blocks.
+   *
+   * @return {@literal true} if no blocks have been added
+   */
+  public boolean isEmpty() {
+    return nodeCount == 2 && values[IPV4_ROOT] == NO_MATCH && values[IPV6_ROOT] == NO_MATCH;
+  }
+
+}
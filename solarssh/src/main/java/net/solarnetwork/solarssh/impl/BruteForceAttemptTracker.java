@@ -0,0 +1,677 @@
+/* ==================================================================
+ * BruteForceAttemptTracker.java - 19/10/2026 9:12:44 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory tracker of authentication failures by remote IP address, for brute force mitigation.
+ *
+ * <p>
+ * Each tracked address maps to a single {@link AtomicLong} that packs the failure count together
+ * with the time of the most recent failure, so recording a failure is a lock-free update and
+ * checking an address is a single map lookup. Counts decay on a sliding window: once no failure
+ * has been recorded for an address for {@code expireMillis} its count starts over.
+ * </p>
+ *
+ * <p>
+ * Failures are aggregated by network prefix, configured via {@code ipv4PrefixLength} and
+ * {@code ipv6PrefixLength}, so that a client rotating through the addresses of a single network
+ * shares one failure count and one map entry. Static allow and deny CIDR lists are also
+ * supported, held in an {@link AddressPrefixTrie} so checking them costs at most one step per
+ * address bit.
+ * </p>
+ *
+ * <p>
+ * The number of tracked addresses is bounded by {@code maxEntries}. When that limit is reached,
+ * recording a failure for a new address first evicts one entry, choosing an expired entry or the
+ * one with the fewest failures from a small sample starting at a random position, so a flood of
+ * distinct addresses cannot exhaust the heap nor push out the most persistent offenders, and the
+ * cost of recording a failure stays nearly constant. The periodic {@link #purgeExpired()} job
+ * does the full sweep, trimming the tracker back below the limit.
+ * </p>
+ *
+ * <p>
+ * Durability is provided by {@link #saveSnapshot()} and {@link #loadSnapshot()}, which are meant
+ * to be invoked from a background job and at startup; no I/O happens on the check or record paths.
+ * </p>
+ *
+ * @author matt
+ * @version 1.4
+ */
+public class BruteForceAttemptTracker {
+
+  /** The default value for the {@code expireMillis} property: 24 hours. */
+  public static final long DEFAULT_EXPIRE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+  /** The default value for the {@code maxEntries} property. */
+  public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+  /** The default value for the {@code ipv4PrefixLength} property. */
+  public static final int DEFAULT_IPV4_PREFIX_LENGTH = 32;
+
+  /** The default value for the {@code ipv6PrefixLength} property. */
+  public static final int DEFAULT_IPV6_PREFIX_LENGTH = 64;
+
+  /** The maximum failure count tracked for any address. */
+  public static final int MAX_COUNT = 0xFFFF;
+
+  private static final int COUNT_BITS = 16;
+
+  private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+  /** The snapshot file magic number: {@literal SSBF}. */
+  private static final int SNAPSHOT_MAGIC = 0x53534246;
+
+  private static final short SNAPSHOT_VERSION = 1;
+
+  // magic (4), version (2), record size (2), record count (4)
+  private static final int SNAPSHOT_HEADER_SIZE = 12;
+
+  // address key (16), count (2), expiration date (8)
+  private static final short SNAPSHOT_RECORD_SIZE = 26;
+
+  // the number of entries examined when evicting to make room for a new address
+  private static final int EVICTION_SAMPLE_SIZE = 16;
+
+  private static final byte ALLOW = 1;
+
+  private static final byte DENY = 2;
+
+  private static final Logger log = LoggerFactory.getLogger(BruteForceAttemptTracker.class);
+
+  private final ConcurrentMap<AddressKey, AtomicLong> attempts = new ConcurrentHashMap<>(256);
+  private final Clock clock;
+  private volatile boolean modified;
+  private long expireMillis = DEFAULT_EXPIRE_MILLIS;
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+  private int ipv4PrefixLength = DEFAULT_IPV4_PREFIX_LENGTH;
+  private int ipv6PrefixLength = DEFAULT_IPV6_PREFIX_LENGTH;
+  private String[] allowList;
+  private String[] denyList;
+  private volatile AddressPrefixTrie staticList = new AddressPrefixTrie();
+  private Path snapshotPath;
+
+  /**
+   * Constructor.
+   */
+  public BruteForceAttemptTracker() {
+    this(Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param clock
+   *        the clock to use
+   */
+  public BruteForceAttemptTracker(Clock clock) {
+    super();
+    this.clock = clock;
+  }
+
+  private AddressKey key(InetAddress src) {
+    return prefix(AddressKey.of(src));
+  }
+
+  private AddressKey prefix(AddressKey key) {
+    return key.withPrefix(key.isIpv4() ? ipv4PrefixLength : ipv6PrefixLength);
+  }
+
+  /**
+   * Test if an address is included in the static allow list.
+   *
+   * <p>
+   * Allowed addresses are never denied, regardless of how many failures they accrue.
+   * </p>
+   *
+   * @param src
+   *        the remote address
+   * @return {@literal true} if the longest matching static CIDR block for {@code src} is an allow
+   *         block
+   */
+  public boolean isAllowed(InetAddress src) {
+    return staticList.lookup(src) == ALLOW;
+  }
+
+  /**
+   * Test if an address should be denied.
+   *
+   * <p>
+   * The static allow and deny lists are consulted first, using the longest matching CIDR block.
+   * Otherwise the address is denied if the failure count of its network prefix has reached
+   * {@code maxFails}.
+   * </p>
+   *
+   * @param src
+   *        the remote address
+   * @param maxFails
+   *        the failure count at which to deny
+   * @return {@literal true} if {@code src} should be denied
+   */
+  public boolean isDenied(InetAddress src, int maxFails) {
+    final AddressKey key = AddressKey.of(src);
+    final byte listed = staticList.lookup(key);
+    if (listed != AddressPrefixTrie.NO_MATCH) {
+      return listed == DENY;
+    }
+    return attempts(prefix(key)) >= maxFails;
+  }
+
+  /**
+   * Record an authentication failure.
+   *
+   * @param src
+   *        the remote address that failed to authenticate
+   * @return the failure count for the network prefix of {@code src}, including this failure
+   */
+  public int recordFailure(InetAddress src) {
+    final long now = clock.millis();
+    final AddressKey key = key(src);
+    AtomicLong state = attempts.get(key);
+    if (state == null) {
+      if (attempts.size() >= maxEntries) {
+        evictOne(now);
+      }
+      state = attempts.computeIfAbsent(key, k -> new AtomicLong());
+    }
+    final long s = state.updateAndGet(curr -> {
+      int count = currentCount(curr, now);
+      if (count < MAX_COUNT) {
+        count++;
+      }
+      return state(now, count);
+    });
+    modified = true;
+    return count(s);
+  }
+
+  /**
+   * Get the current failure count for an address.
+   *
+   * @param src
+   *        the remote address
+   * @return the failure count of the network prefix of {@code src}, or {@literal 0} if none
+   */
+  public int attempts(InetAddress src) {
+    return attempts(key(src));
+  }
+
+  private int attempts(AddressKey key) {
+    final AtomicLong state = attempts.get(key);
+    if (state == null) {
+      return 0;
+    }
+    return currentCount(state.get(), clock.millis());
+  }
+
+  /**
+   * Forget about an address.
+   *
+   * @param src
+   *        the remote address whose network prefix should be removed
+   */
+  public void remove(InetAddress src) {
+    if (attempts.remove(key(src)) != null) {
+      modified = true;
+    }
+  }
+
+  /**
+   * Get the number of tracked addresses.
+   *
+   * @return the number of addresses
+   */
+  public int size() {
+    return attempts.size();
+  }
+
+  /**
+   * Remove all expired entries.
+   *
+   * <p>
+   * If more than 90% of {@code maxEntries} addresses remain after that, the entries with the fewest
+   * failures are also removed until 90% remain, leaving room for new addresses. Of the entries tied
+   * at the highest count removed, only as many as needed to reach that size are removed. This is
+   * designed to be called periodically.
+   * </p>
+   */
+  public void purgeExpired() {
+    final long now = clock.millis();
+    if (attempts.values().removeIf(s -> currentCount(s.get(), now) < 1)) {
+      modified = true;
+    }
+    final int target = maxEntries - (maxEntries / 10);
+    final int size = attempts.size();
+    if (size <= target) {
+      return;
+    }
+    int[] counts = new int[size];
+    int len = 0;
+    for (AtomicLong s : attempts.values()) {
+      if (len >= counts.length) {
+        break;
+      }
+      counts[len++] = currentCount(s.get(), now);
+    }
+    Arrays.sort(counts, 0, len);
+    final int threshold = counts[Math.max(0, len - target - 1)];
+    int excess = attempts.size() - target;
+    // remove every entry below the threshold, then only as many tied with it as needed
+    excess -= removeAtMost(threshold - 1, excess, now);
+    removeAtMost(threshold, excess, now);
+    modified = true;
+    log.info("Pruned brute force attempt tracker to {} entries", attempts.size());
+  }
+
+  private int removeAtMost(final int maxCount, final int limit, final long now) {
+    int removed = 0;
+    for (Iterator<AtomicLong> itr = attempts.values().iterator(); removed < limit
+        && itr.hasNext();) {
+      if (currentCount(itr.next().get(), now) <= maxCount) {
+        itr.remove();
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  private void evictOne(final long now) {
+    // each split of a ConcurrentHashMap spliterator halves its range of hash buckets, so taking a
+    // random half until about two samples' worth of entries remain starts at a random bucket
+    Spliterator<Map.Entry<AddressKey, AtomicLong>> entries = attempts.entrySet().spliterator();
+    final ThreadLocalRandom rng = ThreadLocalRandom.current();
+    while (entries.estimateSize() > EVICTION_SAMPLE_SIZE * 2) {
+      Spliterator<Map.Entry<AddressKey, AtomicLong>> prefix = entries.trySplit();
+      if (prefix == null) {
+        break;
+      }
+      if (rng.nextBoolean()) {
+        entries = prefix;
+      }
+    }
+    EvictionSample sample = new EvictionSample(now);
+    sample.take(entries);
+    if (sample.victim == null) {
+      // the chosen range happened to be empty
+      sample.take(attempts.entrySet().spliterator());
+    }
+    if (sample.victim != null
+        && attempts.remove(sample.victim.getKey(), sample.victim.getValue())) {
+      modified = true;
+    }
+  }
+
+  private static long state(long date, int count) {
+    return (date << COUNT_BITS) | (count & COUNT_MASK);
+  }
+
+  private static int count(long state) {
+    return (int) (state & COUNT_MASK);
+  }
+
+  private static long date(long state) {
+    return state >>> COUNT_BITS;
+  }
+
+  private int currentCount(long state, long now) {
+    if (now - date(state) >= expireMillis) {
+      return 0;
+    }
+    return count(state);
+  }
+
+  /**
+   * Load the entries saved by a previous call to {@link #saveSnapshot()}.
+   *
+   * <p>
+   * The snapshot file is memory-mapped and decoded in a single pass. Entries whose expiration date
+   * has passed are dropped. If no {@code snapshotPath} is configured, the file does not exist, or
+   * it is not a valid snapshot, nothing is loaded.
+   * </p>
+   */
+  public void loadSnapshot() {
+    final Path path = snapshotPath;
+    if (path == null || !Files.isReadable(path)) {
+      return;
+    }
+    final long now = clock.millis();
+    int loaded = 0;
+    int stale = 0;
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+      final MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+      if (buf.remaining() < SNAPSHOT_HEADER_SIZE || buf.getInt() != SNAPSHOT_MAGIC
+          || buf.getShort() != SNAPSHOT_VERSION || buf.getShort() != SNAPSHOT_RECORD_SIZE) {
+        log.warn("Ignoring invalid brute force attempt snapshot {}", path);
+        return;
+      }
+      final int count = buf.getInt();
+      if (buf.remaining() < (long) count * SNAPSHOT_RECORD_SIZE) {
+        log.warn("Brute force attempt snapshot {} truncated", path);
+      }
+      for (int i = 0; i < count && buf.remaining() >= SNAPSHOT_RECORD_SIZE; i++) {
+        final long hi = buf.getLong();
+        final long lo = buf.getLong();
+        final int c = Short.toUnsignedInt(buf.getShort());
+        final long expires = buf.getLong();
+        if (expires <= now || c < 1) {
+          stale++;
+          continue;
+        }
+        if (attempts.size() >= maxEntries) {
+          break;
+        }
+        final AddressKey key = prefix(AddressKey.of(hi, lo));
+        if (attempts.putIfAbsent(key, new AtomicLong(state(expires - expireMillis, c))) == null) {
+          loaded++;
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Error loading brute force attempt snapshot {}: {}", path, e.toString());
+    }
+    log.info("Loaded {} brute force attempt entries from {} ({} expired)", loaded, path, stale);
+  }
+
+  /**
+   * Save all active entries to the configured {@code snapshotPath}.
+   *
+   * <p>
+   * The snapshot is a compact binary file: a fixed header followed by one fixed-size record per
+   * entry, holding the 128-bit address key, the failure count, and the expiration date. It is
+   * written to a temporary file and then moved into place, so a crash part way through never
+   * leaves a corrupt snapshot. Nothing is written if no entries have changed since the last
+   * snapshot.
+   * </p>
+   */
+  public void saveSnapshot() {
+    final Path path = snapshotPath;
+    if (path == null || !modified) {
+      return;
+    }
+    modified = false;
+    final long now = clock.millis();
+    final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    int saved = 0;
+    try {
+      Files.createDirectories(path.getParent());
+      try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        final ByteBuffer buf = ByteBuffer.allocate(SNAPSHOT_RECORD_SIZE * 2048);
+        buf.position(SNAPSHOT_HEADER_SIZE);
+        for (Map.Entry<AddressKey, AtomicLong> e : attempts.entrySet()) {
+          final long s = e.getValue().get();
+          final int c = currentCount(s, now);
+          if (c < 1) {
+            continue;
+          }
+          if (buf.remaining() < SNAPSHOT_RECORD_SIZE) {
+            writeFully(ch, buf.flip());
+            buf.clear();
+          }
+          final AddressKey key = e.getKey();
+          buf.putLong(key.high()).putLong(key.low()).putShort((short) c)
+              .putLong(date(s) + expireMillis);
+          saved++;
+        }
+        writeFully(ch, buf.flip());
+        buf.clear();
+        buf.putInt(SNAPSHOT_MAGIC).putShort(SNAPSHOT_VERSION).putShort(SNAPSHOT_RECORD_SIZE)
+            .putInt(saved).flip();
+        ch.write(buf, 0);
+        ch.force(false);
+      }
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      log.debug("Saved {} brute force attempt entries to {}", saved, path);
+    } catch (IOException e) {
+      modified = true;
+      log.warn("Error saving brute force attempt snapshot {}: {}", path, e.toString());
+    }
+  }
+
+  private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+    while (buf.hasRemaining()) {
+      ch.write(buf);
+    }
+  }
+
+  /**
+   * Get the sliding window expiration time.
+   *
+   * @return the number of milliseconds after the most recent failure that an address is
+   *         forgotten; defaults to {@link #DEFAULT_EXPIRE_MILLIS}
+   */
+  public long getExpireMillis() {
+    return expireMillis;
+  }
+
+  /**
+   * Set the sliding window expiration time.
+   *
+   * @param expireMillis
+   *        the number of milliseconds after the most recent failure that an address is forgotten
+   */
+  public void setExpireMillis(long expireMillis) {
+    this.expireMillis = expireMillis;
+  }
+
+  /**
+   * Get the maximum number of addresses to track.
+   *
+   * @return the maximum number of addresses; defaults to {@link #DEFAULT_MAX_ENTRIES}
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Set the maximum number of addresses to track.
+   *
+   * @param maxEntries
+   *        the maximum number of addresses
+   */
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Get the IPv4 prefix length failures are aggregated by.
+   *
+   * @return the prefix length; defaults to {@link #DEFAULT_IPV4_PREFIX_LENGTH}
+   */
+  public int getIpv4PrefixLength() {
+    return ipv4PrefixLength;
+  }
+
+  /**
+   * Set the IPv4 prefix length failures are aggregated by.
+   *
+   * @param ipv4PrefixLength
+   *        the prefix length, from {@literal 1} to {@literal 32}; {@literal 32} tracks individual
+   *        addresses
+   */
+  public void setIpv4PrefixLength(int ipv4PrefixLength) {
+    this.ipv4PrefixLength = Math.max(1, Math.min(AddressKey.IPV4_BITS, ipv4PrefixLength));
+  }
+
+  /**
+   * Get the IPv6 prefix length failures are aggregated by.
+   *
+   * @return the prefix length; defaults to {@link #DEFAULT_IPV6_PREFIX_LENGTH}
+   */
+  public int getIpv6PrefixLength() {
+    return ipv6PrefixLength;
+  }
+
+  /**
+   * Set the IPv6 prefix length failures are aggregated by.
+   *
+   * @param ipv6PrefixLength
+   *        the prefix length, from {@literal 1} to {@literal 128}; {@literal 128} tracks
+   *        individual addresses
+   */
+  public void setIpv6PrefixLength(int ipv6PrefixLength) {
+    this.ipv6PrefixLength = Math.max(1, Math.min(AddressKey.IPV6_BITS, ipv6PrefixLength));
+  }
+
+  /**
+   * Get the static allow list.
+   *
+   * @return the CIDR blocks that are never denied
+   */
+  public String[] getAllowList() {
+    return allowList;
+  }
+
+  /**
+   * Set the static allow list.
+   *
+   * <p>
+   * Where an allow block and a deny block are equally specific, the allow block wins.
+   * </p>
+   *
+   * @param allowList
+   *        the CIDR blocks that are never denied, for example {@literal 10.0.0.0/8}
+   * @throws IllegalArgumentException
+   *         if any value is not a valid CIDR block
+   */
+  public void setAllowList(String[] allowList) {
+    this.allowList = allowList;
+    this.staticList = buildStaticList(allowList, denyList);
+  }
+
+  /**
+   * Get the static deny list.
+   *
+   * @return the CIDR blocks that are always denied
+   */
+  public String[] getDenyList() {
+    return denyList;
+  }
+
+  /**
+   * Set the static deny list.
+   *
+   * @param denyList
+   *        the CIDR blocks that are always denied, for example {@literal 2001:db8::/32}
+   * @throws IllegalArgumentException
+   *         if any value is not a valid CIDR block
+   */
+  public void setDenyList(String[] denyList) {
+    this.denyList = denyList;
+    this.staticList = buildStaticList(allowList, denyList);
+  }
+
+  private static AddressPrefixTrie buildStaticList(String[] allow, String[] deny) {
+    final AddressPrefixTrie trie = new AddressPrefixTrie();
+    // add allow blocks last, so they replace deny blocks of the same prefix
+    addAll(trie, deny, DENY);
+    addAll(trie, allow, ALLOW);
+    return trie;
+  }
+
+  private static void addAll(AddressPrefixTrie trie, String[] cidrs, byte value) {
+    if (cidrs == null) {
+      return;
+    }
+    for (String cidr : cidrs) {
+      if (cidr != null && !cidr.isBlank()) {
+        trie.add(cidr.trim(), value);
+      }
+    }
+  }
+
+  /**
+   * Get the snapshot file path.
+   *
+   * @return the path, or {@literal null} if snapshots are not used
+   */
+  public Path getSnapshotPath() {
+    return snapshotPath;
+  }
+
+  /**
+   * Set the snapshot file path.
+   *
+   * @param snapshotPath
+   *        the path to save and load snapshots to, or {@literal null} to disable snapshots
+   */
+  public void setSnapshotPath(Path snapshotPath) {
+    this.snapshotPath = snapshotPath;
+  }
+
+  /**
+   * Tracks the entry with the fewest failures among those sampled for eviction.
+   */
+  private final class EvictionSample implements Consumer<Map.Entry<AddressKey, AtomicLong>> {
+
+    private final long now;
+    private Map.Entry<AddressKey, AtomicLong> victim;
+    private int victimCount = Integer.MAX_VALUE;
+
+    private EvictionSample(long now) {
+      super();
+      this.now = now;
+    }
+
+    private void take(Spliterator<Map.Entry<AddressKey, AtomicLong>> entries) {
+      int sampled = 0;
+      while (sampled < EVICTION_SAMPLE_SIZE && victimCount > 0 && entries.tryAdvance(this)) {
+        sampled++;
+      }
+    }
+
+    @Override
+    public void accept(Map.Entry<AddressKey, AtomicLong> e) {
+      final int c = currentCount(e.getValue().get(), now);
+      if (c < victimCount) {
+        victim = e;
+        victimCount = c;
+      }
+    }
+
+  }
+
+}
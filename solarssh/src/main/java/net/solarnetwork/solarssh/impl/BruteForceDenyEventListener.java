@@ -22,96 +22,49 @@
 
 package net.solarnetwork.solarssh.impl;
 
-import static net.solarnetwork.codec.JsonUtils.getJSONString;
-import static net.solarnetwork.solarssh.Globals.AUDIT_LOG;
-
 import java.io.IOException;
-import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.util.Map;
-
-import javax.cache.Cache;
 
 import org.apache.sshd.common.io.IoAcceptor;
 import org.apache.sshd.common.io.IoServiceEventListener;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import net.solarnetwork.solarssh.Globals;
+import net.solarnetwork.solarssh.service.BruteForceService;
 
 /**
  * {@link IoServiceEventListener} implementation for a dynamic "deny" firewall based on remote IP
  * addresses that fail to authenticate.
  * 
  * @author matt
- * @version 1.1
+ * @version 2.0
  */
 public class BruteForceDenyEventListener implements IoServiceEventListener {
 
-  private static final Logger log = LoggerFactory.getLogger(BruteForceDenyEventListener.class);
-
-  private final Cache<InetAddress, Byte> denyList;
-  private int maxFails = 1;
+  private final BruteForceService bruteForceService;
 
   /**
    * Constructor.
    * 
-   * @param denyList
-   *        the cache of blocked IP addresses
+   * @param bruteForceService
+   *        the brute force service to use
    * @throws IllegalArgumentException
    *         if any argument is {@literal null}
    */
-  public BruteForceDenyEventListener(Cache<InetAddress, Byte> denyList) {
+  public BruteForceDenyEventListener(BruteForceService bruteForceService) {
     super();
-    if (denyList == null) {
-      throw new IllegalArgumentException("The denyList argument must not be null.");
+    if (bruteForceService == null) {
+      throw new IllegalArgumentException("The bruteForceService argument must not be null.");
     }
-    this.denyList = denyList;
+    this.bruteForceService = bruteForceService;
   }
 
   @Override
   public void connectionAccepted(IoAcceptor acceptor, SocketAddress local, SocketAddress remote,
       SocketAddress service) throws IOException {
-    if (remote instanceof InetSocketAddress) {
-      InetAddress src = ((InetSocketAddress) remote).getAddress();
-      if (denyList.containsKey(src)) {
-        Byte count = denyList.get(src);
-        if (count != null) {
-          final int attempts = Byte.toUnsignedInt(count);
-          if (attempts >= maxFails) {
-            logBruteForceDeny(src, attempts, "blocked");
-            throw new IOException("Blocked.");
-          }
-        }
-      }
+    if (remote instanceof InetSocketAddress addr
+        && bruteForceService.isBlocked(addr.getAddress())) {
+      throw new IOException("Blocked.");
     }
   }
 
-  private void logBruteForceDeny(InetAddress src, int count, String auditEventName) {
-    log.info("{} connection blocked via brute force filter", src);
-    Map<String, Object> auditProps = Globals.auditEventMap(src.toString(), auditEventName);
-    auditProps.put("attempts", count);
-    AUDIT_LOG.info(getJSONString(auditProps, "{}"));
-  }
-
-  /**
-   * Get the max fails count.
-   * 
-   * @return the max fails before closing connection; defaults to {@literal 1}
-   */
-  public int getMaxFails() {
-    return maxFails;
-  }
-
-  /**
-   * Set the max fails count.
-   * 
-   * @param maxFails
-   *        the count to set
-   */
-  public void setMaxFails(int maxFails) {
-    this.maxFails = maxFails;
-  }
-
 }
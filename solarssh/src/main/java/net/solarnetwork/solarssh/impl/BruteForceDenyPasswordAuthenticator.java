@@ -22,20 +22,18 @@
 
 package net.solarnetwork.solarssh.impl;
 
-import java.net.InetAddress;
-
-import javax.cache.Cache;
-
 import org.apache.sshd.server.auth.AsyncAuthException;
 import org.apache.sshd.server.auth.password.PasswordAuthenticator;
 import org.apache.sshd.server.auth.password.PasswordChangeRequiredException;
 import org.apache.sshd.server.session.ServerSession;
 
+import net.solarnetwork.solarssh.service.BruteForceService;
+
 /**
- * {@link PasswordAuthenticator} that works with a brute force deny list.
+ * {@link PasswordAuthenticator} that works with a brute force service.
  * 
  * @author matt
- * @version 1.0
+ * @version 2.0
  */
 public class BruteForceDenyPasswordAuthenticator extends AbstractBruteForceAuthenticator
     implements PasswordAuthenticator {
@@ -47,14 +45,14 @@ public class BruteForceDenyPasswordAuthenticator extends AbstractBruteForceAuthe
    * 
    * @param delegate
    *        the delegate to use
-   * @param denyList
-   *        the deny list to use
+   * @param bruteForceService
+   *        the brute force service to use
    * @throws IllegalArgumentException
    *         if any argument is {@literal null}
    */
   public BruteForceDenyPasswordAuthenticator(PasswordAuthenticator delegate,
-      Cache<InetAddress, Byte> denyList) {
-    super(denyList);
+      BruteForceService bruteForceService) {
+    super(bruteForceService);
     if (delegate == null) {
       throw new IllegalArgumentException("The delegate argument must not be null.");
     }
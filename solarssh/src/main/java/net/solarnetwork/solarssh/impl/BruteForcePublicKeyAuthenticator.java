@@ -22,21 +22,20 @@
 
 package net.solarnetwork.solarssh.impl;
 
-import java.net.InetAddress;
 import java.security.PublicKey;
 
-import javax.cache.Cache;
-
 import org.apache.sshd.server.auth.AsyncAuthException;
 import org.apache.sshd.server.auth.password.PasswordChangeRequiredException;
 import org.apache.sshd.server.auth.pubkey.PublickeyAuthenticator;
 import org.apache.sshd.server.session.ServerSession;
 
+import net.solarnetwork.solarssh.service.BruteForceService;
+
 /**
- * {@link PublicKeyAuthenticator} that works with a brute force deny list.
+ * {@link PublicKeyAuthenticator} that works with a brute force service.
  * 
  * @author matt
- * @version 1.0
+ * @version 2.0
  */
 public class BruteForcePublicKeyAuthenticator extends AbstractBruteForceAuthenticator
     implements PublickeyAuthenticator {
@@ -48,14 +47,14 @@ public class BruteForcePublicKeyAuthenticator extends AbstractBruteForceAuthenti
    * 
    * @param delegate
    *        the delegate to use
-   * @param denyList
-   *        the deny list to use
+   * @param bruteForceService
+   *        the brute force service to use
    * @throws IllegalArgumentException
    *         if any argument is {@literal null}
    */
   public BruteForcePublicKeyAuthenticator(PublickeyAuthenticator delegate,
-      Cache<InetAddress, Byte> denyList) {
-    super(denyList);
+      BruteForceService bruteForceService) {
+    super(bruteForceService);
     if (delegate == null) {
       throw new IllegalArgumentException("The delegate argument must not be null.");
     }
@@ -0,0 +1,224 @@
+/* ==================================================================
+ * CircuitBreaker.java - 19/10/2026 10:48:31 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Consecutive-failure circuit breaker.
+ *
+ * <p>
+ * The circuit opens after {@code failureThreshold} consecutive failures, and then rejects all calls
+ * for {@code openMillis}. After that a single trial call is allowed through: if it succeeds the
+ * circuit closes, otherwise it opens again.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class CircuitBreaker {
+
+  /** The default value for the {@code failureThreshold} property. */
+  public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+  /** The default value for the {@code openMillis} property: 30 seconds. */
+  public static final long DEFAULT_OPEN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  /** Circuit state. */
+  public enum State {
+    /** Calls are allowed. */
+    Closed,
+
+    /** Calls are rejected. */
+    Open,
+
+    /** A single trial call is allowed. */
+    HalfOpen
+  }
+
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private final AtomicLong openedAt = new AtomicLong();
+  private final AtomicInteger trialPermits = new AtomicInteger();
+  private final LongAdder rejections = new LongAdder();
+  private final LongAdder trips = new LongAdder();
+  private final Clock clock;
+  private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+  private long openMillis = DEFAULT_OPEN_MILLIS;
+
+  /**
+   * Constructor.
+   */
+  public CircuitBreaker() {
+    this(Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param clock
+   *        the clock to time the open state with
+   */
+  public CircuitBreaker(Clock clock) {
+    super();
+    this.clock = clock;
+  }
+
+  /**
+   * Test if a call is allowed.
+   *
+   * <p>
+   * Every call that is allowed must be followed by a call to {@link #recordSuccess()},
+   * {@link #recordFailure()} or {@link #release()}.
+   * </p>
+   *
+   * @return {@literal true} if the call is allowed
+   */
+  public boolean tryAcquire() {
+    final long opened = openedAt.get();
+    if (opened == 0) {
+      return true;
+    }
+    if (clock.millis() - opened >= openMillis
+        && trialPermits.compareAndSet(1, 0)) {
+      return true;
+    }
+    rejections.increment();
+    return false;
+  }
+
+  /**
+   * Release a call allowed by {@link #tryAcquire()} without recording an outcome.
+   *
+   * <p>
+   * This is for calls that were never sent, for example because of local resource limits, so say
+   * nothing about the health of the remote service. If the call was the trial call of a half-open
+   * circuit, the trial permit is returned so another call can be tried.
+   * </p>
+   */
+  public void release() {
+    if (openedAt.get() != 0) {
+      trialPermits.compareAndSet(0, 1);
+    }
+  }
+
+  /**
+   * Record a successful call.
+   */
+  public void recordSuccess() {
+    consecutiveFailures.set(0);
+    openedAt.set(0);
+    trialPermits.set(0);
+  }
+
+  /**
+   * Record a failed call.
+   */
+  public void recordFailure() {
+    final int failures = consecutiveFailures.incrementAndGet();
+    final long opened = openedAt.get();
+    if (opened != 0 || failures >= failureThreshold) {
+      // open, or re-open after a failed trial call
+      openedAt.set(clock.millis());
+      trialPermits.set(1);
+      if (opened == 0) {
+        trips.increment();
+      }
+    }
+  }
+
+  /**
+   * Get the current state.
+   *
+   * @return the state
+   */
+  public State getState() {
+    final long opened = openedAt.get();
+    if (opened == 0) {
+      return State.Closed;
+    }
+    return (clock.millis() - opened < openMillis ? State.Open : State.HalfOpen);
+  }
+
+  /**
+   * Get the number of rejected calls.
+   *
+   * @return the rejection count
+   */
+  public long getRejectionCount() {
+    return rejections.sum();
+  }
+
+  /**
+   * Get the number of times the circuit has opened.
+   *
+   * @return the trip count
+   */
+  public long getTripCount() {
+    return trips.sum();
+  }
+
+  /**
+   * Get the failure threshold.
+   *
+   * @return the number of consecutive failures that open the circuit; defaults to
+   *         {@link #DEFAULT_FAILURE_THRESHOLD}
+   */
+  public int getFailureThreshold() {
+    return failureThreshold;
+  }
+
+  /**
+   * Set the failure threshold.
+   *
+   * @param failureThreshold
+   *        the number of consecutive failures that open the circuit
+   */
+  public void setFailureThreshold(int failureThreshold) {
+    this.failureThreshold = failureThreshold;
+  }
+
+  /**
+   * Get the open time.
+   *
+   * @return the number of milliseconds to reject calls for once open; defaults to
+   *         {@link #DEFAULT_OPEN_MILLIS}
+   */
+  public long getOpenMillis() {
+    return openMillis;
+  }
+
+  /**
+   * Set the open time.
+   *
+   * @param openMillis
+   *        the number of milliseconds to reject calls for once open
+   */
+  public void setOpenMillis(long openMillis) {
+    this.openMillis = openMillis;
+  }
+
+}
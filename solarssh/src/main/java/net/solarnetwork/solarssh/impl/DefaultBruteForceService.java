@@ -0,0 +1,158 @@
+/* ==================================================================
+ * DefaultBruteForceService.java - 19/10/2026 11:18:40 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static net.solarnetwork.codec.JsonUtils.getJSONString;
+import static net.solarnetwork.solarssh.Globals.AUDIT_LOG;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.solarnetwork.service.PingTest;
+import net.solarnetwork.service.PingTestResult;
+import net.solarnetwork.solarssh.Globals;
+import net.solarnetwork.solarssh.service.BruteForceService;
+
+/**
+ * Default implementation of {@link BruteForceService}, using a {@link BruteForceAttemptTracker}.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class DefaultBruteForceService implements BruteForceService, PingTest {
+
+  private static final Logger log = LoggerFactory.getLogger(DefaultBruteForceService.class);
+
+  private final BruteForceAttemptTracker tracker;
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder blocks = new LongAdder();
+  private final LongAdder denials = new LongAdder();
+  private int maxFails = 1;
+
+  /**
+   * Constructor.
+   *
+   * @param tracker
+   *        the attempt tracker to use
+   * @throws IllegalArgumentException
+   *         if any argument is {@literal null}
+   */
+  public DefaultBruteForceService(BruteForceAttemptTracker tracker) {
+    super();
+    if (tracker == null) {
+      throw new IllegalArgumentException("The tracker argument must not be null.");
+    }
+    this.tracker = tracker;
+  }
+
+  @Override
+  public boolean isBlocked(InetAddress src) {
+    if (src == null || !tracker.isDenied(src, maxFails)) {
+      return false;
+    }
+    denials.increment();
+    log.info("{} connection blocked via brute force filter", src);
+    auditEvent(null, null, src, tracker.attempts(src), AUDIT_EVENT_DENIED);
+    return true;
+  }
+
+  @Override
+  public boolean handleFailure(InetAddress src, String sessionId, String username) {
+    if (src == null || src.isLoopbackAddress() || tracker.isAllowed(src)) {
+      return false;
+    }
+    failures.increment();
+    final int attempts = tracker.recordFailure(src);
+    if (attempts >= maxFails) {
+      blocks.increment();
+      log.info("{} authentication attempt [{}] blocked after {} attempts", src, username,
+          attempts);
+      auditEvent(sessionId, username, src, attempts, AUDIT_EVENT_BLOCKED);
+      return true;
+    }
+    log.info("{} authentication attempt [{}] failed: attempt {}", src, username, attempts);
+    auditEvent(sessionId, username, src, attempts, AUDIT_EVENT_FAILED_ATTEMPT);
+    return false;
+  }
+
+  private static void auditEvent(String sessionId, String username, InetAddress src, int count,
+      String auditEventName) {
+    Map<String, Object> auditProps = Globals.auditEventMap(sessionId, auditEventName);
+    auditProps.put("remoteAddress", src);
+    auditProps.put("attempts", count);
+    if (username != null) {
+      auditProps.put("username", username);
+    }
+    AUDIT_LOG.info(getJSONString(auditProps, "{}"));
+  }
+
+  @Override
+  public String getPingTestId() {
+    return "net.solarnetwork.solarssh.impl.DefaultBruteForceService";
+  }
+
+  @Override
+  public long getPingTestMaximumExecutionMilliseconds() {
+    return 1000;
+  }
+
+  @Override
+  public String getPingTestName() {
+    return "SolarSSH Brute Force Filter";
+  }
+
+  @Override
+  public Result performPingTest() throws Exception {
+    Map<String, Object> properties = new LinkedHashMap<>(4);
+    properties.put("trackedAddressCount", tracker.size());
+    properties.put("failureCount", failures.sum());
+    properties.put("blockCount", blocks.sum());
+    properties.put("denialCount", denials.sum());
+    return new PingTestResult(true, "Tracking " + tracker.size() + " addresses.", properties);
+  }
+
+  /**
+   * Get the max fails count.
+   *
+   * @return the number of failures after which an address is blocked; defaults to {@literal 1}
+   */
+  public int getMaxFails() {
+    return maxFails;
+  }
+
+  /**
+   * Set the max fails count.
+   *
+   * @param maxFails
+   *        the number of failures after which an address is blocked
+   */
+  public void setMaxFails(int maxFails) {
+    this.maxFails = maxFails;
+  }
+
+}
@@ -22,20 +22,20 @@
 
 package net.solarnetwork.solarssh.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.StringReader;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLConnection;
-import java.text.SimpleDateFormat;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TimeZone;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,14 +43,10 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.util.FileCopyUtils;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import net.solarnetwork.domain.datum.GeneralDatumMetadata;
 import net.solarnetwork.service.support.HttpClientSupport;
 import net.solarnetwork.solarssh.AuthorizationException;
+import net.solarnetwork.solarssh.domain.NodeMetadataResponse;
 import net.solarnetwork.solarssh.domain.SolarNetInstruction;
 import net.solarnetwork.solarssh.service.SolarNetClient;
 import net.solarnetwork.web.jakarta.security.WebConstants;
@@ -58,28 +54,49 @@ import net.solarnetwork.web.jakarta.security.WebConstants;
 /**
  * Default implementation of {@link SolarNetClient}.
  * 
+ * <p>
+ * Concurrent identical {@literal GET} requests, that is with the same path and the exact same
+ * {@code Authorization} value, share a single upstream HTTP call and its result. Requests with
+ * different authorization values are never coalesced, even for the same token, so every caller's
+ * signature is verified by SolarNet.
+ * </p>
+ *
+ * <p>
+ * An SNWS2 signature covers the request date, to the second, and is computed by each caller. Two
+ * users opening terminals to the same node at the same moment therefore send different
+ * authorization values, and are not coalesced. Only identical requests are deduplicated: retries,
+ * and repeated polls that reuse one authorization while they are still in flight.
+ * </p>
+ * 
  * @author matt
- * @version 1.1
+ * @version 1.5
  */
 public class DefaultSolarNetClient extends HttpClientSupport implements SolarNetClient {
 
   private static final Pattern SIGNED_HEADERS_PATTERN = Pattern.compile(",SignedHeaders=([^,]+),");
-  private static final ObjectMapper MAPPER = new ObjectMapper();
-
-  static {
-    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS'Z'");
-    sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-    MAPPER.setDateFormat(sdf);
-    MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-  }
-
-  private static final SniListTypeReference SNI_LIST_TYPE = new SniListTypeReference();
 
   private String apiBaseUrl = "https://data.solarnetwork.net";
   private String viewPendingInstructionsPath = "/solaruser/api/v1/sec/instr/viewPending";
   private String getInstructionPath = "/solaruser/api/v1/sec/instr/view";
   private String queueInstructionPath = "/solaruser/api/v1/sec/instr/add";
   private String viewNodeMetadataPath = "/solaruser/api/v1/sec/nodes/meta/";
+  private boolean coalesceRequests = true;
+
+  private final SingleFlight<String, List<SolarNetInstruction>> pendingFlights;
+  private final SingleFlight<String, SolarNetInstruction> instructionFlights;
+  private final SingleFlight<String, GeneralDatumMetadata> metadataFlights;
+  private final SingleFlight<String, NodeMetadataResponse> conditionalMetadataFlights;
+
+  /**
+   * Constructor.
+   */
+  public DefaultSolarNetClient() {
+    super();
+    pendingFlights = new SingleFlight<>();
+    instructionFlights = new SingleFlight<>();
+    metadataFlights = new SingleFlight<>();
+    conditionalMetadataFlights = new SingleFlight<>();
+  }
 
   private static String uriHost(URI uri) {
     String host = uri.getHost();
@@ -89,14 +106,6 @@ public class DefaultSolarNetClient extends HttpClientSupport implements SolarNet
     return host;
   }
 
-  private static final class SniListTypeReference extends TypeReference<List<SolarNetInstruction>> {
-
-    private SniListTypeReference() {
-      super();
-    }
-
-  }
-
   /**
    * Initialize the service after all properties configured.
    */
@@ -114,9 +123,23 @@ public class DefaultSolarNetClient extends HttpClientSupport implements SolarNet
     return uri;
   }
 
+  private <V> V coalesce(SingleFlight<String, V> flights, String path, String authorization,
+      SingleFlight.Call<V> call) throws IOException {
+    if (!coalesceRequests) {
+      return call.call();
+    }
+    return flights.execute(path + '\n' + authorization, call);
+  }
+
   @Override
   public List<SolarNetInstruction> pendingInstructions(Long nodeId, long authorizationDate,
       String authorization) throws IOException {
+    return coalesce(pendingFlights, viewPendingInstructionsPath + "?nodeId=" + nodeId,
+        authorization, () -> fetchPendingInstructions(nodeId, authorizationDate, authorization));
+  }
+
+  private List<SolarNetInstruction> fetchPendingInstructions(Long nodeId, long authorizationDate,
+      String authorization) throws IOException {
     String dateHeaderName = signedDateHeaderName(authorization);
     URI uri = apiUri(viewPendingInstructionsPath + "?nodeId=" + nodeId);
 
@@ -126,23 +149,18 @@ public class DefaultSolarNetClient extends HttpClientSupport implements SolarNet
     headers.set(HttpHeaders.AUTHORIZATION, authorization);
 
     URLConnection conn = get(uri, MediaType.APPLICATION_JSON_VALUE, headers);
-    JsonNode node = MAPPER.readTree(getInputStreamFromURLConnection(conn));
-    if (log.isTraceEnabled()) {
-      log.trace("Got pending instructions JSON: {}", MAPPER.writeValueAsString(node));
-    }
-    JsonNode data = node.path("data");
-    List<SolarNetInstruction> results;
-    if (data.isArray()) {
-      return MAPPER.readValue(MAPPER.treeAsTokens(data), SNI_LIST_TYPE);
-    } else {
-      results = Collections.emptyList();
-    }
-    return results;
+    return SolarNetResponseDecoder.instructions(responseBody(conn, "pending instructions"));
   }
 
   @Override
   public SolarNetInstruction getInstruction(Long id, long authorizationDate, String authorization)
       throws IOException {
+    return coalesce(instructionFlights, getInstructionPath + "?id=" + id, authorization,
+        () -> fetchInstruction(id, authorizationDate, authorization));
+  }
+
+  private SolarNetInstruction fetchInstruction(Long id, long authorizationDate,
+      String authorization) throws IOException {
     String dateHeaderName = signedDateHeaderName(authorization);
     URI uri = apiUri(getInstructionPath + "?id=" + id);
 
@@ -152,14 +170,7 @@ public class DefaultSolarNetClient extends HttpClientSupport implements SolarNet
     headers.set(HttpHeaders.AUTHORIZATION, authorization);
 
     URLConnection conn = get(uri, MediaType.APPLICATION_JSON_VALUE, headers);
-    JsonNode node = MAPPER.readTree(getInputStreamFromURLConnection(conn));
-    if (log.isTraceEnabled()) {
-      log.trace("Got instructions JSON: {}", MAPPER.writeValueAsString(node));
-    }
-    JsonNode data = node.path("data");
-    SolarNetInstruction result = MAPPER.readValue(MAPPER.treeAsTokens(data),
-        SolarNetInstruction.class);
-    return result;
+    return SolarNetResponseDecoder.instruction(responseBody(conn, "instructions"));
   }
 
   @Override
@@ -178,17 +189,18 @@ public class DefaultSolarNetClient extends HttpClientSupport implements SolarNet
     headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
     URLConnection conn = postForm(uri, MediaType.APPLICATION_JSON_VALUE, headers, params);
 
-    JsonNode node = MAPPER.readTree(getInputStreamFromURLConnection(conn));
-    if (log.isTraceEnabled()) {
-      log.trace("Got pending instructions JSON: {}", MAPPER.writeValueAsString(node));
-    }
-    Number id = node.findPath("id").numberValue();
-    return (id != null ? id.longValue() : null);
+    return SolarNetResponseDecoder.id(responseBody(conn, "queue instruction"));
   }
 
   @Override
   public GeneralDatumMetadata getNodeMetadata(Long nodeId, long authorizationDate,
       String authorization) throws IOException {
+    return coalesce(metadataFlights, viewNodeMetadataPath + nodeId, authorization,
+        () -> fetchNodeMetadata(nodeId, authorizationDate, authorization));
+  }
+
+  private GeneralDatumMetadata fetchNodeMetadata(Long nodeId, long authorizationDate,
+      String authorization) throws IOException {
     URI uri = apiUri(viewNodeMetadataPath + nodeId);
 
     HttpHeaders headers = new HttpHeaders();
@@ -197,21 +209,90 @@ public class DefaultSolarNetClient extends HttpClientSupport implements SolarNet
     headers.set(HttpHeaders.AUTHORIZATION, authorization);
 
     URLConnection conn = get(uri, MediaType.APPLICATION_JSON_VALUE, headers);
-    JsonNode node = MAPPER.readTree(getInputStreamFromURLConnection(conn));
-    if (log.isTraceEnabled()) {
-      log.trace("Got node metadata JSON: {}", MAPPER.writeValueAsString(node));
+    return SolarNetResponseDecoder.metadata(responseBody(conn, "node metadata"));
+  }
+
+  @Override
+  public NodeMetadataResponse getNodeMetadata(Long nodeId, long authorizationDate,
+      String authorization, NodeMetadataResponse previous) throws IOException {
+    return coalesce(conditionalMetadataFlights,
+        viewNodeMetadataPath + nodeId + validatorKey(previous), authorization,
+        () -> fetchNodeMetadata(nodeId, authorizationDate, authorization, previous));
+  }
+
+  private NodeMetadataResponse fetchNodeMetadata(Long nodeId, long authorizationDate,
+      String authorization, NodeMetadataResponse previous) throws IOException {
+    URI uri = apiUri(viewNodeMetadataPath + nodeId);
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.HOST, uriHost(uri));
+    headers.setDate(signedDateHeaderName(authorization), authorizationDate);
+    headers.set(HttpHeaders.AUTHORIZATION, authorization);
+    if (previous != null) {
+      if (previous.getEtag() != null) {
+        headers.setIfNoneMatch(previous.getEtag());
+      } else if (previous.getLastModified() > 0) {
+        headers.setIfModifiedSince(previous.getLastModified());
+      }
+    }
+
+    URLConnection conn = get(uri, MediaType.APPLICATION_JSON_VALUE, headers);
+    if (previous != null && conn instanceof HttpURLConnection http
+        && http.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+      log.trace("Node {} metadata not modified", nodeId);
+      return previous.asNotModified();
     }
-    JsonNode data = node.path("data");
-    GeneralDatumMetadata result;
-    if (data.isObject()) {
-      return MAPPER.treeToValue(data, GeneralDatumMetadata.class);
-    } else {
-      result = new GeneralDatumMetadata();
+    GeneralDatumMetadata meta = SolarNetResponseDecoder
+        .metadata(responseBody(conn, "node metadata"));
+    return new NodeMetadataResponse(meta, conn.getHeaderField(HttpHeaders.ETAG),
+        conn.getHeaderFieldDate(HttpHeaders.LAST_MODIFIED, 0), false);
+  }
+
+  private static String validatorKey(NodeMetadataResponse previous) {
+    if (previous == null) {
+      return "";
     }
-    return result;
+    return "\n" + previous.getEtag() + "\n" + previous.getLastModified();
   }
 
-  private String signedDateHeaderName(String authorization) {
+  /**
+   * Get a response body stream.
+   * 
+   * <p>
+   * When trace logging is enabled the body is read fully so it can be logged before it is decoded.
+   * </p>
+   * 
+   * @param conn
+   *        the connection
+   * @param description
+   *        a description of the response, for logging
+   * @return the response body stream
+   * @throws IOException
+   *         if an IO error occurs
+   */
+  private InputStream responseBody(URLConnection conn, String description) throws IOException {
+    InputStream in = getInputStreamFromURLConnection(conn);
+    if (!log.isTraceEnabled()) {
+      return in;
+    }
+    byte[] body;
+    try (in) {
+      body = FileCopyUtils.copyToByteArray(in);
+    }
+    log.trace("Got {} JSON: {}", description, new String(body, StandardCharsets.UTF_8));
+    return new ByteArrayInputStream(body);
+  }
+
+  /**
+   * Get the name of the date HTTP header signed by an SNWS2 authorization.
+   * 
+   * @param authorization
+   *        the authorization header value
+   * @return the date header name
+   * @throws AuthorizationException
+   *         if {@code authorization} does not sign a date header
+   */
+  static String signedDateHeaderName(String authorization) {
     if (authorization == null) {
       throw new AuthorizationException("Authorization missing");
     }
@@ -279,6 +360,11 @@ public class DefaultSolarNetClient extends HttpClientSupport implements SolarNet
       int status = http.getResponseCode();
       if (status == 401 || status == 403) {
         throw new AuthorizationException("HTTP request denied.");
+      } else if (status == HttpURLConnection.HTTP_NOT_MODIFIED && headers != null
+          && (headers.containsKey(HttpHeaders.IF_NONE_MATCH)
+              || headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE))) {
+        // conditional request; caller handles
+        return conn;
       } else if (status < 200 || status > 299) {
         throw new IOException("HTTP result status not in the 200-299 range: "
             + http.getResponseCode() + " " + http.getResponseMessage());
@@ -287,6 +373,17 @@ public class DefaultSolarNetClient extends HttpClientSupport implements SolarNet
     return conn;
   }
 
+  /**
+   * Set the request coalescing mode.
+   * 
+   * @param coalesceRequests
+   *        {@literal true} to share one upstream call between concurrent requests with the same
+   *        path and authorization value; defaults to {@literal true}
+   */
+  public void setCoalesceRequests(boolean coalesceRequests) {
+    this.coalesceRequests = coalesceRequests;
+  }
+
   public void setApiBaseUrl(String apiBaseUrl) {
     this.apiBaseUrl = apiBaseUrl;
   }
@@ -72,8 +72,13 @@ import net.solarnetwork.solarssh.service.SolarSshService;
 /**
  * Default implementation of {@link SolarSshService}.
  * 
+ * <p>
+ * Terminal sessions are opened with a single {@link SshClient}, started on the first attach and
+ * stopped by {@link #shutdown()}.
+ * </p>
+ * 
  * @author matt
- * @version 1.2
+ * @version 1.5
  */
 public class DefaultSolarSshService implements SolarSshService, SshSessionDao, PingTest {
 
@@ -86,8 +91,10 @@ public class DefaultSolarSshService implements SolarSshService, SshSessionDao, P
   private int sessionExpireSeconds = 300;
 
   private final SolarNetClient solarNetClient;
+  private NodeMetadataCache nodeMetadataCache;
   private final ConcurrentMap<Integer, SshSession> portSessionMap = new ConcurrentHashMap<>();
   private final ConcurrentMap<String, SshSession> sessionMap = new ConcurrentHashMap<>();
+  private SshClient client;
 
   /**
    * Constructor.
@@ -108,6 +115,29 @@ public class DefaultSolarSshService implements SolarSshService, SshSessionDao, P
         minPort, maxPort);
   }
 
+  /**
+   * Stop the terminal SSH client, closing any open terminal sessions.
+   * 
+   * @since 1.5
+   */
+  public synchronized void shutdown() {
+    if (client != null) {
+      client.stop();
+      client = null;
+    }
+  }
+
+  private synchronized SshClient client() {
+    if (client == null) {
+      SshClient c = SshClient.setUpDefaultClient();
+      c.setHostConfigEntryResolver(HostConfigEntryResolver.EMPTY); // no need
+      c.setKeyIdentityProvider(KeyIdentityProvider.EMPTY_KEYS_PROVIDER); // no need
+      c.start();
+      client = c;
+    }
+    return client;
+  }
+
   @Override
   public String getPingTestId() {
     return "net.solarnetwork.solarssh.impl.DefaultSolarSshService";
@@ -260,8 +290,11 @@ public class DefaultSolarSshService implements SolarSshService, SshSessionDao, P
     if (sess == null) {
       throw new AuthorizationException("Session " + sessionId + " not available");
     }
-    GeneralDatumMetadata meta = solarNetClient.getNodeMetadata(sess.getNodeId(), authorizationDate,
-        authorization);
+    final NodeMetadataCache metaCache = this.nodeMetadataCache;
+    GeneralDatumMetadata meta = (metaCache != null
+        ? metaCache.getNodeMetadata(solarNetClient, sess.getNodeId(), authorizationDate,
+            authorization)
+        : solarNetClient.getNodeMetadata(sess.getNodeId(), authorizationDate, authorization));
     log.debug("Got node {} metadata info: {}", sess.getNodeId(), meta.getInfo());
 
     // TODO: extract node public key? by doing nothing, we have at least verified the 
@@ -280,20 +313,24 @@ public class DefaultSolarSshService implements SolarSshService, SshSessionDao, P
 
   private ClientSession createClient(SshSession sess, SshCredentials credentials,
       SshTerminalSettings settings, InputStream in, OutputStream out) throws IOException {
-    SshClient client = SshClient.setUpDefaultClient();
-    client.setHostConfigEntryResolver(HostConfigEntryResolver.EMPTY); // no need
-    client.setKeyIdentityProvider(KeyIdentityProvider.EMPTY_KEYS_PROVIDER); // no need
-    client.start();
-
-    ClientSession session = client
+    ClientSession session = client()
         .connect(credentials.getUsername(), "127.0.0.1", sess.getReverseSshPort())
         .verify(30, TimeUnit.SECONDS).getSession();
-    if (credentials.getPassword() != null) {
-      session.addPasswordIdentity(credentials.getPassword());
+    try {
+      if (credentials.getPassword() != null) {
+        session.addPasswordIdentity(credentials.getPassword());
+      }
+      session.auth().verify(30, TimeUnit.SECONDS);
+      openShell(sess, session, settings, in, out);
+    } catch (IOException | RuntimeException e) {
+      session.close(true);
+      throw e;
     }
+    return session;
+  }
 
-    session.auth().verify(30, TimeUnit.SECONDS);
-
+  private void openShell(SshSession sess, ClientSession session, SshTerminalSettings settings,
+      InputStream in, OutputStream out) throws IOException {
     ChannelShell channel = session.createShellChannel();
 
     if (settings != null) {
@@ -329,8 +366,6 @@ public class DefaultSolarSshService implements SolarSshService, SshSessionDao, P
     channel.setOut(channelOut);
     channel.setErr(channelOut);
     channel.open().verify(30, TimeUnit.SECONDS);
-
-    return session;
   }
 
   @Override
@@ -403,6 +438,26 @@ public class DefaultSolarSshService implements SolarSshService, SshSessionDao, P
     }
   }
 
+  /**
+   * Get the number of registered sessions.
+   * 
+   * @return the session count
+   * @since 1.5
+   */
+  public int getSessionCount() {
+    return sessionMap.size();
+  }
+
+  /**
+   * Get the number of reverse port pairs allocated to sessions.
+   * 
+   * @return the allocated port pair count
+   * @since 1.5
+   */
+  public int getAllocatedPortCount() {
+    return portSessionMap.size();
+  }
+
   public void setMinPort(int minPort) {
     this.minPort = minPort;
   }
@@ -423,4 +478,15 @@ public class DefaultSolarSshService implements SolarSshService, SshSessionDao, P
     this.sessionExpireSeconds = sessionExpireSeconds;
   }
 
+  /**
+   * Set the node metadata cache.
+   * 
+   * @param nodeMetadataCache
+   *        the cache to use when verifying terminal attach authorization, or {@literal null} to
+   *        always get the metadata from SolarNet
+   */
+  public void setNodeMetadataCache(NodeMetadataCache nodeMetadataCache) {
+    this.nodeMetadataCache = nodeMetadataCache;
+  }
+
 }
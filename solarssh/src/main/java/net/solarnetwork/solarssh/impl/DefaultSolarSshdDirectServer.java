@@ -53,7 +53,7 @@ import net.solarnetwork.solarssh.service.SolarSshService;
  * Default SSH server service.
  * 
  * @author matt
- * @version 1.1
+ * @version 1.4
  */
 public class DefaultSolarSshdDirectServer extends AbstractSshdServer {
 
@@ -72,6 +72,8 @@ public class DefaultSolarSshdDirectServer extends AbstractSshdServer {
   private long instructionIncompleteWaitMs = SolarSshPasswordAuthenticator.DEFAULT_INSTRUCTION_INCOMPLETED_WAIT_MS;
   // CHECKSTYLE OFF: LineLength
 
+  private SessionRateLimiter sessionRateLimiter;
+  private SigningKeyCache signingKeyCache;
   private SshServer server;
 
   /**
@@ -108,13 +110,12 @@ public class DefaultSolarSshdDirectServer extends AbstractSshdServer {
     pwAuth.setInstructionCompletedWaitMs(instructionCompletedWaitMs);
     pwAuth.setInstructionIncompleteWaitMs(instructionIncompleteWaitMs);
     pwAuth.setMaxNodeInstructionWaitSecs(getAuthTimeoutSecs());
+    pwAuth.setSessionRateLimiter(sessionRateLimiter);
+    pwAuth.setSigningKeyCache(signingKeyCache);
 
     PasswordAuthenticator auth = pwAuth;
-    if (getBruteForceDenyList() != null) {
-      BruteForceDenyPasswordAuthenticator bf = new BruteForceDenyPasswordAuthenticator(pwAuth,
-          getBruteForceDenyList());
-      bf.setMaxFails(getBruteForceMaxTries());
-      auth = bf;
+    if (getBruteForceService() != null) {
+      auth = new BruteForceDenyPasswordAuthenticator(pwAuth, getBruteForceService());
     }
     s.setPasswordAuthenticator(auth);
 
@@ -220,9 +221,12 @@ public class DefaultSolarSshdDirectServer extends AbstractSshdServer {
     instructionParams.put("topic", INSTRUCTION_TOPIC_STOP_REMOTE_SSH);
 
     Instant now = Instant.now();
-    Snws2AuthorizationBuilder authBuilder = new Snws2AuthorizationBuilder(
-        directUsername.getTokenId()).saveSigningKey(sshSession.getTokenSecret()).date(now)
-            .host(getSnHost()).method(HttpMethod.POST.toString())
+    final SigningKeyCache keyCache = this.signingKeyCache;
+    Snws2AuthorizationBuilder authBuilder = (keyCache != null
+        ? keyCache.authorizationBuilder(directUsername.getTokenId())
+        : new Snws2AuthorizationBuilder(directUsername.getTokenId())).date(now)
+            .saveSigningKey(sshSession.getTokenSecret()).host(getSnHost())
+            .method(HttpMethod.POST.toString())
             .path("/solaruser/api/v1/sec/instr/add")
             .contentType(MediaType.APPLICATION_FORM_URLENCODED_VALUE)
             .queryParams(instructionParams);
@@ -269,4 +273,25 @@ public class DefaultSolarSshdDirectServer extends AbstractSshdServer {
     this.instructionIncompleteWaitMs = instructionIncompleteWaitMs;
   }
 
+  /**
+   * Set the session rate limiter.
+   * 
+   * @param sessionRateLimiter
+   *        the rate limiter to use, or {@literal null} for no limits
+   */
+  public void setSessionRateLimiter(SessionRateLimiter sessionRateLimiter) {
+    this.sessionRateLimiter = sessionRateLimiter;
+  }
+
+  /**
+   * Set the signing key cache.
+   * 
+   * @param signingKeyCache
+   *        the cache of derived SNWS2 signing keys, or {@literal null} to derive keys for every
+   *        request
+   */
+  public void setSigningKeyCache(SigningKeyCache signingKeyCache) {
+    this.signingKeyCache = signingKeyCache;
+  }
+
 }
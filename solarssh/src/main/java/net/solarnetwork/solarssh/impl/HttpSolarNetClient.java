@@ -0,0 +1,385 @@
+/* ==================================================================
+ * HttpSolarNetClient.java - 19/10/2026 8:21:05 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.AuthorizationException;
+import net.solarnetwork.solarssh.domain.NodeMetadataResponse;
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+import net.solarnetwork.solarssh.service.AsyncSolarNetClient;
+
+/**
+ * Non-blocking {@link AsyncSolarNetClient} using {@link HttpClient}.
+ *
+ * <p>
+ * A single {@link HttpClient} is shared by all requests, so connections to SolarNet are pooled and
+ * kept alive, and HTTP/2 is used when the server supports it, multiplexing concurrent requests
+ * over one connection.
+ * </p>
+ *
+ * @author matt
+ * @version 1.2
+ */
+public class HttpSolarNetClient implements AsyncSolarNetClient {
+
+  /** The default value for the {@code connectTimeout} property. */
+  public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(15);
+
+  /** The default value for the {@code requestTimeout} property. */
+  public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+  /** The HTTP date format, matching what the SNWS2 signature was computed with. */
+  private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter
+      .ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+  private static final int HTTP_NOT_MODIFIED = 304;
+
+  private static final Logger log = LoggerFactory.getLogger(HttpSolarNetClient.class);
+
+  private String apiBaseUrl = "https://data.solarnetwork.net";
+  private String viewPendingInstructionsPath = "/solaruser/api/v1/sec/instr/viewPending";
+  private String getInstructionPath = "/solaruser/api/v1/sec/instr/view";
+  private String queueInstructionPath = "/solaruser/api/v1/sec/instr/add";
+  private String viewNodeMetadataPath = "/solaruser/api/v1/sec/nodes/meta/";
+  private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+  private Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+
+  private HttpClient client;
+
+  /**
+   * Initialize the service after all properties configured.
+   */
+  public synchronized void init() {
+    if (client == null) {
+      client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2)
+          .followRedirects(HttpClient.Redirect.NEVER).connectTimeout(connectTimeout).build();
+    }
+    log.info("SolarNetClient configured with API url {} using HTTP/2 client", apiBaseUrl);
+  }
+
+  /**
+   * Close the HTTP client, releasing its pooled connections and threads.
+   *
+   * <p>
+   * Requests still in flight are aborted rather than holding up the shutdown.
+   * </p>
+   */
+  public synchronized void shutdown() {
+    if (client != null) {
+      client.shutdownNow();
+      client = null;
+    }
+  }
+
+  private HttpClient client() {
+    HttpClient c = client;
+    if (c == null) {
+      init();
+      c = client;
+    }
+    return c;
+  }
+
+  private URI apiUri(String path) {
+    try {
+      return URI.create(apiBaseUrl + path);
+    } catch (IllegalArgumentException e) {
+      throw new RuntimeException("Error in configured URL settings for SolarNet API", e);
+    }
+  }
+
+  private HttpRequest.Builder request(URI uri, long authorizationDate, String authorization) {
+    return HttpRequest.newBuilder(uri).timeout(requestTimeout)
+        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+        .header(DefaultSolarNetClient.signedDateHeaderName(authorization),
+            HTTP_DATE.format(Instant.ofEpochMilli(authorizationDate)))
+        .header(HttpHeaders.AUTHORIZATION, authorization);
+  }
+
+  private CompletableFuture<byte[]> send(HttpRequest req) {
+    return exchange(req, false).thenApply(HttpResponse::body);
+  }
+
+  private CompletableFuture<HttpResponse<byte[]>> exchange(HttpRequest req,
+      boolean conditional) {
+    log.trace("Sending HTTP {} request to {}", req.method(), req.uri());
+    return client().sendAsync(req, HttpResponse.BodyHandlers.ofByteArray())
+        .thenApply(res -> checkStatus(res, conditional));
+  }
+
+  private static HttpResponse<byte[]> checkStatus(HttpResponse<byte[]> res, boolean conditional) {
+    final int status = res.statusCode();
+    if (status == 401 || status == 403) {
+      throw new AuthorizationException("HTTP request denied.");
+    } else if (status == HTTP_NOT_MODIFIED && conditional) {
+      return res;
+    } else if (status < 200 || status > 299) {
+      throw new CompletionException(
+          new IOException("HTTP result status not in the 200-299 range: " + status));
+    }
+    return res;
+  }
+
+  private static <T> T decode(byte[] body, String description, JsonDecoder<T> decoder) {
+    if (log.isTraceEnabled()) {
+      log.trace("Got {} JSON: {}", description, new String(body, UTF_8));
+    }
+    try {
+      return decoder.decode(body);
+    } catch (IOException e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  @FunctionalInterface
+  private interface JsonDecoder<T> {
+
+    T decode(byte[] body) throws IOException;
+
+  }
+
+  private static <T> CompletableFuture<T> failed(Throwable t) {
+    return CompletableFuture.failedFuture(t);
+  }
+
+  @Override
+  public CompletableFuture<List<SolarNetInstruction>> pendingInstructionsAsync(Long nodeId,
+      long authorizationDate, String authorization) {
+    final HttpRequest req;
+    try {
+      req = request(apiUri(viewPendingInstructionsPath + "?nodeId=" + nodeId), authorizationDate,
+          authorization).GET().build();
+    } catch (RuntimeException e) {
+      return failed(e);
+    }
+    return send(req).thenApply(
+        body -> decode(body, "pending instructions", SolarNetResponseDecoder::instructions));
+  }
+
+  @Override
+  public CompletableFuture<SolarNetInstruction> getInstructionAsync(Long id,
+      long authorizationDate, String authorization) {
+    final HttpRequest req;
+    try {
+      req = request(apiUri(getInstructionPath + "?id=" + id), authorizationDate, authorization)
+          .GET().build();
+    } catch (RuntimeException e) {
+      return failed(e);
+    }
+    return send(req)
+        .thenApply(body -> decode(body, "instructions", SolarNetResponseDecoder::instruction));
+  }
+
+  @Override
+  public CompletableFuture<Long> queueInstructionAsync(String topic, Long nodeId,
+      Map<String, ?> parameters, long authorizationDate, String authorization) {
+    Map<String, Object> params = new LinkedHashMap<>(parameters);
+    params.put("nodeId", nodeId);
+    params.put("topic", topic);
+    final String body = formEncode(params);
+    log.trace("Encoded HTTP POST data {} as {}", params, body);
+    final HttpRequest req;
+    try {
+      req = request(apiUri(queueInstructionPath), authorizationDate, authorization)
+          .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+          .POST(HttpRequest.BodyPublishers.ofString(body, UTF_8)).build();
+    } catch (RuntimeException e) {
+      return failed(e);
+    }
+    return send(req)
+        .thenApply(res -> decode(res, "queue instruction", SolarNetResponseDecoder::id));
+  }
+
+  @Override
+  public CompletableFuture<GeneralDatumMetadata> getNodeMetadataAsync(Long nodeId,
+      long authorizationDate, String authorization) {
+    final HttpRequest req;
+    try {
+      req = request(apiUri(viewNodeMetadataPath + nodeId), authorizationDate, authorization).GET()
+          .build();
+    } catch (RuntimeException e) {
+      return failed(e);
+    }
+    return send(req)
+        .thenApply(body -> decode(body, "node metadata", SolarNetResponseDecoder::metadata));
+  }
+
+  @Override
+  public CompletableFuture<NodeMetadataResponse> getNodeMetadataAsync(Long nodeId,
+      long authorizationDate, String authorization, NodeMetadataResponse previous) {
+    final HttpRequest req;
+    final boolean conditional;
+    try {
+      HttpRequest.Builder b = request(apiUri(viewNodeMetadataPath + nodeId), authorizationDate,
+          authorization).GET();
+      if (previous != null && previous.getEtag() != null) {
+        b.header(HttpHeaders.IF_NONE_MATCH, previous.getEtag());
+        conditional = true;
+      } else if (previous != null && previous.getLastModified() > 0) {
+        b.header(HttpHeaders.IF_MODIFIED_SINCE,
+            HTTP_DATE.format(Instant.ofEpochMilli(previous.getLastModified())));
+        conditional = true;
+      } else {
+        conditional = false;
+      }
+      req = b.build();
+    } catch (RuntimeException e) {
+      return failed(e);
+    }
+    return exchange(req, conditional).thenApply(res -> {
+      if (res.statusCode() == HTTP_NOT_MODIFIED) {
+        log.trace("Node {} metadata not modified", nodeId);
+        return previous.asNotModified();
+      }
+      GeneralDatumMetadata meta = decode(res.body(), "node metadata",
+          SolarNetResponseDecoder::metadata);
+      long lastModified = res.headers().firstValue(HttpHeaders.LAST_MODIFIED)
+          .map(HttpSolarNetClient::parseHttpDate).orElse(0L);
+      return new NodeMetadataResponse(meta,
+          res.headers().firstValue(HttpHeaders.ETAG).orElse(null), lastModified, false);
+    });
+  }
+
+  private static long parseHttpDate(String value) {
+    try {
+      return Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(value)).toEpochMilli();
+    } catch (DateTimeException e) {
+      return 0L;
+    }
+  }
+
+  private static String formEncode(Map<String, ?> data) {
+    StringBuilder buf = new StringBuilder(64);
+    for (Map.Entry<String, ?> e : data.entrySet()) {
+      if (e.getValue() == null) {
+        continue;
+      }
+      if (buf.length() > 0) {
+        buf.append('&');
+      }
+      buf.append(URLEncoder.encode(e.getKey(), UTF_8)).append('=')
+          .append(URLEncoder.encode(e.getValue().toString(), UTF_8));
+    }
+    return buf.toString();
+  }
+
+  /**
+   * Set the SolarNet API base URL.
+   *
+   * @param apiBaseUrl
+   *        the base URL
+   */
+  public void setApiBaseUrl(String apiBaseUrl) {
+    this.apiBaseUrl = apiBaseUrl;
+  }
+
+  /**
+   * Set the queue instruction path.
+   *
+   * @param queueInstructionPath
+   *        the path
+   */
+  public void setQueueInstructionPath(String queueInstructionPath) {
+    this.queueInstructionPath = queueInstructionPath;
+  }
+
+  /**
+   * Set the view pending instructions path.
+   *
+   * @param viewPendingInstructionsPath
+   *        the path
+   */
+  public void setViewPendingInstructionsPath(String viewPendingInstructionsPath) {
+    this.viewPendingInstructionsPath = viewPendingInstructionsPath;
+  }
+
+  /**
+   * Set the view node metadata path.
+   *
+   * @param viewNodeMetadataPath
+   *        the path
+   */
+  public void setViewNodeMetadataPath(String viewNodeMetadataPath) {
+    this.viewNodeMetadataPath = viewNodeMetadataPath;
+  }
+
+  /**
+   * Set the get instruction path.
+   *
+   * @param getInstructionPath
+   *        the path
+   */
+  public void setGetInstructionPath(String getInstructionPath) {
+    this.getInstructionPath = getInstructionPath;
+  }
+
+  /**
+   * Set the connect timeout.
+   *
+   * <p>
+   * This must be configured before {@link #init()} is called.
+   * </p>
+   *
+   * @param connectTimeout
+   *        the timeout; defaults to {@link #DEFAULT_CONNECT_TIMEOUT}
+   */
+  public void setConnectTimeout(Duration connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  /**
+   * Set the request timeout.
+   *
+   * @param requestTimeout
+   *        the maximum time to wait for a response; defaults to {@link #DEFAULT_REQUEST_TIMEOUT}
+   */
+  public void setRequestTimeout(Duration requestTimeout) {
+    this.requestTimeout = requestTimeout;
+  }
+
+}
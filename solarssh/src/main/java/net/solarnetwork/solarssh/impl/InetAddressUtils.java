@@ -0,0 +1,108 @@
+/* ==================================================================
+ * InetAddressUtils.java - 19/10/2026 10:02:17 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Utilities for IP addresses.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public final class InetAddressUtils {
+
+  private InetAddressUtils() {
+    // can't construct me
+  }
+
+  /**
+   * Parse a literal IPv4 or IPv6 address.
+   *
+   * <p>
+   * Unlike {@link InetAddress#getByName(String)} this method never performs a name service lookup:
+   * anything that is not a literal IP address results in {@literal null}. IPv6 addresses may be
+   * enclosed in square brackets. IPv6 zone IDs are not supported.
+   * </p>
+   *
+   * @param value
+   *        the value to parse
+   * @return the address, or {@literal null} if {@code value} is not a literal IP address
+   */
+  public static InetAddress parseLiteral(String value) {
+    if (value == null) {
+      return null;
+    }
+    String s = value.trim();
+    if (s.length() > 2 && s.charAt(0) == '[' && s.charAt(s.length() - 1) == ']') {
+      s = s.substring(1, s.length() - 1);
+    }
+    if (s.isEmpty() || s.indexOf('%') >= 0) {
+      return null;
+    }
+    try {
+      if (s.indexOf(':') >= 0) {
+        // the bracketed form forces InetAddress to treat the value as an IPv6 literal, so an
+        // invalid value results in an exception rather than a name service lookup
+        return InetAddress.getByName("[" + s + "]");
+      }
+      byte[] ipv4 = parseIpv4(s);
+      return (ipv4 != null ? InetAddress.getByAddress(ipv4) : null);
+    } catch (UnknownHostException e) {
+      return null;
+    }
+  }
+
+  private static byte[] parseIpv4(String s) {
+    final byte[] result = new byte[4];
+    final int len = s.length();
+    int octet = 0;
+    int value = 0;
+    int digits = 0;
+    for (int i = 0; i < len; i++) {
+      char c = s.charAt(i);
+      if (c == '.') {
+        if (digits == 0 || octet > 2) {
+          return null;
+        }
+        result[octet++] = (byte) value;
+        value = 0;
+        digits = 0;
+      } else if (c >= '0' && c <= '9') {
+        value = value * 10 + (c - '0');
+        if (++digits > 3 || value > 255) {
+          return null;
+        }
+      } else {
+        return null;
+      }
+    }
+    if (digits == 0 || octet != 3) {
+      return null;
+    }
+    result[3] = (byte) value;
+    return result;
+  }
+
+}
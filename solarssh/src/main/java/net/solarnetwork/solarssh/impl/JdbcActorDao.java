@@ -32,15 +32,17 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-
-import javax.cache.Cache;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.PreparedStatementCreator;
 
@@ -53,7 +55,7 @@ import net.solarnetwork.solarssh.domain.SnTokenDetails;
  * JDBC implementation of {@link ActorDao}.
  * 
  * @author matt
- * @version 1.2
+ * @version 1.8
  */
 public class JdbcActorDao implements ActorDao {
 
@@ -79,16 +81,44 @@ public class JdbcActorDao implements ActorDao {
    */
   public static final String DEFAULT_AUTHORIZE_CALL = "SELECT user_id,token_type,jpolicy,node_ids FROM solaruser.user_auth_token_node_ids WHERE auth_token = ?";
 
+  /**
+   * The default value for the {@code authenticateAndAuthorizeCall} property.
+   */
+  public static final String DEFAULT_AUTHENTICATE_AND_AUTHORIZE_CALL = "SELECT n.user_id,n.token_type,n.jpolicy,n.node_ids,v.user_id IS NOT NULL AS verified FROM solaruser.user_auth_token_node_ids n LEFT OUTER JOIN solaruser.snws2_find_verified_token_details(?,?,?,?,?) v ON TRUE WHERE n.auth_token = ?";
+
+  /**
+   * The default value for the {@code preloadCall} property.
+   */
+  public static final String DEFAULT_PRELOAD_CALL = "SELECT user_id,token_type,jpolicy,node_ids,auth_token FROM solaruser.user_auth_token_node_ids WHERE auth_token = ANY(?)";
+
   // CHECKSTYLE ON: LineLength
 
+  /** The maximum number of tokens to preload with one query. */
+  public static final int PRELOAD_BATCH_SIZE = 500;
+
+  /** The maximum number of seconds to wait for the cache invalidator to start listening. */
+  public static final int CACHE_INVALIDATOR_WAIT_SECONDS = 10;
+
+  private static final int PRELOAD_TOKEN_ID_COL = 5;
+
+  private static final int COMBINED_VERIFIED_COL = 5;
+
   private static final Logger log = LoggerFactory.getLogger(JdbcActorDao.class);
 
   private final JdbcOperations jdbcOps;
   private String authenticateCall = DEFAULT_AUTHENTICATE_CALL;
   private String authorizeCall = DEFAULT_AUTHORIZE_CALL;
+  private String authenticateAndAuthorizeCall = DEFAULT_AUTHENTICATE_AND_AUTHORIZE_CALL;
+  private String preloadCall = DEFAULT_PRELOAD_CALL;
+  private volatile boolean combinedCallUnsupported;
   private String snHost = DEFAULT_SN_HOST;
   private String snPath = DEFAULT_SN_PATH;
-  private Cache<String, Actor> actorCache;
+  private RefreshAheadCache<String, Actor> actorCache;
+  private NegativeTokenCache negativeCache;
+  private SecurityPolicyInterner policyInterner = new SecurityPolicyInterner();
+  private SigningKeyCache signingKeyCache;
+  private ActorLoginJournal loginJournal;
+  private PgActorCacheInvalidator cacheInvalidator;
 
   /**
    * Constructor.
@@ -104,42 +134,243 @@ public class JdbcActorDao implements ActorDao {
   @Override
   public Actor getAuthenticatedActor(final Long nodeId, final String tokenId,
       final String tokenSecret) {
+    final NegativeTokenCache rejected = getNegativeCache();
+    if (rejected != null && rejected.isRejected(tokenId, tokenSecret)) {
+      log.debug("Token [{}] rejected from negative cache", tokenId);
+      return null;
+    }
+    Actor actor;
+    final String combinedCall = authenticateAndAuthorizeCall;
+    final RefreshAheadCache<String, Actor> cache = getActorCache();
+    if (cache != null && cache.getIfPresent(tokenId) != null) {
+      // actor already cached, so only the signature needs verifying
+      actor = authenticateThenAuthorize(tokenId, tokenSecret);
+    } else if (combinedCall != null && !combinedCallUnsupported) {
+      try {
+        actor = authenticateAndAuthorize(combinedCall, tokenId, tokenSecret);
+      } catch (BadSqlGrammarException e) {
+        // older schema: fall back to separate authenticate and authorize queries from now on
+        combinedCallUnsupported = true;
+        log.warn("Combined authenticate/authorize SQL not supported, falling back to separate "
+            + "queries: {}", e.getMessage());
+        actor = authenticateThenAuthorize(tokenId, tokenSecret);
+      }
+    } else {
+      actor = authenticateThenAuthorize(tokenId, tokenSecret);
+    }
+    if (actor == null || actor.getAllowedNodeIds() == null
+        || !actor.getAllowedNodeIds().contains(nodeId)) {
+      return null;
+    }
+    final ActorLoginJournal journal = this.loginJournal;
+    if (journal != null) {
+      journal.record(tokenId);
+    }
+    return actor;
+  }
+
+  /**
+   * Initialize after all properties are configured.
+   * 
+   * <p>
+   * If both a login journal and an actor cache are configured, the actors of all recently active
+   * tokens are loaded into the cache, so the first logins after a restart do not all hit the
+   * database at once. Errors are logged and otherwise ignored.
+   * </p>
+   * 
+   * <p>
+   * If a cache invalidator is configured, this first waits up to
+   * {@link #CACHE_INVALIDATOR_WAIT_SECONDS} for it to start listening, so no change to a preloaded
+   * token can be missed.
+   * </p>
+   */
+  public void init() {
+    final ActorLoginJournal journal = this.loginJournal;
+    if (journal == null || getActorCache() == null) {
+      return;
+    }
+    final PgActorCacheInvalidator invalidator = this.cacheInvalidator;
+    if (invalidator != null) {
+      try {
+        if (!invalidator.awaitListening(CACHE_INVALIDATOR_WAIT_SECONDS, TimeUnit.SECONDS)) {
+          log.warn("Actor cache invalidator not listening after {}s, preloading anyway",
+              CACHE_INVALIDATOR_WAIT_SECONDS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    try {
+      List<String> tokenIds = journal.recentTokenIds();
+      if (tokenIds.isEmpty()) {
+        return;
+      }
+      long start = System.currentTimeMillis();
+      int count = preloadActors(tokenIds);
+      log.info("Preloaded {} of {} recently active tokens in {}ms", count, tokenIds.size(),
+          System.currentTimeMillis() - start);
+    } catch (RuntimeException e) {
+      log.warn("Error preloading recently active tokens: {}", e.toString());
+    }
+  }
+
+  /**
+   * Load the actors for a set of tokens into the actor cache.
+   * 
+   * <p>
+   * Tokens are loaded in batches of {@link #PRELOAD_BATCH_SIZE}, each with a single query.
+   * </p>
+   * 
+   * @param tokenIds
+   *        the IDs of the tokens to load
+   * @return the number of actors loaded
+   */
+  public int preloadActors(Collection<String> tokenIds) {
+    final RefreshAheadCache<String, Actor> cache = getActorCache();
+    final String sql = preloadCall;
+    if (cache == null || sql == null || tokenIds == null || tokenIds.isEmpty()) {
+      return 0;
+    }
+    final Instant now = now();
+    final List<String> ids = new ArrayList<>(tokenIds);
+    int count = 0;
+    for (int i = 0; i < ids.size(); i += PRELOAD_BATCH_SIZE) {
+      final Object[] batch = ids.subList(i, Math.min(ids.size(), i + PRELOAD_BATCH_SIZE))
+          .toArray();
+      final long stamp = cache.invalidationStamp();
+      List<Actor> actors = jdbcOps.query(new PreparedStatementCreator() {
+
+        @Override
+        public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+          PreparedStatement stmt = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+              ResultSet.CONCUR_READ_ONLY);
+          stmt.setArray(1, con.createArrayOf("text", batch));
+          return stmt;
+        }
+      }, (rs, rowNum) -> new ActorDetailsRowMapper(rs.getString(PRELOAD_TOKEN_ID_COL),
+          policyInterner).mapRow(rs, rowNum));
+      for (Actor actor : actors) {
+        if ((actor.getPolicy() == null || actor.getPolicy().isValidAt(now))
+            && cache.putIfNotInvalidated(actor.getTokenId(), actor, stamp)) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  private Actor authenticateThenAuthorize(String tokenId, String tokenSecret) {
     SnTokenDetails authentication = authenticateToken(tokenId, tokenSecret);
     if (authentication == null) {
+      // can't tell an unknown token from a bad secret here, so assume the latter
+      final NegativeTokenCache rejected = getNegativeCache();
+      if (rejected != null) {
+        rejected.rejectSecret(tokenId, tokenSecret);
+      }
       return null;
     }
-    Actor actor = actor(tokenId);
-    if (actor.getAllowedNodeIds() == null || !actor.getAllowedNodeIds().contains(nodeId)) {
+    cacheSigningKey(tokenId, tokenSecret);
+    return actor(tokenId);
+  }
+
+  private void cacheSigningKey(String tokenId, String tokenSecret) {
+    final SigningKeyCache keyCache = this.signingKeyCache;
+    if (keyCache != null) {
+      keyCache.cacheVerified(tokenId, tokenSecret, Instant.now());
+    }
+  }
+
+  /**
+   * Verify a token and load its actor details with a single SQL statement.
+   * 
+   * @param sql
+   *        the SQL to execute
+   * @param tokenId
+   *        the token ID
+   * @param tokenSecret
+   *        the token secret
+   * @return the actor, or {@literal null} if the token cannot be verified
+   */
+  private Actor authenticateAndAuthorize(String sql, String tokenId, String tokenSecret) {
+    log.debug("Authenticating and authorizing [{}] @ {}{}", tokenId, snHost, snPath);
+    final ActorDetailsRowMapper actorMapper = new ActorDetailsRowMapper(tokenId, policyInterner);
+    final boolean[] verified = new boolean[1];
+    final RefreshAheadCache<String, Actor> cache = getActorCache();
+    final long stamp = (cache != null ? cache.invalidationStamp() : 0L);
+    Actor actor = jdbcOps.query(new PreparedStatementCreator() {
+
+      @Override
+      public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+        PreparedStatement stmt = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+            ResultSet.CONCUR_READ_ONLY);
+        setAuthenticateParameters(stmt, tokenId, tokenSecret);
+        stmt.setString(6, tokenId);
+        return stmt;
+      }
+    }, rs -> {
+      if (!rs.next()) {
+        return null;
+      }
+      final Actor result = actorMapper.mapRow(rs, 0);
+      verified[0] = rs.getBoolean(COMBINED_VERIFIED_COL);
+      return result;
+    });
+
+    // verify not expired
+    if (actor == null || !verified[0]
+        || (actor.getPolicy() != null && !actor.getPolicy().isValidAt(now()))) {
+      final NegativeTokenCache rejected = getNegativeCache();
+      if (rejected != null) {
+        if (actor == null) {
+          rejected.rejectToken(tokenId);
+        } else {
+          rejected.rejectSecret(tokenId, tokenSecret);
+        }
+      }
       return null;
     }
+
+    cacheSigningKey(tokenId, tokenSecret);
+    if (cache != null) {
+      // a change notified while querying must not be undone by caching what was read
+      cache.putIfNotInvalidated(tokenId, actor, stamp);
+    }
     return actor;
   }
 
+  private void setAuthenticateParameters(PreparedStatement stmt, String tokenId,
+      String tokenSecret) throws SQLException {
+    final Instant now = Instant.now();
+    final SigningKeyCache keyCache = this.signingKeyCache;
+    final Snws2AuthorizationBuilder builder = (keyCache != null
+        ? keyCache.unverifiedAuthorizationBuilder(tokenId)
+        : new Snws2AuthorizationBuilder(tokenId)).useSnDate(true).date(now).host(snHost)
+            .path(snPath);
+    final String auth = builder.build(tokenSecret);
+    final Map<String, String> authTokens = delimitedStringToMap(auth, ",", "=");
+    final Timestamp ts = Timestamp.from(now);
+    stmt.setString(1, tokenId);
+    stmt.setTimestamp(2, ts);
+    stmt.setString(3, snHost);
+    stmt.setString(4, snPath);
+    stmt.setString(5, authTokens.get(SIGNATURE_TOKEN));
+    log.debug("Authenticating with [{},{},{},{},{}]", tokenId, ts, snHost, snPath,
+        authTokens.get(SIGNATURE_TOKEN));
+  }
+
   private SnTokenDetails authenticateToken(String tokenId, String tokenSecret) {
     log.debug("Authenticating [{}] @ {}{}", tokenId, snHost, snPath);
     List<SnTokenDetails> results = jdbcOps.query(new PreparedStatementCreator() {
 
       @Override
       public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
-        final Instant now = Instant.now();
-        final Snws2AuthorizationBuilder builder = new Snws2AuthorizationBuilder(tokenId)
-            .useSnDate(true).date(now).host(snHost).path(snPath);
-        final String auth = builder.build(tokenSecret);
-        final Map<String, String> authTokens = delimitedStringToMap(auth, ",", "=");
-        final Timestamp ts = Timestamp.from(now);
-
         PreparedStatement stmt = con.prepareStatement(authenticateCall, ResultSet.TYPE_FORWARD_ONLY,
             ResultSet.CONCUR_READ_ONLY);
-        stmt.setString(1, tokenId);
-        stmt.setTimestamp(2, ts);
-        stmt.setString(3, snHost);
-        stmt.setString(4, snPath);
-        stmt.setString(5, authTokens.get(SIGNATURE_TOKEN));
-        log.debug("Authenticating with SQL: {} [{},{},{},{},{}]", authenticateCall, tokenId, ts,
-            snHost, snPath, authTokens.get(SIGNATURE_TOKEN));
+        setAuthenticateParameters(stmt, tokenId, tokenSecret);
         return stmt;
       }
-    }, new SnTokenDetailsRowMapper(tokenId));
+    }, new SnTokenDetailsRowMapper(tokenId, policyInterner));
 
     if (results == null || results.isEmpty()) {
       return null;
@@ -155,14 +386,14 @@ public class JdbcActorDao implements ActorDao {
   }
 
   private Actor actor(String tokenId) {
-    final Cache<String, Actor> cache = getActorCache();
-    final String actorCacheKey = cacheKeyForTokenId(tokenId);
-    if (cache != null && actorCacheKey != null) {
-      Actor actor = cache.get(actorCacheKey);
-      if (actor != null) {
-        return actor;
-      }
+    final RefreshAheadCache<String, Actor> cache = getActorCache();
+    if (cache != null && tokenId != null) {
+      return cache.get(tokenId, this::loadActor);
     }
+    return loadActor(tokenId);
+  }
+
+  private Actor loadActor(String tokenId) {
     List<Actor> results = jdbcOps.query(new PreparedStatementCreator() {
 
       @Override
@@ -172,25 +403,14 @@ public class JdbcActorDao implements ActorDao {
         stmt.setString(1, tokenId);
         return stmt;
       }
-    }, new ActorDetailsRowMapper(tokenId));
+    }, new ActorDetailsRowMapper(tokenId, policyInterner));
 
     if (results != null && !results.isEmpty()) {
-      Actor actor = results.get(0);
-      if (cache != null && actorCacheKey != null) {
-        cache.put(actorCacheKey, actor);
-      }
-      return actor;
+      return results.get(0);
     }
     return null;
   }
 
-  private String cacheKeyForTokenId(String tokenId) {
-    if (tokenId == null) {
-      return null;
-    }
-    return "Token-" + tokenId;
-  }
-
   /**
    * Get the configured authenticate JDBC call.
    * 
@@ -294,6 +514,41 @@ public class JdbcActorDao implements ActorDao {
     this.authorizeCall = jdbcCall;
   }
 
+  /**
+   * Get the combined authenticate and authorize JDBC call to use.
+   * 
+   * @return the JDBC call; defaults to {@link #DEFAULT_AUTHENTICATE_AND_AUTHORIZE_CALL}
+   */
+  public String getAuthenticateAndAuthorizeCall() {
+    return authenticateAndAuthorizeCall;
+  }
+
+  /**
+   * Set the combined authenticate and authorize JDBC call to use.
+   * 
+   * <p>
+   * This JDBC statement is used to verify token credentials and load the associated actor details
+   * in a single database round trip. It is expected to take the same 5 parameters as the
+   * {@link #setAuthenticateCall(String)} statement followed by a 6th <b>token_id</b>
+   * ({@code String}) parameter, and return the same columns as the
+   * {@link #setAuthorizeCall(String)} statement followed by a 5th <b>verified</b>
+   * ({@code Boolean}) column that is {@literal true} only if the credentials match.
+   * </p>
+   * 
+   * <p>
+   * If the statement fails because the database schema does not support it, the separate
+   * authenticate and authorize statements are used instead.
+   * </p>
+   * 
+   * @param jdbcCall
+   *        the JDBC call, or {@literal null} to always use the separate authenticate and
+   *        authorize statements
+   */
+  public void setAuthenticateAndAuthorizeCall(String jdbcCall) {
+    this.authenticateAndAuthorizeCall = jdbcCall;
+    this.combinedCallUnsupported = false;
+  }
+
   /**
    * Get the configured SolarNetwork host.
    * 
@@ -347,7 +602,7 @@ public class JdbcActorDao implements ActorDao {
    * 
    * @return the actor cache
    */
-  public Cache<String, Actor> getActorCache() {
+  public RefreshAheadCache<String, Actor> getActorCache() {
     return actorCache;
   }
 
@@ -359,8 +614,140 @@ public class JdbcActorDao implements ActorDao {
    */
   @Autowired(required = false)
   @Qualifier("actor")
-  public void setActorCache(Cache<String, Actor> actorCache) {
+  public void setActorCache(RefreshAheadCache<String, Actor> actorCache) {
     this.actorCache = actorCache;
   }
 
+  /**
+   * Get the negative cache.
+   * 
+   * @return the cache of known authentication failures
+   */
+  public NegativeTokenCache getNegativeCache() {
+    return negativeCache;
+  }
+
+  /**
+   * Set the negative cache.
+   * 
+   * <p>
+   * When configured, authentication attempts for unknown tokens or known-bad secrets are rejected
+   * without querying the database.
+   * </p>
+   * 
+   * @param negativeCache
+   *        the cache of known authentication failures
+   */
+  @Autowired(required = false)
+  public void setNegativeCache(NegativeTokenCache negativeCache) {
+    this.negativeCache = negativeCache;
+  }
+
+  /**
+   * Get the security policy interner.
+   * 
+   * @return the interner used to share parsed policies between actors
+   */
+  public SecurityPolicyInterner getPolicyInterner() {
+    return policyInterner;
+  }
+
+  /**
+   * Set the security policy interner.
+   * 
+   * @param policyInterner
+   *        the interner used to share parsed policies between actors, or {@literal null} to parse
+   *        every policy
+   */
+  public void setPolicyInterner(SecurityPolicyInterner policyInterner) {
+    this.policyInterner = policyInterner;
+  }
+
+  /**
+   * Set the signing key cache.
+   * 
+   * <p>
+   * A key is only cached once the database has verified its secret, so failed attempts cannot fill
+   * the cache.
+   * </p>
+   * 
+   * @param signingKeyCache
+   *        the cache of derived SNWS2 signing keys, or {@literal null} to derive keys for every
+   *        request
+   */
+  @Autowired(required = false)
+  public void setSigningKeyCache(SigningKeyCache signingKeyCache) {
+    this.signingKeyCache = signingKeyCache;
+  }
+
+  /**
+   * Get the preload JDBC call.
+   * 
+   * @return the preload call; defaults to {@link #DEFAULT_PRELOAD_CALL}
+   */
+  public String getPreloadCall() {
+    return preloadCall;
+  }
+
+  /**
+   * Set the preload JDBC call.
+   * 
+   * <p>
+   * This query must accept a single array of token IDs and return the same columns as the
+   * {@code authorizeCall}, followed by the token ID.
+   * </p>
+   * 
+   * @param preloadCall
+   *        the preload call, or {@literal null} to disable preloading
+   */
+  public void setPreloadCall(String preloadCall) {
+    this.preloadCall = preloadCall;
+  }
+
+  /**
+   * Get the login journal.
+   * 
+   * @return the journal of recent logins
+   */
+  public ActorLoginJournal getLoginJournal() {
+    return loginJournal;
+  }
+
+  /**
+   * Set the login journal.
+   * 
+   * @param loginJournal
+   *        the journal to record successful logins to and preload actors from, or
+   *        {@literal null}
+   */
+  @Autowired(required = false)
+  public void setLoginJournal(ActorLoginJournal loginJournal) {
+    this.loginJournal = loginJournal;
+  }
+
+  /**
+   * Get the actor cache invalidator.
+   * 
+   * @return the invalidator
+   */
+  public PgActorCacheInvalidator getCacheInvalidator() {
+    return cacheInvalidator;
+  }
+
+  /**
+   * Set the actor cache invalidator.
+   * 
+   * <p>
+   * Setting this makes {@link #init()} wait for the invalidator to start listening before
+   * preloading actors.
+   * </p>
+   * 
+   * @param cacheInvalidator
+   *        the invalidator that evicts changed tokens from the actor cache, or {@literal null}
+   */
+  @Autowired(required = false)
+  public void setCacheInvalidator(PgActorCacheInvalidator cacheInvalidator) {
+    this.cacheInvalidator = cacheInvalidator;
+  }
+
 }
@@ -0,0 +1,154 @@
+/* ==================================================================
+ * LatencyHistogram.java - 19/10/2026 10:41:08 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed, roughly logarithmic millisecond buckets.
+ *
+ * <p>
+ * Percentiles are estimated as the upper bound of the bucket they fall in, which is accurate enough
+ * to compare endpoints and spot brownouts without the memory cost of recording every sample.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class LatencyHistogram {
+
+  /** The bucket upper bounds, in milliseconds; the last bucket is unbounded. */
+  private static final long[] BOUNDS = new long[] { 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000,
+      10000, 30000 };
+
+  private final LongAdder[] buckets;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Constructor.
+   */
+  public LatencyHistogram() {
+    super();
+    buckets = new LongAdder[BOUNDS.length + 1];
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Record a sample.
+   *
+   * @param millis
+   *        the latency, in milliseconds
+   */
+  public void record(long millis) {
+    int i = 0;
+    while (i < BOUNDS.length && millis > BOUNDS[i]) {
+      i++;
+    }
+    buckets[i].increment();
+    count.increment();
+    sum.add(millis);
+    max.accumulateAndGet(millis, Math::max);
+  }
+
+  /**
+   * Get the number of recorded samples.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Get the largest recorded sample.
+   *
+   * @return the maximum latency, in milliseconds
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Get the mean of all recorded samples.
+   *
+   * @return the mean latency, in milliseconds
+   */
+  public double getMean() {
+    final long n = count.sum();
+    return (n > 0 ? (double) sum.sum() / n : 0);
+  }
+
+  /**
+   * Estimate a percentile.
+   *
+   * @param percentile
+   *        the percentile, from {@literal 0} to {@literal 1}
+   * @return the upper bound of the bucket the percentile falls in, or the maximum sample for the
+   *         unbounded bucket, in milliseconds
+   */
+  public long percentile(double percentile) {
+    long[] counts = new long[buckets.length];
+    long total = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      counts[i] = buckets[i].sum();
+      total += counts[i];
+    }
+    if (total < 1) {
+      return 0;
+    }
+    final long rank = (long) Math.ceil(percentile * total);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank && counts[i] > 0) {
+        return (i < BOUNDS.length ? Math.min(BOUNDS[i], max.get()) : max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Get a summary of this histogram, suitable for status reporting.
+   *
+   * @return the summary, with {@code count}, {@code mean}, {@code p50}, {@code p95}, {@code p99}
+   *         and {@code max} keys
+   */
+  public Map<String, Object> summary() {
+    Map<String, Object> result = new LinkedHashMap<>(8);
+    result.put("count", getCount());
+    result.put("mean", Math.round(getMean()));
+    result.put("p50", percentile(0.5));
+    result.put("p95", percentile(0.95));
+    result.put("p99", percentile(0.99));
+    result.put("max", getMax());
+    return result;
+  }
+
+}
@@ -0,0 +1,363 @@
+/* ==================================================================
+ * NegativeTokenCache.java - 19/10/2026 3:52:16 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.solarnetwork.service.PingTest;
+import net.solarnetwork.service.PingTestResult;
+
+/**
+ * Short-lived memory of security token authentication failures.
+ *
+ * <p>
+ * Two kinds of failure are remembered: tokens that do not exist at all, keyed by token ID, and
+ * secrets that did not verify for an existing token, keyed by token ID and a SHA-256 digest of
+ * the attempted secret. The secret itself is never stored. A different secret for a known token
+ * is therefore never rejected by this cache, so a legitimate client is not locked out by someone
+ * else's failed attempts.
+ * </p>
+ *
+ * <p>
+ * Failures are grouped by token ID, so forgetting all the failures of one token does not need to
+ * look at any other token.
+ * </p>
+ *
+ * <p>
+ * The cache is bounded: once {@code maxEntries} failures are remembered, expired entries are
+ * purged, at most once every {@code purgeIntervalMillis}. If the cache is still full, new failures
+ * are simply not remembered. Failures are therefore cheap to record even while a flood of bad
+ * attempts keeps the cache full.
+ * </p>
+ *
+ * @author matt
+ * @version 1.2
+ */
+public class NegativeTokenCache implements PingTest {
+
+  /** The default value for the {@code expireMillis} property: 1 minute. */
+  public static final long DEFAULT_EXPIRE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  /** The default value for the {@code maxEntries} property. */
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  /** The default value for the {@code purgeIntervalMillis} property: 1 second. */
+  public static final long DEFAULT_PURGE_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+  /** The per-token key of the failure for an unknown token; secret digests are never empty. */
+  private static final String UNKNOWN_TOKEN_KEY = "";
+
+  // token ID -> (secret digest, or UNKNOWN_TOKEN_KEY) -> expiry; only modified within compute()
+  private final ConcurrentMap<String, ConcurrentMap<String, Long>> tokens;
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicLong nextPurge = new AtomicLong();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final Clock clock;
+  private long expireMillis = DEFAULT_EXPIRE_MILLIS;
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+  private long purgeIntervalMillis = DEFAULT_PURGE_INTERVAL_MILLIS;
+
+  /**
+   * Constructor.
+   */
+  public NegativeTokenCache() {
+    this(Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param clock
+   *        the clock to expire failures with
+   */
+  public NegativeTokenCache(Clock clock) {
+    super();
+    this.clock = clock;
+    this.tokens = new ConcurrentHashMap<>(64);
+  }
+
+  /**
+   * Test if an authentication attempt is known to fail.
+   *
+   * @param tokenId
+   *        the token ID
+   * @param tokenSecret
+   *        the attempted secret
+   * @return {@literal true} if the token is unknown or the secret is known to be invalid
+   */
+  public boolean isRejected(String tokenId, String tokenSecret) {
+    if (tokenId == null) {
+      return false;
+    }
+    final long now = clock.millis();
+    final ConcurrentMap<String, Long> failures = tokens.get(tokenId);
+    if (failures != null && (isActive(tokenId, failures, UNKNOWN_TOKEN_KEY, now)
+        || (tokenSecret != null && isActive(tokenId, failures, secretKey(tokenSecret), now)))) {
+      hits.increment();
+      return true;
+    }
+    misses.increment();
+    return false;
+  }
+
+  private boolean isActive(String tokenId, ConcurrentMap<String, Long> failures, String key,
+      long now) {
+    Long expires = failures.get(key);
+    if (expires == null) {
+      return false;
+    }
+    if (expires.longValue() > now) {
+      return true;
+    }
+    tokens.computeIfPresent(tokenId, (k, m) -> {
+      if (m.remove(key, expires)) {
+        size.decrementAndGet();
+      }
+      return (m.isEmpty() ? null : m);
+    });
+    return false;
+  }
+
+  /**
+   * Remember that a token does not exist.
+   *
+   * @param tokenId
+   *        the token ID
+   */
+  public void rejectToken(String tokenId) {
+    if (tokenId != null) {
+      add(tokenId, UNKNOWN_TOKEN_KEY);
+    }
+  }
+
+  /**
+   * Remember that a secret is not valid for a token.
+   *
+   * @param tokenId
+   *        the token ID
+   * @param tokenSecret
+   *        the attempted secret
+   */
+  public void rejectSecret(String tokenId, String tokenSecret) {
+    if (tokenId != null && tokenSecret != null) {
+      add(tokenId, secretKey(tokenSecret));
+    }
+  }
+
+  private void add(String tokenId, String key) {
+    final long now = clock.millis();
+    if (size.get() >= maxEntries) {
+      purgeExpired(now);
+      if (size.get() >= maxEntries) {
+        return;
+      }
+    }
+    final Long expires = now + expireMillis;
+    tokens.compute(tokenId, (k, m) -> {
+      ConcurrentMap<String, Long> failures = (m != null ? m : new ConcurrentHashMap<>(2));
+      if (failures.put(key, expires) == null) {
+        size.incrementAndGet();
+      }
+      return failures;
+    });
+  }
+
+  private void purgeExpired(long now) {
+    final long next = nextPurge.get();
+    if (now < next || !nextPurge.compareAndSet(next, now + purgeIntervalMillis)) {
+      // purged recently, or another thread is purging now
+      return;
+    }
+    for (String tokenId : tokens.keySet()) {
+      tokens.computeIfPresent(tokenId, (k, m) -> {
+        final int count = m.size();
+        m.values().removeIf(expires -> expires.longValue() <= now);
+        size.addAndGet(m.size() - count);
+        return (m.isEmpty() ? null : m);
+      });
+    }
+  }
+
+  /**
+   * Forget all failures remembered for a token.
+   *
+   * @param tokenId
+   *        the token ID
+   */
+  public void remove(String tokenId) {
+    if (tokenId == null) {
+      return;
+    }
+    tokens.computeIfPresent(tokenId, (k, m) -> {
+      size.addAndGet(-m.size());
+      return null;
+    });
+  }
+
+  /**
+   * Forget all failures.
+   */
+  public void clear() {
+    for (String tokenId : tokens.keySet()) {
+      remove(tokenId);
+    }
+  }
+
+  /**
+   * Get the number of remembered failures.
+   *
+   * @return the count
+   */
+  public int size() {
+    return size.get();
+  }
+
+  private static String secretKey(String tokenSecret) {
+    byte[] digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256").digest(tokenSecret.getBytes(UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available.", e);
+    }
+    return Base64.getEncoder().withoutPadding().encodeToString(digest);
+  }
+
+  /**
+   * Get the number of authentication attempts rejected by this cache.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Get the number of authentication attempts not rejected by this cache.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public String getPingTestId() {
+    return "net.solarnetwork.solarssh.impl.NegativeTokenCache";
+  }
+
+  @Override
+  public long getPingTestMaximumExecutionMilliseconds() {
+    return 1000;
+  }
+
+  @Override
+  public String getPingTestName() {
+    return "SolarSSH Token Rejection Cache";
+  }
+
+  @Override
+  public Result performPingTest() throws Exception {
+    Map<String, Object> properties = new LinkedHashMap<>(4);
+    final int count = size.get();
+    properties.put("entryCount", count);
+    properties.put("tokenCount", tokens.size());
+    properties.put("hitCount", hits.sum());
+    properties.put("missCount", misses.sum());
+    return new PingTestResult(true, "Remembering " + count + " failures.", properties);
+  }
+
+  /**
+   * Get the expire time.
+   *
+   * @return the number of milliseconds a failure is remembered; defaults to
+   *         {@link #DEFAULT_EXPIRE_MILLIS}
+   */
+  public long getExpireMillis() {
+    return expireMillis;
+  }
+
+  /**
+   * Set the expire time.
+   *
+   * @param expireMillis
+   *        the number of milliseconds a failure is remembered
+   */
+  public void setExpireMillis(long expireMillis) {
+    this.expireMillis = expireMillis;
+  }
+
+  /**
+   * Get the maximum number of entries.
+   *
+   * @return the maximum number of failures to remember; defaults to {@link #DEFAULT_MAX_ENTRIES}
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Set the maximum number of entries.
+   *
+   * @param maxEntries
+   *        the maximum number of failures to remember
+   */
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Get the purge interval.
+   *
+   * @return the minimum number of milliseconds between purges of expired failures when the cache
+   *         is full; defaults to {@link #DEFAULT_PURGE_INTERVAL_MILLIS}
+   */
+  public long getPurgeIntervalMillis() {
+    return purgeIntervalMillis;
+  }
+
+  /**
+   * Set the purge interval.
+   *
+   * @param purgeIntervalMillis
+   *        the minimum number of milliseconds between purges of expired failures when the cache
+   *        is full
+   */
+  public void setPurgeIntervalMillis(long purgeIntervalMillis) {
+    this.purgeIntervalMillis = purgeIntervalMillis;
+  }
+
+}
@@ -0,0 +1,318 @@
+/* ==================================================================
+ * NodeMetadataCache.java - 19/10/2026 9:47:25 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.AuthorizationException;
+import net.solarnetwork.solarssh.domain.NodeMetadataResponse;
+import net.solarnetwork.solarssh.service.SolarNetClient;
+
+/**
+ * Cache of node metadata responses, by node and security token.
+ *
+ * <p>
+ * A cached response is only returned without contacting SolarNet when the request carries exactly
+ * the same signed {@code Authorization} value that SolarNet already verified, within
+ * {@code expireMillis}. The token ID in an authorization header can be forged, so for any other
+ * authorization the cached response is revalidated with a conditional request instead. SolarNet
+ * verifies the authorization on every conditional request, and then responds with a cheap
+ * {@literal 304 Not Modified} when the metadata has not changed.
+ * </p>
+ *
+ * <p>
+ * The cache is bounded: once {@code maxEntries} responses are cached, responses older than
+ * {@code revalidateMillis} are discarded and, if the cache is still full, the least recently
+ * validated responses are evicted until a tenth of the cache is free.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class NodeMetadataCache {
+
+  /** The default value for the {@code expireMillis} property: 1 minute. */
+  public static final long DEFAULT_EXPIRE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  /** The default value for the {@code revalidateMillis} property: 1 hour. */
+  public static final long DEFAULT_REVALIDATE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  /** The default value for the {@code maxEntries} property. */
+  public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+  private static final Pattern SNWS2_TOKEN_PATTERN = Pattern.compile("Credential=([^,]+)(?:,|$)");
+
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>(64);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder revalidations = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final Clock clock;
+  private long expireMillis = DEFAULT_EXPIRE_MILLIS;
+  private long revalidateMillis = DEFAULT_REVALIDATE_MILLIS;
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+  /**
+   * Constructor.
+   */
+  public NodeMetadataCache() {
+    this(Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param clock
+   *        the clock to expire responses with
+   */
+  public NodeMetadataCache(Clock clock) {
+    super();
+    this.clock = clock;
+  }
+
+  private static final class Entry {
+
+    private final NodeMetadataResponse response;
+    private final String authorizationDigest;
+    private final long validated;
+
+    private Entry(NodeMetadataResponse response, String authorizationDigest, long validated) {
+      super();
+      this.response = response;
+      this.authorizationDigest = authorizationDigest;
+      this.validated = validated;
+    }
+
+  }
+
+  /**
+   * Get node metadata, using a cached response if possible.
+   *
+   * @param client
+   *        the client to get the metadata with
+   * @param nodeId
+   *        the ID of the node to get metadata for
+   * @param authorizationDate
+   *        the authorization date used in {@code authorization}
+   * @param authorization
+   *        the {@code Authorization} HTTP header value to use
+   * @return the metadata (never {@literal null})
+   * @throws IOException
+   *         if any communication error occurs
+   * @see SolarNetClient#getNodeMetadata(Long, long, String)
+   */
+  public GeneralDatumMetadata getNodeMetadata(SolarNetClient client, Long nodeId,
+      long authorizationDate, String authorization) throws IOException {
+    final String tokenId = tokenId(authorization);
+    if (tokenId == null) {
+      return client.getNodeMetadata(nodeId, authorizationDate, authorization);
+    }
+    final String key = nodeId + ":" + tokenId;
+    final String authDigest = digest(authorization);
+    final long now = clock.millis();
+    Entry entry = entries.get(key);
+    if (entry != null && now - entry.validated >= revalidateMillis) {
+      entries.remove(key, entry);
+      entry = null;
+    }
+    if (entry != null && now - entry.validated < expireMillis
+        && authDigest.equals(entry.authorizationDigest)) {
+      hits.increment();
+      return entry.response.getMetadata();
+    }
+    final NodeMetadataResponse res;
+    try {
+      res = client.getNodeMetadata(nodeId, authorizationDate, authorization,
+          entry != null ? entry.response : null);
+    } catch (AuthorizationException e) {
+      entries.remove(key);
+      throw e;
+    }
+    if (res.isNotModified()) {
+      revalidations.increment();
+    } else {
+      misses.increment();
+    }
+    if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+      prune(now);
+    }
+    entries.put(key, new Entry(res, authDigest, now));
+    return res.getMetadata();
+  }
+
+  private void prune(long now) {
+    entries.values().removeIf(e -> now - e.validated >= revalidateMillis);
+    final int target = maxEntries - Math.max(1, maxEntries / 10);
+    int excess = entries.size() - target;
+    if (excess < 1) {
+      return;
+    }
+    // evict the least recently validated, freeing enough room that this is not repeated per put
+    List<Map.Entry<String, Entry>> oldest = new ArrayList<>(entries.entrySet());
+    oldest.sort(Comparator.comparingLong(e -> e.getValue().validated));
+    for (Map.Entry<String, Entry> e : oldest) {
+      if (excess < 1) {
+        break;
+      }
+      if (entries.remove(e.getKey(), e.getValue())) {
+        excess--;
+      }
+    }
+  }
+
+  private static String tokenId(String authorization) {
+    if (authorization == null) {
+      return null;
+    }
+    Matcher m = SNWS2_TOKEN_PATTERN.matcher(authorization);
+    return (m.find() ? m.group(1) : null);
+  }
+
+  private static String digest(String authorization) {
+    try {
+      return Base64.getEncoder().withoutPadding().encodeToString(
+          MessageDigest.getInstance("SHA-256").digest(authorization.getBytes(UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available.", e);
+    }
+  }
+
+  /**
+   * Remove all cached responses.
+   */
+  public void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Get the number of cached responses.
+   *
+   * @return the count
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Get the number of times a cached response was returned without contacting SolarNet.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Get the number of times SolarNet confirmed a cached response was not modified.
+   *
+   * @return the revalidation count
+   */
+  public long getRevalidationCount() {
+    return revalidations.sum();
+  }
+
+  /**
+   * Get the number of times the metadata had to be downloaded.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Get the expiration time.
+   *
+   * @return the number of milliseconds a response can be reused for the same authorization;
+   *         defaults to {@link #DEFAULT_EXPIRE_MILLIS}
+   */
+  public long getExpireMillis() {
+    return expireMillis;
+  }
+
+  /**
+   * Set the expiration time.
+   *
+   * @param expireMillis
+   *        the number of milliseconds a response can be reused for the same authorization
+   */
+  public void setExpireMillis(long expireMillis) {
+    this.expireMillis = expireMillis;
+  }
+
+  /**
+   * Get the revalidation time.
+   *
+   * @return the number of milliseconds a response can be revalidated for before it is discarded;
+   *         defaults to {@link #DEFAULT_REVALIDATE_MILLIS}
+   */
+  public long getRevalidateMillis() {
+    return revalidateMillis;
+  }
+
+  /**
+   * Set the revalidation time.
+   *
+   * @param revalidateMillis
+   *        the number of milliseconds a response can be revalidated for before it is discarded
+   */
+  public void setRevalidateMillis(long revalidateMillis) {
+    this.revalidateMillis = revalidateMillis;
+  }
+
+  /**
+   * Get the maximum number of entries.
+   *
+   * @return the maximum number of responses to cache; defaults to {@link #DEFAULT_MAX_ENTRIES}
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Set the maximum number of entries.
+   *
+   * @param maxEntries
+   *        the maximum number of responses to cache
+   */
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+}
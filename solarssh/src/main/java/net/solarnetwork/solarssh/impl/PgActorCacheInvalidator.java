@@ -0,0 +1,323 @@
+/* ==================================================================
+ * PgActorCacheInvalidator.java - 19/10/2026 4:27:41 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.solarnetwork.solarssh.domain.Actor;
+
+/**
+ * Evict actor cache entries when Postgres notifies that a security token has changed.
+ *
+ * <p>
+ * A dedicated connection is taken from the data source and used to {@literal LISTEN} on a
+ * notification channel. The connection is held for as long as the listener runs, so the data
+ * source should not be a connection pool shared with queries; if it is, the pool must be sized
+ * with one extra connection. Each notification payload is the ID of a token whose details
+ * changed; the token is evicted from the actor cache and the negative cache. An empty payload
+ * clears both caches. A database trigger is expected to send the notifications, for example
+ * {@code pg_notify('solarssh_token', NEW.auth_token)}.
+ * </p>
+ *
+ * <p>
+ * After every poll that returns no notifications the connection is validated with a round trip
+ * to the server, because polling alone only reads the socket and would not notice a connection
+ * silently dropped by a firewall or a failover. If the connection is lost it is re-established
+ * with an exponential back-off. Because notifications sent while disconnected are lost, the caches
+ * are cleared every time the listener reconnects. They are not cleared when the first attempt to
+ * listen succeeds, so anything loaded into the caches after
+ * {@link #awaitListening(long, TimeUnit)} returns {@literal true} is kept.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class PgActorCacheInvalidator implements Runnable {
+
+  /** The default value for the {@code pollMillis} property. */
+  public static final int DEFAULT_POLL_MILLIS = 10_000;
+
+  /** The default value for the {@code maxRetryDelayMillis} property. */
+  public static final long DEFAULT_MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  /** The maximum number of seconds to wait for the connection liveness check. */
+  public static final int LIVENESS_TIMEOUT_SECONDS = 5;
+
+  private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+  private static final Logger log = LoggerFactory.getLogger(PgActorCacheInvalidator.class);
+
+  private final DataSource dataSource;
+  private final String channel;
+  private final RefreshAheadCache<String, Actor> actorCache;
+  private final LongAdder evictions = new LongAdder();
+  private final CountDownLatch listening = new CountDownLatch(1);
+  private NegativeTokenCache negativeCache;
+  private int pollMillis = DEFAULT_POLL_MILLIS;
+  private long maxRetryDelayMillis = DEFAULT_MAX_RETRY_DELAY_MILLIS;
+
+  private volatile Thread thread;
+
+  /**
+   * Constructor.
+   *
+   * @param dataSource
+   *        the data source to listen with, ideally one that opens a new physical connection each
+   *        time
+   * @param channel
+   *        the notification channel to listen on
+   * @param actorCache
+   *        the actor cache to evict from
+   * @throws IllegalArgumentException
+   *         if any argument is {@literal null} or the channel is not a simple lower-case
+   *         identifier
+   */
+  public PgActorCacheInvalidator(DataSource dataSource, String channel,
+      RefreshAheadCache<String, Actor> actorCache) {
+    super();
+    if (dataSource == null) {
+      throw new IllegalArgumentException("The dataSource argument must not be null.");
+    }
+    if (channel == null || !CHANNEL_NAME.matcher(channel).matches()) {
+      throw new IllegalArgumentException("The channel argument must be a simple identifier.");
+    }
+    if (actorCache == null) {
+      throw new IllegalArgumentException("The actorCache argument must not be null.");
+    }
+    this.dataSource = dataSource;
+    this.channel = channel;
+    this.actorCache = actorCache;
+  }
+
+  /**
+   * Start listening for notifications.
+   */
+  public synchronized void start() {
+    if (thread != null) {
+      return;
+    }
+    Thread t = new Thread(this, "PgActorCacheInvalidator-" + channel);
+    t.setDaemon(true);
+    thread = t;
+    t.start();
+  }
+
+  /**
+   * Stop listening for notifications.
+   */
+  public synchronized void stop() {
+    Thread t = thread;
+    thread = null;
+    if (t != null) {
+      t.interrupt();
+    }
+  }
+
+  /**
+   * Wait for the listener to start listening for notifications.
+   *
+   * <p>
+   * Changes made before this returns {@literal true} might not be notified, so callers that
+   * populate the caches at startup should call this first.
+   * </p>
+   *
+   * @param timeout
+   *        the maximum time to wait
+   * @param unit
+   *        the time unit
+   * @return {@literal true} if the listener has started listening, {@literal false} if the timeout
+   *         elapsed first
+   * @throws InterruptedException
+   *         if interrupted while waiting
+   */
+  public boolean awaitListening(long timeout, TimeUnit unit) throws InterruptedException {
+    return listening.await(timeout, unit);
+  }
+
+  @Override
+  public void run() {
+    long retryDelay = 0;
+    boolean attempted = false;
+    while (thread == Thread.currentThread()) {
+      if (retryDelay > 0) {
+        try {
+          Thread.sleep(retryDelay);
+        } catch (InterruptedException e) {
+          break;
+        }
+      }
+      final boolean reconnect = attempted;
+      attempted = true;
+      try (Connection conn = dataSource.getConnection()) {
+        conn.setAutoCommit(true);
+        PGConnection pgConn = conn.unwrap(PGConnection.class);
+        try (Statement stmt = conn.createStatement()) {
+          stmt.execute("LISTEN " + channel);
+        }
+        log.info("Listening for actor changes on Postgres channel [{}]", channel);
+
+        if (reconnect) {
+          // anything may have changed while not listening
+          clearCaches();
+        }
+        listening.countDown();
+        retryDelay = 0;
+        while (thread == Thread.currentThread()) {
+          PGNotification[] notifications = pgConn.getNotifications(pollMillis);
+          if (notifications != null && notifications.length > 0) {
+            for (PGNotification n : notifications) {
+              handleNotification(n.getParameter());
+            }
+          } else if (thread == Thread.currentThread()
+              && !conn.isValid(LIVENESS_TIMEOUT_SECONDS)) {
+            throw new SQLException("Listen connection is no longer valid.");
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        if (thread != Thread.currentThread()) {
+          break;
+        }
+        retryDelay = Math.min(Math.max(1000L, retryDelay * 2), maxRetryDelayMillis);
+        log.warn("Error listening for actor changes on channel [{}], retrying in {}ms: {}",
+            channel, retryDelay, e.getMessage());
+      }
+    }
+    log.info("Stopped listening for actor changes on Postgres channel [{}]", channel);
+  }
+
+  private void handleNotification(String tokenId) {
+    if (tokenId == null || tokenId.isEmpty()) {
+      log.info("Clearing actor cache from notification");
+      clearCaches();
+      return;
+    }
+    log.debug("Evicting token [{}] from actor cache", tokenId);
+    evictions.increment();
+    actorCache.remove(tokenId);
+    final NegativeTokenCache rejected = this.negativeCache;
+    if (rejected != null) {
+      rejected.remove(tokenId);
+    }
+  }
+
+  private void clearCaches() {
+    actorCache.clear();
+    final NegativeTokenCache rejected = this.negativeCache;
+    if (rejected != null) {
+      rejected.clear();
+    }
+  }
+
+  /**
+   * Get the number of tokens evicted by notifications.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Get the notification channel.
+   *
+   * @return the channel name
+   */
+  public String getChannel() {
+    return channel;
+  }
+
+  /**
+   * Get the negative cache.
+   *
+   * @return the negative cache to also evict from, or {@literal null}
+   */
+  public NegativeTokenCache getNegativeCache() {
+    return negativeCache;
+  }
+
+  /**
+   * Set the negative cache.
+   *
+   * @param negativeCache
+   *        the negative cache to also evict from, so newly created tokens are usable at once
+   */
+  public void setNegativeCache(NegativeTokenCache negativeCache) {
+    this.negativeCache = negativeCache;
+  }
+
+  /**
+   * Get the poll time.
+   *
+   * @return the maximum number of milliseconds to wait for notifications before checking if the
+   *         listener has been stopped and the connection is still alive; defaults to
+   *         {@link #DEFAULT_POLL_MILLIS}
+   */
+  public int getPollMillis() {
+    return pollMillis;
+  }
+
+  /**
+   * Set the poll time.
+   *
+   * @param pollMillis
+   *        the maximum number of milliseconds to wait for notifications before checking if the
+   *        listener has been stopped and the connection is still alive
+   */
+  public void setPollMillis(int pollMillis) {
+    this.pollMillis = pollMillis;
+  }
+
+  /**
+   * Get the maximum retry delay.
+   *
+   * @return the maximum number of milliseconds to wait before reconnecting; defaults to
+   *         {@link #DEFAULT_MAX_RETRY_DELAY_MILLIS}
+   */
+  public long getMaxRetryDelayMillis() {
+    return maxRetryDelayMillis;
+  }
+
+  /**
+   * Set the maximum retry delay.
+   *
+   * @param maxRetryDelayMillis
+   *        the maximum number of milliseconds to wait before reconnecting
+   */
+  public void setMaxRetryDelayMillis(long maxRetryDelayMillis) {
+    this.maxRetryDelayMillis = maxRetryDelayMillis;
+  }
+
+}
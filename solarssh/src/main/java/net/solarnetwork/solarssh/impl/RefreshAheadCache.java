@@ -0,0 +1,538 @@
+/* ==================================================================
+ * RefreshAheadCache.java - 19/10/2026 3:04:51 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded in-memory cache that refreshes entries before they expire.
+ *
+ * <p>
+ * Each entry moves through three stages as it ages:
+ * </p>
+ *
+ * <ol>
+ * <li><b>fresh</b> - younger than {@code refreshAfterMillis}: returned directly</li>
+ * <li><b>refresh-ahead</b> - younger than {@code expireMillis}: returned directly, while a reload
+ * is started in the background</li>
+ * <li><b>stale</b> - younger than {@code expireMillis + staleMillis}: a reload is started and
+ * waited on for up to {@code staleWaitMillis}; if it does not finish in time the stale value is
+ * returned</li>
+ * </ol>
+ *
+ * <p>
+ * Older entries are loaded synchronously. Concurrent loads of the same key are always collapsed
+ * into a single call of the loader, so a popular key never causes a thundering herd of loads.
+ * Loaders returning {@literal null} are not cached.
+ * </p>
+ *
+ * <p>
+ * A value loaded while its key is removed, or while the cache is cleared, is never cached, so an
+ * invalidation can not be undone by a load that read the old value. Callers that load values
+ * themselves get the same guarantee by taking an {@link #invalidationStamp()} before loading and
+ * caching the result with {@link #putIfNotInvalidated(Object, Object, long)}.
+ * </p>
+ *
+ * @param <K>
+ *        the key type
+ * @param <V>
+ *        the value type
+ * @author matt
+ * @version 1.1
+ */
+public class RefreshAheadCache<K, V> {
+
+  /** The default value for the {@code expireMillis} property: 15 minutes. */
+  public static final long DEFAULT_EXPIRE_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+  /** The default value for the {@code refreshAfterMillis} property: 10 minutes. */
+  public static final long DEFAULT_REFRESH_AFTER_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+  /** The default value for the {@code staleMillis} property: 15 minutes. */
+  public static final long DEFAULT_STALE_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+  /** The default value for the {@code staleWaitMillis} property. */
+  public static final long DEFAULT_STALE_WAIT_MILLIS = 500L;
+
+  /** The default value for the {@code maxEntries} property. */
+  public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  private static final Logger log = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+  private final String name;
+  private final Executor executor;
+  private final Clock clock;
+  private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>(64);
+  private final ConcurrentMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>(16);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder staleHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder refreshes = new LongAdder();
+  private final AtomicLong invalidations = new AtomicLong();
+  private long expireMillis = DEFAULT_EXPIRE_MILLIS;
+  private long refreshAfterMillis = DEFAULT_REFRESH_AFTER_MILLIS;
+  private long staleMillis = DEFAULT_STALE_MILLIS;
+  private long staleWaitMillis = DEFAULT_STALE_WAIT_MILLIS;
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+  private static final class Entry<V> {
+
+    private final V value;
+    private final long created;
+
+    private Entry(V value, long created) {
+      super();
+      this.value = value;
+      this.created = created;
+    }
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param name
+   *        a name for the cache, for logging
+   * @param executor
+   *        the executor to run background refreshes with
+   * @throws IllegalArgumentException
+   *         if any argument is {@literal null}
+   */
+  public RefreshAheadCache(String name, Executor executor) {
+    this(name, executor, Clock.systemUTC());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param name
+   *        a name for the cache, for logging
+   * @param executor
+   *        the executor to run background refreshes with
+   * @param clock
+   *        the clock to age entries with
+   * @throws IllegalArgumentException
+   *         if any argument is {@literal null}
+   */
+  public RefreshAheadCache(String name, Executor executor, Clock clock) {
+    super();
+    if (name == null) {
+      throw new IllegalArgumentException("The name argument must not be null.");
+    }
+    if (executor == null) {
+      throw new IllegalArgumentException("The executor argument must not be null.");
+    }
+    if (clock == null) {
+      throw new IllegalArgumentException("The clock argument must not be null.");
+    }
+    this.name = name;
+    this.executor = executor;
+    this.clock = clock;
+  }
+
+  /**
+   * Get a value, loading it if necessary.
+   *
+   * @param key
+   *        the key
+   * @param loader
+   *        the function to load the value with; may return {@literal null} if no value exists
+   * @return the value, or {@literal null} if none exists
+   * @throws RuntimeException
+   *         any exception thrown by {@code loader} when a value must be loaded synchronously
+   */
+  public V get(K key, Function<? super K, ? extends V> loader) {
+    final long now = clock.millis();
+    final Entry<V> e = entries.get(key);
+    if (e != null) {
+      final long age = now - e.created;
+      if (age < refreshAfterMillis) {
+        hits.increment();
+        return e.value;
+      }
+      if (age < expireMillis) {
+        hits.increment();
+        refreshAsync(key, loader);
+        return e.value;
+      }
+      if (age < expireMillis + staleMillis) {
+        CompletableFuture<V> f = refreshAsync(key, loader);
+        try {
+          V result = f.get(staleWaitMillis, TimeUnit.MILLISECONDS);
+          misses.increment();
+          return result;
+        } catch (TimeoutException | ExecutionException ex) {
+          staleHits.increment();
+          log.debug("Cache [{}] returning stale value for [{}]: {}", name, key, ex.toString());
+          return e.value;
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          staleHits.increment();
+          return e.value;
+        }
+      }
+    }
+    misses.increment();
+    return loadSync(key, loader);
+  }
+
+  /**
+   * Get a value only if it is cached and not expired.
+   *
+   * @param key
+   *        the key
+   * @return the value, or {@literal null} if not cached or expired
+   */
+  public V getIfPresent(K key) {
+    final Entry<V> e = entries.get(key);
+    if (e != null && clock.millis() - e.created < expireMillis) {
+      return e.value;
+    }
+    return null;
+  }
+
+  /**
+   * Put a value into the cache.
+   *
+   * @param key
+   *        the key
+   * @param value
+   *        the value; {@literal null} removes any existing value
+   */
+  public void put(K key, V value) {
+    if (value == null) {
+      entries.remove(key);
+      return;
+    }
+    store(key, value);
+  }
+
+  /**
+   * Get the current invalidation stamp.
+   *
+   * <p>
+   * The stamp changes every time a key is removed or the cache is cleared. Take a stamp before
+   * loading a value, and cache the value with
+   * {@link #putIfNotInvalidated(Object, Object, long)}.
+   * </p>
+   *
+   * @return the stamp
+   */
+  public long invalidationStamp() {
+    return invalidations.get();
+  }
+
+  /**
+   * Put a value into the cache, unless anything has been invalidated since a stamp was taken.
+   *
+   * <p>
+   * Any invalidation discards the value, not just one of the same key. That is deliberately
+   * conservative: invalidations are expected to be rare, and a discarded value is simply loaded
+   * again when next needed.
+   * </p>
+   *
+   * @param key
+   *        the key
+   * @param value
+   *        the value; {@literal null} removes any existing value
+   * @param stamp
+   *        the {@link #invalidationStamp()} taken before the value was loaded
+   * @return {@literal true} if the value was cached
+   */
+  public boolean putIfNotInvalidated(K key, V value, long stamp) {
+    if (value == null) {
+      entries.remove(key);
+      return false;
+    }
+    if (invalidations.get() != stamp) {
+      return false;
+    }
+    final Entry<V> e = store(key, value);
+    if (invalidations.get() != stamp) {
+      // invalidated while storing; the invalidation may have run before the store
+      entries.remove(key, e);
+      return false;
+    }
+    return true;
+  }
+
+  private Entry<V> store(K key, V value) {
+    if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+      prune(clock.millis());
+    }
+    final Entry<V> e = new Entry<>(value, clock.millis());
+    entries.put(key, e);
+    return e;
+  }
+
+  /**
+   * Remove a value from the cache.
+   *
+   * <p>
+   * Any load of the key already in progress will not be cached when it completes.
+   * </p>
+   *
+   * @param key
+   *        the key to remove
+   */
+  public void remove(K key) {
+    invalidations.incrementAndGet();
+    loads.remove(key);
+    entries.remove(key);
+  }
+
+  /**
+   * Remove all values from the cache.
+   *
+   * <p>
+   * Any load already in progress will not be cached when it completes.
+   * </p>
+   */
+  public void clear() {
+    invalidations.incrementAndGet();
+    loads.clear();
+    entries.clear();
+  }
+
+  /**
+   * Get the number of cached values.
+   *
+   * @return the number of values, including stale values
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  private V loadSync(K key, Function<? super K, ? extends V> loader) {
+    final CompletableFuture<V> f = new CompletableFuture<>();
+    final CompletableFuture<V> existing = loads.putIfAbsent(key, f);
+    if (existing != null) {
+      // another thread is already loading this key: wait for that
+      return join(existing);
+    }
+    load(key, loader, f);
+    return join(f);
+  }
+
+  private static <V> V join(CompletableFuture<V> f) {
+    try {
+      return f.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw e;
+    }
+  }
+
+  private CompletableFuture<V> refreshAsync(K key, Function<? super K, ? extends V> loader) {
+    final CompletableFuture<V> f = new CompletableFuture<>();
+    final CompletableFuture<V> existing = loads.putIfAbsent(key, f);
+    if (existing != null) {
+      return existing;
+    }
+    refreshes.increment();
+    try {
+      executor.execute(() -> load(key, loader, f));
+    } catch (RejectedExecutionException e) {
+      loads.remove(key, f);
+      f.completeExceptionally(e);
+    }
+    return f;
+  }
+
+  private void load(K key, Function<? super K, ? extends V> loader, CompletableFuture<V> f) {
+    try {
+      final long stamp = invalidations.get();
+      V value = loader.apply(key);
+      if (loads.remove(key, f)) {
+        // only cache if not removed while loading
+        putIfNotInvalidated(key, value, stamp);
+      }
+      f.complete(value);
+    } catch (RuntimeException e) {
+      loads.remove(key, f);
+      log.warn("Cache [{}] error loading [{}]: {}", name, key, e.toString());
+      f.completeExceptionally(e);
+    }
+  }
+
+  private void prune(long now) {
+    final long maxAge = expireMillis + staleMillis;
+    entries.values().removeIf(e -> now - e.created >= maxAge);
+    final int target = maxEntries - (maxEntries / 10);
+    // then drop arbitrary entries; these will simply be loaded again if needed
+    for (Iterator<Entry<V>> itr = entries.values().iterator(); itr.hasNext()
+        && entries.size() > target;) {
+      itr.next();
+      itr.remove();
+    }
+  }
+
+  /**
+   * Get the count of requests served from the cache.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Get the count of requests served a stale value while a refresh was pending.
+   *
+   * @return the stale hit count
+   */
+  public long getStaleHitCount() {
+    return staleHits.sum();
+  }
+
+  /**
+   * Get the count of requests that had to wait for a load.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Get the count of background refreshes started.
+   *
+   * @return the refresh count
+   */
+  public long getRefreshCount() {
+    return refreshes.sum();
+  }
+
+  /**
+   * Get the time after which entries expire.
+   *
+   * @return the expiration time, in milliseconds; defaults to {@link #DEFAULT_EXPIRE_MILLIS}
+   */
+  public long getExpireMillis() {
+    return expireMillis;
+  }
+
+  /**
+   * Set the time after which entries expire.
+   *
+   * @param expireMillis
+   *        the expiration time, in milliseconds
+   */
+  public void setExpireMillis(long expireMillis) {
+    this.expireMillis = expireMillis;
+  }
+
+  /**
+   * Get the time after which entries are refreshed in the background.
+   *
+   * @return the refresh time, in milliseconds; defaults to {@link #DEFAULT_REFRESH_AFTER_MILLIS}
+   */
+  public long getRefreshAfterMillis() {
+    return refreshAfterMillis;
+  }
+
+  /**
+   * Set the time after which entries are refreshed in the background.
+   *
+   * @param refreshAfterMillis
+   *        the refresh time, in milliseconds; should be less than {@code expireMillis}
+   */
+  public void setRefreshAfterMillis(long refreshAfterMillis) {
+    this.refreshAfterMillis = refreshAfterMillis;
+  }
+
+  /**
+   * Get the time after expiration that a stale value may still be returned.
+   *
+   * @return the stale time, in milliseconds; defaults to {@link #DEFAULT_STALE_MILLIS}
+   */
+  public long getStaleMillis() {
+    return staleMillis;
+  }
+
+  /**
+   * Set the time after expiration that a stale value may still be returned.
+   *
+   * @param staleMillis
+   *        the stale time, in milliseconds; {@literal 0} disables stale values
+   */
+  public void setStaleMillis(long staleMillis) {
+    this.staleMillis = staleMillis;
+  }
+
+  /**
+   * Get the maximum time to wait for a reload before returning a stale value.
+   *
+   * @return the wait time, in milliseconds; defaults to {@link #DEFAULT_STALE_WAIT_MILLIS}
+   */
+  public long getStaleWaitMillis() {
+    return staleWaitMillis;
+  }
+
+  /**
+   * Set the maximum time to wait for a reload before returning a stale value.
+   *
+   * @param staleWaitMillis
+   *        the wait time, in milliseconds
+   */
+  public void setStaleWaitMillis(long staleWaitMillis) {
+    this.staleWaitMillis = staleWaitMillis;
+  }
+
+  /**
+   * Get the maximum number of entries.
+   *
+   * @return the maximum entries; defaults to {@link #DEFAULT_MAX_ENTRIES}
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Set the maximum number of entries.
+   *
+   * @param maxEntries
+   *        the maximum entries
+   */
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+}
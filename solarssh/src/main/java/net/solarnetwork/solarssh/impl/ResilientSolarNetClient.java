@@ -0,0 +1,540 @@
+/* ==================================================================
+ * ResilientSolarNetClient.java - 19/10/2026 11:02:46 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.http.HttpTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.service.PingTest;
+import net.solarnetwork.service.PingTestResult;
+import net.solarnetwork.solarssh.AuthorizationException;
+import net.solarnetwork.solarssh.domain.NodeMetadataResponse;
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+import net.solarnetwork.solarssh.service.SolarNetClient;
+
+/**
+ * {@link SolarNetClient} decorator that keeps SolarSSH responsive when SolarNet is slow or down.
+ *
+ * <ul>
+ * <li>Every call runs on a bounded worker pool, and the caller waits at most the endpoint's latency
+ * budget for the result. A worker blocked on a slow socket does not hold up the caller, and once
+ * the pool and its queue are full further calls fail fast instead of piling up threads.</li>
+ * <li>A {@link CircuitBreaker} fails calls immediately after repeated communication failures or
+ * timeouts. Authorization failures prove SolarNet is healthy, so do not count as failures, and
+ * neither do calls rejected because the worker pool is full, as they never reached SolarNet.</li>
+ * <li>Idempotent {@literal GET} calls can be hedged: if no response arrives within
+ * {@code hedgeDelayMillis} the same request is sent again via {@code hedgeDelegate}, and whichever
+ * succeeds first wins. The other request is then cancelled.</li>
+ * <li>Per-endpoint latency histograms are reported via {@link PingTest}.</li>
+ * </ul>
+ *
+ * <p>
+ * The non-idempotent {@literal POST} of {@link #queueInstruction(String, Long, Map, long, String)}
+ * is different: SolarNet may have queued the instruction even if no response arrived in time, so
+ * a caller that retried would queue a duplicate. That endpoint therefore ignores
+ * {@code defaultBudgetMillis} and waits for the delegate's own request timeout, unless a budget is
+ * configured for it explicitly via {@link #setBudgetMillis(String, long)}. Even then, exceeding
+ * the budget only releases the caller: the request itself is never cancelled.
+ * </p>
+ *
+ * <p>
+ * Cancelling an idempotent call, when it loses a hedge or exceeds its budget, interrupts its
+ * worker. A delegate that waits on a future, such as {@link HttpSolarNetClient}, then returns the
+ * worker to the pool straight away; a delegate blocked reading a socket keeps the worker until the
+ * read times out.
+ * </p>
+ *
+ * @author matt
+ * @version 1.2
+ */
+public class ResilientSolarNetClient implements SolarNetClient, PingTest {
+
+  /** The {@code pendingInstructions} endpoint name. */
+  public static final String ENDPOINT_PENDING_INSTRUCTIONS = "pendingInstructions";
+
+  /** The {@code getInstruction} endpoint name. */
+  public static final String ENDPOINT_GET_INSTRUCTION = "getInstruction";
+
+  /** The {@code queueInstruction} endpoint name. */
+  public static final String ENDPOINT_QUEUE_INSTRUCTION = "queueInstruction";
+
+  /** The {@code getNodeMetadata} endpoint name. */
+  public static final String ENDPOINT_GET_NODE_METADATA = "getNodeMetadata";
+
+  /** The default value for the {@code defaultBudgetMillis} property. */
+  public static final long DEFAULT_BUDGET_MILLIS = 10_000L;
+
+  /** The default value for the {@code maxConcurrency} property. */
+  public static final int DEFAULT_MAX_CONCURRENCY = 32;
+
+  /** The default value for the {@code queueCapacity} property. */
+  public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+  private static final Logger log = LoggerFactory.getLogger(ResilientSolarNetClient.class);
+
+  /**
+   * A call to a SolarNet client.
+   *
+   * @param <T>
+   *        the result type
+   */
+  @FunctionalInterface
+  private interface ClientCall<T> {
+
+    T call(SolarNetClient client) throws IOException;
+
+  }
+
+  private final SolarNetClient delegate;
+  private final CircuitBreaker circuitBreaker;
+  private final Map<String, LatencyHistogram> histograms;
+  private final Map<String, Long> budgets;
+  private final LongAdder timeouts = new LongAdder();
+  private final LongAdder hedges = new LongAdder();
+  private final LongAdder saturations = new LongAdder();
+  private SolarNetClient hedgeDelegate;
+  private long defaultBudgetMillis = DEFAULT_BUDGET_MILLIS;
+  private long hedgeDelayMillis;
+  private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+  private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+  private volatile ThreadPoolExecutor executor;
+
+  /**
+   * Constructor.
+   *
+   * @param delegate
+   *        the client to delegate to
+   * @param circuitBreaker
+   *        the circuit breaker
+   * @throws IllegalArgumentException
+   *         if any argument is {@literal null}
+   */
+  public ResilientSolarNetClient(SolarNetClient delegate, CircuitBreaker circuitBreaker) {
+    super();
+    if (delegate == null) {
+      throw new IllegalArgumentException("The delegate argument must not be null.");
+    }
+    if (circuitBreaker == null) {
+      throw new IllegalArgumentException("The circuitBreaker argument must not be null.");
+    }
+    this.delegate = delegate;
+    this.hedgeDelegate = delegate;
+    this.circuitBreaker = circuitBreaker;
+    this.budgets = new LinkedHashMap<>(4);
+    this.histograms = new LinkedHashMap<>(4);
+    for (String endpoint : List.of(ENDPOINT_PENDING_INSTRUCTIONS, ENDPOINT_GET_INSTRUCTION,
+        ENDPOINT_QUEUE_INSTRUCTION, ENDPOINT_GET_NODE_METADATA)) {
+      histograms.put(endpoint, new LatencyHistogram());
+    }
+  }
+
+  /**
+   * Initialize the service after all properties configured.
+   */
+  public synchronized void init() {
+    if (executor != null) {
+      return;
+    }
+    final AtomicInteger threadCount = new AtomicInteger();
+    executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60L, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), r -> {
+          Thread t = new Thread(r, "SolarNet-" + threadCount.incrementAndGet());
+          t.setDaemon(true);
+          return t;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    log.info("SolarNet calls limited to {} concurrent with {} queued; default budget {}ms, "
+        + "hedge delay {}ms", maxConcurrency, queueCapacity, defaultBudgetMillis,
+        hedgeDelayMillis);
+  }
+
+  /**
+   * Shut down the worker pool and the delegate clients.
+   */
+  public synchronized void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+    shutdownClient(delegate);
+    if (hedgeDelegate != delegate) {
+      shutdownClient(hedgeDelegate);
+    }
+  }
+
+  private static void shutdownClient(SolarNetClient client) {
+    if (client instanceof HttpSolarNetClient c) {
+      c.shutdown();
+    }
+  }
+
+  @Override
+  public List<SolarNetInstruction> pendingInstructions(Long nodeId, long authorizationDate,
+      String authorization) throws IOException {
+    return invoke(ENDPOINT_PENDING_INSTRUCTIONS, true,
+        c -> c.pendingInstructions(nodeId, authorizationDate, authorization));
+  }
+
+  @Override
+  public SolarNetInstruction getInstruction(Long id, long authorizationDate, String authorization)
+      throws IOException {
+    return invoke(ENDPOINT_GET_INSTRUCTION, true,
+        c -> c.getInstruction(id, authorizationDate, authorization));
+  }
+
+  @Override
+  public Long queueInstruction(String topic, Long nodeId, Map<String, ?> parameters,
+      long authorizationDate, String authorization) throws IOException {
+    return invoke(ENDPOINT_QUEUE_INSTRUCTION, false,
+        c -> c.queueInstruction(topic, nodeId, parameters, authorizationDate, authorization));
+  }
+
+  @Override
+  public GeneralDatumMetadata getNodeMetadata(Long nodeId, long authorizationDate,
+      String authorization) throws IOException {
+    return invoke(ENDPOINT_GET_NODE_METADATA, true,
+        c -> c.getNodeMetadata(nodeId, authorizationDate, authorization));
+  }
+
+  @Override
+  public NodeMetadataResponse getNodeMetadata(Long nodeId, long authorizationDate,
+      String authorization, NodeMetadataResponse previous) throws IOException {
+    return invoke(ENDPOINT_GET_NODE_METADATA, true,
+        c -> c.getNodeMetadata(nodeId, authorizationDate, authorization, previous));
+  }
+
+  private <T> T invoke(String endpoint, boolean idempotent, ClientCall<T> call)
+      throws IOException {
+    if (!circuitBreaker.tryAcquire()) {
+      throw new IOException("SolarNet circuit open: failing " + endpoint + " fast.");
+    }
+    // a non-idempotent call is only budgeted when configured to be, as giving up on it does not
+    // mean SolarNet did not act on it
+    final long budget = budgets.getOrDefault(endpoint,
+        idempotent ? defaultBudgetMillis : Long.MAX_VALUE);
+    final long start = System.currentTimeMillis();
+    final CompletableFuture<T> primary;
+    try {
+      primary = submit(delegate, call);
+    } catch (IOException e) {
+      // the call was never sent, so says nothing about SolarNet's health
+      circuitBreaker.release();
+      throw e;
+    }
+    boolean healthy = false;
+    try {
+      T result = (idempotent && hedgeDelayMillis > 0 && hedgeDelayMillis < budget
+          ? callHedged(endpoint, call, primary, start, budget)
+          : await(endpoint, primary, budget, idempotent));
+      healthy = true;
+      return result;
+    } catch (AuthorizationException e) {
+      healthy = true;
+      throw e;
+    } finally {
+      histograms.get(endpoint).record(System.currentTimeMillis() - start);
+      if (healthy) {
+        circuitBreaker.recordSuccess();
+      } else {
+        circuitBreaker.recordFailure();
+      }
+    }
+  }
+
+  private <T> T callHedged(String endpoint, ClientCall<T> call, CompletableFuture<T> primary,
+      long start, long budget) throws IOException {
+    try {
+      return primary.get(hedgeDelayMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // fall through to hedge
+    } catch (InterruptedException e) {
+      primary.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for SolarNet " + endpoint + ".");
+    } catch (ExecutionException e) {
+      // the primary failed before the hedge delay; report its failure
+      return await(endpoint, primary, budget, true);
+    }
+    final CompletableFuture<T> hedge;
+    try {
+      hedge = submit(hedgeDelegate, call);
+    } catch (IOException e) {
+      // no capacity to hedge; keep waiting on the primary
+      return await(endpoint, primary, budget - (System.currentTimeMillis() - start), true);
+    }
+    hedges.increment();
+    log.debug("Hedging SolarNet {} call after {}ms", endpoint, hedgeDelayMillis);
+    return await(endpoint, firstSuccess(primary, hedge),
+        budget - (System.currentTimeMillis() - start), true);
+  }
+
+  private static <T> CompletableFuture<T> firstSuccess(CompletableFuture<T> a,
+      CompletableFuture<T> b) {
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    final AtomicInteger failures = new AtomicInteger();
+    complete(result, a, b, failures);
+    complete(result, b, a, failures);
+    // if the caller gives up, neither request is needed any more
+    result.whenComplete((r, t) -> {
+      if (result.isCancelled()) {
+        a.cancel(true);
+        b.cancel(true);
+      }
+    });
+    return result;
+  }
+
+  private static <T> void complete(CompletableFuture<T> result, CompletableFuture<T> f,
+      CompletableFuture<T> other, AtomicInteger failures) {
+    f.whenComplete((r, t) -> {
+      if (t == null) {
+        result.complete(r);
+        // free the worker still waiting on the losing request
+        other.cancel(true);
+      } else if (failures.incrementAndGet() == 2) {
+        result.completeExceptionally(t);
+      }
+    });
+  }
+
+  private <T> CompletableFuture<T> submit(SolarNetClient client, ClientCall<T> call)
+      throws IOException {
+    final ThreadPoolExecutor exec = executor;
+    if (exec == null) {
+      throw new IOException("SolarNet client not initialized.");
+    }
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    final Future<?> task;
+    try {
+      task = exec.submit(() -> {
+        try {
+          result.complete(call.call(client));
+        } catch (Throwable t) {
+          result.completeExceptionally(t);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      saturations.increment();
+      throw new IOException("SolarNet call capacity exhausted.");
+    }
+    // cancelling a CompletableFuture does not interrupt the thread computing it, so do that here
+    result.whenComplete((r, t) -> {
+      if (result.isCancelled()) {
+        task.cancel(true);
+      }
+    });
+    return result;
+  }
+
+  private <T> T await(String endpoint, CompletableFuture<T> future, long budget,
+      boolean cancellable) throws IOException {
+    try {
+      if (budget < 1) {
+        throw new TimeoutException();
+      }
+      return future.get(budget, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      timeouts.increment();
+      if (cancellable) {
+        // the caller is released now; the worker is interrupted and released when it responds
+        future.cancel(true);
+      }
+      throw new HttpTimeoutException(
+          "SolarNet " + endpoint + " exceeded latency budget of " + budget + "ms.");
+    } catch (InterruptedException e) {
+      if (cancellable) {
+        future.cancel(true);
+      }
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for SolarNet " + endpoint + ".");
+    } catch (ExecutionException e) {
+      Throwable t = e.getCause();
+      if (t instanceof IOException ioe) {
+        throw ioe;
+      } else if (t instanceof RuntimeException re) {
+        throw re;
+      } else if (t instanceof Error err) {
+        throw err;
+      }
+      throw new IOException("SolarNet " + endpoint + " failed: " + t, t);
+    }
+  }
+
+  @Override
+  public String getPingTestId() {
+    return "net.solarnetwork.solarssh.impl.ResilientSolarNetClient";
+  }
+
+  @Override
+  public long getPingTestMaximumExecutionMilliseconds() {
+    return 1000;
+  }
+
+  @Override
+  public String getPingTestName() {
+    return "SolarNet Client";
+  }
+
+  @Override
+  public Result performPingTest() throws Exception {
+    final CircuitBreaker.State state = circuitBreaker.getState();
+    Map<String, Object> properties = new LinkedHashMap<>(16);
+    properties.put("circuitState", state.name());
+    properties.put("circuitTripCount", circuitBreaker.getTripCount());
+    properties.put("circuitRejectionCount", circuitBreaker.getRejectionCount());
+    properties.put("timeoutCount", timeouts.sum());
+    properties.put("hedgeCount", hedges.sum());
+    properties.put("saturationCount", saturations.sum());
+    final ThreadPoolExecutor exec = executor;
+    if (exec != null) {
+      properties.put("activeCount", exec.getActiveCount());
+      properties.put("queueSize", exec.getQueue().size());
+    }
+    for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet()) {
+      properties.put(e.getKey() + "Latency", e.getValue().summary());
+    }
+    return new PingTestResult(state != CircuitBreaker.State.Open, "Circuit " + state + ".",
+        properties);
+  }
+
+  /**
+   * Get the latency histogram for an endpoint.
+   *
+   * @param endpoint
+   *        the endpoint name, for example {@link #ENDPOINT_GET_INSTRUCTION}
+   * @return the histogram, or {@literal null} if {@code endpoint} is not known
+   */
+  public LatencyHistogram latencyHistogram(String endpoint) {
+    return histograms.get(endpoint);
+  }
+
+  /**
+   * Set the client to send hedged requests with.
+   *
+   * <p>
+   * This should be a client that does not coalesce identical requests, or the hedged request will
+   * simply join the original.
+   * </p>
+   *
+   * @param hedgeDelegate
+   *        the client to use; defaults to the main delegate
+   */
+  public void setHedgeDelegate(SolarNetClient hedgeDelegate) {
+    this.hedgeDelegate = (hedgeDelegate != null ? hedgeDelegate : delegate);
+  }
+
+  /**
+   * Set the default latency budget.
+   *
+   * @param defaultBudgetMillis
+   *        the maximum number of milliseconds to wait for any idempotent endpoint without its own
+   *        budget
+   */
+  public void setDefaultBudgetMillis(long defaultBudgetMillis) {
+    this.defaultBudgetMillis = defaultBudgetMillis;
+  }
+
+  /**
+   * Set the latency budget for an endpoint.
+   *
+   * <p>
+   * This must be configured before the client is used.
+   * </p>
+   *
+   * @param endpoint
+   *        the endpoint name, for example {@link #ENDPOINT_GET_INSTRUCTION}
+   * @param budgetMillis
+   *        the maximum number of milliseconds to wait, or {@literal 0} to use the default budget;
+   *        for {@link #ENDPOINT_QUEUE_INSTRUCTION} {@literal 0} means no budget
+   * @throws IllegalArgumentException
+   *         if {@code endpoint} is not known
+   */
+  public void setBudgetMillis(String endpoint, long budgetMillis) {
+    if (!histograms.containsKey(endpoint)) {
+      throw new IllegalArgumentException("Unknown endpoint [" + endpoint + "]");
+    }
+    if (budgetMillis > 0) {
+      budgets.put(endpoint, budgetMillis);
+    } else {
+      budgets.remove(endpoint);
+    }
+  }
+
+  /**
+   * Set the hedge delay.
+   *
+   * @param hedgeDelayMillis
+   *        the number of milliseconds to wait for an idempotent call before sending a hedged
+   *        request, or {@literal 0} to disable hedging
+   */
+  public void setHedgeDelayMillis(long hedgeDelayMillis) {
+    this.hedgeDelayMillis = hedgeDelayMillis;
+  }
+
+  /**
+   * Set the maximum number of concurrent calls.
+   *
+   * <p>
+   * This must be configured before {@link #init()} is called.
+   * </p>
+   *
+   * @param maxConcurrency
+   *        the worker pool size; defaults to {@link #DEFAULT_MAX_CONCURRENCY}
+   */
+  public void setMaxConcurrency(int maxConcurrency) {
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  /**
+   * Set the maximum number of calls waiting for a worker.
+   *
+   * <p>
+   * This must be configured before {@link #init()} is called.
+   * </p>
+   *
+   * @param queueCapacity
+   *        the queue capacity; defaults to {@link #DEFAULT_QUEUE_CAPACITY}
+   */
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+}
@@ -0,0 +1,178 @@
+/* ==================================================================
+ * SecurityPolicyInterner.java - 19/10/2026 5:46:12 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.solarnetwork.central.security.BasicSecurityPolicy;
+import net.solarnetwork.central.security.SecurityPolicy;
+import net.solarnetwork.codec.JsonUtils;
+
+/**
+ * Parse security policy JSON, sharing one immutable instance per distinct policy.
+ *
+ * <p>
+ * Many tokens share byte-identical policies, so parsing each distinct policy once saves both JSON
+ * parsing and heap across cached actors. Policies are keyed by a SHA-256 digest of their JSON so
+ * the JSON text itself is not retained. At most {@code maxEntries} policies are held; when a new
+ * policy would exceed that, the least recently used policy is forgotten, so policies of tokens
+ * that are no longer used do not stay in memory forever. Parsing happens outside the lock that
+ * guards the policies.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class SecurityPolicyInterner {
+
+  /** The default value for the {@code maxEntries} property. */
+  public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+  // access ordered, so the eldest entry is the least recently used
+  private final Map<String, SecurityPolicy> policies = new LinkedHashMap<>(64, 0.75f, true) {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, SecurityPolicy> eldest) {
+      return size() > maxEntries;
+    }
+  };
+
+  /**
+   * Get the shared policy instance for some policy JSON.
+   *
+   * @param json
+   *        the policy JSON
+   * @return the policy, or {@literal null} if {@code json} is {@literal null} or cannot be parsed
+   */
+  public SecurityPolicy intern(String json) {
+    if (json == null) {
+      return null;
+    }
+    final String key = digest(json);
+    SecurityPolicy policy;
+    synchronized (policies) {
+      policy = policies.get(key);
+    }
+    if (policy != null) {
+      hits.increment();
+      return policy;
+    }
+    misses.increment();
+    policy = JsonUtils.getObjectFromJSON(json, BasicSecurityPolicy.class);
+    if (policy == null || maxEntries < 1) {
+      return policy;
+    }
+    synchronized (policies) {
+      SecurityPolicy existing = policies.putIfAbsent(key, policy);
+      return (existing != null ? existing : policy);
+    }
+  }
+
+  private static String digest(String json) {
+    try {
+      return Base64.getEncoder().withoutPadding()
+          .encodeToString(MessageDigest.getInstance("SHA-256").digest(json.getBytes(UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available.", e);
+    }
+  }
+
+  /**
+   * Remove all shared policies.
+   */
+  public void clear() {
+    synchronized (policies) {
+      policies.clear();
+    }
+  }
+
+  /**
+   * Get the number of shared policies.
+   *
+   * @return the count
+   */
+  public int size() {
+    synchronized (policies) {
+      return policies.size();
+    }
+  }
+
+  /**
+   * Get the number of times a shared policy was returned.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Get the number of times a policy had to be parsed.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Get the maximum number of entries.
+   *
+   * @return the maximum number of policies to share; defaults to {@link #DEFAULT_MAX_ENTRIES}
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Set the maximum number of entries.
+   *
+   * @param maxEntries
+   *        the maximum number of policies to share; {@literal 0} or less disables sharing
+   */
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+    synchronized (policies) {
+      for (Iterator<SecurityPolicy> itr = policies.values().iterator(); itr.hasNext()
+          && policies.size() > maxEntries;) {
+        itr.next();
+        itr.remove();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,207 @@
+/* ==================================================================
+ * SessionRateLimiter.java - 19/10/2026 1:38:02 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.solarnetwork.service.PingTest;
+import net.solarnetwork.service.PingTestResult;
+
+/**
+ * Rate limits for SSH session creation, by client address, security token, and node.
+ *
+ * <p>
+ * Each kind of limit is optional. The address limit is meant to be checked before any other work
+ * is done for a request. The token and node limits must only be checked once the request has been
+ * authenticated: the token ID and node ID of an unauthenticated request can be forged, and
+ * charging them would let anyone exhaust another user's permits. Use
+ * {@link #hasTokenAndNodePermits(String, Long)} to reject an unauthenticated request early, without
+ * charging anything, when the token or node has no permits left.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class SessionRateLimiter implements PingTest {
+
+  private static final Logger log = LoggerFactory.getLogger(SessionRateLimiter.class);
+
+  private final TokenBucketRateLimiter addressLimiter;
+  private final TokenBucketRateLimiter tokenLimiter;
+  private final TokenBucketRateLimiter nodeLimiter;
+  private final LongAdder addressRejections = new LongAdder();
+  private final LongAdder tokenRejections = new LongAdder();
+  private final LongAdder nodeRejections = new LongAdder();
+
+  /**
+   * Constructor.
+   *
+   * @param addressLimiter
+   *        the client address limiter, or {@literal null} for no limit
+   * @param tokenLimiter
+   *        the security token limiter, or {@literal null} for no limit
+   * @param nodeLimiter
+   *        the node limiter, or {@literal null} for no limit
+   */
+  public SessionRateLimiter(TokenBucketRateLimiter addressLimiter,
+      TokenBucketRateLimiter tokenLimiter, TokenBucketRateLimiter nodeLimiter) {
+    super();
+    this.addressLimiter = addressLimiter;
+    this.tokenLimiter = tokenLimiter;
+    this.nodeLimiter = nodeLimiter;
+  }
+
+  /**
+   * Try to acquire a permit for a client address.
+   *
+   * @param src
+   *        the client address
+   * @return {@literal true} if the request may proceed
+   */
+  public boolean tryAcquireAddress(InetAddress src) {
+    if (addressLimiter == null || src == null || addressLimiter.tryAcquire(src)) {
+      return true;
+    }
+    addressRejections.increment();
+    log.info("{} session request rejected by address rate limit", src);
+    return false;
+  }
+
+  /**
+   * Try to acquire a permit for a security token.
+   *
+   * @param tokenId
+   *        the token ID
+   * @return {@literal true} if the request may proceed
+   */
+  public boolean tryAcquireToken(String tokenId) {
+    if (tokenLimiter == null || tokenId == null || tokenLimiter.tryAcquire(tokenId)) {
+      return true;
+    }
+    tokenRejections.increment();
+    log.info("Token {} session request rejected by token rate limit", tokenId);
+    return false;
+  }
+
+  /**
+   * Try to acquire a permit for a node.
+   *
+   * @param nodeId
+   *        the node ID
+   * @return {@literal true} if the request may proceed
+   */
+  public boolean tryAcquireNode(Long nodeId) {
+    if (nodeLimiter == null || nodeId == null || nodeLimiter.tryAcquire(nodeId)) {
+      return true;
+    }
+    nodeRejections.increment();
+    log.info("Node {} session request rejected by node rate limit", nodeId);
+    return false;
+  }
+
+  /**
+   * Test if both a security token and a node have a permit available, without acquiring either.
+   *
+   * <p>
+   * This is safe to call before a request has been authenticated, because nothing is charged: a
+   * forged token or node ID can only be rejected when the real owner has used up its permits.
+   * </p>
+   *
+   * @param tokenId
+   *        the token ID, which need not be authenticated
+   * @param nodeId
+   *        the node ID
+   * @return {@literal true} if the request may proceed
+   */
+  public boolean hasTokenAndNodePermits(String tokenId, Long nodeId) {
+    if (tokenLimiter != null && tokenId != null && !tokenLimiter.hasPermit(tokenId)) {
+      tokenRejections.increment();
+      log.info("Token {} session request rejected by token rate limit", tokenId);
+      return false;
+    }
+    if (nodeLimiter != null && nodeId != null && !nodeLimiter.hasPermit(nodeId)) {
+      nodeRejections.increment();
+      log.info("Node {} session request rejected by node rate limit", nodeId);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Try to acquire a permit for both a security token and a node.
+   *
+   * <p>
+   * If the node has no permit available, the token permit is released again, so a rejection
+   * costs the token nothing.
+   * </p>
+   *
+   * @param tokenId
+   *        the authenticated token ID
+   * @param nodeId
+   *        the node ID
+   * @return {@literal true} if the request may proceed
+   */
+  public boolean tryAcquireTokenAndNode(String tokenId, Long nodeId) {
+    if (!tryAcquireToken(tokenId)) {
+      return false;
+    }
+    if (!tryAcquireNode(nodeId)) {
+      if (tokenLimiter != null) {
+        tokenLimiter.release(tokenId);
+      }
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public String getPingTestId() {
+    return "net.solarnetwork.solarssh.impl.SessionRateLimiter";
+  }
+
+  @Override
+  public long getPingTestMaximumExecutionMilliseconds() {
+    return 1000;
+  }
+
+  @Override
+  public String getPingTestName() {
+    return "SolarSSH Session Rate Limiter";
+  }
+
+  @Override
+  public Result performPingTest() throws Exception {
+    Map<String, Object> properties = new LinkedHashMap<>(4);
+    properties.put("addressRejectionCount", addressRejections.sum());
+    properties.put("tokenRejectionCount", tokenRejections.sum());
+    properties.put("nodeRejectionCount", nodeRejections.sum());
+    return new PingTestResult(true, "Rate limiter active.", properties);
+  }
+
+}
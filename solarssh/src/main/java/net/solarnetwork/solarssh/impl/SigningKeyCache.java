@@ -0,0 +1,325 @@
+/* ==================================================================
+ * SigningKeyCache.java - 19/10/2026 6:14:37 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import net.solarnetwork.security.Snws2AuthorizationBuilder;
+
+/**
+ * Cache of derived SNWS2 signing keys, by token, secret, and day.
+ *
+ * <p>
+ * An SNWS2 signing key is derived from a token secret and a UTC date with a chain of HMAC
+ * operations, and stays the same for the whole day. This cache lets the derivation happen once per
+ * token per day, so each request only needs the final request HMAC. Use
+ * {@link #authorizationBuilder(String)} to create builders that take their signing keys from this
+ * cache.
+ * </p>
+ *
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the secret as well as the token ID, so a wrong secret
+ * can never be given the key derived from the right one. Secrets are never stored, and callers
+ * only ever receive copies of keys. Evicted keys are overwritten with zeros; a copy taken while its
+ * key was being evicted is discarded and the key derived again, so zeroing never corrupts a key in
+ * use.
+ * </p>
+ *
+ * <p>
+ * Only keys for secrets that have been verified should be cached, otherwise anyone could fill the
+ * cache by trying random secrets. Use {@link #unverifiedAuthorizationBuilder(String)} to sign with
+ * a secret that has not been verified yet, and {@link #cacheVerified(String, String, Instant)}
+ * once it has.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class SigningKeyCache {
+
+  /** The default value for the {@code maxEntries} property. */
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+  private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd")
+      .withZone(ZoneOffset.UTC);
+
+  private final ConcurrentMap<String, byte[]> keys = new ConcurrentHashMap<>(64);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+  /**
+   * Get a signing key, deriving it if necessary.
+   *
+   * @param tokenId
+   *        the token ID
+   * @param tokenSecret
+   *        the token secret
+   * @param date
+   *        the signing date
+   * @param deriver
+   *        the function to derive the key with, if it is not cached
+   * @return a copy of the signing key
+   */
+  public byte[] signingKey(String tokenId, String tokenSecret, Instant date,
+      Supplier<byte[]> deriver) {
+    return signingKey(tokenId, tokenSecret, date, deriver, true);
+  }
+
+  private byte[] signingKey(String tokenId, String tokenSecret, Instant date,
+      Supplier<byte[]> deriver, boolean cacheMiss) {
+    final String day = DAY_FORMAT.format(date);
+    final String key = day + ':' + tokenId + ':' + digest(tokenSecret);
+    final byte[] cached = cachedCopy(key);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    final byte[] signingKey = deriver.get();
+    if (signingKey != null && cacheMiss) {
+      put(day, key, signingKey);
+    }
+    return signingKey;
+  }
+
+  private byte[] cachedCopy(String key) {
+    final byte[] cached = keys.get(key);
+    if (cached == null) {
+      return null;
+    }
+    final byte[] copy;
+    synchronized (cached) {
+      copy = cached.clone();
+    }
+    if (keys.get(key) != cached) {
+      // evicted while copying, so the copy might have been zeroed
+      wipe(copy);
+      return null;
+    }
+    return copy;
+  }
+
+  /**
+   * Cache the signing key for a secret that has been verified.
+   *
+   * <p>
+   * This does nothing if the key is already cached.
+   * </p>
+   *
+   * @param tokenId
+   *        the token ID
+   * @param tokenSecret
+   *        the verified token secret
+   * @param date
+   *        the signing date
+   */
+  public void cacheVerified(String tokenId, String tokenSecret, Instant date) {
+    final String day = DAY_FORMAT.format(date);
+    final String key = day + ':' + tokenId + ':' + digest(tokenSecret);
+    if (!keys.containsKey(key)) {
+      put(day, key,
+          new Snws2AuthorizationBuilder(tokenId).date(date).computeSigningKey(tokenSecret));
+    }
+  }
+
+  private void put(String day, String key, byte[] signingKey) {
+    if (keys.size() >= maxEntries) {
+      prune(day);
+    }
+    final byte[] candidate = signingKey.clone();
+    if (keys.putIfAbsent(key, candidate) != null) {
+      wipe(candidate);
+    }
+  }
+
+  private void prune(String day) {
+    // keys from other days are of no further use
+    for (Map.Entry<String, byte[]> e : keys.entrySet()) {
+      if (!e.getKey().startsWith(day)) {
+        evict(e.getKey(), e.getValue());
+      }
+    }
+    for (Iterator<Map.Entry<String, byte[]>> itr = keys.entrySet().iterator(); itr.hasNext()
+        && keys.size() >= maxEntries;) {
+      Map.Entry<String, byte[]> e = itr.next();
+      evict(e.getKey(), e.getValue());
+    }
+  }
+
+  private void evict(String key, byte[] signingKey) {
+    // remove before zeroing, so readers can tell their copy might be bad
+    if (keys.remove(key, signingKey)) {
+      wipe(signingKey);
+    }
+  }
+
+  private static void wipe(byte[] signingKey) {
+    synchronized (signingKey) {
+      Arrays.fill(signingKey, (byte) 0);
+    }
+  }
+
+  private static String digest(String secret) {
+    try {
+      return Base64.getEncoder().withoutPadding().encodeToString(
+          MessageDigest.getInstance("SHA-256").digest(secret.getBytes(UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available.", e);
+    }
+  }
+
+  /**
+   * Create an authorization builder that takes its signing keys from this cache.
+   *
+   * <p>
+   * The returned builder can be used exactly like a new {@link Snws2AuthorizationBuilder}, via
+   * either {@code build(secret)} or {@code saveSigningKey(secret)} and {@code build()}.
+   * </p>
+   *
+   * @param tokenId
+   *        the token ID
+   * @return the new builder
+   */
+  public Snws2AuthorizationBuilder authorizationBuilder(String tokenId) {
+    return new CachingAuthorizationBuilder(tokenId, this, true);
+  }
+
+  /**
+   * Create an authorization builder for a secret that has not been verified yet.
+   *
+   * <p>
+   * The builder uses a cached signing key if there is one, but does not cache a key it has to
+   * derive.
+   * </p>
+   *
+   * @param tokenId
+   *        the token ID
+   * @return the new builder
+   */
+  public Snws2AuthorizationBuilder unverifiedAuthorizationBuilder(String tokenId) {
+    return new CachingAuthorizationBuilder(tokenId, this, false);
+  }
+
+  /**
+   * Remove all cached keys, overwriting them with zeros.
+   */
+  public void clear() {
+    for (Map.Entry<String, byte[]> e : keys.entrySet()) {
+      evict(e.getKey(), e.getValue());
+    }
+  }
+
+  /**
+   * Get the number of cached keys.
+   *
+   * @return the count
+   */
+  public int size() {
+    return keys.size();
+  }
+
+  /**
+   * Get the number of times a cached key was used.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Get the number of times a key had to be derived.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Get the maximum number of entries.
+   *
+   * @return the maximum number of keys to cache; defaults to {@link #DEFAULT_MAX_ENTRIES}
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Set the maximum number of entries.
+   *
+   * @param maxEntries
+   *        the maximum number of keys to cache
+   */
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Authorization builder that derives signing keys through a {@link SigningKeyCache}.
+   */
+  private static final class CachingAuthorizationBuilder extends Snws2AuthorizationBuilder {
+
+    private final String tokenId;
+    private final SigningKeyCache cache;
+    private final boolean cacheMiss;
+    private Instant keyDate;
+
+    private CachingAuthorizationBuilder(String tokenId, SigningKeyCache cache,
+        boolean cacheMiss) {
+      super(tokenId);
+      this.tokenId = tokenId;
+      this.cache = cache;
+      this.cacheMiss = cacheMiss;
+    }
+
+    @Override
+    public Snws2AuthorizationBuilder date(Instant date) {
+      this.keyDate = date;
+      return super.date(date);
+    }
+
+    @Override
+    public byte[] computeSigningKey(String secretKey) {
+      final Instant date = (keyDate != null ? keyDate : Instant.now());
+      return cache.signingKey(tokenId, secretKey, date, () -> super.computeSigningKey(secretKey),
+          cacheMiss);
+    }
+  }
+
+}
@@ -0,0 +1,152 @@
+/* ==================================================================
+ * SingleFlight.java - 19/10/2026 10:12:54 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesce concurrent identical calls so they share one execution and result.
+ *
+ * <p>
+ * The first caller for a key runs the call; any caller arriving with the same key while that call
+ * is in flight waits for and receives the same result, or the same exception. Nothing is cached
+ * once the call completes. Shared results must therefore be treated as read-only by callers.
+ * </p>
+ *
+ * @param <K>
+ *        the key type
+ * @param <V>
+ *        the result type
+ * @author matt
+ * @version 1.0
+ */
+public class SingleFlight<K, V> {
+
+  /**
+   * A call that can throw an {@link IOException}.
+   *
+   * @param <V>
+   *        the result type
+   */
+  @FunctionalInterface
+  public interface Call<V> {
+
+    /**
+     * Execute the call.
+     *
+     * @return the result
+     * @throws IOException
+     *         if an IO error occurs
+     */
+    V call() throws IOException;
+
+  }
+
+  private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>(16);
+  private final LongAdder executions = new LongAdder();
+  private final LongAdder shared = new LongAdder();
+
+  /**
+   * Execute a call, or join an identical call already in flight.
+   *
+   * @param key
+   *        the key that identifies identical calls
+   * @param call
+   *        the call to execute
+   * @return the result
+   * @throws IOException
+   *         if the call throws an {@link IOException}, or waiting for the result is interrupted
+   */
+  public V execute(K key, Call<V> call) throws IOException {
+    final CompletableFuture<V> mine = new CompletableFuture<>();
+    final CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+    if (existing != null) {
+      shared.increment();
+      return await(existing);
+    }
+    executions.increment();
+    try {
+      V result = call.call();
+      mine.complete(result);
+      return result;
+    } catch (IOException | RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  private static <V> V await(CompletableFuture<V> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for shared call result.");
+    } catch (ExecutionException e) {
+      Throwable t = e.getCause();
+      if (t instanceof IOException ioe) {
+        throw ioe;
+      } else if (t instanceof RuntimeException re) {
+        throw re;
+      } else if (t instanceof Error err) {
+        throw err;
+      }
+      throw new IOException("Shared call failed: " + t, t);
+    }
+  }
+
+  /**
+   * Get the number of calls currently in flight.
+   *
+   * @return the count
+   */
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  /**
+   * Get the number of calls executed.
+   *
+   * @return the execution count
+   */
+  public long getExecutionCount() {
+    return executions.sum();
+  }
+
+  /**
+   * Get the number of callers that shared the result of a call already in flight.
+   *
+   * @return the shared count
+   */
+  public long getSharedCount() {
+    return shared.sum();
+  }
+
+}
@@ -31,7 +31,7 @@ import net.solarnetwork.solarssh.domain.SnTokenDetails;
  * {@link RowMapper} for {@link SnTokenDetails}.
  * 
  * @author matt
- * @version 1.1
+ * @version 1.2
  */
 public class SnTokenDetailsRowMapper implements RowMapper<SnTokenDetails> {
 
@@ -54,6 +54,7 @@ public class SnTokenDetailsRowMapper implements RowMapper<SnTokenDetails> {
   private final int userIdCol;
   private final int tokenTypeCol;
   private final int policyCol;
+  private final SecurityPolicyInterner policyInterner;
 
   /**
    * Constructor with default settings.
@@ -62,7 +63,19 @@ public class SnTokenDetailsRowMapper implements RowMapper<SnTokenDetails> {
    *        the token ID
    */
   public SnTokenDetailsRowMapper(String tokenId) {
-    this(tokenId, DEFAULT_USER_ID_COL, DEFAULT_TOKEN_TYPE_COL, DEFAULT_POLICY_COL);
+    this(tokenId, DEFAULT_USER_ID_COL, DEFAULT_TOKEN_TYPE_COL, DEFAULT_POLICY_COL, null);
+  }
+
+  /**
+   * Constructor with default columns and a policy interner.
+   * 
+   * @param tokenId
+   *        the token ID
+   * @param policyInterner
+   *        the interner to share parsed policies with, or {@literal null} to parse every policy
+   */
+  public SnTokenDetailsRowMapper(String tokenId, SecurityPolicyInterner policyInterner) {
+    this(tokenId, DEFAULT_USER_ID_COL, DEFAULT_TOKEN_TYPE_COL, DEFAULT_POLICY_COL, policyInterner);
   }
 
   /**
@@ -78,11 +91,31 @@ public class SnTokenDetailsRowMapper implements RowMapper<SnTokenDetails> {
    *        the JDBC column for the policy
    */
   public SnTokenDetailsRowMapper(String tokenId, int userIdCol, int tokenTypeCol, int policyCol) {
+    this(tokenId, userIdCol, tokenTypeCol, policyCol, null);
+  }
+
+  /**
+   * Constructor.
+   * 
+   * @param tokenId
+   *        the token ID
+   * @param userIdCol
+   *        the JDBC column for the user ID
+   * @param tokenTypeCol
+   *        the JDBC column for the token type
+   * @param policyCol
+   *        the JDBC column for the policy
+   * @param policyInterner
+   *        the interner to share parsed policies with, or {@literal null} to parse every policy
+   */
+  public SnTokenDetailsRowMapper(String tokenId, int userIdCol, int tokenTypeCol, int policyCol,
+      SecurityPolicyInterner policyInterner) {
     super();
     this.tokenId = tokenId;
     this.userIdCol = userIdCol;
     this.tokenTypeCol = tokenTypeCol;
     this.policyCol = policyCol;
+    this.policyInterner = policyInterner;
   }
 
   @Override
@@ -91,7 +124,9 @@ public class SnTokenDetailsRowMapper implements RowMapper<SnTokenDetails> {
     String tokenType = rs.getString(tokenTypeCol);
     String policyJson = rs.getString(policyCol);
     SecurityPolicy policy = null;
-    if (policyJson != null) {
+    if (policyInterner != null) {
+      policy = policyInterner.intern(policyJson);
+    } else if (policyJson != null) {
       policy = JsonUtils.getObjectFromJSON(policyJson, BasicSecurityPolicy.class);
     }
     // @formatter:off
@@ -0,0 +1,266 @@
+/* ==================================================================
+ * SolarNetResponseDecoder.java - 19/10/2026 8:52:40 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+
+/**
+ * Single-pass decoder for SolarNet API responses.
+ *
+ * <p>
+ * SolarNet responses have the form <code>{"success":true,"data":...}</code>. Each method here
+ * streams through the response to the {@code data} value and binds it directly, without first
+ * building a {@code JsonNode} tree of the whole response.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public final class SolarNetResponseDecoder {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  static {
+    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS'Z'");
+    sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+    MAPPER.setDateFormat(sdf);
+    MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  }
+
+  private static final TypeReference<List<SolarNetInstruction>> SNI_LIST_TYPE =
+      new TypeReference<>() {
+        // nothing to add
+      };
+
+  private static final String DATA_FIELD = "data";
+
+  private static final String ID_FIELD = "id";
+
+  private SolarNetResponseDecoder() {
+    // not available
+  }
+
+  /**
+   * Get the object mapper used for decoding.
+   *
+   * @return the mapper
+   */
+  public static ObjectMapper mapper() {
+    return MAPPER;
+  }
+
+  /**
+   * Decode a list of instructions.
+   *
+   * @param in
+   *        the response body; it will be closed
+   * @return the instructions, never {@literal null}
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  public static List<SolarNetInstruction> instructions(InputStream in) throws IOException {
+    try (JsonParser p = MAPPER.createParser(in)) {
+      return instructions(p);
+    }
+  }
+
+  /**
+   * Decode a list of instructions.
+   *
+   * @param body
+   *        the response body
+   * @return the instructions, never {@literal null}
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  public static List<SolarNetInstruction> instructions(byte[] body) throws IOException {
+    try (JsonParser p = MAPPER.createParser(body)) {
+      return instructions(p);
+    }
+  }
+
+  private static List<SolarNetInstruction> instructions(JsonParser p) throws IOException {
+    if (seekData(p) != JsonToken.START_ARRAY) {
+      return Collections.emptyList();
+    }
+    return MAPPER.readValue(p, SNI_LIST_TYPE);
+  }
+
+  /**
+   * Decode a single instruction.
+   *
+   * @param in
+   *        the response body; it will be closed
+   * @return the instruction, or {@literal null} if there is no {@code data} object
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  public static SolarNetInstruction instruction(InputStream in) throws IOException {
+    try (JsonParser p = MAPPER.createParser(in)) {
+      return instruction(p);
+    }
+  }
+
+  /**
+   * Decode a single instruction.
+   *
+   * @param body
+   *        the response body
+   * @return the instruction, or {@literal null} if there is no {@code data} object
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  public static SolarNetInstruction instruction(byte[] body) throws IOException {
+    try (JsonParser p = MAPPER.createParser(body)) {
+      return instruction(p);
+    }
+  }
+
+  private static SolarNetInstruction instruction(JsonParser p) throws IOException {
+    if (seekData(p) != JsonToken.START_OBJECT) {
+      return null;
+    }
+    return MAPPER.readValue(p, SolarNetInstruction.class);
+  }
+
+  /**
+   * Decode node metadata.
+   *
+   * @param in
+   *        the response body; it will be closed
+   * @return the metadata, never {@literal null}
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  public static GeneralDatumMetadata metadata(InputStream in) throws IOException {
+    try (JsonParser p = MAPPER.createParser(in)) {
+      return metadata(p);
+    }
+  }
+
+  /**
+   * Decode node metadata.
+   *
+   * @param body
+   *        the response body
+   * @return the metadata, never {@literal null}
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  public static GeneralDatumMetadata metadata(byte[] body) throws IOException {
+    try (JsonParser p = MAPPER.createParser(body)) {
+      return metadata(p);
+    }
+  }
+
+  private static GeneralDatumMetadata metadata(JsonParser p) throws IOException {
+    if (seekData(p) != JsonToken.START_OBJECT) {
+      return new GeneralDatumMetadata();
+    }
+    return MAPPER.readValue(p, GeneralDatumMetadata.class);
+  }
+
+  /**
+   * Decode the first {@code id} property in a response.
+   *
+   * @param in
+   *        the response body; it will be closed
+   * @return the ID, or {@literal null} if the first {@code id} property is not a number or there
+   *         is no {@code id} property
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  public static Long id(InputStream in) throws IOException {
+    try (JsonParser p = MAPPER.createParser(in)) {
+      return id(p);
+    }
+  }
+
+  /**
+   * Decode the first {@code id} property in a response.
+   *
+   * @param body
+   *        the response body
+   * @return the ID, or {@literal null} if the first {@code id} property is not a number or there
+   *         is no {@code id} property
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  public static Long id(byte[] body) throws IOException {
+    try (JsonParser p = MAPPER.createParser(body)) {
+      return id(p);
+    }
+  }
+
+  private static Long id(JsonParser p) throws IOException {
+    // the first id property at any depth, in document order
+    JsonToken t;
+    while ((t = p.nextToken()) != null) {
+      if (t == JsonToken.FIELD_NAME && ID_FIELD.equals(p.currentName())) {
+        return (p.nextToken() == JsonToken.VALUE_NUMBER_INT
+            || p.currentToken() == JsonToken.VALUE_NUMBER_FLOAT ? p.getLongValue() : null);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Advance a parser to the value of the top-level {@code data} property.
+   *
+   * @param p
+   *        the parser, positioned before the start of the response
+   * @return the first token of the {@code data} value, or {@literal null} if there is no such
+   *         property
+   * @throws IOException
+   *         if a parsing error occurs
+   */
+  private static JsonToken seekData(JsonParser p) throws IOException {
+    if (p.nextToken() != JsonToken.START_OBJECT) {
+      return null;
+    }
+    while (p.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = p.currentName();
+      final JsonToken t = p.nextToken();
+      if (DATA_FIELD.equals(name)) {
+        return t;
+      }
+      p.skipChildren();
+    }
+    return null;
+  }
+
+}
@@ -28,6 +28,7 @@ import static net.solarnetwork.solarssh.service.SolarNetClient.INSTRUCTION_TOPIC
 import static net.solarnetwork.solarssh.service.SolarNetClient.INSTRUCTION_TOPIC_STOP_REMOTE_SSH;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.time.Instant;
 import java.util.Map;
 
@@ -55,7 +56,7 @@ import net.solarnetwork.solarssh.service.SolarSshService;
  * {@link PasswordAuthenticator} for direct SolarSSH connections.
  * 
  * @author matt
- * @version 1.1
+ * @version 1.3
  */
 public class SolarSshPasswordAuthenticator implements PasswordAuthenticator {
 
@@ -82,6 +83,8 @@ public class SolarSshPasswordAuthenticator implements PasswordAuthenticator {
   private int maxNodeInstructionWaitSecs = DEFAULT_MAX_NODE_INSTRUCTION_WAIT_SECS;
   private long instructionCompletedWaitMs = DEFAULT_INSTRUCTION_COMPLETED_WAIT_MS;
   private long instructionIncompleteWaitMs = DEFAULT_INSTRUCTION_INCOMPLETED_WAIT_MS;
+  private SessionRateLimiter sessionRateLimiter;
+  private SigningKeyCache signingKeyCache;
 
   /**
    * Constructor.
@@ -107,15 +110,26 @@ public class SolarSshPasswordAuthenticator implements PasswordAuthenticator {
       log.debug("Username [{}] is not a valid direct username.", username);
       return false;
     }
+    final SessionRateLimiter rateLimiter = this.sessionRateLimiter;
+    if (rateLimiter != null && session.getRemoteAddress() instanceof InetSocketAddress addr
+        && !rateLimiter.tryAcquireAddress(addr.getAddress())) {
+      // not an authentication failure, so throw rather than return false
+      throw new RuntimeSshException("Rate limit exceeded.");
+    }
     final Long nodeId = directUsername.getNodeId();
     final String tokenId = directUsername.getTokenId();
     SshSession sshSession = null;
     Actor actor = actorDao.getAuthenticatedActor(nodeId, tokenId, password);
     if (actor != null) {
+      if (rateLimiter != null && !rateLimiter.tryAcquireTokenAndNode(tokenId, nodeId)) {
+        throw new RuntimeSshException("Rate limit exceeded.");
+      }
       // node + token checks out; create new node SSH session now
       Instant now = Instant.now();
-      Snws2AuthorizationBuilder authBuilder = new Snws2AuthorizationBuilder(tokenId)
-          .saveSigningKey(password).date(now).host(snHost)
+      final SigningKeyCache keyCache = this.signingKeyCache;
+      Snws2AuthorizationBuilder authBuilder = (keyCache != null
+          ? keyCache.authorizationBuilder(tokenId)
+          : new Snws2AuthorizationBuilder(tokenId)).date(now).saveSigningKey(password).host(snHost)
           .path("/solaruser/api/v1/sec/instr/viewPending")
           .queryParams(singletonMap("nodeId", nodeId.toString()));
       Map<String, String> instructionParams = null;
@@ -281,4 +295,25 @@ public class SolarSshPasswordAuthenticator implements PasswordAuthenticator {
     this.instructionIncompleteWaitMs = instructionIncompleteWaitMs;
   }
 
+  /**
+   * Set the session rate limiter.
+   * 
+   * @param sessionRateLimiter
+   *        the rate limiter to use, or {@literal null} for no limits
+   */
+  public void setSessionRateLimiter(SessionRateLimiter sessionRateLimiter) {
+    this.sessionRateLimiter = sessionRateLimiter;
+  }
+
+  /**
+   * Set the signing key cache.
+   * 
+   * @param signingKeyCache
+   *        the cache of derived SNWS2 signing keys, or {@literal null} to derive keys for every
+   *        request
+   */
+  public void setSigningKeyCache(SigningKeyCache signingKeyCache) {
+    this.signingKeyCache = signingKeyCache;
+  }
+
 }
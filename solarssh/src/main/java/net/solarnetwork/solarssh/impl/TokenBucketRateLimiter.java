@@ -0,0 +1,206 @@
+/* ==================================================================
+ * TokenBucketRateLimiter.java - 19/10/2026 1:12:27 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free, fixed-memory token bucket rate limiter.
+ *
+ * <p>
+ * Buckets are implemented with the generic cell rate algorithm, so each bucket is a single
+ * {@code long} "theoretical arrival time" that is updated with a compare-and-set. Keys are hashed
+ * onto a fixed number of slots in an {@link AtomicLongArray}, so memory use does not grow with
+ * the number of distinct keys and there is no per-key cleanup. Keys that collide on a slot share a
+ * bucket, which can only make the limiter stricter; the slot count should be large relative to
+ * the number of keys expected to be active within one burst window.
+ * </p>
+ *
+ * <p>
+ * The trade-off matters most for keys an attacker can choose freely, such as client addresses: a
+ * flood from many sources fills many slots, and unrelated clients that hash to the same slots are
+ * throttled along with the flood. Each slot costs 8 bytes, so sizing the slots to a few times the
+ * number of distinct clients expected per burst window is cheap.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class TokenBucketRateLimiter {
+
+  /** The default number of slots. */
+  public static final int DEFAULT_SLOTS = 4096;
+
+  private final AtomicLongArray slots;
+  private final int shift;
+  private final long emissionIntervalNanos;
+  private final long toleranceNanos;
+  private final LongSupplier nanoClock;
+  private final long origin;
+
+  /**
+   * Constructor.
+   *
+   * @param slots
+   *        the number of buckets, which will be rounded up to a power of two
+   * @param permitsPerMinute
+   *        the sustained number of permits granted per minute, per key; {@literal 0} or less
+   *        disables limiting
+   * @param burst
+   *        the maximum number of permits that can be granted at once, per key
+   */
+  public TokenBucketRateLimiter(int slots, double permitsPerMinute, int burst) {
+    this(slots, permitsPerMinute, burst, System::nanoTime);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param slots
+   *        the number of buckets, which will be rounded up to a power of two between
+   *        {@literal 2} and {@literal 2^30}
+   * @param permitsPerMinute
+   *        the sustained number of permits granted per minute, per key; {@literal 0} or less
+   *        disables limiting
+   * @param burst
+   *        the maximum number of permits that can be granted at once, per key
+   * @param nanoClock
+   *        the monotonic time source, in nanoseconds, like {@link System#nanoTime()}
+   */
+  public TokenBucketRateLimiter(int slots, double permitsPerMinute, int burst,
+      LongSupplier nanoClock) {
+    super();
+    int size = Integer.highestOneBit(Math.min(1 << 30, Math.max(2, slots)) - 1) << 1;
+    this.slots = new AtomicLongArray(permitsPerMinute > 0 ? size : 1);
+    this.shift = Integer.numberOfLeadingZeros(this.slots.length()) + 1;
+    this.emissionIntervalNanos = (permitsPerMinute > 0
+        ? (long) (TimeUnit.MINUTES.toNanos(1) / permitsPerMinute)
+        : 0L);
+    this.toleranceNanos = emissionIntervalNanos * Math.max(0, burst - 1);
+    this.nanoClock = nanoClock;
+    this.origin = nanoClock.getAsLong();
+  }
+
+  /**
+   * Test if rate limiting is enabled.
+   *
+   * @return {@literal true} if permits are limited
+   */
+  public boolean isEnabled() {
+    return emissionIntervalNanos > 0;
+  }
+
+  /**
+   * Try to acquire a permit for a key.
+   *
+   * <p>
+   * This method never blocks: it returns immediately if no permit is available.
+   * </p>
+   *
+   * @param key
+   *        the key to acquire a permit for; {@literal null} is always granted a permit
+   * @return {@literal true} if a permit was acquired
+   */
+  public boolean tryAcquire(Object key) {
+    if (key == null || emissionIntervalNanos < 1) {
+      return true;
+    }
+    final int slot = slot(key.hashCode());
+    final long now = nanoClock.getAsLong() - origin;
+    while (true) {
+      final long tat = slots.get(slot);
+      final long start = Math.max(tat, now);
+      if (start - now > toleranceNanos) {
+        return false;
+      }
+      if (slots.compareAndSet(slot, tat, start + emissionIntervalNanos)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Test if a permit is available for a key, without acquiring it.
+   *
+   * <p>
+   * This can be used to reject a request early, before any expensive work is done, when the
+   * permit itself can only be acquired once the request has been verified.
+   * </p>
+   *
+   * @param key
+   *        the key to test; {@literal null} always has a permit available
+   * @return {@literal true} if {@link #tryAcquire(Object)} would currently succeed
+   */
+  public boolean hasPermit(Object key) {
+    if (key == null || emissionIntervalNanos < 1) {
+      return true;
+    }
+    final long now = nanoClock.getAsLong() - origin;
+    final long tat = slots.get(slot(key.hashCode()));
+    return Math.max(tat, now) - now <= toleranceNanos;
+  }
+
+  /**
+   * Return a permit acquired with {@link #tryAcquire(Object)} that was not used.
+   *
+   * <p>
+   * A bucket never gains more than its burst from releases: a release only undoes the time a
+   * previous acquire added.
+   * </p>
+   *
+   * @param key
+   *        the key the permit was acquired for
+   */
+  public void release(Object key) {
+    if (key == null || emissionIntervalNanos < 1) {
+      return;
+    }
+    final int slot = slot(key.hashCode());
+    final long now = nanoClock.getAsLong() - origin;
+    while (true) {
+      final long tat = slots.get(slot);
+      final long prev = Math.max(tat - emissionIntervalNanos, now);
+      if (prev >= tat || slots.compareAndSet(slot, tat, prev)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Get the number of buckets.
+   *
+   * @return the number of buckets, which is a power of two, or {@literal 1} if limiting is
+   *         disabled
+   */
+  public int getSlots() {
+    return slots.length();
+  }
+
+  private int slot(int hash) {
+    // Fibonacci hashing: the high bits of the product are well mixed even for sequential keys
+    return (hash * 0x9E3779B9) >>> shift;
+  }
+
+}
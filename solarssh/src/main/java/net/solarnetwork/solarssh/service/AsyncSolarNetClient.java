@@ -0,0 +1,195 @@
+/* ==================================================================
+ * AsyncSolarNetClient.java - 19/10/2026 7:58:34 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.domain.NodeMetadataResponse;
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+
+/**
+ * Non-blocking API for SolarNet operations.
+ *
+ * <p>
+ * Each operation of {@link SolarNetClient} has an asynchronous variant here, taking the same
+ * arguments. The returned futures complete exceptionally with an {@link IOException} for
+ * communication errors, or a {@link net.solarnetwork.solarssh.AuthorizationException} when
+ * SolarNet denies the request. The blocking methods are implemented as thin wrappers that wait for
+ * the asynchronous variants.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+public interface AsyncSolarNetClient extends SolarNetClient {
+
+  /**
+   * View pending instructions.
+   *
+   * @param nodeId
+   *        the SolarNode ID
+   * @param authorizationDate
+   *        the authorization date used in {@code authorization}
+   * @param authorization
+   *        the {@code Authorization} HTTP header value to use
+   * @return the pending instructions
+   * @see SolarNetClient#pendingInstructions(Long, long, String)
+   */
+  CompletableFuture<List<SolarNetInstruction>> pendingInstructionsAsync(Long nodeId,
+      long authorizationDate, String authorization);
+
+  /**
+   * Get a specific instruction.
+   *
+   * @param id
+   *        the ID of the instruction to get
+   * @param authorizationDate
+   *        the authorization date used in {@code authorization}
+   * @param authorization
+   *        the {@code Authorization} HTTP header value to use
+   * @return the instruction; the result is {@literal null} if the instruction does not exist
+   * @see SolarNetClient#getInstruction(Long, long, String)
+   */
+  CompletableFuture<SolarNetInstruction> getInstructionAsync(Long id, long authorizationDate,
+      String authorization);
+
+  /**
+   * Queue an instruction.
+   *
+   * @param topic
+   *        the command to queue
+   * @param nodeId
+   *        the SolarNode ID to instruct
+   * @param parameters
+   *        the instruction parameters
+   * @param authorizationDate
+   *        the authorization date used in {@code authorization}
+   * @param authorization
+   *        the {@code Authorization} HTTP header value to use
+   * @return the queued instruction ID
+   * @see SolarNetClient#queueInstruction(String, Long, Map, long, String)
+   */
+  CompletableFuture<Long> queueInstructionAsync(String topic, Long nodeId,
+      Map<String, ?> parameters, long authorizationDate, String authorization);
+
+  /**
+   * Get metadata for a node.
+   *
+   * @param nodeId
+   *        the ID of the node to get metadata for
+   * @param authorizationDate
+   *        the authorization date used in {@code authorization}
+   * @param authorization
+   *        the {@code Authorization} HTTP header value to use
+   * @return the metadata (never {@literal null})
+   * @see SolarNetClient#getNodeMetadata(Long, long, String)
+   */
+  CompletableFuture<GeneralDatumMetadata> getNodeMetadataAsync(Long nodeId,
+      long authorizationDate, String authorization);
+
+  /**
+   * Get metadata for a node, revalidating a previous response.
+   *
+   * @param nodeId
+   *        the ID of the node to get metadata for
+   * @param authorizationDate
+   *        the authorization date used in {@code authorization}
+   * @param authorization
+   *        the {@code Authorization} HTTP header value to use
+   * @param previous
+   *        the previous response to revalidate, or {@literal null}
+   * @return the response (never {@literal null})
+   * @see SolarNetClient#getNodeMetadata(Long, long, String, NodeMetadataResponse)
+   */
+  CompletableFuture<NodeMetadataResponse> getNodeMetadataAsync(Long nodeId,
+      long authorizationDate, String authorization, NodeMetadataResponse previous);
+
+  @Override
+  default List<SolarNetInstruction> pendingInstructions(Long nodeId, long authorizationDate,
+      String authorization) throws IOException {
+    return await(pendingInstructionsAsync(nodeId, authorizationDate, authorization));
+  }
+
+  @Override
+  default SolarNetInstruction getInstruction(Long id, long authorizationDate,
+      String authorization) throws IOException {
+    return await(getInstructionAsync(id, authorizationDate, authorization));
+  }
+
+  @Override
+  default Long queueInstruction(String topic, Long nodeId, Map<String, ?> parameters,
+      long authorizationDate, String authorization) throws IOException {
+    return await(
+        queueInstructionAsync(topic, nodeId, parameters, authorizationDate, authorization));
+  }
+
+  @Override
+  default GeneralDatumMetadata getNodeMetadata(Long nodeId, long authorizationDate,
+      String authorization) throws IOException {
+    return await(getNodeMetadataAsync(nodeId, authorizationDate, authorization));
+  }
+
+  @Override
+  default NodeMetadataResponse getNodeMetadata(Long nodeId, long authorizationDate,
+      String authorization, NodeMetadataResponse previous) throws IOException {
+    return await(getNodeMetadataAsync(nodeId, authorizationDate, authorization, previous));
+  }
+
+  /**
+   * Wait for a future to complete, unwrapping any exception it completes with.
+   *
+   * @param <T>
+   *        the result type
+   * @param future
+   *        the future to wait for
+   * @return the result
+   * @throws IOException
+   *         if the future completed with an {@link IOException}, or the wait was interrupted
+   */
+  static <T> T await(CompletableFuture<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for SolarNet response.");
+    } catch (ExecutionException e) {
+      Throwable t = e.getCause();
+      if (t instanceof IOException ioe) {
+        throw ioe;
+      } else if (t instanceof RuntimeException re) {
+        throw re;
+      } else if (t instanceof Error err) {
+        throw err;
+      }
+      throw new IOException("SolarNet request failed: " + t, t);
+    }
+  }
+
+}
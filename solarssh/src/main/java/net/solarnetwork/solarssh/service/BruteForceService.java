@@ -0,0 +1,77 @@
+/* ==================================================================
+ * BruteForceService.java - 19/10/2026 11:05:12 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.service;
+
+import java.net.InetAddress;
+
+/**
+ * API for brute force authentication mitigation, shared by the SSH and HTTP entry points.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public interface BruteForceService {
+
+  /** The audit event name when an authentication failure is tracked. */
+  String AUDIT_EVENT_FAILED_ATTEMPT = "IP-TRACK-FAIL";
+
+  /** The audit event name when an authentication failure causes an address to be blocked. */
+  String AUDIT_EVENT_BLOCKED = "IP-TRACK-BLOCKED";
+
+  /** The audit event name when a connection or request from a blocked address is rejected. */
+  String AUDIT_EVENT_DENIED = "IP-TRACK-DENIED";
+
+  /**
+   * Test if a remote address is blocked.
+   *
+   * <p>
+   * If the address is blocked then a {@link #AUDIT_EVENT_DENIED} audit event is generated, so
+   * this method should be called once per connection or request.
+   * </p>
+   *
+   * @param src
+   *        the remote address
+   * @return {@literal true} if {@code src} is blocked and must be rejected
+   */
+  boolean isBlocked(InetAddress src);
+
+  /**
+   * Handle an authentication failure.
+   *
+   * <p>
+   * Failures from loopback addresses or explicitly allowed addresses are ignored. Otherwise either
+   * a {@link #AUDIT_EVENT_FAILED_ATTEMPT} or {@link #AUDIT_EVENT_BLOCKED} audit event is
+   * generated.
+   * </p>
+   *
+   * @param src
+   *        the remote address that failed to authenticate
+   * @param sessionId
+   *        the session ID or other context to include in audit events, or {@literal null}
+   * @param username
+   *        the username or token ID that failed to authenticate, or {@literal null}
+   * @return {@literal true} if {@code src} is now blocked and must be rejected
+   */
+  boolean handleFailure(InetAddress src, String sessionId, String username);
+
+}
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 
 import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.domain.NodeMetadataResponse;
 import net.solarnetwork.solarssh.domain.SolarNetInstruction;
 import net.solarnetwork.solarssh.domain.SshSession;
 
@@ -35,7 +36,7 @@ import net.solarnetwork.solarssh.domain.SshSession;
  * API for SolarNet operations.
  * 
  * @author matt
- * @version 1.1
+ * @version 1.2
  */
 public interface SolarNetClient {
 
@@ -127,6 +128,39 @@ public interface SolarNetClient {
   GeneralDatumMetadata getNodeMetadata(Long nodeId, long authorizationDate, String authorization)
       throws IOException;
 
+  /**
+   * Get metadata for a node, revalidating a previous response.
+   *
+   * <p>
+   * The {@code authorization} is as for {@link #getNodeMetadata(Long, long, String)}. If
+   * {@code previous} is provided its validators are sent as {@code If-None-Match} or
+   * {@code If-Modified-Since} request headers; if SolarNet responds that the metadata has not been
+   * modified then {@code previous} is returned as a not-modified response. SolarNet verifies the
+   * authorization either way.
+   * </p>
+   *
+   * <p>
+   * This default implementation ignores {@code previous} and always downloads the metadata.
+   * </p>
+   *
+   * @param nodeId
+   *        the ID of the node to get metadata for
+   * @param authorizationDate
+   *        the authorization date used in {@code authorization}
+   * @param authorization
+   *        the {@code Authorization} HTTP header value to use
+   * @param previous
+   *        the previous response to revalidate, or {@literal null}
+   * @return the response (never {@literal null})
+   * @throws IOException
+   *         if any communication error occurs
+   */
+  default NodeMetadataResponse getNodeMetadata(Long nodeId, long authorizationDate,
+      String authorization, NodeMetadataResponse previous) throws IOException {
+    return new NodeMetadataResponse(getNodeMetadata(nodeId, authorizationDate, authorization),
+        null, 0, false);
+  }
+
   /**
    * Add a SolarNetwork instruction parameter to a parameter map.
    * 
@@ -0,0 +1,191 @@
+/* ==================================================================
+ * ClientAddressResolver.java - 19/10/2026 11:42:09 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.web;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.servlet.http.HttpServletRequest;
+import net.solarnetwork.solarssh.impl.AddressPrefixTrie;
+import net.solarnetwork.solarssh.impl.InetAddressUtils;
+
+/**
+ * Resolve the address of the client that made an HTTP request, taking trusted proxies into
+ * account.
+ *
+ * <p>
+ * The {@literal X-Forwarded-For} header is only honored when the request arrives from a trusted
+ * proxy. The header is then walked from right to left, skipping further trusted proxies, and the
+ * first untrusted address found is taken as the client. Entries to the left of that are supplied
+ * by the client itself and cannot be trusted, so they are ignored.
+ * </p>
+ *
+ * <p>
+ * Only literal IP addresses are parsed: no name service lookups are ever performed, so resolving
+ * an address never blocks the request thread.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class ClientAddressResolver {
+
+  /** The default value for the {@code trustedProxies} property. */
+  public static final String[] DEFAULT_TRUSTED_PROXIES = new String[] { "127.0.0.0/8",
+      "::1/128" };
+
+  /** The forwarded address HTTP header name. */
+  public static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+  private static final byte TRUSTED = 1;
+
+  private static final Logger log = LoggerFactory.getLogger(ClientAddressResolver.class);
+
+  private final AtomicBoolean untrustedForwardWarned = new AtomicBoolean();
+  private String[] trustedProxies;
+  private AddressPrefixTrie trustedProxyTrie;
+
+  /**
+   * Constructor.
+   */
+  public ClientAddressResolver() {
+    super();
+    setTrustedProxies(DEFAULT_TRUSTED_PROXIES);
+  }
+
+  /**
+   * Resolve the client address of a request.
+   *
+   * @param request
+   *        the request
+   * @return the client address, or {@literal null} if it cannot be determined
+   */
+  public InetAddress resolveClientAddress(HttpServletRequest request) {
+    InetAddress result = InetAddressUtils.parseLiteral(request.getRemoteAddr());
+    if (result == null) {
+      return null;
+    }
+    if (!isTrustedProxy(result)) {
+      if (!untrustedForwardWarned.get() && request.getHeader(FORWARDED_FOR_HEADER) != null
+          && untrustedForwardWarned.compareAndSet(false, true)) {
+        log.warn("Ignoring {} header from untrusted address {}; if that is a proxy, add it to "
+            + "app.web.trustedProxies", FORWARDED_FOR_HEADER, result.getHostAddress());
+      }
+      return result;
+    }
+    List<String> hops = forwardedHops(request);
+    for (int i = hops.size() - 1; i >= 0; i--) {
+      InetAddress hop = parseForwardedAddress(hops.get(i));
+      if (hop == null) {
+        // a trusted proxy should never forward garbage, so stop at the last known address
+        break;
+      }
+      result = hop;
+      if (!isTrustedProxy(hop)) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  private boolean isTrustedProxy(InetAddress addr) {
+    return trustedProxyTrie.lookup(addr) == TRUSTED;
+  }
+
+  private static List<String> forwardedHops(HttpServletRequest request) {
+    List<String> result = new ArrayList<>(4);
+    Enumeration<String> headers = request.getHeaders(FORWARDED_FOR_HEADER);
+    if (headers == null) {
+      return result;
+    }
+    while (headers.hasMoreElements()) {
+      String header = headers.nextElement();
+      if (header == null) {
+        continue;
+      }
+      for (String hop : header.split(",")) {
+        hop = hop.trim();
+        if (!hop.isEmpty()) {
+          result.add(hop);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static InetAddress parseForwardedAddress(String hop) {
+    String value = hop;
+    if (value.startsWith("[")) {
+      // [IPv6]:port form
+      int end = value.indexOf(']');
+      if (end > 0) {
+        value = value.substring(1, end);
+      }
+    } else if (value.indexOf(':') > 0 && value.indexOf(':') == value.lastIndexOf(':')) {
+      // IPv4:port form
+      value = value.substring(0, value.indexOf(':'));
+    }
+    return InetAddressUtils.parseLiteral(value);
+  }
+
+  /**
+   * Get the trusted proxies.
+   *
+   * @return the CIDR blocks of trusted proxies
+   */
+  public String[] getTrustedProxies() {
+    return trustedProxies;
+  }
+
+  /**
+   * Set the trusted proxies.
+   *
+   * <p>
+   * This is not thread-safe, and should be configured before the resolver is used.
+   * </p>
+   *
+   * @param trustedProxies
+   *        the CIDR blocks of proxies whose forwarded headers can be trusted
+   * @throws IllegalArgumentException
+   *         if any value is not a valid CIDR block
+   */
+  public void setTrustedProxies(String[] trustedProxies) {
+    AddressPrefixTrie trie = new AddressPrefixTrie();
+    if (trustedProxies != null) {
+      for (String cidr : trustedProxies) {
+        if (cidr != null && !cidr.isBlank()) {
+          trie.add(cidr.trim(), TRUSTED);
+        }
+      }
+    }
+    this.trustedProxies = trustedProxies;
+    this.trustedProxyTrie = trie;
+  }
+
+}
@@ -22,25 +22,14 @@
 
 package net.solarnetwork.solarssh.web;
 
-import static net.solarnetwork.codec.JsonUtils.getJSONString;
-import static net.solarnetwork.solarssh.Globals.AUDIT_LOG;
 import static net.solarnetwork.solarssh.web.WebConstants.PRESIGN_AUTHORIZATION_HEADER;
 
 import java.io.IOException;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.cache.Cache;
-
-import org.apache.sshd.common.RuntimeSshException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -52,8 +41,10 @@ import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.servlet.http.HttpServletRequest;
 import net.solarnetwork.solarssh.AuthorizationException;
-import net.solarnetwork.solarssh.Globals;
+import net.solarnetwork.solarssh.RateLimitException;
 import net.solarnetwork.solarssh.domain.SshSession;
+import net.solarnetwork.solarssh.impl.SessionRateLimiter;
+import net.solarnetwork.solarssh.service.BruteForceService;
 import net.solarnetwork.solarssh.service.SolarSshService;
 import net.solarnetwork.web.jakarta.domain.Response;
 import net.solarnetwork.web.jakarta.security.WebConstants;
@@ -62,27 +53,35 @@ import net.solarnetwork.web.jakarta.security.WebConstants;
  * Web controller for connection commands.
  * 
  * @author matt
- * @version 1.3
+ * @version 2.1
  */
 @RestController
 @RequestMapping("/api/v1/ssh")
 public class SolarSshController {
 
-  private final Logger log = LoggerFactory.getLogger(getClass());
-
   private final SolarSshService solarSshService;
+  private final ClientAddressResolver clientAddressResolver;
 
   @Autowired(required = false)
-  @Qualifier("brute-force-deny-list")
-  private Cache<InetAddress, Byte> bruteForceDenyList;
+  private BruteForceService bruteForceService;
 
-  @Value("${ssh.bruteForce.maxTries:3}")
-  private int bruteForceMaxTries = 3;
+  @Autowired(required = false)
+  private SessionRateLimiter sessionRateLimiter;
 
+  /**
+   * Constructor.
+   * 
+   * @param solarSshService
+   *        the SolarSSH service
+   * @param clientAddressResolver
+   *        the client address resolver
+   */
   @Autowired
-  public SolarSshController(SolarSshService solarSshService) {
+  public SolarSshController(SolarSshService solarSshService,
+      ClientAddressResolver clientAddressResolver) {
     super();
     this.solarSshService = solarSshService;
+    this.clientAddressResolver = clientAddressResolver;
   }
 
   /**
@@ -101,12 +100,16 @@ public class SolarSshController {
       HttpServletRequest request) throws IOException {
     long authorizationDate = request.getDateHeader(WebConstants.HEADER_DATE);
     String preSignedAuthorization = request.getHeader(PRESIGN_AUTHORIZATION_HEADER);
+    final InetAddress src = clientAddress(request);
+    checkAddressRateLimit(src);
+    checkSessionRatePermits(nodeId, preSignedAuthorization);
     try {
       SshSession session = solarSshService.createNewSession(nodeId, authorizationDate,
           preSignedAuthorization);
+      checkSessionRateLimit(session, nodeId, preSignedAuthorization);
       return Response.response(session);
     } catch (AuthorizationException e) {
-      handleAuthFailureBruteForce(request, nodeId, preSignedAuthorization);
+      handleAuthFailureBruteForce(src, nodeId, preSignedAuthorization);
       throw e;
     }
   }
@@ -127,12 +130,13 @@ public class SolarSshController {
       HttpServletRequest request) throws IOException {
     long authorizationDate = request.getDateHeader(WebConstants.HEADER_DATE);
     String preSignedAuthorization = request.getHeader(PRESIGN_AUTHORIZATION_HEADER);
+    final InetAddress src = clientAddress(request);
     try {
       SshSession session = solarSshService.startSession(sessionId, authorizationDate,
           preSignedAuthorization);
       return Response.response(session);
     } catch (AuthorizationException e) {
-      handleAuthFailureBruteForce(request, sessionId, preSignedAuthorization);
+      handleAuthFailureBruteForce(src, sessionId, preSignedAuthorization);
       throw e;
     }
   }
@@ -171,6 +175,20 @@ public class SolarSshController {
         new Response<Object>(Boolean.FALSE, "570", e.getMessage(), null), HttpStatus.BAD_GATEWAY);
   }
 
+  /**
+   * Handle a RateLimitException.
+   * 
+   * @param e
+   *        the exception
+   * @return the response
+   */
+  @ExceptionHandler(RateLimitException.class)
+  public ResponseEntity<Response<Object>> rateLimitException(RateLimitException e) {
+    return new ResponseEntity<Response<Object>>(
+        new Response<Object>(Boolean.FALSE, "572", e.getMessage(), null),
+        HttpStatus.TOO_MANY_REQUESTS);
+  }
+
   /**
    * Handle an AuthorizationException.
    * 
@@ -186,89 +204,123 @@ public class SolarSshController {
 
   private static final Pattern SNWS_V2_KEY_PATTERN = Pattern.compile("Credential=([^,]+)(?:,|$)");
 
-  private void handleAuthFailureBruteForce(HttpServletRequest request, Object sessionId,
+  /**
+   * Resolve the client address of a request, rejecting blocked clients.
+   * 
+   * @param request
+   *        the request
+   * @return the client address, or {@literal null} if not known
+   * @throws AuthorizationException
+   *         if the client is blocked
+   */
+  private InetAddress clientAddress(HttpServletRequest request) {
+    InetAddress src = clientAddressResolver.resolveClientAddress(request);
+    if (bruteForceService != null && bruteForceService.isBlocked(src)) {
+      throw new AuthorizationException("Blocked.");
+    }
+    return src;
+  }
+
+  private static String tokenId(String preSignedAuthorization) {
+    if (preSignedAuthorization != null) {
+      Matcher m = SNWS_V2_KEY_PATTERN.matcher(preSignedAuthorization);
+      if (m.find()) {
+        return m.group(1);
+      }
+    }
+    return null;
+  }
+
+  private void checkAddressRateLimit(InetAddress src) {
+    if (sessionRateLimiter != null && !sessionRateLimiter.tryAcquireAddress(src)) {
+      throw new RateLimitException("Too many session requests; try again later.");
+    }
+  }
+
+  /**
+   * Reject a request early if its token or node has no session permits left.
+   * 
+   * <p>
+   * Nothing is charged, because the token ID has not been verified yet, but a flood of requests
+   * for one token or node is stopped before it reaches SolarNet.
+   * </p>
+   */
+  private void checkSessionRatePermits(Long nodeId, String preSignedAuthorization) {
+    if (sessionRateLimiter != null && !sessionRateLimiter
+        .hasTokenAndNodePermits(tokenId(preSignedAuthorization), nodeId)) {
+      throw new RateLimitException("Too many session requests; try again later.");
+    }
+  }
+
+  /**
+   * Check the token and node rate limits for a created session.
+   * 
+   * <p>
+   * This must only be called once SolarNet has accepted the request signature, so the token ID
+   * can be trusted. A rejected session is deleted again, unless it is an existing session that was
+   * returned for a pending instruction.
+   * </p>
+   */
+  private void checkSessionRateLimit(SshSession session, Long nodeId,
       String preSignedAuthorization) {
-    if (bruteForceDenyList == null) {
+    if (sessionRateLimiter == null) {
       return;
     }
-    String remoteAddr = request.getRemoteAddr();
-    String proxyRemoteAddr = request.getHeader("X-Forwarded-For");
-    if (proxyRemoteAddr != null) {
-      remoteAddr = proxyRemoteAddr;
-    }
-    try {
-      InetAddress src = InetAddress.getByName(remoteAddr);
-      if (!src.isLoopbackAddress()) {
-        Byte count = bruteForceDenyList.get(src);
-        if (count == null) {
-          count = (byte) 1;
-        } else if (count.byteValue() != (byte) 0xFF) {
-          count = (byte) ((count.byteValue() & 0xFF) + 1);
-        }
-        log.info("{} authentication attempt [{}] failed: attempt {}", src, sessionId,
-            Byte.toUnsignedInt(count));
-        bruteForceDenyList.put(src, count);
-        final int attempts = Byte.toUnsignedInt(count);
-        if (attempts >= bruteForceMaxTries) {
-          String username = null;
-          Matcher m = SNWS_V2_KEY_PATTERN.matcher(preSignedAuthorization);
-          if (m.find()) {
-            username = m.group(1);
-          }
-          logBruteForceDeny(username, src, attempts, "block");
-          throw new RuntimeSshException("Blocked.");
-        }
+    if (!sessionRateLimiter.tryAcquireTokenAndNode(tokenId(preSignedAuthorization), nodeId)) {
+      if (session.getStartInstructionId() == null) {
+        solarSshService.delete(session);
       }
-    } catch (UnknownHostException e) {
-      // nothing we can do
+      throw new RateLimitException("Too many session requests; try again later.");
     }
   }
 
-  private void logBruteForceDeny(String username, InetAddress src, int count,
-      String auditEventName) {
-    log.info("{} authentication attempt [{}] blocked after {} attempts", src, username, count);
-    Map<String, Object> auditProps = Globals.auditEventMap(username, auditEventName);
-    auditProps.put("remoteAddress", src);
-    auditProps.put("attempts", count);
-    AUDIT_LOG.info(getJSONString(auditProps, "{}"));
+  private void handleAuthFailureBruteForce(InetAddress src, Object sessionId,
+      String preSignedAuthorization) {
+    if (bruteForceService == null || src == null) {
+      return;
+    }
+    final String username = tokenId(preSignedAuthorization);
+    if (bruteForceService.handleFailure(src, String.valueOf(sessionId), username)) {
+      throw new AuthorizationException("Blocked.");
+    }
   }
 
   /**
-   * Get the brute force deny list.
+   * Get the brute force service.
    * 
-   * @return the deny list
+   * @return the service
    */
-  public Cache<InetAddress, Byte> getBruteForceDenyList() {
-    return bruteForceDenyList;
+  public BruteForceService getBruteForceService() {
+    return bruteForceService;
   }
 
   /**
-   * Set the brute force deny list.
+   * Set the brute force service.
    * 
-   * @param bruteForceDenyList
-   *        the deny list to set
+   * @param bruteForceService
+   *        the service to set
    */
-  public void setBruteForceDenyList(Cache<InetAddress, Byte> bruteForceDenyList) {
-    this.bruteForceDenyList = bruteForceDenyList;
+  public void setBruteForceService(BruteForceService bruteForceService) {
+    this.bruteForceService = bruteForceService;
   }
 
   /**
-   * Get the brute force max tries.
+   * Get the session rate limiter.
    * 
-   * @return the max tries
+   * @return the rate limiter
    */
-  public int getBruteForceMaxTries() {
-    return bruteForceMaxTries;
+  public SessionRateLimiter getSessionRateLimiter() {
+    return sessionRateLimiter;
   }
 
   /**
-   * Set the brute force max tries.
+   * Set the session rate limiter.
    * 
-   * @param bruteForceMaxTries
-   *        the count to set
+   * @param sessionRateLimiter
+   *        the rate limiter to set
    */
-  public void setBruteForceMaxTries(int bruteForceMaxTries) {
-    this.bruteForceMaxTries = bruteForceMaxTries;
+  public void setSessionRateLimiter(SessionRateLimiter sessionRateLimiter) {
+    this.sessionRateLimiter = sessionRateLimiter;
   }
 
 }
@@ -47,7 +47,7 @@ import net.solarnetwork.solarssh.domain.SshSession;
  * Proxy controller for SolarNode over a reverse SSH tunnel.
  * 
  * @author matt
- * @version 1.1
+ * @version 1.2
  */
 @Controller
 public class SolarSshHttpProxyController {
@@ -123,6 +123,17 @@ public class SolarSshHttpProxyController {
     }
   }
 
+  /**
+   * Get the number of HTTP proxy sessions.
+   * 
+   * @return the count of sessions with a proxy servlet, until expired by
+   *         {@link #cleanupExpiredSessions()}
+   * @since 1.2
+   */
+  public int getSessionProxyCount() {
+    return sessionProxyMap.size();
+  }
+
   /**
    * Handle an authorization error.
    * 
@@ -27,6 +27,8 @@ import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
@@ -42,13 +44,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import net.solarnetwork.central.web.PingController;
 import net.solarnetwork.service.PingTest;
 import net.solarnetwork.solarssh.config.JsonConfig;
+import net.solarnetwork.solarssh.web.ClientAddressResolver;
 import net.solarnetwork.solarssh.web.SolarSshHttpProxyController;
 
 /**
  * WebMVC configuration.
  * 
  * @author matt
- * @version 1.2
+ * @version 1.3
  */
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
@@ -60,6 +63,21 @@ public class WebMvcConfig implements WebMvcConfigurer {
   @Qualifier(JsonConfig.CBOR_MAPPER)
   private ObjectMapper cborObjectMapper;
 
+  @Value("${app.web.trustedProxies:127.0.0.0/8,::1/128}")
+  private String[] trustedProxies = ClientAddressResolver.DEFAULT_TRUSTED_PROXIES;
+
+  /**
+   * The client address resolver.
+   * 
+   * @return the resolver
+   */
+  @Bean
+  public ClientAddressResolver clientAddressResolver() {
+    ClientAddressResolver resolver = new ClientAddressResolver();
+    resolver.setTrustedProxies(trustedProxies);
+    return resolver;
+  }
+
   @Scheduled(fixedDelayString = "${ssh.sessionProxyExpireCleanupJobMs:60000}")
   public void cleanupExpiredSessions() {
     httpProxyController.cleanupExpiredSessions();
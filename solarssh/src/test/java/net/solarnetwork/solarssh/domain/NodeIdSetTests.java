@@ -0,0 +1,242 @@
+/* ==================================================================
+ * NodeIdSetTests.java - 19/10/2026 9:42:17 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+
+package net.solarnetwork.solarssh.domain;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the {@link NodeIdSet} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class NodeIdSetTests {
+
+  private static List<Long> list(NodeIdSet s) {
+    return new ArrayList<>(s);
+  }
+
+  @Test
+  public void ofArraySortsAndRemovesDuplicates() {
+    // GIVEN
+    long[] ids = new long[] { 3L, 1L, 2L, 3L, 1L };
+
+    // WHEN
+    NodeIdSet s = NodeIdSet.of(ids);
+
+    // THEN
+    assertEquals(3, s.size(), "Duplicates removed");
+    assertEquals(Arrays.asList(1L, 2L, 3L), list(s), "Iteration is ascending");
+    assertArrayEquals(new long[] { 3L, 1L, 2L, 3L, 1L }, ids, "Source array not modified");
+  }
+
+  @Test
+  public void ofEmpty() {
+    assertSame(NodeIdSet.EMPTY, NodeIdSet.of(), "Empty array");
+    assertSame(NodeIdSet.EMPTY, NodeIdSet.of((long[]) null), "Null array");
+    assertSame(NodeIdSet.EMPTY, NodeIdSet.of(new ArrayList<Long>()), "Empty collection");
+    assertSame(NodeIdSet.EMPTY, NodeIdSet.of((List<Long>) null), "Null collection");
+  }
+
+  @Test
+  public void ofCollectionIgnoresNulls() {
+    // GIVEN
+    List<Long> ids = Arrays.asList(5L, null, -2L, 5L);
+
+    // WHEN
+    NodeIdSet s = NodeIdSet.of(ids);
+
+    // THEN
+    assertEquals(Arrays.asList(-2L, 5L), list(s), "Nulls and duplicates removed, ascending");
+  }
+
+  @Test
+  public void ofCollectionReturnsSameNodeIdSet() {
+    // GIVEN
+    NodeIdSet s = NodeIdSet.of(1L, 2L);
+
+    // THEN
+    assertSame(s, NodeIdSet.of(s), "Existing set reused");
+  }
+
+  @Test
+  public void ofCollectionAllNulls() {
+    // GIVEN
+    List<Long> ids = Arrays.asList(null, null);
+
+    // THEN
+    assertSame(NodeIdSet.EMPTY, NodeIdSet.of(ids), "Only nulls is empty");
+  }
+
+  @Test
+  public void contains() {
+    // GIVEN
+    NodeIdSet s = NodeIdSet.of(10L, -5L, 300L);
+
+    // THEN
+    assertTrue(s.contains(10L), "Primitive member");
+    assertTrue(s.contains(-5L), "Negative member");
+    assertFalse(s.contains(11L), "Primitive non-member");
+    assertTrue(s.contains(Long.valueOf(300L)), "Boxed member");
+    assertFalse(s.contains(Long.valueOf(301L)), "Boxed non-member");
+    assertFalse(s.contains(Integer.valueOf(10)), "Other number type not a member");
+    assertFalse(s.contains((Object) null), "Null not a member");
+    assertFalse(NodeIdSet.EMPTY.contains(10L), "Empty set has no members");
+  }
+
+  @Test
+  public void intersect() {
+    // GIVEN
+    NodeIdSet s = NodeIdSet.of(1L, 2L, 3L, 4L);
+
+    // WHEN
+    NodeIdSet result = s.intersect(Arrays.asList(4L, 9L, 2L, 2L));
+
+    // THEN
+    assertEquals(Arrays.asList(2L, 4L), list(result), "Common IDs in ascending order");
+  }
+
+  @Test
+  public void intersectDisjoint() {
+    // GIVEN
+    NodeIdSet s = NodeIdSet.of(1L, 2L);
+
+    // THEN
+    assertTrue(s.intersect(Arrays.asList(3L, 4L)).isEmpty(), "No common IDs");
+    assertSame(NodeIdSet.EMPTY, s.intersect(null), "Null collection");
+    assertSame(NodeIdSet.EMPTY, NodeIdSet.EMPTY.intersect(Arrays.asList(1L)), "Empty set");
+  }
+
+  @Test
+  public void intersectSubsetReusesSet() {
+    // GIVEN
+    NodeIdSet s = NodeIdSet.of(1L, 2L, 3L);
+    NodeIdSet other = NodeIdSet.of(1L, 2L, 3L, 4L);
+
+    // THEN
+    assertSame(s, s.intersect(other), "This set returned when fully contained in other");
+    assertSame(s, other.intersect(s), "Other set returned when fully contained in this");
+  }
+
+  @Test
+  public void parseArrayLiteral() {
+    // WHEN
+    NodeIdSet s = NodeIdSet.parseArrayLiteral("{30,10,20,10}");
+
+    // THEN
+    assertEquals(Arrays.asList(10L, 20L, 30L), list(s), "Parsed, de-duplicated, ascending");
+  }
+
+  @Test
+  public void parseArrayLiteralSingle() {
+    assertEquals(Arrays.asList(123456789012L), list(NodeIdSet.parseArrayLiteral("{123456789012}")),
+        "Single large value parsed");
+  }
+
+  @Test
+  public void parseArrayLiteralNegative() {
+    assertEquals(Arrays.asList(-7L, 3L), list(NodeIdSet.parseArrayLiteral("{3,-7}")),
+        "Negative value parsed");
+  }
+
+  @Test
+  public void parseArrayLiteralMany() {
+    // GIVEN
+    StringBuilder buf = new StringBuilder("{");
+    for (int i = 0; i < 100; i++) {
+      if (i > 0) {
+        buf.append(',');
+      }
+      buf.append(1000 - i);
+    }
+    buf.append('}');
+
+    // WHEN
+    NodeIdSet s = NodeIdSet.parseArrayLiteral(buf.toString());
+
+    // THEN
+    assertEquals(100, s.size(), "All values parsed beyond initial capacity");
+    assertEquals(901L, s.iterator().next().longValue(), "Smallest value first");
+  }
+
+  @Test
+  public void parseArrayLiteralEmpty() {
+    assertSame(NodeIdSet.EMPTY, NodeIdSet.parseArrayLiteral("{}"), "Empty array");
+  }
+
+  @Test
+  public void parseArrayLiteralInvalid() {
+    assertNull(NodeIdSet.parseArrayLiteral(null), "Null literal");
+    assertNull(NodeIdSet.parseArrayLiteral(""), "Empty string");
+    assertNull(NodeIdSet.parseArrayLiteral("{"), "Unterminated");
+    assertNull(NodeIdSet.parseArrayLiteral("1,2"), "No braces");
+    assertNull(NodeIdSet.parseArrayLiteral("{1,NULL}"), "NULL element");
+    assertNull(NodeIdSet.parseArrayLiteral("{{1,2},{3,4}}"), "Nested array");
+    assertNull(NodeIdSet.parseArrayLiteral("{1, 2}"), "Whitespace");
+    assertNull(NodeIdSet.parseArrayLiteral("{1.5}"), "Decimal");
+    assertNull(NodeIdSet.parseArrayLiteral("{-}"), "Sign only");
+    assertNull(NodeIdSet.parseArrayLiteral("{,1}"), "Missing element");
+  }
+
+  @Test
+  public void setContract() {
+    // GIVEN
+    NodeIdSet s = NodeIdSet.of(3L, 1L, 2L);
+    Set<Long> boxed = new LinkedHashSet<>(Arrays.asList(2L, 3L, 1L));
+
+    // THEN
+    assertEquals(boxed, s, "Equal to boxed set with same members");
+    assertEquals(s, boxed, "Boxed set equal to this set");
+    assertEquals(boxed.hashCode(), s.hashCode(), "Hash code matches Set contract");
+    assertEquals(NodeIdSet.of(1L, 2L, 3L), s, "Equal to set with same members");
+    assertFalse(s.equals(NodeIdSet.of(1L, 2L)), "Not equal to subset");
+  }
+
+  @Test
+  public void toLongArrayIsCopy() {
+    // GIVEN
+    NodeIdSet s = NodeIdSet.of(2L, 1L);
+
+    // WHEN
+    long[] ids = s.toLongArray();
+    ids[0] = 99L;
+
+    // THEN
+    assertArrayEquals(new long[] { 1L, 2L }, s.toLongArray(), "Set not changed by array copy");
+  }
+
+}
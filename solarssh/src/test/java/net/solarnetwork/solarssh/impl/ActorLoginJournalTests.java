@@ -0,0 +1,316 @@
+/* ==================================================================
+ * ActorLoginJournalTests.java - 19/10/2026 10:07:41 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+
+package net.solarnetwork.solarssh.impl;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test cases for the {@link ActorLoginJournal} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class ActorLoginJournalTests {
+
+  private static final int SNAPSHOT_MAGIC = 0x5353414A;
+
+  @TempDir
+  public Path tmpDir;
+
+  private Path snapshotPath;
+  private ActorLoginJournal journal;
+
+  @BeforeEach
+  public void setup() {
+    snapshotPath = tmpDir.resolve("logins.dat");
+    journal = newJournal();
+  }
+
+  private ActorLoginJournal newJournal() {
+    ActorLoginJournal j = new ActorLoginJournal();
+    j.setSnapshotPath(snapshotPath);
+    return j;
+  }
+
+  private static byte[] snapshot(int count, long date, String... tokenIds) {
+    ByteBuffer buf = ByteBuffer.allocate(10 + tokenIds.length * (Long.BYTES + 1 + 255));
+    buf.putInt(SNAPSHOT_MAGIC).putShort((short) 1).putInt(count);
+    for (String tokenId : tokenIds) {
+      byte[] token = tokenId.getBytes(US_ASCII);
+      buf.putLong(date).put((byte) token.length).put(token);
+    }
+    return Arrays.copyOf(buf.array(), buf.position());
+  }
+
+  @Test
+  public void recordMostRecentFirst() throws Exception {
+    // WHEN
+    journal.record("a");
+    Thread.sleep(2);
+    journal.record("b");
+
+    // THEN
+    assertEquals(List.of("b", "a"), journal.recentTokenIds(), "Most recent login first");
+  }
+
+  @Test
+  public void recordIgnoresInvalidTokens() {
+    // WHEN
+    journal.record(null);
+    journal.record("x".repeat(256));
+
+    // THEN
+    assertEquals(0, journal.size(), "Null and overlong token IDs not recorded");
+  }
+
+  @Test
+  public void saveAndLoadRoundTrip() throws IOException {
+    // GIVEN
+    journal.record("a");
+    journal.record("b");
+    journal.record("x".repeat(255));
+
+    // WHEN
+    journal.saveSnapshot();
+    ActorLoginJournal loaded = newJournal();
+    loaded.loadSnapshot();
+
+    // THEN
+    assertTrue(Files.isRegularFile(snapshotPath), "Snapshot saved");
+    assertFalse(Files.exists(tmpDir.resolve("logins.dat.tmp")), "Temporary file moved");
+    assertEquals(3, loaded.size(), "All logins loaded");
+    assertEquals(new HashSet<>(journal.recentTokenIds()), new HashSet<>(loaded.recentTokenIds()),
+        "Same token IDs loaded");
+  }
+
+  @Test
+  public void saveManyGrowsBuffer() {
+    // GIVEN
+    for (int i = 0; i < 100; i++) {
+      journal.record("token-with-a-longer-than-average-identifier-" + i);
+    }
+
+    // WHEN
+    journal.saveSnapshot();
+    ActorLoginJournal loaded = newJournal();
+    loaded.loadSnapshot();
+
+    // THEN
+    assertEquals(100, loaded.size(), "All logins loaded");
+  }
+
+  @Test
+  public void saveSkippedWhenNotModified() throws IOException {
+    // GIVEN
+    journal.record("a");
+    journal.saveSnapshot();
+    Files.delete(snapshotPath);
+
+    // WHEN
+    journal.saveSnapshot();
+
+    // THEN
+    assertFalse(Files.exists(snapshotPath), "Snapshot not saved again without new logins");
+  }
+
+  @Test
+  public void loadMissingFile() {
+    // WHEN
+    journal.loadSnapshot();
+
+    // THEN
+    assertEquals(0, journal.size(), "Nothing loaded");
+  }
+
+  @Test
+  public void loadTruncatedEntry() throws IOException {
+    // GIVEN
+    journal.record("a");
+    journal.record("b");
+    journal.record("c");
+    journal.saveSnapshot();
+    byte[] data = Files.readAllBytes(snapshotPath);
+    Files.write(snapshotPath, Arrays.copyOf(data, data.length - 1));
+
+    // WHEN
+    ActorLoginJournal loaded = newJournal();
+    loaded.loadSnapshot();
+
+    // THEN
+    assertEquals(2, loaded.size(), "Entries before the truncated one loaded");
+  }
+
+  @Test
+  public void loadTruncatedDate() throws IOException {
+    // GIVEN
+    byte[] data = snapshot(2, System.currentTimeMillis(), "a", "b");
+    Files.write(snapshotPath, Arrays.copyOf(data, data.length - 6));
+
+    // WHEN
+    journal.loadSnapshot();
+
+    // THEN
+    assertEquals(List.of("a"), journal.recentTokenIds(), "Entry before the truncated one loaded");
+  }
+
+  @Test
+  public void loadTruncatedHeader() throws IOException {
+    // GIVEN
+    Files.write(snapshotPath, Arrays.copyOf(snapshot(1, System.currentTimeMillis(), "a"), 8));
+
+    // WHEN
+    journal.loadSnapshot();
+
+    // THEN
+    assertEquals(0, journal.size(), "Nothing loaded");
+  }
+
+  @Test
+  public void loadBadMagic() throws IOException {
+    // GIVEN
+    byte[] data = snapshot(1, System.currentTimeMillis(), "a");
+    data[0] = 0;
+    Files.write(snapshotPath, data);
+
+    // WHEN
+    journal.loadSnapshot();
+
+    // THEN
+    assertEquals(0, journal.size(), "Nothing loaded");
+  }
+
+  @Test
+  public void loadBadVersion() throws IOException {
+    // GIVEN
+    byte[] data = snapshot(1, System.currentTimeMillis(), "a");
+    data[5] = 2;
+    Files.write(snapshotPath, data);
+
+    // WHEN
+    journal.loadSnapshot();
+
+    // THEN
+    assertEquals(0, journal.size(), "Nothing loaded");
+  }
+
+  @Test
+  public void loadCorruptCount() throws IOException {
+    // GIVEN
+    Files.write(snapshotPath, snapshot(Integer.MAX_VALUE, System.currentTimeMillis(), "a", "b"));
+
+    // WHEN
+    journal.loadSnapshot();
+
+    // THEN
+    assertEquals(2, journal.size(), "Entries present loaded");
+  }
+
+  @Test
+  public void loadNegativeCount() throws IOException {
+    // GIVEN
+    Files.write(snapshotPath, snapshot(-1, System.currentTimeMillis(), "a"));
+
+    // WHEN
+    journal.loadSnapshot();
+
+    // THEN
+    assertEquals(0, journal.size(), "Nothing loaded");
+  }
+
+  @Test
+  public void loadGarbage() throws IOException {
+    // GIVEN
+    byte[] data = new byte[64];
+    Arrays.fill(data, (byte) 0xFF);
+    Files.write(snapshotPath, data);
+
+    // WHEN
+    journal.loadSnapshot();
+
+    // THEN
+    assertEquals(0, journal.size(), "Nothing loaded");
+  }
+
+  @Test
+  public void loadDropsExpired() throws IOException {
+    // GIVEN
+    final long now = System.currentTimeMillis();
+    ByteBuffer buf = ByteBuffer.allocate(64);
+    buf.put(snapshot(2, now, "a"));
+    buf.putLong(now - journal.getMaxAgeMillis() - 1000L).put((byte) 1).put((byte) 'b');
+    Files.write(snapshotPath, Arrays.copyOf(buf.array(), buf.position()));
+
+    // WHEN
+    journal.loadSnapshot();
+
+    // THEN
+    assertEquals(List.of("a"), journal.recentTokenIds(), "Expired login dropped");
+  }
+
+  @Test
+  public void loadLimitedToMaxEntries() throws IOException {
+    // GIVEN
+    Files.write(snapshotPath, snapshot(3, System.currentTimeMillis(), "a", "b", "c"));
+    journal.setMaxEntries(2);
+
+    // WHEN
+    journal.loadSnapshot();
+
+    // THEN
+    assertEquals(2, journal.size(), "Loaded up to maximum entries");
+  }
+
+  @Test
+  public void loadKeepsNewerLogins() throws IOException {
+    // GIVEN
+    Files.write(snapshotPath, snapshot(2, System.currentTimeMillis() - 1000L, "a", "b"));
+    journal.record("c");
+    journal.record("a");
+
+    // WHEN
+    journal.loadSnapshot();
+
+    // THEN
+    Set<String> ids = new HashSet<>(journal.recentTokenIds());
+    assertEquals(Set.of("a", "b", "c"), ids, "Snapshot merged with recorded logins");
+    assertEquals("b", journal.recentTokenIds().get(2), "Recorded login date kept");
+  }
+
+}
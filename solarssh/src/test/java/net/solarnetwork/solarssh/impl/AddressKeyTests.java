@@ -0,0 +1,130 @@
+/* ==================================================================
+ * AddressKeyTests.java - 22/10/2026 1:32:05 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the {@link AddressKey} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class AddressKeyTests {
+
+  private static AddressKey key(String literal) {
+    return AddressKey.of(InetAddressUtils.parseLiteral(literal));
+  }
+
+  @Test
+  public void ipv4() {
+    AddressKey key = key("192.0.2.1");
+    assertTrue(key.isIpv4(), "IPv4");
+    assertEquals(AddressKey.IPV4_BITS, key.bitLength(), "IPv4 bit length");
+    assertEquals("192.0.2.1", key.toString(), "String value");
+    assertArrayEquals(new byte[] { (byte) 192, 0, 2, 1 }, key.toBytes(), "Bytes");
+  }
+
+  @Test
+  public void ipv6() {
+    AddressKey key = key("2001:db8::1");
+    assertFalse(key.isIpv4(), "IPv6");
+    assertEquals(AddressKey.IPV6_BITS, key.bitLength(), "IPv6 bit length");
+    assertEquals("2001:db8:0:0:0:0:0:1", key.toString(), "String value");
+  }
+
+  @Test
+  public void ipv4MappedBytesAreIpv4() {
+    // GIVEN
+    byte[] mapped = new byte[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0xFF, (byte) 0xFF,
+        (byte) 192, 0, 2, 1 };
+
+    // WHEN
+    AddressKey key = AddressKey.of(mapped);
+
+    // THEN
+    assertTrue(key.isIpv4(), "Mapped address is IPv4");
+    assertEquals(key("192.0.2.1"), key, "Mapped and plain forms equal");
+    assertEquals(key("192.0.2.1").hashCode(), key.hashCode(), "Mapped and plain hashes equal");
+  }
+
+  @Test
+  public void invalidLength() {
+    assertThrows(IllegalArgumentException.class, () -> AddressKey.of(new byte[5]),
+        "Only 4 or 16 bytes allowed");
+  }
+
+  @Test
+  public void bits() {
+    AddressKey key = key("128.0.0.1");
+    assertEquals(1, key.bit(0), "First bit");
+    assertEquals(0, key.bit(1), "Second bit");
+    assertEquals(1, key.bit(31), "Last bit");
+
+    key = key("8000::1");
+    assertEquals(1, key.bit(0), "First IPv6 bit");
+    assertEquals(0, key.bit(63), "Last high bit");
+    assertEquals(0, key.bit(64), "First low bit");
+    assertEquals(1, key.bit(127), "Last IPv6 bit");
+  }
+
+  @Test
+  public void ipv4PrefixBoundaries() {
+    AddressKey key = key("192.0.2.255");
+    assertEquals(key("0.0.0.0"), key.withPrefix(0), "/0 clears every bit");
+    assertTrue(key.withPrefix(0).isIpv4(), "/0 stays IPv4");
+    assertEquals(key("192.0.0.0"), key.withPrefix(8), "/8");
+    assertEquals(key("192.0.2.254"), key.withPrefix(31), "/31");
+    assertSame(key, key.withPrefix(32), "/32 keeps every bit");
+    assertSame(key, key.withPrefix(64), "Longer than /32 keeps every bit");
+  }
+
+  @Test
+  public void ipv6PrefixBoundaries() {
+    AddressKey key = key("2001:db8:ffff:ffff:ffff:ffff:ffff:ffff");
+    assertEquals(key("::"), key.withPrefix(0), "/0 clears every bit");
+    assertEquals(key("2001:db8::"), key.withPrefix(32), "/32");
+    assertEquals(key("2001:db8:ffff:ffff::"), key.withPrefix(64), "/64 at word boundary");
+    assertEquals(key("2001:db8:ffff:ffff:8000::"), key.withPrefix(65), "/65 across words");
+    assertEquals(key("2001:db8:ffff:ffff:ffff:ffff:ffff:fffe"), key.withPrefix(127), "/127");
+    assertSame(key, key.withPrefix(128), "/128 keeps every bit");
+  }
+
+  @Test
+  public void bytesRoundTrip() {
+    for (String s : new String[] { "0.0.0.0", "255.255.255.255", "::", "::1",
+        "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff" }) {
+      AddressKey key = key(s);
+      assertEquals(key, AddressKey.of(key.toBytes()), "Round trip " + s);
+      assertEquals(key, AddressKey.of(key.high(), key.low()), "Raw round trip " + s);
+    }
+  }
+
+}
@@ -0,0 +1,204 @@
+/* ==================================================================
+ * AddressPrefixTrieTests.java - 22/10/2026 1:51:27 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the {@link AddressPrefixTrie} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class AddressPrefixTrieTests {
+
+  private static final byte ALLOW = 1;
+  private static final byte DENY = 2;
+
+  private AddressPrefixTrie trie;
+
+  @BeforeEach
+  public void setup() {
+    trie = new AddressPrefixTrie();
+  }
+
+  private byte lookup(String literal) {
+    return trie.lookup(InetAddressUtils.parseLiteral(literal));
+  }
+
+  @Test
+  public void empty() {
+    assertTrue(trie.isEmpty(), "New trie empty");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("192.0.2.1"), "No IPv4 match");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("2001:db8::1"), "No IPv6 match");
+  }
+
+  @Test
+  public void ipv4ZeroPrefixMatchesAllIpv4() {
+    // WHEN
+    trie.add("0.0.0.0/0", DENY);
+
+    // THEN
+    assertFalse(trie.isEmpty(), "Not empty");
+    assertEquals(DENY, lookup("0.0.0.0"), "Lowest address");
+    assertEquals(DENY, lookup("255.255.255.255"), "Highest address");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("::1"), "IPv6 not matched");
+  }
+
+  @Test
+  public void ipv6ZeroPrefixMatchesAllIpv6() {
+    // WHEN
+    trie.add("::/0", DENY);
+
+    // THEN
+    assertEquals(DENY, lookup("::"), "Lowest address");
+    assertEquals(DENY, lookup("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff"), "Highest address");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("192.0.2.1"), "IPv4 not matched");
+  }
+
+  @Test
+  public void ipv4HostPrefix() {
+    // WHEN
+    trie.add("192.0.2.1/32", DENY);
+    trie.add("192.0.2.3", ALLOW);
+
+    // THEN
+    assertEquals(DENY, lookup("192.0.2.1"), "Exact match");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("192.0.2.0"), "Neighbour below");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("192.0.2.2"), "Neighbour above");
+    assertEquals(ALLOW, lookup("192.0.2.3"), "No prefix means /32");
+  }
+
+  @Test
+  public void ipv6HostPrefix() {
+    // WHEN
+    trie.add("2001:db8::1/128", DENY);
+    trie.add("2001:db8::3", ALLOW);
+
+    // THEN
+    assertEquals(DENY, lookup("2001:db8::1"), "Exact match");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("2001:db8::"), "Neighbour below");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("2001:db8::2"), "Neighbour above");
+    assertEquals(ALLOW, lookup("2001:db8::3"), "No prefix means /128");
+  }
+
+  @Test
+  public void ipv4PrefixEdges() {
+    // WHEN
+    trie.add("192.0.2.0/24", DENY);
+
+    // THEN
+    assertEquals(DENY, lookup("192.0.2.0"), "First address of block");
+    assertEquals(DENY, lookup("192.0.2.255"), "Last address of block");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("192.0.1.255"), "Address before block");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("192.0.3.0"), "Address after block");
+  }
+
+  @Test
+  public void unalignedBlockAddressIgnoresHostBits() {
+    // WHEN
+    trie.add("192.0.2.77/24", DENY);
+
+    // THEN
+    assertEquals(DENY, lookup("192.0.2.1"), "Host bits of block address ignored");
+  }
+
+  @Test
+  public void ipv4MappedBlock() {
+    // WHEN
+    trie.add("::ffff:10.0.0.0/104", DENY);
+
+    // THEN
+    assertEquals(DENY, lookup("10.1.2.3"), "Mapped block matches IPv4 address");
+    assertEquals(DENY, lookup("::ffff:10.1.2.3"), "Mapped block matches mapped address");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("11.0.0.1"), "Outside block");
+  }
+
+  @Test
+  public void ipv4MappedAddressMatchesIpv4Block() {
+    // WHEN
+    trie.add("10.0.0.0/8", DENY);
+
+    // THEN
+    assertEquals(DENY, lookup("::ffff:10.1.2.3"), "Mapped address matches IPv4 block");
+  }
+
+  @Test
+  public void denyInsideAllow() {
+    // WHEN
+    trie.add("10.0.0.0/8", ALLOW);
+    trie.add("10.1.0.0/16", DENY);
+    trie.add("10.1.2.0/24", ALLOW);
+
+    // THEN
+    assertEquals(ALLOW, lookup("10.2.0.1"), "Outer allow");
+    assertEquals(DENY, lookup("10.1.0.1"), "More specific deny");
+    assertEquals(ALLOW, lookup("10.1.2.1"), "Most specific allow");
+    assertEquals(AddressPrefixTrie.NO_MATCH, lookup("11.0.0.1"), "Outside all blocks");
+  }
+
+  @Test
+  public void samePrefixLastAddedWins() {
+    // WHEN
+    trie.add("10.0.0.0/8", DENY);
+    trie.add("10.0.0.0/8", ALLOW);
+
+    // THEN
+    assertEquals(ALLOW, lookup("10.0.0.1"), "Last value for a block kept");
+  }
+
+  @Test
+  public void manyBlocksGrowStorage() {
+    // WHEN
+    for (int i = 0; i < 256; i++) {
+      trie.add("2001:db8:" + Integer.toHexString(i) + "::/48", (i % 2 == 0 ? ALLOW : DENY));
+    }
+
+    // THEN
+    for (int i = 0; i < 256; i++) {
+      assertEquals((i % 2 == 0 ? ALLOW : DENY),
+          lookup("2001:db8:" + Integer.toHexString(i) + "::1"), "Block " + i);
+    }
+  }
+
+  @Test
+  public void invalidBlocks() {
+    for (String s : new String[] { "10.0.0.0/33", "10.0.0.0/-1", "10.0.0.0/x", "::/129",
+        "::ffff:10.0.0.0/95", "localhost/32", "garbage", "10.0.0/8" }) {
+      assertThrows(IllegalArgumentException.class, () -> trie.add(s, DENY), "Invalid " + s);
+    }
+  }
+
+  @Test
+  public void zeroValueNotAllowed() {
+    assertThrows(IllegalArgumentException.class,
+        () -> trie.add("10.0.0.0/8", AddressPrefixTrie.NO_MATCH), "Zero value rejected");
+  }
+
+}
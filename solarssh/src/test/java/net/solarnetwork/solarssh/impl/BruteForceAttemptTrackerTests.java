@@ -0,0 +1,492 @@
+/* ==================================================================
+ * BruteForceAttemptTrackerTests.java - 22/10/2026 3:05:12 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.solarnetwork.solarssh.test.MutableClock;
+
+/**
+ * Test cases for the {@link BruteForceAttemptTracker} class.
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class BruteForceAttemptTrackerTests {
+
+  private static final long EXPIRE_MILLIS = 60_000L;
+
+  // a recent date, so the packed state carries a full width date
+  private static final long START = 1_792_000_000_000L;
+
+  @TempDir
+  public Path tmpDir;
+
+  private MutableClock clock;
+  private BruteForceAttemptTracker tracker;
+
+  @BeforeEach
+  public void setup() {
+    clock = new MutableClock(START);
+    tracker = newTracker();
+  }
+
+  private BruteForceAttemptTracker newTracker() {
+    BruteForceAttemptTracker t = new BruteForceAttemptTracker(clock);
+    t.setExpireMillis(EXPIRE_MILLIS);
+    t.setSnapshotPath(tmpDir.resolve("brute-force.dat"));
+    return t;
+  }
+
+  private static InetAddress addr(String literal) {
+    return InetAddressUtils.parseLiteral(literal);
+  }
+
+  private void fail(String literal, int times) {
+    for (int i = 0; i < times; i++) {
+      tracker.recordFailure(addr(literal));
+    }
+  }
+
+  private static String[] randomIpv4(SplittableRandom rng, int count, Set<String> used) {
+    String[] result = new String[count];
+    for (int i = 0; i < count;) {
+      final int bits = rng.nextInt();
+      String literal = (bits >>> 24) + "." + ((bits >>> 16) & 0xFF) + "." + ((bits >>> 8) & 0xFF)
+          + "." + (bits & 0xFF);
+      if (used.add(literal)) {
+        result[i++] = literal;
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void countFailures() {
+    assertEquals(1, tracker.recordFailure(addr("192.0.2.1")), "First failure");
+    assertEquals(2, tracker.recordFailure(addr("192.0.2.1")), "Second failure");
+    assertEquals(1, tracker.recordFailure(addr("192.0.2.2")), "Other address counted apart");
+    assertEquals(2, tracker.attempts(addr("192.0.2.1")), "Count kept");
+    assertEquals(0, tracker.attempts(addr("192.0.2.3")), "Unknown address");
+    assertEquals(2, tracker.size(), "Entries");
+  }
+
+  @Test
+  public void countSaturatesWithoutCorruptingDate() {
+    // WHEN
+    fail("192.0.2.1", BruteForceAttemptTracker.MAX_COUNT + 10);
+
+    // THEN
+    assertEquals(BruteForceAttemptTracker.MAX_COUNT, tracker.attempts(addr("192.0.2.1")),
+        "Count stops at maximum");
+    clock.advance(EXPIRE_MILLIS - 1);
+    assertEquals(BruteForceAttemptTracker.MAX_COUNT, tracker.attempts(addr("192.0.2.1")),
+        "Date not overwritten by count");
+    clock.advance(1);
+    assertEquals(0, tracker.attempts(addr("192.0.2.1")), "Expired at packed date");
+  }
+
+  @Test
+  public void slidingExpiry() {
+    // GIVEN
+    fail("192.0.2.1", 1);
+    clock.advance(EXPIRE_MILLIS - 1);
+
+    // WHEN
+    fail("192.0.2.1", 1);
+
+    // THEN
+    clock.advance(EXPIRE_MILLIS - 1);
+    assertEquals(2, tracker.attempts(addr("192.0.2.1")),
+        "Window slides from most recent failure");
+    clock.advance(1);
+    assertEquals(0, tracker.attempts(addr("192.0.2.1")), "Expired after quiet window");
+    assertEquals(1, tracker.recordFailure(addr("192.0.2.1")), "Count starts over");
+  }
+
+  @Test
+  public void denyAtMaxFails() {
+    // WHEN
+    fail("192.0.2.1", 2);
+
+    // THEN
+    assertFalse(tracker.isDenied(addr("192.0.2.1"), 3), "Below max fails");
+    fail("192.0.2.1", 1);
+    assertTrue(tracker.isDenied(addr("192.0.2.1"), 3), "At max fails");
+    clock.advance(EXPIRE_MILLIS);
+    assertFalse(tracker.isDenied(addr("192.0.2.1"), 3), "Expired");
+  }
+
+  @Test
+  public void aggregateByPrefix() {
+    // GIVEN
+    tracker.setIpv4PrefixLength(24);
+    tracker.setIpv6PrefixLength(64);
+
+    // WHEN
+    fail("192.0.2.1", 1);
+    fail("192.0.2.200", 1);
+    fail("2001:db8::1", 1);
+    fail("2001:db8::ffff:1", 1);
+
+    // THEN
+    assertEquals(2, tracker.attempts(addr("192.0.2.99")), "IPv4 network shares count");
+    assertEquals(0, tracker.attempts(addr("192.0.3.1")), "Other IPv4 network");
+    assertEquals(2, tracker.attempts(addr("2001:db8::99")), "IPv6 network shares count");
+    assertEquals(0, tracker.attempts(addr("2001:db8:0:1::1")), "Other IPv6 network");
+    assertEquals(2, tracker.size(), "One entry per network");
+  }
+
+  @Test
+  public void ipv4MappedSharesCount() {
+    // WHEN
+    fail("192.0.2.1", 1);
+    fail("::ffff:192.0.2.1", 1);
+
+    // THEN
+    assertEquals(2, tracker.attempts(addr("192.0.2.1")), "Mapped address counted as IPv4");
+  }
+
+  @Test
+  public void staticListOverlap() {
+    // WHEN
+    tracker.setAllowList(new String[] { "10.0.0.0/8", "10.1.2.0/24", "192.0.2.0/24" });
+    tracker.setDenyList(new String[] { "10.1.0.0/16", "192.0.2.0/24", "2001:db8::/32" });
+    fail("10.2.0.1", 10);
+
+    // THEN
+    assertTrue(tracker.isAllowed(addr("10.2.0.1")), "Allowed");
+    assertFalse(tracker.isDenied(addr("10.2.0.1"), 3), "Allowed never denied");
+    assertTrue(tracker.isDenied(addr("10.1.0.1"), 3), "More specific deny inside allow");
+    assertFalse(tracker.isDenied(addr("10.1.2.1"), 3), "More specific allow inside deny");
+    assertFalse(tracker.isDenied(addr("192.0.2.1"), 3), "Allow wins at equal prefix");
+    assertTrue(tracker.isDenied(addr("2001:db8::1"), 3), "Denied without failures");
+    assertFalse(tracker.isDenied(addr("198.51.100.1"), 3), "Unlisted without failures");
+  }
+
+  @Test
+  public void newAddressAtCapacityEvictsFewestFailures() {
+    // GIVEN
+    tracker.setMaxEntries(4);
+    fail("192.0.2.1", 5);
+    fail("192.0.2.2", 1);
+    fail("192.0.2.3", 3);
+    fail("192.0.2.4", 4);
+
+    // WHEN
+    fail("192.0.2.5", 1);
+
+    // THEN
+    assertEquals(4, tracker.size(), "Size bounded");
+    assertEquals(0, tracker.attempts(addr("192.0.2.2")), "Fewest failures evicted");
+    assertEquals(5, tracker.attempts(addr("192.0.2.1")), "Persistent offender kept");
+    assertEquals(1, tracker.attempts(addr("192.0.2.5")), "New address tracked");
+  }
+
+  @Test
+  public void newAddressAtCapacityEvictsExpired() {
+    // GIVEN
+    tracker.setMaxEntries(3);
+    fail("192.0.2.1", 2);
+    clock.advance(EXPIRE_MILLIS / 2);
+    fail("192.0.2.2", 1);
+    fail("192.0.2.3", 1);
+    clock.advance(EXPIRE_MILLIS / 2);
+
+    // WHEN
+    fail("192.0.2.4", 1);
+
+    // THEN
+    assertEquals(3, tracker.size(), "Size bounded");
+    assertEquals(1, tracker.attempts(addr("192.0.2.2")), "Active entry kept");
+    assertEquals(1, tracker.attempts(addr("192.0.2.3")), "Active entry kept");
+  }
+
+  @Test
+  public void purgeExpired() {
+    // GIVEN
+    fail("192.0.2.1", 1);
+    clock.advance(EXPIRE_MILLIS / 2);
+    fail("192.0.2.2", 1);
+    clock.advance(EXPIRE_MILLIS / 2);
+
+    // WHEN
+    tracker.purgeExpired();
+
+    // THEN
+    assertEquals(1, tracker.size(), "Expired entry removed");
+    assertEquals(1, tracker.attempts(addr("192.0.2.2")), "Active entry kept");
+  }
+
+  @Test
+  public void purgeTrimsFewestFailures() {
+    // GIVEN
+    tracker.setMaxEntries(10);
+    for (int i = 1; i <= 10; i++) {
+      fail("192.0.2." + i, i);
+    }
+
+    // WHEN
+    tracker.purgeExpired();
+
+    // THEN
+    assertEquals(9, tracker.size(), "Trimmed to 90% of max entries");
+    assertEquals(0, tracker.attempts(addr("192.0.2.1")), "Fewest failures removed");
+    assertEquals(2, tracker.attempts(addr("192.0.2.2")), "Others kept");
+  }
+
+  @Test
+  public void purgeStopsAtTargetWhenTied() {
+    // GIVEN
+    tracker.setMaxEntries(10);
+    for (int i = 1; i <= 10; i++) {
+      fail("192.0.2." + i, 1);
+    }
+
+    // WHEN
+    tracker.purgeExpired();
+
+    // THEN
+    assertEquals(9, tracker.size(), "Only as many tied entries removed as needed");
+  }
+
+  @Test
+  public void purgeRemovesBelowThresholdBeforeTies() {
+    // GIVEN
+    tracker.setMaxEntries(20);
+    fail("192.0.2.1", 1);
+    for (int i = 2; i <= 5; i++) {
+      fail("192.0.2." + i, 2);
+    }
+    for (int i = 6; i <= 20; i++) {
+      fail("192.0.2." + i, 3);
+    }
+
+    // WHEN
+    tracker.purgeExpired();
+
+    // THEN
+    assertEquals(18, tracker.size(), "Trimmed to 90% of max entries");
+    assertEquals(0, tracker.attempts(addr("192.0.2.1")), "Fewest failures removed");
+    int tied = 0;
+    for (int i = 2; i <= 5; i++) {
+      if (tracker.attempts(addr("192.0.2." + i)) == 2) {
+        tied++;
+      }
+    }
+    assertEquals(3, tied, "One entry tied at the threshold removed");
+    for (int i = 6; i <= 20; i++) {
+      assertEquals(3, tracker.attempts(addr("192.0.2." + i)), "Most failures kept");
+    }
+  }
+
+  @Test
+  public void evictionSamplesSpreadAcrossEntries() {
+    // GIVEN
+    final int max = 1024;
+    tracker.setMaxEntries(max);
+    final SplittableRandom rng = new SplittableRandom(1);
+    final Set<String> used = new HashSet<>();
+    final String[] offenders = randomIpv4(rng, max, used);
+    for (String a : offenders) {
+      fail(a, 3);
+    }
+
+    // WHEN
+    for (String a : randomIpv4(rng, max / 2, used)) {
+      fail(a, 1);
+    }
+
+    // THEN
+    int kept = 0;
+    for (String a : offenders) {
+      if (tracker.attempts(addr(a)) == 3) {
+        kept++;
+      }
+    }
+    // sampling the same leading entries every time would evict close to max / 2 offenders,
+    // whereas samples from random positions soon find the new single failure entries instead
+    assertEquals(max, tracker.size(), "Size bounded");
+    assertTrue(kept > max * 2 / 3, "Most offenders kept: " + kept);
+  }
+
+  @Test
+  public void snapshotRoundTrip() {
+    // GIVEN
+    tracker.setIpv6PrefixLength(64);
+    fail("192.0.2.1", 3);
+    fail("2001:db8::1", BruteForceAttemptTracker.MAX_COUNT);
+    clock.advance(1000);
+    fail("198.51.100.1", 1);
+
+    // WHEN
+    tracker.saveSnapshot();
+    BruteForceAttemptTracker loaded = newTracker();
+    loaded.setIpv6PrefixLength(64);
+    loaded.loadSnapshot();
+
+    // THEN
+    assertEquals(3, loaded.size(), "All entries loaded");
+    assertEquals(3, loaded.attempts(addr("192.0.2.1")), "IPv4 count");
+    assertEquals(BruteForceAttemptTracker.MAX_COUNT, loaded.attempts(addr("2001:db8::2")),
+        "IPv6 prefix count");
+    assertEquals(1, loaded.attempts(addr("198.51.100.1")), "Later count");
+    clock.advance(EXPIRE_MILLIS - 1000);
+    assertEquals(0, loaded.attempts(addr("192.0.2.1")), "Expiry date restored");
+    assertEquals(1, loaded.attempts(addr("198.51.100.1")), "Later expiry date restored");
+  }
+
+  @Test
+  public void snapshotSkipsExpiredEntries() {
+    // GIVEN
+    fail("192.0.2.1", 1);
+    clock.advance(EXPIRE_MILLIS / 2);
+    fail("192.0.2.2", 1);
+    tracker.saveSnapshot();
+
+    // WHEN
+    clock.advance(EXPIRE_MILLIS / 2);
+    BruteForceAttemptTracker loaded = newTracker();
+    loaded.loadSnapshot();
+
+    // THEN
+    assertEquals(1, loaded.size(), "Expired entry not loaded");
+    assertEquals(1, loaded.attempts(addr("192.0.2.2")), "Active entry loaded");
+  }
+
+  @Test
+  public void snapshotNotWrittenWhenUnmodified() {
+    // WHEN
+    tracker.saveSnapshot();
+
+    // THEN
+    assertFalse(Files.exists(tracker.getSnapshotPath()), "No snapshot without changes");
+  }
+
+  @Test
+  public void loadMissingSnapshot() {
+    // WHEN
+    tracker.loadSnapshot();
+
+    // THEN
+    assertEquals(0, tracker.size(), "Nothing loaded");
+  }
+
+  @Test
+  public void loadTruncatedSnapshot() throws IOException {
+    // GIVEN
+    fail("192.0.2.1", 1);
+    fail("192.0.2.2", 2);
+    fail("192.0.2.3", 3);
+    tracker.saveSnapshot();
+    final Path path = tracker.getSnapshotPath();
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      // cut the last record in half
+      ch.truncate(ch.size() - 13);
+    }
+
+    // WHEN
+    BruteForceAttemptTracker loaded = newTracker();
+    loaded.loadSnapshot();
+
+    // THEN
+    assertEquals(2, loaded.size(), "Whole records loaded");
+  }
+
+  @Test
+  public void loadSnapshotWithOnlyHeader() throws IOException {
+    // GIVEN
+    fail("192.0.2.1", 1);
+    tracker.saveSnapshot();
+    final Path path = tracker.getSnapshotPath();
+    try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      ch.truncate(12);
+    }
+
+    // WHEN
+    BruteForceAttemptTracker loaded = newTracker();
+    loaded.loadSnapshot();
+
+    // THEN
+    assertEquals(0, loaded.size(), "Nothing loaded");
+  }
+
+  @Test
+  public void loadCorruptSnapshot() throws IOException {
+    // GIVEN
+    final Path path = tracker.getSnapshotPath();
+    Files.write(path, "not a snapshot at all, just some text".getBytes());
+
+    // WHEN
+    tracker.loadSnapshot();
+
+    // THEN
+    assertEquals(0, tracker.size(), "Nothing loaded");
+  }
+
+  @Test
+  public void loadEmptySnapshot() throws IOException {
+    // GIVEN
+    Files.write(tracker.getSnapshotPath(), new byte[0]);
+
+    // WHEN
+    tracker.loadSnapshot();
+
+    // THEN
+    assertEquals(0, tracker.size(), "Nothing loaded");
+  }
+
+  @Test
+  public void loadSnapshotRespectsMaxEntries() {
+    // GIVEN
+    for (int i = 1; i <= 5; i++) {
+      fail("192.0.2." + i, 1);
+    }
+    tracker.saveSnapshot();
+
+    // WHEN
+    BruteForceAttemptTracker loaded = newTracker();
+    loaded.setMaxEntries(3);
+    loaded.loadSnapshot();
+
+    // THEN
+    assertEquals(3, loaded.size(), "Load stops at max entries");
+  }
+
+}
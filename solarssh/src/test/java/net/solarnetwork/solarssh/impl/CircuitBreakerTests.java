@@ -0,0 +1,199 @@
+/* ==================================================================
+ * CircuitBreakerTests.java - 23/10/2026 9:14:22 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.solarssh.test.MutableClock;
+
+/**
+ * Test cases for the {@link CircuitBreaker} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class CircuitBreakerTests {
+
+  private static final int THRESHOLD = 3;
+  private static final long OPEN = 30_000L;
+
+  private MutableClock clock;
+  private CircuitBreaker breaker;
+
+  @BeforeEach
+  public void setup() {
+    clock = new MutableClock(1_000_000L);
+    breaker = new CircuitBreaker(clock);
+    breaker.setFailureThreshold(THRESHOLD);
+    breaker.setOpenMillis(OPEN);
+  }
+
+  private void fail(int count) {
+    for (int i = 0; i < count; i++) {
+      assertTrue(breaker.tryAcquire(), "Call allowed");
+      breaker.recordFailure();
+    }
+  }
+
+  private void open() {
+    fail(THRESHOLD);
+    assertEquals(CircuitBreaker.State.Open, breaker.getState(), "Opened");
+  }
+
+  @Test
+  public void closedBelowThreshold() {
+    // WHEN
+    fail(THRESHOLD - 1);
+
+    // THEN
+    assertEquals(CircuitBreaker.State.Closed, breaker.getState(), "Still closed");
+    assertTrue(breaker.tryAcquire(), "Call allowed");
+    assertEquals(0L, breaker.getTripCount(), "Not tripped");
+  }
+
+  @Test
+  public void successResetsConsecutiveFailures() {
+    // GIVEN
+    fail(THRESHOLD - 1);
+    assertTrue(breaker.tryAcquire(), "Call allowed");
+    breaker.recordSuccess();
+
+    // WHEN
+    fail(THRESHOLD - 1);
+
+    // THEN
+    assertEquals(CircuitBreaker.State.Closed, breaker.getState(), "Failures not consecutive");
+  }
+
+  @Test
+  public void opensAtThreshold() {
+    // WHEN
+    fail(THRESHOLD);
+
+    // THEN
+    assertEquals(CircuitBreaker.State.Open, breaker.getState(), "Opened");
+    assertFalse(breaker.tryAcquire(), "Call rejected");
+    assertFalse(breaker.tryAcquire(), "Call rejected");
+    assertEquals(1L, breaker.getTripCount(), "Tripped once");
+    assertEquals(2L, breaker.getRejectionCount(), "Rejections counted");
+  }
+
+  @Test
+  public void halfOpenAfterOpenTime() {
+    // GIVEN
+    open();
+
+    // WHEN
+    clock.advance(OPEN - 1);
+
+    // THEN
+    assertFalse(breaker.tryAcquire(), "Call rejected until open time elapsed");
+    clock.advance(1);
+    assertEquals(CircuitBreaker.State.HalfOpen, breaker.getState(), "Half open");
+  }
+
+  @Test
+  public void halfOpenAllowsSingleTrial() {
+    // GIVEN
+    open();
+    clock.advance(OPEN);
+
+    // WHEN
+    boolean first = breaker.tryAcquire();
+    boolean second = breaker.tryAcquire();
+
+    // THEN
+    assertTrue(first, "Trial call allowed");
+    assertFalse(second, "Only one trial call allowed");
+  }
+
+  @Test
+  public void trialSuccessCloses() {
+    // GIVEN
+    open();
+    clock.advance(OPEN);
+    assertTrue(breaker.tryAcquire(), "Trial call allowed");
+
+    // WHEN
+    breaker.recordSuccess();
+
+    // THEN
+    assertEquals(CircuitBreaker.State.Closed, breaker.getState(), "Closed");
+    assertTrue(breaker.tryAcquire(), "Call allowed");
+    assertTrue(breaker.tryAcquire(), "Call allowed");
+  }
+
+  @Test
+  public void trialFailureReopens() {
+    // GIVEN
+    open();
+    clock.advance(OPEN);
+    assertTrue(breaker.tryAcquire(), "Trial call allowed");
+
+    // WHEN
+    breaker.recordFailure();
+
+    // THEN
+    assertEquals(CircuitBreaker.State.Open, breaker.getState(), "Open again");
+    assertFalse(breaker.tryAcquire(), "Call rejected");
+    assertEquals(1L, breaker.getTripCount(), "Re-opening is not another trip");
+    clock.advance(OPEN);
+    assertTrue(breaker.tryAcquire(), "New trial call allowed after open time");
+  }
+
+  @Test
+  public void releaseReturnsTrialPermit() {
+    // GIVEN
+    open();
+    clock.advance(OPEN);
+    assertTrue(breaker.tryAcquire(), "Trial call allowed");
+
+    // WHEN
+    breaker.release();
+
+    // THEN
+    assertEquals(CircuitBreaker.State.HalfOpen, breaker.getState(), "Still half open");
+    assertTrue(breaker.tryAcquire(), "Another trial call allowed");
+    assertFalse(breaker.tryAcquire(), "Still only one trial call at a time");
+  }
+
+  @Test
+  public void releaseWhenClosedChangesNothing() {
+    // GIVEN
+    fail(THRESHOLD - 1);
+    assertTrue(breaker.tryAcquire(), "Call allowed");
+
+    // WHEN
+    breaker.release();
+    fail(1);
+
+    // THEN
+    assertEquals(CircuitBreaker.State.Open, breaker.getState(), "Released call not a success");
+  }
+
+}
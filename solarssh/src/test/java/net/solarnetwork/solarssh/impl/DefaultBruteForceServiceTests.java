@@ -0,0 +1,197 @@
+/* ==================================================================
+ * DefaultBruteForceServiceTests.java - 19/10/2026 2:18:36 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.solarssh.test.MutableClock;
+
+/**
+ * Test cases for the {@link DefaultBruteForceService} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class DefaultBruteForceServiceTests {
+
+  private static final long EXPIRE_MILLIS = 60_000L;
+  private static final int MAX_FAILS = 3;
+  private static final String SESSION_ID = "test-session";
+  private static final String USERNAME = "test-user";
+
+  private MutableClock clock;
+  private BruteForceAttemptTracker tracker;
+  private DefaultBruteForceService service;
+
+  @BeforeEach
+  public void setup() {
+    clock = new MutableClock(1_792_000_000_000L);
+    tracker = new BruteForceAttemptTracker(clock);
+    tracker.setExpireMillis(EXPIRE_MILLIS);
+    service = new DefaultBruteForceService(tracker);
+    service.setMaxFails(MAX_FAILS);
+  }
+
+  private static InetAddress addr(String literal) {
+    return InetAddressUtils.parseLiteral(literal);
+  }
+
+  private boolean fail(InetAddress src) {
+    return service.handleFailure(src, SESSION_ID, USERNAME);
+  }
+
+  private Map<String, ?> pingProperties() throws Exception {
+    return service.performPingTest().getProperties();
+  }
+
+  @Test
+  public void loopbackNeverCounted() throws Exception {
+    // GIVEN
+    final InetAddress src = addr("127.0.0.1");
+
+    // WHEN
+    for (int i = 0; i < MAX_FAILS * 2; i++) {
+      assertFalse(fail(src), "Loopback failure not blocked");
+    }
+
+    // THEN
+    assertEquals(0, tracker.attempts(src), "Loopback failures not recorded");
+    assertFalse(service.isBlocked(src), "Loopback not blocked");
+    assertFalse(fail(addr("::1")), "IPv6 loopback failure not blocked");
+    assertEquals(0L, pingProperties().get("failureCount"), "No failures counted");
+  }
+
+  @Test
+  public void allowListedNeverCounted() throws Exception {
+    // GIVEN
+    tracker.setAllowList(new String[] { "192.0.2.0/24" });
+    final InetAddress src = addr("192.0.2.1");
+
+    // WHEN
+    for (int i = 0; i < MAX_FAILS * 2; i++) {
+      assertFalse(fail(src), "Allowed failure not blocked");
+    }
+
+    // THEN
+    assertEquals(0, tracker.attempts(src), "Allowed failures not recorded");
+    assertFalse(service.isBlocked(src), "Allowed address not blocked");
+    assertEquals(0L, pingProperties().get("failureCount"), "No failures counted");
+  }
+
+  @Test
+  public void nullAddressIgnored() {
+    assertFalse(fail(null), "Null address failure not blocked");
+    assertFalse(service.isBlocked(null), "Null address not blocked");
+    assertEquals(0, tracker.size(), "Nothing tracked");
+  }
+
+  @Test
+  public void blockedExactlyAtMaxFails() {
+    // GIVEN
+    final InetAddress src = addr("192.0.2.1");
+
+    // WHEN
+    for (int i = 1; i < MAX_FAILS; i++) {
+      assertFalse(fail(src), "Failure " + i + " below limit not blocked");
+      assertFalse(service.isBlocked(src), "Not blocked after failure " + i);
+    }
+    boolean blocked = fail(src);
+
+    // THEN
+    assertTrue(blocked, "Failure at limit blocked");
+    assertTrue(service.isBlocked(src), "Blocked at limit");
+    assertFalse(service.isBlocked(addr("192.0.2.2")), "Other address not blocked");
+  }
+
+  @Test
+  public void blockExpires() {
+    // GIVEN
+    final InetAddress src = addr("192.0.2.1");
+    for (int i = 0; i < MAX_FAILS; i++) {
+      fail(src);
+    }
+
+    // WHEN
+    clock.advance(EXPIRE_MILLIS);
+
+    // THEN
+    assertFalse(service.isBlocked(src), "Block expired");
+  }
+
+  @Test
+  public void denyListedBlockedWithoutFailures() {
+    // GIVEN
+    tracker.setDenyList(new String[] { "198.51.100.0/24" });
+
+    // THEN
+    assertTrue(service.isBlocked(addr("198.51.100.1")), "Deny listed address blocked");
+  }
+
+  @Test
+  public void isBlockedCountsDenials() throws Exception {
+    // GIVEN
+    final InetAddress src = addr("192.0.2.1");
+    for (int i = 0; i < MAX_FAILS; i++) {
+      fail(src);
+    }
+
+    // WHEN
+    service.isBlocked(src);
+    service.isBlocked(src);
+    service.isBlocked(addr("192.0.2.2"));
+
+    // THEN
+    assertEquals(2L, pingProperties().get("denialCount"), "Each blocked check counted");
+  }
+
+  @Test
+  public void pingCountersMatch() throws Exception {
+    // GIVEN
+    final InetAddress src = addr("192.0.2.1");
+    for (int i = 0; i < MAX_FAILS + 1; i++) {
+      fail(src);
+    }
+    fail(addr("192.0.2.2"));
+    fail(addr("127.0.0.1"));
+    service.isBlocked(src);
+
+    // WHEN
+    Map<String, ?> props = pingProperties();
+
+    // THEN
+    assertEquals(2, props.get("trackedAddressCount"), "Tracked addresses");
+    assertEquals((long) MAX_FAILS + 2, props.get("failureCount"), "Failures counted");
+    assertEquals(2L, props.get("blockCount"), "Failures at or over the limit counted as blocks");
+    assertEquals(1L, props.get("denialCount"), "Denials counted");
+  }
+
+}
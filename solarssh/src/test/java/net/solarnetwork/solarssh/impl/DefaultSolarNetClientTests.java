@@ -0,0 +1,255 @@
+/* ==================================================================
+ * DefaultSolarNetClientTests.java - 19/10/2026 11:52:19 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.domain.NodeMetadataResponse;
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+import net.solarnetwork.solarssh.domain.SolarNodeInstructionState;
+import net.solarnetwork.solarssh.service.SolarNetClient;
+import net.solarnetwork.solarssh.test.FakeSolarNetServer;
+
+/**
+ * Test cases for the {@link DefaultSolarNetClient} class, run against a
+ * {@link FakeSolarNetServer}.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class DefaultSolarNetClientTests {
+
+  private static final Long TEST_NODE_ID = 123L;
+
+  private static final String TEST_AUTH = "SNWS2 Credential=test-token,"
+      + "SignedHeaders=host;x-sn-date,Signature=0123456789abcdef";
+
+  private FakeSolarNetServer server;
+  private DefaultSolarNetClient client;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    server = new FakeSolarNetServer();
+    server.setCompletionDelayMillis(50);
+    server.start();
+    client = new DefaultSolarNetClient();
+    client.setApiBaseUrl(server.getBaseUrl());
+  }
+
+  @AfterEach
+  public void teardown() {
+    server.close();
+  }
+
+  private SolarNetInstruction awaitFinalState(Long id) throws Exception {
+    final long giveUp = System.currentTimeMillis() + 5000;
+    while (true) {
+      SolarNetInstruction instr = client.getInstruction(id, System.currentTimeMillis(), TEST_AUTH);
+      if (instr.getState() == SolarNodeInstructionState.Completed
+          || instr.getState() == SolarNodeInstructionState.Declined
+          || System.currentTimeMillis() > giveUp) {
+        return instr;
+      }
+      Thread.sleep(20);
+    }
+  }
+
+  @Test
+  public void queueInstruction() throws Exception {
+    // GIVEN
+    Map<String, String> params = Map.of("parameters[0].name", "foo", "parameters[0].value",
+        "bar");
+
+    // WHEN
+    Long id = client.queueInstruction(SolarNetClient.INSTRUCTION_TOPIC_START_REMOTE_SSH,
+        TEST_NODE_ID, params, System.currentTimeMillis(), TEST_AUTH);
+
+    // THEN
+    assertNotNull(id, "Instruction ID returned");
+    SolarNetInstruction instr = server.getInstruction(id);
+    assertEquals(TEST_NODE_ID, instr.getNodeId(), "Node ID");
+    assertEquals(SolarNetClient.INSTRUCTION_TOPIC_START_REMOTE_SSH, instr.getTopic(), "Topic");
+    assertEquals("bar", instr.parameterValue("foo"), "Parameter");
+  }
+
+  @Test
+  public void pendingInstructions() throws Exception {
+    // GIVEN
+    server.setCompletionDelayMillis(60_000);
+    Long id = client.queueInstruction("Test", TEST_NODE_ID, Map.of(), System.currentTimeMillis(),
+        TEST_AUTH);
+
+    // WHEN
+    List<SolarNetInstruction> pending = client.pendingInstructions(TEST_NODE_ID,
+        System.currentTimeMillis(), TEST_AUTH);
+    List<SolarNetInstruction> otherNode = client.pendingInstructions(TEST_NODE_ID + 1,
+        System.currentTimeMillis(), TEST_AUTH);
+
+    // THEN
+    assertEquals(1, pending.size(), "Pending instruction returned");
+    assertEquals(id, pending.get(0).getId(), "Pending instruction ID");
+    assertEquals(SolarNodeInstructionState.Queued, pending.get(0).getState(), "Pending state");
+    assertTrue(otherNode.isEmpty(), "No instructions for other node");
+  }
+
+  @Test
+  public void instructionCompletes() throws Exception {
+    // GIVEN
+    Long id = client.queueInstruction("Test", TEST_NODE_ID, Map.of(), System.currentTimeMillis(),
+        TEST_AUTH);
+
+    // WHEN
+    SolarNetInstruction instr = awaitFinalState(id);
+
+    // THEN
+    assertEquals(SolarNodeInstructionState.Completed, instr.getState(), "Completed");
+    assertTrue(client.pendingInstructions(TEST_NODE_ID, System.currentTimeMillis(), TEST_AUTH)
+        .isEmpty(), "No longer pending");
+  }
+
+  @Test
+  public void instructionDeclinedByNode() throws Exception {
+    // GIVEN
+    server.registerNode(TEST_NODE_ID, instr -> SolarNodeInstructionState.Declined);
+    Long id = client.queueInstruction("Test", TEST_NODE_ID, Map.of(), System.currentTimeMillis(),
+        TEST_AUTH);
+
+    // WHEN
+    SolarNetInstruction instr = awaitFinalState(id);
+
+    // THEN
+    assertEquals(SolarNodeInstructionState.Declined, instr.getState(), "Declined");
+  }
+
+  @Test
+  public void nodeMetadataConditional() throws Exception {
+    // GIVEN
+    GeneralDatumMetadata meta = new GeneralDatumMetadata();
+    meta.putInfoValue("foo", "bar");
+    server.setNodeMetadata(TEST_NODE_ID, meta);
+
+    // WHEN
+    NodeMetadataResponse first = client.getNodeMetadata(TEST_NODE_ID, System.currentTimeMillis(),
+        TEST_AUTH, null);
+    NodeMetadataResponse second = client.getNodeMetadata(TEST_NODE_ID,
+        System.currentTimeMillis(), TEST_AUTH, first);
+
+    // THEN
+    assertFalse(first.isNotModified(), "First response is full");
+    assertNotNull(first.getEtag(), "ETag returned");
+    assertEquals("bar", first.getMetadata().getInfoString("foo"), "Metadata decoded");
+    assertTrue(second.isNotModified(), "Second response is not modified");
+    assertEquals(first.getEtag(), second.getEtag(), "ETag preserved");
+    assertEquals(2, server.getRequestCount(FakeSolarNetServer.ENDPOINT_NODE_METADATA),
+        "Two requests made");
+  }
+
+  private List<Future<GeneralDatumMetadata>> concurrentMetadataRequests(String... authorizations)
+      throws Exception {
+    final ExecutorService callers = Executors.newFixedThreadPool(authorizations.length);
+    try {
+      final CountDownLatch go = new CountDownLatch(1);
+      final long date = System.currentTimeMillis();
+      List<Future<GeneralDatumMetadata>> results = new ArrayList<>(authorizations.length);
+      for (String auth : authorizations) {
+        results.add(callers.submit(() -> {
+          go.await();
+          return client.getNodeMetadata(TEST_NODE_ID, date, auth);
+        }));
+      }
+      go.countDown();
+      for (Future<GeneralDatumMetadata> f : results) {
+        f.get(5, TimeUnit.SECONDS);
+      }
+      return results;
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+
+  @Test
+  public void concurrentIdenticalRequestsCoalesced() throws Exception {
+    // GIVEN
+    GeneralDatumMetadata meta = new GeneralDatumMetadata();
+    meta.putInfoValue("foo", "bar");
+    server.setNodeMetadata(TEST_NODE_ID, meta);
+    server.setLatencyMillis(300);
+
+    // WHEN
+    List<Future<GeneralDatumMetadata>> results = concurrentMetadataRequests(TEST_AUTH, TEST_AUTH,
+        TEST_AUTH);
+
+    // THEN
+    assertEquals(1, server.getRequestCount(FakeSolarNetServer.ENDPOINT_NODE_METADATA),
+        "One upstream request shared by identical requests");
+    for (Future<GeneralDatumMetadata> f : results) {
+      assertEquals("bar", f.get().getInfoString("foo"), "Shared metadata returned");
+    }
+  }
+
+  @Test
+  public void concurrentDifferentlySignedRequestsNotCoalesced() throws Exception {
+    // GIVEN
+    GeneralDatumMetadata meta = new GeneralDatumMetadata();
+    server.setNodeMetadata(TEST_NODE_ID, meta);
+    server.setLatencyMillis(300);
+
+    // WHEN
+    concurrentMetadataRequests(TEST_AUTH, TEST_AUTH.replace("0123", "4567"));
+
+    // THEN
+    assertEquals(2, server.getRequestCount(FakeSolarNetServer.ENDPOINT_NODE_METADATA),
+        "Each signature verified by its own upstream request");
+  }
+
+  @Test
+  public void serverError() throws Exception {
+    // GIVEN
+    server.setErrorRate(1.0);
+
+    // THEN
+    assertThrows(IOException.class, () -> client.pendingInstructions(TEST_NODE_ID,
+        System.currentTimeMillis(), TEST_AUTH));
+    assertEquals(1, server.getErrorCount(), "Error returned");
+  }
+
+}
@@ -0,0 +1,229 @@
+/* ==================================================================
+ * HttpSolarNetClientTests.java - 23/10/2026 11:26:14 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.AuthorizationException;
+import net.solarnetwork.solarssh.domain.NodeMetadataResponse;
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+import net.solarnetwork.solarssh.domain.SolarNodeInstructionState;
+import net.solarnetwork.solarssh.service.SolarNetClient;
+import net.solarnetwork.solarssh.test.FakeSolarNetServer;
+
+/**
+ * Test cases for the {@link HttpSolarNetClient} class, run against a {@link FakeSolarNetServer}.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class HttpSolarNetClientTests {
+
+  private static final Long TEST_NODE_ID = 123L;
+
+  private static final String TEST_AUTH = "SNWS2 Credential=test-token,"
+      + "SignedHeaders=host;x-sn-date,Signature=0123456789abcdef";
+
+  /** 2023-11-14 22:13:20 UTC. */
+  private static final long TEST_DATE = 1_700_000_000_000L;
+
+  private static final String TEST_HTTP_DATE = "Tue, 14 Nov 2023 22:13:20 GMT";
+
+  private FakeSolarNetServer server;
+  private HttpSolarNetClient client;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    server = new FakeSolarNetServer();
+    server.setCompletionDelayMillis(60_000);
+    server.start();
+    client = new HttpSolarNetClient();
+    client.setApiBaseUrl(server.getBaseUrl());
+    client.init();
+  }
+
+  @AfterEach
+  public void teardown() {
+    client.shutdown();
+    server.close();
+  }
+
+  private static <T> T get(CompletableFuture<T> future) throws Exception {
+    return future.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void queueInstructionAsync() throws Exception {
+    // GIVEN
+    Map<String, String> params = Map.of("parameters[0].name", "foo", "parameters[0].value",
+        "bar");
+
+    // WHEN
+    Long id = get(client.queueInstructionAsync(SolarNetClient.INSTRUCTION_TOPIC_START_REMOTE_SSH,
+        TEST_NODE_ID, params, TEST_DATE, TEST_AUTH));
+
+    // THEN
+    assertNotNull(id, "Instruction ID returned");
+    SolarNetInstruction instr = server.getInstruction(id);
+    assertEquals(TEST_NODE_ID, instr.getNodeId(), "Node ID");
+    assertEquals(SolarNetClient.INSTRUCTION_TOPIC_START_REMOTE_SSH, instr.getTopic(), "Topic");
+    assertEquals("bar", instr.parameterValue("foo"), "Parameter");
+  }
+
+  @Test
+  public void pendingAndGetInstructionAsync() throws Exception {
+    // GIVEN
+    Long id = client.queueInstruction("Test", TEST_NODE_ID, Map.of(), TEST_DATE, TEST_AUTH);
+
+    // WHEN
+    CompletableFuture<List<SolarNetInstruction>> pending = client
+        .pendingInstructionsAsync(TEST_NODE_ID, TEST_DATE, TEST_AUTH);
+    CompletableFuture<SolarNetInstruction> instr = client.getInstructionAsync(id, TEST_DATE,
+        TEST_AUTH);
+
+    // THEN
+    assertEquals(1, get(pending).size(), "Pending instruction returned");
+    assertEquals(id, get(pending).get(0).getId(), "Pending instruction ID");
+    assertEquals(id, get(instr).getId(), "Instruction ID");
+    assertEquals(SolarNodeInstructionState.Queued, get(instr).getState(), "Instruction state");
+  }
+
+  @Test
+  public void signedDateHeader() throws Exception {
+    // WHEN
+    get(client.pendingInstructionsAsync(TEST_NODE_ID, TEST_DATE, TEST_AUTH));
+
+    // THEN
+    assertEquals(TEST_HTTP_DATE, server.getLastRequestHeader(
+        FakeSolarNetServer.ENDPOINT_VIEW_PENDING, "X-SN-Date"), "Signed date header sent");
+    assertEquals(TEST_AUTH, server.getLastRequestHeader(FakeSolarNetServer.ENDPOINT_VIEW_PENDING,
+        "Authorization"), "Authorization header sent");
+  }
+
+  @Test
+  public void signedStandardDateHeader() throws Exception {
+    // GIVEN
+    final String auth = "SNWS2 Credential=test-token,SignedHeaders=date;host,Signature=0123";
+
+    // WHEN
+    get(client.pendingInstructionsAsync(TEST_NODE_ID, TEST_DATE, auth));
+
+    // THEN
+    assertEquals(TEST_HTTP_DATE,
+        server.getLastRequestHeader(FakeSolarNetServer.ENDPOINT_VIEW_PENDING, "Date"),
+        "Signed Date header sent");
+  }
+
+  @Test
+  public void unsignedDateFailsFuture() {
+    // GIVEN
+    final String auth = "SNWS2 Credential=test-token,SignedHeaders=host,Signature=0123";
+
+    // WHEN
+    CompletableFuture<List<SolarNetInstruction>> result = client
+        .pendingInstructionsAsync(TEST_NODE_ID, TEST_DATE, auth);
+
+    // THEN
+    ExecutionException e = assertThrows(ExecutionException.class, () -> get(result));
+    assertInstanceOf(AuthorizationException.class, e.getCause(), "Authorization exception");
+    assertEquals(0, server.getRequestCount(FakeSolarNetServer.ENDPOINT_VIEW_PENDING),
+        "No request sent");
+  }
+
+  @Test
+  public void nodeMetadataNotModified() throws Exception {
+    // GIVEN
+    GeneralDatumMetadata meta = new GeneralDatumMetadata();
+    meta.putInfoValue("foo", "bar");
+    server.setNodeMetadata(TEST_NODE_ID, meta);
+
+    // WHEN
+    NodeMetadataResponse first = get(
+        client.getNodeMetadataAsync(TEST_NODE_ID, TEST_DATE, TEST_AUTH, null));
+    NodeMetadataResponse second = get(
+        client.getNodeMetadataAsync(TEST_NODE_ID, TEST_DATE, TEST_AUTH, first));
+
+    // THEN
+    assertFalse(first.isNotModified(), "First response is full");
+    assertNotNull(first.getEtag(), "ETag returned");
+    assertTrue(first.getLastModified() > 0, "Last modified returned");
+    assertEquals("bar", first.getMetadata().getInfoString("foo"), "Metadata decoded");
+    assertEquals(first.getEtag(), server.getLastRequestHeader(
+        FakeSolarNetServer.ENDPOINT_NODE_METADATA, "If-None-Match"), "ETag revalidated");
+    assertTrue(second.isNotModified(), "Second response is not modified");
+    assertEquals(first.getEtag(), second.getEtag(), "ETag preserved");
+    assertEquals("bar", second.getMetadata().getInfoString("foo"), "Previous metadata kept");
+    assertEquals(2, server.getRequestCount(FakeSolarNetServer.ENDPOINT_NODE_METADATA),
+        "Two requests made");
+  }
+
+  @Test
+  public void nodeMetadataUnconditional() throws Exception {
+    // GIVEN
+    GeneralDatumMetadata meta = new GeneralDatumMetadata();
+    meta.putInfoValue("foo", "bar");
+    server.setNodeMetadata(TEST_NODE_ID, meta);
+
+    // WHEN
+    GeneralDatumMetadata result = get(
+        client.getNodeMetadataAsync(TEST_NODE_ID, TEST_DATE, TEST_AUTH));
+
+    // THEN
+    assertEquals("bar", result.getInfoString("foo"), "Metadata decoded");
+  }
+
+  @Test
+  public void serverErrorFailsFuture() throws Exception {
+    // GIVEN
+    server.setErrorRate(1.0);
+
+    // WHEN
+    CompletableFuture<List<SolarNetInstruction>> result = client
+        .pendingInstructionsAsync(TEST_NODE_ID, TEST_DATE, TEST_AUTH);
+
+    // THEN
+    ExecutionException e = assertThrows(ExecutionException.class, () -> get(result));
+    assertInstanceOf(IOException.class, e.getCause(), "I/O exception");
+    assertThrows(IOException.class,
+        () -> client.pendingInstructions(TEST_NODE_ID, TEST_DATE, TEST_AUTH),
+        "Blocking variant throws unwrapped exception");
+  }
+
+}
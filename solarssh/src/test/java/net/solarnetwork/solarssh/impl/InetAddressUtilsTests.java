@@ -0,0 +1,116 @@
+/* ==================================================================
+ * InetAddressUtilsTests.java - 22/10/2026 1:14:38 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the {@link InetAddressUtils} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class InetAddressUtilsTests {
+
+  @Test
+  public void ipv4() {
+    InetAddress result = InetAddressUtils.parseLiteral("192.0.2.1");
+    assertTrue(result instanceof Inet4Address, "IPv4 address");
+    assertEquals("192.0.2.1", result.getHostAddress(), "Address parsed");
+  }
+
+  @Test
+  public void ipv4Boundaries() {
+    assertEquals("0.0.0.0", InetAddressUtils.parseLiteral("0.0.0.0").getHostAddress(),
+        "Lowest address");
+    assertEquals("255.255.255.255",
+        InetAddressUtils.parseLiteral("255.255.255.255").getHostAddress(), "Highest address");
+  }
+
+  @Test
+  public void ipv4Whitespace() {
+    assertEquals("192.0.2.1", InetAddressUtils.parseLiteral(" 192.0.2.1 ").getHostAddress(),
+        "Whitespace trimmed");
+  }
+
+  @Test
+  public void ipv6() {
+    InetAddress result = InetAddressUtils.parseLiteral("2001:db8::1");
+    assertTrue(result instanceof Inet6Address, "IPv6 address");
+    assertEquals("2001:db8:0:0:0:0:0:1", result.getHostAddress(), "Address parsed");
+  }
+
+  @Test
+  public void ipv6Bracketed() {
+    assertEquals("0:0:0:0:0:0:0:1", InetAddressUtils.parseLiteral("[::1]").getHostAddress(),
+        "Brackets removed");
+  }
+
+  @Test
+  public void ipv4MappedIpv6() {
+    InetAddress result = InetAddressUtils.parseLiteral("::ffff:192.0.2.1");
+    assertTrue(result instanceof Inet4Address, "Mapped address treated as IPv4");
+    assertEquals("192.0.2.1", result.getHostAddress(), "Address parsed");
+  }
+
+  @Test
+  public void malformedIpv4() {
+    for (String s : new String[] { "1.2.3", "1.2.3.4.5", "256.1.1.1", "1..2.3", "1.2.3.", ".1.2.3",
+        "1.2.3.4a", "1234.1.1.1", "-1.2.3.4" }) {
+      assertNull(InetAddressUtils.parseLiteral(s), "Malformed IPv4 " + s);
+    }
+  }
+
+  @Test
+  public void malformedIpv6() {
+    for (String s : new String[] { "::g", "1:2:3:4:5:6:7:8:9", "[::1", "::1]", "a:b",
+        "::ffff:1.2.3", "fe80::1%eth0" }) {
+      assertNull(InetAddressUtils.parseLiteral(s), "Malformed IPv6 " + s);
+    }
+  }
+
+  @Test
+  public void emptyValues() {
+    assertNull(InetAddressUtils.parseLiteral(null), "Null");
+    assertNull(InetAddressUtils.parseLiteral(""), "Empty");
+    assertNull(InetAddressUtils.parseLiteral("  "), "Blank");
+    assertNull(InetAddressUtils.parseLiteral("[]"), "Empty brackets");
+  }
+
+  @Test
+  public void hostNamesNotLookedUp() {
+    // a name service lookup would resolve these
+    assertNull(InetAddressUtils.parseLiteral("localhost"), "Host name not resolved");
+    assertNull(InetAddressUtils.parseLiteral("[localhost]"), "Bracketed host name not resolved");
+    assertNull(InetAddressUtils.parseLiteral("localhost.localdomain"), "Domain not resolved");
+  }
+
+}
@@ -0,0 +1,274 @@
+/* ==================================================================
+ * JdbcActorDaoTests.java - 22/10/2026 9:41:16 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+import net.solarnetwork.solarssh.domain.Actor;
+
+/**
+ * Test cases for the {@link JdbcActorDao} class.
+ *
+ * @author matt
+ * @version 1.2
+ */
+public class JdbcActorDaoTests {
+
+  private static final String TOKEN_ID = "test-token";
+  private static final Long NODE_ID = 123L;
+
+  private JdbcOperations jdbcOps;
+  private RefreshAheadCache<String, Actor> actorCache;
+  private JdbcActorDao dao;
+
+  @BeforeEach
+  public void setup() {
+    jdbcOps = mock(JdbcOperations.class);
+    actorCache = new RefreshAheadCache<>("test", Runnable::run);
+    dao = new JdbcActorDao(jdbcOps);
+    dao.setActorCache(actorCache);
+  }
+
+  private static ResultSet actorRow() throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.next()).thenReturn(true, false);
+    when(rs.getLong(1)).thenReturn(1L);
+    when(rs.getString(2)).thenReturn("ReadNodeData");
+    when(rs.getString(4)).thenReturn("{" + NODE_ID + "}");
+    when(rs.getBoolean(5)).thenReturn(true);
+    when(rs.getString(5)).thenReturn(TOKEN_ID);
+    return rs;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenCombinedQuery(boolean invalidateDuringQuery) throws SQLException {
+    final ResultSet rs = actorRow();
+    when(jdbcOps.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class)))
+        .thenAnswer(invocation -> {
+          if (invalidateDuringQuery) {
+            // as if the token was changed and notified while the query ran
+            actorCache.remove(TOKEN_ID);
+          }
+          return invocation.getArgument(1, ResultSetExtractor.class).extractData(rs);
+        });
+  }
+
+  @Test
+  public void combinedQueryCachesActor() throws Exception {
+    // GIVEN
+    givenCombinedQuery(false);
+
+    // WHEN
+    Actor actor = dao.getAuthenticatedActor(NODE_ID, TOKEN_ID, "secret");
+
+    // THEN
+    assertNotNull(actor, "Actor authenticated");
+    assertNotNull(actorCache.getIfPresent(TOKEN_ID), "Actor cached");
+  }
+
+  @Test
+  public void invalidationDuringCombinedQueryNotCached() throws Exception {
+    // GIVEN
+    givenCombinedQuery(true);
+
+    // WHEN
+    Actor actor = dao.getAuthenticatedActor(NODE_ID, TOKEN_ID, "secret");
+
+    // THEN
+    assertNotNull(actor, "Actor still returned for this request");
+    assertNull(actorCache.getIfPresent(TOKEN_ID), "Actor read before invalidation not cached");
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void invalidationDuringPreloadNotCached() throws Exception {
+    // GIVEN
+    final ResultSet rs = actorRow();
+    when(jdbcOps.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+        .thenAnswer(invocation -> {
+          actorCache.remove(TOKEN_ID);
+          return List.of(invocation.getArgument(1, RowMapper.class).mapRow(rs, 0));
+        });
+
+    // WHEN
+    int count = dao.preloadActors(List.of(TOKEN_ID));
+
+    // THEN
+    assertEquals(0, count, "Nothing preloaded");
+    assertNull(actorCache.getIfPresent(TOKEN_ID), "Actor read before invalidation not cached");
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void initPreloadsJournalInBatches() throws Exception {
+    // GIVEN
+    final int tokenCount = JdbcActorDao.PRELOAD_BATCH_SIZE * 2 + 1;
+    ActorLoginJournal journal = new ActorLoginJournal();
+    for (int i = 0; i < tokenCount; i++) {
+      journal.record("token-" + i);
+    }
+    dao.setLoginJournal(journal);
+
+    final List<Object[]> batches = new ArrayList<>();
+    final Connection con = mock(Connection.class);
+    when(con.prepareStatement(anyString(), anyInt(), anyInt()))
+        .thenReturn(mock(PreparedStatement.class));
+    when(con.createArrayOf(eq("text"), any(Object[].class))).thenAnswer(invocation -> {
+      batches.add(invocation.getArgument(1, Object[].class));
+      return mock(Array.class);
+    });
+
+    final String[] rowTokenId = new String[1];
+    final ResultSet rs = actorRow();
+    when(rs.getString(5)).thenAnswer(invocation -> rowTokenId[0]);
+    when(jdbcOps.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+        .thenAnswer(invocation -> {
+          invocation.getArgument(0, PreparedStatementCreator.class).createPreparedStatement(con);
+          RowMapper<Actor> mapper = invocation.getArgument(1, RowMapper.class);
+          List<Actor> rows = new ArrayList<>();
+          for (Object tokenId : batches.get(batches.size() - 1)) {
+            rowTokenId[0] = (String) tokenId;
+            rows.add(mapper.mapRow(rs, rows.size()));
+          }
+          return rows;
+        });
+
+    // WHEN
+    dao.init();
+
+    // THEN
+    assertEquals(3, batches.size(), "One query per batch");
+    assertEquals(JdbcActorDao.PRELOAD_BATCH_SIZE, batches.get(0).length, "First batch full");
+    assertEquals(JdbcActorDao.PRELOAD_BATCH_SIZE, batches.get(1).length, "Second batch full");
+    assertEquals(1, batches.get(2).length, "Last batch has remainder");
+    Set<Object> queried = new HashSet<>();
+    for (Object[] batch : batches) {
+      queried.addAll(List.of(batch));
+    }
+    assertEquals(tokenCount, queried.size(), "Every token queried once");
+    assertEquals(tokenCount, actorCache.size(), "Every actor cached");
+    assertNotNull(actorCache.getIfPresent("token-0"), "First token cached");
+    assertNotNull(actorCache.getIfPresent("token-" + (tokenCount - 1)), "Last token cached");
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenCombinedResult(ResultSet rs) {
+    when(jdbcOps.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class)))
+        .thenAnswer(invocation -> invocation.getArgument(1, ResultSetExtractor.class)
+            .extractData(rs));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void combinedQueryUnsupportedFallsBackToSeparateQueries() throws Exception {
+    // GIVEN
+    dao.setActorCache(null);
+    when(jdbcOps.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class)))
+        .thenThrow(new BadSqlGrammarException("test",
+            JdbcActorDao.DEFAULT_AUTHENTICATE_AND_AUTHORIZE_CALL,
+            new SQLException("function does not exist")));
+    final ResultSet rs = actorRow();
+    when(jdbcOps.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+        .thenAnswer(
+            invocation -> List.of(invocation.getArgument(1, RowMapper.class).mapRow(rs, 0)));
+
+    // WHEN
+    Actor first = dao.getAuthenticatedActor(NODE_ID, TOKEN_ID, "secret");
+    Actor second = dao.getAuthenticatedActor(NODE_ID, TOKEN_ID, "secret");
+
+    // THEN
+    assertNotNull(first, "Actor authenticated via separate queries");
+    assertNotNull(second, "Actor authenticated via separate queries again");
+    verify(jdbcOps, times(1)).query(any(PreparedStatementCreator.class),
+        any(ResultSetExtractor.class));
+    verify(jdbcOps, times(4)).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+  }
+
+  @Test
+  public void combinedQueryUnverifiedRejectsSecret() throws Exception {
+    // GIVEN
+    NegativeTokenCache negativeCache = new NegativeTokenCache();
+    dao.setNegativeCache(negativeCache);
+    final ResultSet rs = actorRow();
+    when(rs.getBoolean(5)).thenReturn(false);
+    givenCombinedResult(rs);
+
+    // WHEN
+    Actor actor = dao.getAuthenticatedActor(NODE_ID, TOKEN_ID, "wrong");
+
+    // THEN
+    assertNull(actor, "Unverified token not authenticated");
+    assertNull(actorCache.getIfPresent(TOKEN_ID), "Unverified actor not cached");
+    assertTrue(negativeCache.isRejected(TOKEN_ID, "wrong"), "Secret rejected");
+    assertFalse(negativeCache.isRejected(TOKEN_ID, "right"), "Token not rejected");
+  }
+
+  @Test
+  public void combinedQueryNoRowRejectsToken() throws Exception {
+    // GIVEN
+    NegativeTokenCache negativeCache = new NegativeTokenCache();
+    dao.setNegativeCache(negativeCache);
+    final ResultSet rs = mock(ResultSet.class);
+    when(rs.next()).thenReturn(false);
+    givenCombinedResult(rs);
+
+    // WHEN
+    Actor actor = dao.getAuthenticatedActor(NODE_ID, TOKEN_ID, "secret");
+
+    // THEN
+    assertNull(actor, "Unknown token not authenticated");
+    assertTrue(negativeCache.isRejected(TOKEN_ID, "secret"), "Secret rejected");
+    assertTrue(negativeCache.isRejected(TOKEN_ID, "other"), "Any secret of token rejected");
+  }
+
+}
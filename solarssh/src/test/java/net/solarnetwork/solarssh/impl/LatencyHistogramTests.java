@@ -0,0 +1,116 @@
+/* ==================================================================
+ * LatencyHistogramTests.java - 23/10/2026 9:32:48 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the {@link LatencyHistogram} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class LatencyHistogramTests {
+
+  private LatencyHistogram histogram;
+
+  @BeforeEach
+  public void setup() {
+    histogram = new LatencyHistogram();
+  }
+
+  private void record(long millis, int count) {
+    for (int i = 0; i < count; i++) {
+      histogram.record(millis);
+    }
+  }
+
+  @Test
+  public void empty() {
+    // THEN
+    assertEquals(0L, histogram.getCount(), "Count");
+    assertEquals(0L, histogram.percentile(0.5), "Median");
+    assertEquals(0.0, histogram.getMean(), "Mean");
+  }
+
+  @Test
+  public void percentileIsBucketUpperBound() {
+    // GIVEN
+    record(3, 50);
+    record(20, 45);
+    record(40, 4);
+    record(400, 1);
+
+    // THEN
+    assertEquals(100L, histogram.getCount(), "Count");
+    assertEquals(5L, histogram.percentile(0.5), "Median in 5ms bucket");
+    assertEquals(25L, histogram.percentile(0.95), "p95 in 25ms bucket");
+    assertEquals(50L, histogram.percentile(0.99), "p99 in 50ms bucket");
+    assertEquals(400L, histogram.percentile(1.0), "p100 capped at max sample");
+    assertEquals(400L, histogram.getMax(), "Max");
+  }
+
+  @Test
+  public void bucketBoundIsInclusive() {
+    // GIVEN
+    record(5, 1);
+    record(6, 1);
+
+    // THEN
+    assertEquals(5L, histogram.percentile(0.5), "5ms in 5ms bucket");
+    assertEquals(6L, histogram.percentile(1.0), "6ms in 10ms bucket, capped at max");
+  }
+
+  @Test
+  public void unboundedBucketReportsMax() {
+    // GIVEN
+    record(45_000, 2);
+
+    // THEN
+    assertEquals(45_000L, histogram.percentile(0.5), "Median is max sample");
+  }
+
+  @Test
+  public void summary() {
+    // GIVEN
+    record(10, 1);
+    record(30, 1);
+
+    // WHEN
+    Map<String, Object> summary = histogram.summary();
+
+    // THEN
+    assertEquals(2L, summary.get("count"), "Count");
+    assertEquals(20L, summary.get("mean"), "Mean");
+    assertEquals(10L, summary.get("p50"), "p50");
+    assertEquals(30L, summary.get("p95"), "p95");
+    assertEquals(30L, summary.get("p99"), "p99");
+    assertEquals(30L, summary.get("max"), "Max");
+  }
+
+}
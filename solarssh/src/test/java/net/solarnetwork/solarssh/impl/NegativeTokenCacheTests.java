@@ -0,0 +1,241 @@
+/* ==================================================================
+ * NegativeTokenCacheTests.java - 22/10/2026 6:20:44 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.solarssh.test.MutableClock;
+
+/**
+ * Test cases for the {@link NegativeTokenCache} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class NegativeTokenCacheTests {
+
+  private static final long EXPIRE = 60_000L;
+
+  private MutableClock clock;
+  private NegativeTokenCache cache;
+
+  @BeforeEach
+  public void setup() {
+    clock = new MutableClock(1_000_000L);
+    cache = new NegativeTokenCache(clock);
+    cache.setExpireMillis(EXPIRE);
+  }
+
+  @Test
+  public void unknownToken() {
+    // WHEN
+    cache.rejectToken("a");
+
+    // THEN
+    assertTrue(cache.isRejected("a", "any"), "Any secret rejected");
+    assertTrue(cache.isRejected("a", null), "No secret rejected");
+    assertFalse(cache.isRejected("b", "any"), "Other token not rejected");
+    assertFalse(cache.isRejected(null, "any"), "No token not rejected");
+  }
+
+  @Test
+  public void badSecret() {
+    // WHEN
+    cache.rejectSecret("a", "bad");
+
+    // THEN
+    assertTrue(cache.isRejected("a", "bad"), "Same secret rejected");
+    assertFalse(cache.isRejected("a", "good"), "Other secret not rejected");
+    assertFalse(cache.isRejected("a", "bad "), "Similar secret not rejected");
+    assertFalse(cache.isRejected("a", null), "No secret not rejected");
+    assertFalse(cache.isRejected("b", "bad"), "Same secret of other token not rejected");
+  }
+
+  @Test
+  public void secretDigestScopedToToken() {
+    // GIVEN
+    cache.rejectSecret("ab", "c");
+
+    // THEN
+    assertFalse(cache.isRejected("a", "bc"), "Shifted token ID and secret not rejected");
+  }
+
+  @Test
+  public void expiry() {
+    // GIVEN
+    cache.rejectToken("a");
+    cache.rejectSecret("b", "bad");
+
+    // WHEN
+    clock.advance(EXPIRE - 1);
+
+    // THEN
+    assertTrue(cache.isRejected("a", "any"), "Token rejected until expiry");
+    assertTrue(cache.isRejected("b", "bad"), "Secret rejected until expiry");
+    clock.advance(1);
+    assertFalse(cache.isRejected("a", "any"), "Token forgotten at expiry");
+    assertFalse(cache.isRejected("b", "bad"), "Secret forgotten at expiry");
+    assertEquals(0, cache.size(), "Expired entries removed when checked");
+  }
+
+  @Test
+  public void rejectAgainExtendsExpiry() {
+    // GIVEN
+    cache.rejectToken("a");
+    clock.advance(EXPIRE - 1);
+
+    // WHEN
+    cache.rejectToken("a");
+
+    // THEN
+    clock.advance(EXPIRE - 1);
+    assertTrue(cache.isRejected("a", "any"), "Rejected until new expiry");
+  }
+
+  @Test
+  public void removeToken() {
+    // GIVEN
+    cache.rejectToken("a");
+    cache.rejectSecret("a", "bad");
+    cache.rejectSecret("a", "worse");
+    cache.rejectSecret("ab", "bad");
+
+    // WHEN
+    cache.remove("a");
+
+    // THEN
+    assertFalse(cache.isRejected("a", "bad"), "Token and secrets forgotten");
+    assertFalse(cache.isRejected("a", "worse"), "All secrets forgotten");
+    assertTrue(cache.isRejected("ab", "bad"), "Token sharing prefix kept");
+    assertEquals(1, cache.size(), "Remaining entries");
+  }
+
+  @Test
+  public void fullCacheDropsNewFailures() {
+    // GIVEN
+    cache.setMaxEntries(2);
+    cache.rejectToken("a");
+    cache.rejectToken("b");
+
+    // WHEN
+    cache.rejectToken("c");
+
+    // THEN
+    assertFalse(cache.isRejected("c", null), "New failure not remembered when full");
+    assertTrue(cache.isRejected("a", null), "Existing failure kept");
+  }
+
+  @Test
+  public void fullCachePurgesExpired() {
+    // GIVEN
+    cache.setMaxEntries(2);
+    cache.rejectToken("a");
+    cache.rejectToken("b");
+    clock.advance(EXPIRE);
+
+    // WHEN
+    cache.rejectToken("c");
+
+    // THEN
+    assertTrue(cache.isRejected("c", null), "New failure remembered after purge");
+    assertEquals(1, cache.size(), "Expired entries purged");
+  }
+
+  @Test
+  public void fullCachePurgesAtMostOncePerInterval() {
+    // GIVEN
+    cache.setMaxEntries(2);
+    cache.setPurgeIntervalMillis(EXPIRE);
+    cache.rejectToken("a");
+    clock.advance(EXPIRE / 2);
+    cache.rejectToken("b");
+    clock.advance(EXPIRE / 2);
+    cache.rejectToken("c");
+    assertTrue(cache.isRejected("c", null), "Purge made room after a expired");
+
+    // WHEN
+    clock.advance(EXPIRE / 2);
+    cache.rejectToken("d");
+
+    // THEN
+    assertFalse(cache.isRejected("d", null), "Not purged again within interval");
+    assertEquals(2, cache.size(), "Expired b not purged yet");
+    clock.advance(EXPIRE / 2);
+    cache.rejectToken("e");
+    assertTrue(cache.isRejected("e", null), "Purged again after interval");
+  }
+
+  @Test
+  public void removeTokenLeavesOtherTokens() {
+    // GIVEN
+    cache.rejectSecret("a", "bad");
+    cache.rejectSecret("b", "bad");
+    cache.rejectToken("c");
+
+    // WHEN
+    cache.remove("a");
+    cache.remove("unknown");
+
+    // THEN
+    assertFalse(cache.isRejected("a", "bad"), "Removed token forgotten");
+    assertTrue(cache.isRejected("b", "bad"), "Other token secret kept");
+    assertTrue(cache.isRejected("c", "any"), "Other unknown token kept");
+    assertEquals(2, cache.size(), "Remaining entries");
+  }
+
+  @Test
+  public void clear() {
+    // GIVEN
+    cache.rejectToken("a");
+    cache.rejectSecret("b", "bad");
+    cache.rejectSecret("b", "worse");
+
+    // WHEN
+    cache.clear();
+
+    // THEN
+    assertEquals(0, cache.size(), "All entries forgotten");
+    assertFalse(cache.isRejected("b", "bad"), "Secret forgotten");
+  }
+
+  @Test
+  public void hitAndMissCounts() {
+    // GIVEN
+    cache.rejectToken("a");
+
+    // WHEN
+    cache.isRejected("a", "x");
+    cache.isRejected("a", "y");
+    cache.isRejected("b", "x");
+
+    // THEN
+    assertEquals(2L, cache.getHitCount(), "Hits");
+    assertEquals(1L, cache.getMissCount(), "Misses");
+  }
+
+}
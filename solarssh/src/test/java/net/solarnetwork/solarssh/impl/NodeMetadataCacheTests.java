@@ -0,0 +1,224 @@
+/* ==================================================================
+ * NodeMetadataCacheTests.java - 23/10/2026 2:17:40 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.AuthorizationException;
+import net.solarnetwork.solarssh.domain.NodeMetadataResponse;
+import net.solarnetwork.solarssh.service.SolarNetClient;
+import net.solarnetwork.solarssh.test.MutableClock;
+
+/**
+ * Test cases for the {@link NodeMetadataCache} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class NodeMetadataCacheTests {
+
+  private static final long EXPIRE = 60_000L;
+  private static final long REVALIDATE = 600_000L;
+  private static final Long NODE_ID = 1L;
+  private static final String AUTH_A = "SNWS2 Credential=tok,SignedHeaders=date;host,Signature=a";
+  private static final String AUTH_B = "SNWS2 Credential=tok,SignedHeaders=date;host,Signature=b";
+
+  private MutableClock clock;
+  private SolarNetClient client;
+  private NodeMetadataCache cache;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    clock = new MutableClock(1_000_000L);
+    client = mock(SolarNetClient.class);
+    when(client.getNodeMetadata(any(), anyLong(), anyString(), any())).thenAnswer(invocation -> {
+      NodeMetadataResponse previous = invocation.getArgument(3);
+      if (previous != null) {
+        return previous.asNotModified();
+      }
+      GeneralDatumMetadata meta = new GeneralDatumMetadata();
+      meta.putInfoValue("node", invocation.getArgument(0).toString());
+      return new NodeMetadataResponse(meta, "\"etag\"", 0, false);
+    });
+    cache = new NodeMetadataCache(clock);
+    cache.setExpireMillis(EXPIRE);
+    cache.setRevalidateMillis(REVALIDATE);
+  }
+
+  private GeneralDatumMetadata get(Long nodeId, String auth) throws Exception {
+    return cache.getNodeMetadata(client, nodeId, clock.millis(), auth);
+  }
+
+  @Test
+  public void hitForSameAuthorization() throws Exception {
+    // GIVEN
+    GeneralDatumMetadata first = get(NODE_ID, AUTH_A);
+
+    // WHEN
+    clock.advance(EXPIRE - 1);
+    GeneralDatumMetadata second = get(NODE_ID, AUTH_A);
+
+    // THEN
+    assertSame(first, second, "Cached metadata returned");
+    verify(client, times(1)).getNodeMetadata(any(), anyLong(), anyString(), any());
+    assertEquals(1L, cache.getHitCount(), "Hit");
+    assertEquals(1L, cache.getMissCount(), "Miss");
+  }
+
+  @Test
+  public void revalidateForDifferentAuthorization() throws Exception {
+    // GIVEN
+    GeneralDatumMetadata first = get(NODE_ID, AUTH_A);
+
+    // WHEN
+    GeneralDatumMetadata second = get(NODE_ID, AUTH_B);
+
+    // THEN
+    assertSame(first, second, "Revalidated metadata returned");
+    verify(client).getNodeMetadata(eq(NODE_ID), anyLong(), eq(AUTH_A), isNull());
+    verify(client).getNodeMetadata(eq(NODE_ID), anyLong(), eq(AUTH_B), notNull());
+    assertEquals(0L, cache.getHitCount(), "No hit for other authorization");
+    assertEquals(1L, cache.getRevalidationCount(), "Revalidated");
+  }
+
+  @Test
+  public void revalidateSameAuthorizationAfterExpire() throws Exception {
+    // GIVEN
+    get(NODE_ID, AUTH_A);
+
+    // WHEN
+    clock.advance(EXPIRE);
+    get(NODE_ID, AUTH_A);
+
+    // THEN
+    verify(client).getNodeMetadata(eq(NODE_ID), anyLong(), eq(AUTH_A), notNull());
+    assertEquals(1L, cache.getRevalidationCount(), "Revalidated after expire");
+  }
+
+  @Test
+  public void authorizationExceptionEvicts() throws Exception {
+    // GIVEN
+    get(NODE_ID, AUTH_A);
+    doThrow(new AuthorizationException("denied")).when(client).getNodeMetadata(any(), anyLong(),
+        eq(AUTH_B), any());
+
+    // WHEN
+    assertThrows(AuthorizationException.class, () -> get(NODE_ID, AUTH_B));
+
+    // THEN
+    assertEquals(0, cache.size(), "Entry evicted");
+    get(NODE_ID, AUTH_A);
+    verify(client, times(2)).getNodeMetadata(eq(NODE_ID), anyLong(), eq(AUTH_A), isNull());
+  }
+
+  @Test
+  public void discardAfterRevalidateTime() throws Exception {
+    // GIVEN
+    get(NODE_ID, AUTH_A);
+
+    // WHEN
+    clock.advance(REVALIDATE);
+    get(NODE_ID, AUTH_B);
+
+    // THEN
+    verify(client).getNodeMetadata(eq(NODE_ID), anyLong(), eq(AUTH_B), isNull());
+    assertEquals(2L, cache.getMissCount(), "Downloaded again");
+    assertEquals(0L, cache.getRevalidationCount(), "Not revalidated");
+  }
+
+  @Test
+  public void unsignedAuthorizationNotCached() throws Exception {
+    // WHEN
+    get(NODE_ID, "Bearer x");
+    get(NODE_ID, "Bearer x");
+
+    // THEN
+    verify(client, times(2)).getNodeMetadata(NODE_ID, 1_000_000L, "Bearer x");
+    verifyNoMoreInteractions(client);
+    assertEquals(0, cache.size(), "Nothing cached");
+  }
+
+  @Test
+  public void pruneEvictsLeastRecentlyValidated() throws Exception {
+    // GIVEN
+    cache.setMaxEntries(3);
+    get(1L, AUTH_A);
+    clock.advance(1);
+    get(2L, AUTH_A);
+    clock.advance(1);
+    get(3L, AUTH_A);
+    clock.advance(1);
+    get(1L, AUTH_B); // revalidating node 1 makes node 2 the oldest
+
+    // WHEN
+    get(4L, AUTH_A);
+
+    // THEN
+    assertEquals(3, cache.size(), "Bounded size");
+    get(1L, AUTH_B);
+    get(3L, AUTH_A);
+    get(4L, AUTH_A);
+    assertEquals(3L, cache.getHitCount(), "Recently validated entries kept");
+    get(2L, AUTH_A);
+    verify(client, times(2)).getNodeMetadata(eq(2L), anyLong(), eq(AUTH_A), isNull());
+  }
+
+  @Test
+  public void pruneDiscardsExpiredFirst() throws Exception {
+    // GIVEN
+    cache.setMaxEntries(3);
+    get(1L, AUTH_A);
+    clock.advance(REVALIDATE - 10);
+    get(2L, AUTH_A);
+    get(3L, AUTH_A);
+    clock.advance(10);
+
+    // WHEN
+    get(4L, AUTH_A);
+
+    // THEN
+    assertEquals(3, cache.size(), "Only the expired entry discarded");
+    get(2L, AUTH_A);
+    get(3L, AUTH_A);
+    assertEquals(2L, cache.getHitCount(), "Unexpired entries kept");
+  }
+
+}
@@ -0,0 +1,198 @@
+/* ==================================================================
+ * PgActorCacheInvalidatorDatabaseTests.java - 21/10/2026 5:03:22 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import net.solarnetwork.solarssh.domain.Actor;
+
+/**
+ * Test cases for the {@link PgActorCacheInvalidator} class, run against a real Postgres database
+ * with the example notification triggers installed.
+ *
+ * <p>
+ * These tests are skipped unless the {@literal test.db.url} system property is set, for example
+ * with {@code ./gradlew test -Ptest.db.url=jdbc:postgresql://localhost/solarnetwork_unittest}. The
+ * {@literal test.db.username} and {@literal test.db.password} properties can also be given. The
+ * triggers are installed on stand-in tables in a temporary schema, which is dropped afterwards, so
+ * the database does not need the SolarNetwork schema.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class PgActorCacheInvalidatorDatabaseTests {
+
+  private static final String CHANNEL = "solarssh_token";
+  private static final String SCHEMA = "solarssh_test_notify";
+  private static final Path TRIGGER_SCRIPT = Path.of("config/example/actor-cache-notify.sql");
+
+  private JdbcTemplate jdbcTemplate;
+  private RefreshAheadCache<String, Actor> actorCache;
+  private NegativeTokenCache negativeCache;
+  private PgActorCacheInvalidator invalidator;
+
+  @BeforeEach
+  public void setup() throws IOException, InterruptedException {
+    final String url = System.getProperty("test.db.url");
+    assumeTrue(url != null && !url.isBlank(), "No test.db.url property configured");
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(url,
+        System.getProperty("test.db.username"), System.getProperty("test.db.password"));
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    installTriggers();
+
+    actorCache = new RefreshAheadCache<>("test", Runnable::run);
+    negativeCache = new NegativeTokenCache();
+    invalidator = new PgActorCacheInvalidator(dataSource, CHANNEL, actorCache);
+    invalidator.setNegativeCache(negativeCache);
+    invalidator.setPollMillis(100);
+    invalidator.start();
+    assertTrue(invalidator.awaitListening(10, TimeUnit.SECONDS), "Listener started");
+  }
+
+  @AfterEach
+  public void teardown() {
+    if (invalidator != null) {
+      invalidator.stop();
+    }
+    if (jdbcTemplate != null) {
+      jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+  }
+
+  private void installTriggers() throws IOException {
+    jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+    jdbcTemplate.execute("CREATE TABLE " + SCHEMA + ".user_auth_token ("
+        + "auth_token VARCHAR(20) PRIMARY KEY, user_id BIGINT NOT NULL, "
+        + "status VARCHAR(10) NOT NULL DEFAULT 'Active')");
+    jdbcTemplate.execute("CREATE TABLE " + SCHEMA + ".user_node ("
+        + "node_id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL)");
+    String script = Files.readString(TRIGGER_SCRIPT, UTF_8).replace("solaruser.", SCHEMA + ".");
+    jdbcTemplate.execute(script);
+  }
+
+  private void givenCached(String tokenId) {
+    actorCache.put(tokenId, mock(Actor.class));
+    negativeCache.rejectSecret(tokenId, "wrong");
+  }
+
+  private static boolean await(BooleanSupplier condition) throws InterruptedException {
+    final long giveUp = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > giveUp) {
+        return false;
+      }
+      Thread.sleep(20);
+    }
+    return true;
+  }
+
+  @Test
+  public void updateEvictsToken() throws Exception {
+    // GIVEN
+    jdbcTemplate.update("INSERT INTO " + SCHEMA + ".user_auth_token (auth_token, user_id) "
+        + "VALUES ('test-a', 1), ('test-b', 1)");
+    assertTrue(await(() -> invalidator.getEvictionCount() >= 2), "Insert notifications handled");
+    givenCached("test-a");
+    givenCached("test-b");
+
+    // WHEN
+    jdbcTemplate.update("UPDATE " + SCHEMA + ".user_auth_token SET status = 'Disabled' "
+        + "WHERE auth_token = 'test-a'");
+
+    // THEN
+    assertTrue(await(() -> actorCache.getIfPresent("test-a") == null), "Updated actor evicted");
+    assertFalse(negativeCache.isRejected("test-a", "wrong"),
+        "Updated token evicted from negative cache");
+    assertNotNull(actorCache.getIfPresent("test-b"), "Other actor kept");
+  }
+
+  @Test
+  public void deleteEvictsToken() throws Exception {
+    // GIVEN
+    jdbcTemplate.update("INSERT INTO " + SCHEMA + ".user_auth_token (auth_token, user_id) "
+        + "VALUES ('test-a', 1)");
+    assertTrue(await(() -> invalidator.getEvictionCount() >= 1), "Insert notification handled");
+    givenCached("test-a");
+
+    // WHEN
+    jdbcTemplate.update("DELETE FROM " + SCHEMA + ".user_auth_token WHERE auth_token = 'test-a'");
+
+    // THEN
+    assertTrue(await(() -> actorCache.getIfPresent("test-a") == null), "Deleted actor evicted");
+    assertFalse(negativeCache.isRejected("test-a", "wrong"),
+        "Deleted token evicted from negative cache");
+  }
+
+  @Test
+  public void insertEvictsRejectedToken() throws Exception {
+    // GIVEN
+    negativeCache.rejectToken("test-new");
+
+    // WHEN
+    jdbcTemplate.update("INSERT INTO " + SCHEMA + ".user_auth_token (auth_token, user_id) "
+        + "VALUES ('test-new', 1)");
+
+    // THEN
+    assertTrue(await(() -> !negativeCache.isRejected("test-new", "secret")),
+        "New token no longer rejected");
+    assertNull(actorCache.getIfPresent("test-new"), "Nothing cached for new token");
+  }
+
+  @Test
+  public void nodeOwnershipChangeEvictsOwnerTokens() throws Exception {
+    // GIVEN
+    jdbcTemplate.update("INSERT INTO " + SCHEMA + ".user_auth_token (auth_token, user_id) "
+        + "VALUES ('test-a', 1), ('test-b', 2)");
+    assertTrue(await(() -> invalidator.getEvictionCount() >= 2), "Insert notifications handled");
+    givenCached("test-a");
+    givenCached("test-b");
+
+    // WHEN
+    jdbcTemplate.update("INSERT INTO " + SCHEMA + ".user_node (node_id, user_id) VALUES (1, 1)");
+
+    // THEN
+    assertTrue(await(() -> actorCache.getIfPresent("test-a") == null), "Owner's actor evicted");
+    assertNotNull(actorCache.getIfPresent("test-b"), "Other user's actor kept");
+  }
+
+}
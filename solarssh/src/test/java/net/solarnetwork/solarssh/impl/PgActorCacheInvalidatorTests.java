@@ -0,0 +1,204 @@
+/* ==================================================================
+ * PgActorCacheInvalidatorTests.java - 21/10/2026 4:18:05 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import net.solarnetwork.solarssh.domain.Actor;
+
+/**
+ * Test cases for the {@link PgActorCacheInvalidator} class.
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class PgActorCacheInvalidatorTests {
+
+  private static final String CHANNEL = "solarssh_token";
+  private static final int POLL_MILLIS = 50;
+
+  private final Queue<Object> events = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean dropConnection = new AtomicBoolean();
+  private final AtomicInteger connections = new AtomicInteger();
+  private DataSource dataSource;
+  private RefreshAheadCache<String, Actor> actorCache;
+  private NegativeTokenCache negativeCache;
+  private PgActorCacheInvalidator invalidator;
+
+  @BeforeEach
+  public void setup() throws SQLException {
+    dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenAnswer(invocation -> connection());
+    actorCache = new RefreshAheadCache<>("test", Runnable::run);
+    negativeCache = new NegativeTokenCache();
+    invalidator = new PgActorCacheInvalidator(dataSource, CHANNEL, actorCache);
+    invalidator.setNegativeCache(negativeCache);
+    invalidator.setPollMillis(POLL_MILLIS);
+  }
+
+  @AfterEach
+  public void teardown() {
+    invalidator.stop();
+  }
+
+  private Connection connection() throws SQLException {
+    connections.incrementAndGet();
+    Connection conn = mock(Connection.class);
+    PGConnection pgConn = mock(PGConnection.class);
+    when(conn.unwrap(PGConnection.class)).thenReturn(pgConn);
+    when(conn.createStatement()).thenReturn(mock(Statement.class));
+    when(conn.isValid(anyInt())).thenAnswer(invocation -> {
+      // as if the connection was silently dropped, so only the liveness check fails
+      if (dropConnection.getAndSet(false)) {
+        throw new SQLException("Connection reset");
+      }
+      return true;
+    });
+    when(pgConn.getNotifications(anyInt())).thenAnswer(invocation -> {
+      // events are notification payloads, or exceptions that drop the connection
+      Object event = events.poll();
+      if (event instanceof SQLException e) {
+        throw e;
+      } else if (event instanceof String tokenId) {
+        PGNotification n = mock(PGNotification.class);
+        when(n.getParameter()).thenReturn(tokenId);
+        return new PGNotification[] { n };
+      }
+      try {
+        Thread.sleep(POLL_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return null;
+    });
+    return conn;
+  }
+
+  private void givenCached(String tokenId) {
+    actorCache.put(tokenId, mock(Actor.class));
+    negativeCache.rejectSecret(tokenId, "wrong");
+  }
+
+  private static boolean await(BooleanSupplier condition) throws InterruptedException {
+    final long giveUp = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > giveUp) {
+        return false;
+      }
+      Thread.sleep(20);
+    }
+    return true;
+  }
+
+  @Test
+  public void firstConnectKeepsCachedActors() throws Exception {
+    // GIVEN
+    givenCached("a");
+
+    // WHEN
+    invalidator.start();
+    boolean listening = invalidator.awaitListening(5, TimeUnit.SECONDS);
+    Thread.sleep(POLL_MILLIS * 3);
+
+    // THEN
+    assertTrue(listening, "Listener started");
+    assertNotNull(actorCache.getIfPresent("a"), "Preloaded actor kept after first connect");
+    assertTrue(negativeCache.isRejected("a", "wrong"), "Rejected secret kept after first connect");
+  }
+
+  @Test
+  public void notificationEvictsToken() throws Exception {
+    // GIVEN
+    invalidator.start();
+    assertTrue(invalidator.awaitListening(5, TimeUnit.SECONDS), "Listener started");
+    givenCached("a");
+    givenCached("b");
+
+    // WHEN
+    events.add("a");
+
+    // THEN
+    assertTrue(await(() -> invalidator.getEvictionCount() > 0), "Notification handled");
+    assertNull(actorCache.getIfPresent("a"), "Notified actor evicted");
+    assertFalse(negativeCache.isRejected("a", "wrong"), "Notified token evicted from negative");
+    assertNotNull(actorCache.getIfPresent("b"), "Other actor kept");
+    assertTrue(negativeCache.isRejected("b", "wrong"), "Other token kept in negative cache");
+  }
+
+  @Test
+  public void reconnectClearsCaches() throws Exception {
+    // GIVEN
+    invalidator.start();
+    assertTrue(invalidator.awaitListening(5, TimeUnit.SECONDS), "Listener started");
+    givenCached("a");
+
+    // WHEN
+    events.add(new SQLException("Connection lost"));
+
+    // THEN
+    assertTrue(await(() -> actorCache.size() == 0), "Actor cache cleared on reconnect");
+    assertEquals(0, negativeCache.size(), "Negative cache cleared on reconnect");
+  }
+
+  @Test
+  public void failedLivenessCheckClearsCaches() throws Exception {
+    // GIVEN
+    invalidator.start();
+    assertTrue(invalidator.awaitListening(5, TimeUnit.SECONDS), "Listener started");
+    givenCached("a");
+
+    // WHEN
+    dropConnection.set(true);
+
+    // THEN
+    assertTrue(await(() -> actorCache.size() == 0), "Actor cache cleared on reconnect");
+    assertEquals(0, negativeCache.size(), "Negative cache cleared on reconnect");
+    assertEquals(2, connections.get(), "Reconnected after failed liveness check");
+  }
+
+}
@@ -0,0 +1,358 @@
+/* ==================================================================
+ * RefreshAheadCacheTests.java - 22/10/2026 5:47:03 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.solarssh.test.MutableClock;
+
+/**
+ * Test cases for the {@link RefreshAheadCache} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class RefreshAheadCacheTests {
+
+  private static final long REFRESH_AFTER = 600L;
+  private static final long EXPIRE = 900L;
+  private static final long STALE = 900L;
+
+  private MutableClock clock;
+  private Deque<Runnable> tasks;
+  private RefreshAheadCache<String, String> cache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  public void setup() {
+    clock = new MutableClock(1_000_000L);
+    tasks = new ArrayDeque<>();
+    loads = new AtomicInteger();
+    cache = newCache(tasks::add);
+  }
+
+  private RefreshAheadCache<String, String> newCache(Executor executor) {
+    RefreshAheadCache<String, String> c = new RefreshAheadCache<>("test", executor, clock);
+    c.setRefreshAfterMillis(REFRESH_AFTER);
+    c.setExpireMillis(EXPIRE);
+    c.setStaleMillis(STALE);
+    c.setStaleWaitMillis(1);
+    return c;
+  }
+
+  private Function<String, String> loader(String value) {
+    return k -> {
+      loads.incrementAndGet();
+      return value;
+    };
+  }
+
+  private void runTasks() {
+    for (Runnable r; (r = tasks.poll()) != null;) {
+      r.run();
+    }
+  }
+
+  @Test
+  public void missLoadsSynchronously() {
+    // WHEN
+    String result = cache.get("a", loader("one"));
+
+    // THEN
+    assertEquals("one", result, "Loaded value");
+    assertEquals(1, loads.get(), "Loaded once");
+    assertEquals(1, cache.size(), "Value cached");
+    assertEquals(1L, cache.getMissCount(), "Miss");
+    assertTrue(tasks.isEmpty(), "Nothing loaded in background");
+  }
+
+  @Test
+  public void freshHit() {
+    // GIVEN
+    cache.get("a", loader("one"));
+    clock.advance(REFRESH_AFTER - 1);
+
+    // WHEN
+    String result = cache.get("a", loader("two"));
+
+    // THEN
+    assertEquals("one", result, "Cached value");
+    assertEquals(1, loads.get(), "Not loaded again");
+    assertTrue(tasks.isEmpty(), "No refresh");
+    assertEquals(1L, cache.getHitCount(), "Hit");
+  }
+
+  @Test
+  public void refreshAhead() {
+    // GIVEN
+    cache.get("a", loader("one"));
+    clock.advance(REFRESH_AFTER);
+
+    // WHEN
+    String result = cache.get("a", loader("two"));
+    String again = cache.get("a", loader("three"));
+
+    // THEN
+    assertEquals("one", result, "Current value returned without waiting");
+    assertEquals("one", again, "Current value returned while refresh pending");
+    assertEquals(1, tasks.size(), "One refresh for concurrent requests");
+    assertEquals(1L, cache.getRefreshCount(), "Refresh counted");
+    runTasks();
+    assertEquals("two", cache.get("a", loader("four")), "Refreshed value");
+    assertEquals(2, loads.get(), "Loaded once more");
+  }
+
+  @Test
+  public void refreshRestartsAge() {
+    // GIVEN
+    cache.get("a", loader("one"));
+    clock.advance(REFRESH_AFTER);
+    cache.get("a", loader("two"));
+    runTasks();
+
+    // WHEN
+    clock.advance(REFRESH_AFTER - 1);
+    cache.get("a", loader("three"));
+
+    // THEN
+    assertTrue(tasks.isEmpty(), "Refreshed value fresh");
+  }
+
+  @Test
+  public void refreshFailureKeepsValue() {
+    // GIVEN
+    cache.get("a", loader("one"));
+    clock.advance(REFRESH_AFTER);
+    cache.get("a", k -> {
+      throw new IllegalStateException("Database down");
+    });
+
+    // WHEN
+    runTasks();
+
+    // THEN
+    assertEquals("one", cache.get("a", loader("two")), "Value kept");
+  }
+
+  @Test
+  public void refreshRejectedKeepsValue() {
+    // GIVEN
+    cache = newCache(r -> {
+      throw new RejectedExecutionException("Full");
+    });
+    cache.get("a", loader("one"));
+    clock.advance(REFRESH_AFTER);
+
+    // WHEN
+    String result = cache.get("a", loader("two"));
+
+    // THEN
+    assertEquals("one", result, "Value returned when refresh rejected");
+  }
+
+  @Test
+  public void staleWhileRevalidate() {
+    // GIVEN
+    cache.get("a", loader("one"));
+    clock.advance(EXPIRE);
+
+    // WHEN
+    String result = cache.get("a", loader("two"));
+
+    // THEN
+    assertEquals("one", result, "Stale value returned when refresh slow");
+    assertEquals(1L, cache.getStaleHitCount(), "Stale hit");
+    assertNull(cache.getIfPresent("a"), "Stale value not present");
+    runTasks();
+    assertEquals("two", cache.getIfPresent("a"), "Refreshed value");
+  }
+
+  @Test
+  public void staleRefreshedInTime() {
+    // GIVEN
+    cache = newCache(Runnable::run);
+    cache.get("a", loader("one"));
+    clock.advance(EXPIRE + STALE - 1);
+
+    // WHEN
+    String result = cache.get("a", loader("two"));
+
+    // THEN
+    assertEquals("two", result, "Refreshed value returned");
+    assertEquals(0L, cache.getStaleHitCount(), "No stale hit");
+  }
+
+  @Test
+  public void beyondStaleLoadsSynchronously() {
+    // GIVEN
+    cache.get("a", loader("one"));
+    clock.advance(EXPIRE + STALE);
+
+    // WHEN
+    String result = cache.get("a", loader("two"));
+
+    // THEN
+    assertEquals("two", result, "Loaded value");
+    assertTrue(tasks.isEmpty(), "Nothing loaded in background");
+  }
+
+  @Test
+  public void nullNotCached() {
+    // WHEN
+    assertNull(cache.get("a", loader(null)), "No value");
+
+    // THEN
+    assertEquals(0, cache.size(), "Nothing cached");
+    assertNull(cache.get("a", loader(null)), "No value");
+    assertEquals(2, loads.get(), "Loaded again");
+  }
+
+  @Test
+  public void loadErrorThrown() {
+    // WHEN
+    IllegalStateException e = new IllegalStateException("Database down");
+    IllegalStateException thrown = assertThrows(IllegalStateException.class,
+        () -> cache.get("a", k -> {
+          throw e;
+        }), "Load error thrown");
+
+    // THEN
+    assertSame(e, thrown, "Loader exception");
+    assertEquals(0, cache.size(), "Nothing cached");
+    assertEquals("one", cache.get("a", loader("one")), "Loaded again");
+  }
+
+  @Test
+  public void removeDuringLoadNotCached() {
+    // WHEN
+    String result = cache.get("a", k -> {
+      cache.remove(k);
+      return "one";
+    });
+
+    // THEN
+    assertEquals("one", result, "Loaded value returned");
+    assertEquals(0, cache.size(), "Value loaded during removal not cached");
+  }
+
+  @Test
+  public void removeDuringRefreshNotCached() {
+    // GIVEN
+    cache.get("a", loader("one"));
+    clock.advance(REFRESH_AFTER);
+    cache.get("a", loader("two"));
+
+    // WHEN
+    cache.remove("a");
+    runTasks();
+
+    // THEN
+    assertEquals(0, cache.size(), "Refreshed value not cached");
+    assertEquals("three", cache.get("a", loader("three")), "Loaded again");
+  }
+
+  @Test
+  public void removeOtherKeyDuringLoadNotCached() {
+    // WHEN
+    cache.get("a", k -> {
+      cache.remove("b");
+      return "one";
+    });
+
+    // THEN
+    assertEquals(0, cache.size(), "Any invalidation discards loaded value");
+  }
+
+  @Test
+  public void clearDuringRefreshNotCached() {
+    // GIVEN
+    cache.get("a", loader("one"));
+    clock.advance(REFRESH_AFTER);
+    cache.get("a", loader("two"));
+
+    // WHEN
+    cache.clear();
+    runTasks();
+
+    // THEN
+    assertEquals(0, cache.size(), "Refreshed value not cached");
+  }
+
+  @Test
+  public void putIfNotInvalidated() {
+    // GIVEN
+    long stamp = cache.invalidationStamp();
+
+    // WHEN
+    boolean result = cache.putIfNotInvalidated("a", "one", stamp);
+
+    // THEN
+    assertTrue(result, "Cached");
+    assertEquals("one", cache.getIfPresent("a"), "Value cached");
+  }
+
+  @Test
+  public void putIfNotInvalidatedAfterRemove() {
+    // GIVEN
+    long stamp = cache.invalidationStamp();
+    cache.remove("a");
+
+    // WHEN
+    boolean result = cache.putIfNotInvalidated("a", "one", stamp);
+
+    // THEN
+    assertFalse(result, "Not cached");
+    assertNull(cache.getIfPresent("a"), "No value");
+  }
+
+  @Test
+  public void maxEntries() {
+    // GIVEN
+    cache.setMaxEntries(10);
+
+    // WHEN
+    for (int i = 0; i < 25; i++) {
+      cache.put("k" + i, "v" + i);
+    }
+
+    // THEN
+    assertTrue(cache.size() <= 10, "Size bounded");
+    assertEquals("v24", cache.getIfPresent("k24"), "Latest value cached");
+  }
+
+}
@@ -0,0 +1,329 @@
+/* ==================================================================
+ * ResilientSolarNetClientTests.java - 23/10/2026 10:05:37 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.solarssh.AuthorizationException;
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+import net.solarnetwork.solarssh.service.SolarNetClient;
+
+/**
+ * Test cases for the {@link ResilientSolarNetClient} class, using stub delegates.
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class ResilientSolarNetClientTests {
+
+  private static final Long TEST_ID = 1L;
+  private static final String TEST_AUTH = "SNWS2 Credential=test";
+
+  private SolarNetClient delegate;
+  private SolarNetClient hedgeDelegate;
+  private CircuitBreaker breaker;
+  private ResilientSolarNetClient client;
+  private ExecutorService callers;
+
+  @BeforeEach
+  public void setup() {
+    delegate = mock(SolarNetClient.class);
+    hedgeDelegate = mock(SolarNetClient.class);
+    breaker = new CircuitBreaker();
+    breaker.setFailureThreshold(1);
+    client = new ResilientSolarNetClient(delegate, breaker);
+    client.setDefaultBudgetMillis(5000);
+    callers = Executors.newCachedThreadPool();
+  }
+
+  @AfterEach
+  public void teardown() {
+    client.shutdown();
+    callers.shutdownNow();
+  }
+
+  private static SolarNetInstruction instruction(Long id) {
+    SolarNetInstruction instr = new SolarNetInstruction();
+    instr.setId(id);
+    return instr;
+  }
+
+  private SolarNetInstruction getInstruction() throws IOException {
+    return client.getInstruction(TEST_ID, System.currentTimeMillis(), TEST_AUTH);
+  }
+
+  @Test
+  public void success() throws Exception {
+    // GIVEN
+    client.init();
+    SolarNetInstruction instr = instruction(TEST_ID);
+    when(delegate.getInstruction(anyLong(), anyLong(), anyString())).thenReturn(instr);
+
+    // WHEN
+    SolarNetInstruction result = getInstruction();
+
+    // THEN
+    assertSame(instr, result, "Delegate result returned");
+    assertEquals(1L,
+        client.latencyHistogram(ResilientSolarNetClient.ENDPOINT_GET_INSTRUCTION).getCount(),
+        "Latency recorded");
+  }
+
+  @Test
+  public void ioExceptionCountsAsFailure() throws Exception {
+    // GIVEN
+    client.init();
+    when(delegate.getInstruction(anyLong(), anyLong(), anyString()))
+        .thenThrow(new IOException("boom"));
+
+    // WHEN
+    IOException e = assertThrows(IOException.class, this::getInstruction);
+
+    // THEN
+    assertEquals("boom", e.getMessage(), "Delegate exception thrown");
+    assertEquals(CircuitBreaker.State.Open, breaker.getState(), "Failure opened circuit");
+    IOException fast = assertThrows(IOException.class, this::getInstruction);
+    assertTrue(fast.getMessage().contains("circuit open"), "Failed fast");
+    verify(delegate, times(1)).getInstruction(anyLong(), anyLong(), anyString());
+  }
+
+  @Test
+  public void timeoutCountsAsFailure() throws Exception {
+    // GIVEN
+    client.setDefaultBudgetMillis(50);
+    client.init();
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    when(delegate.getInstruction(anyLong(), anyLong(), anyString())).thenAnswer(invocation -> {
+      try {
+        Thread.sleep(60_000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return null;
+    });
+
+    // WHEN
+    assertThrows(HttpTimeoutException.class, this::getInstruction);
+
+    // THEN
+    assertEquals(CircuitBreaker.State.Open, breaker.getState(), "Timeout opened circuit");
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS), "Abandoned worker interrupted");
+  }
+
+  @Test
+  public void authorizationExceptionCountsAsHealthy() throws Exception {
+    // GIVEN
+    client.init();
+    when(delegate.getInstruction(anyLong(), anyLong(), anyString()))
+        .thenThrow(new AuthorizationException("denied"));
+
+    // WHEN
+    assertThrows(AuthorizationException.class, this::getInstruction);
+
+    // THEN
+    assertEquals(CircuitBreaker.State.Closed, breaker.getState(), "Circuit still closed");
+    assertThrows(AuthorizationException.class, this::getInstruction);
+    verify(delegate, times(2)).getInstruction(anyLong(), anyLong(), anyString());
+  }
+
+  @Test
+  public void saturationNotCountedAsFailure() throws Exception {
+    // GIVEN
+    client.setMaxConcurrency(1);
+    client.setQueueCapacity(1);
+    client.init();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    SolarNetInstruction instr = instruction(TEST_ID);
+    when(delegate.getInstruction(anyLong(), anyLong(), anyString())).thenAnswer(invocation -> {
+      started.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return instr;
+    });
+    final Future<SolarNetInstruction> running = callers.submit(this::getInstruction);
+    assertTrue(started.await(5, TimeUnit.SECONDS), "First call running");
+    final Future<SolarNetInstruction> queued = callers.submit(this::getInstruction);
+    final long giveUp = System.currentTimeMillis() + 5000;
+    while (((Number) client.performPingTest().getProperties().get("queueSize")).intValue() < 1
+        && System.currentTimeMillis() < giveUp) {
+      Thread.sleep(10);
+    }
+
+    // WHEN
+    IOException e = assertThrows(IOException.class, this::getInstruction);
+
+    // THEN
+    assertTrue(e.getMessage().contains("capacity exhausted"), "Rejected for capacity");
+    assertEquals(CircuitBreaker.State.Closed, breaker.getState(), "Circuit still closed");
+    release.countDown();
+    assertSame(instr, running.get(5, TimeUnit.SECONDS), "Running call completed");
+    assertSame(instr, queued.get(5, TimeUnit.SECONDS), "Queued call completed");
+    assertEquals(1L, client.performPingTest().getProperties().get("saturationCount"),
+        "Saturation counted");
+  }
+
+  @Test
+  public void hedgeWins() throws Exception {
+    // GIVEN
+    client.setHedgeDelegate(hedgeDelegate);
+    client.setHedgeDelayMillis(50);
+    client.init();
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    when(delegate.getInstruction(anyLong(), anyLong(), anyString())).thenAnswer(invocation -> {
+      try {
+        Thread.sleep(60_000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return null;
+    });
+    SolarNetInstruction instr = instruction(TEST_ID);
+    when(hedgeDelegate.getInstruction(anyLong(), anyLong(), anyString())).thenReturn(instr);
+
+    // WHEN
+    SolarNetInstruction result = getInstruction();
+
+    // THEN
+    assertSame(instr, result, "Hedge result returned");
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS), "Losing primary cancelled");
+    assertEquals(1L, client.performPingTest().getProperties().get("hedgeCount"), "Hedged");
+    assertEquals(CircuitBreaker.State.Closed, breaker.getState(), "Circuit closed");
+  }
+
+  @Test
+  public void primaryWinsBeforeHedgeDelay() throws Exception {
+    // GIVEN
+    client.setHedgeDelegate(hedgeDelegate);
+    client.setHedgeDelayMillis(2000);
+    client.init();
+    SolarNetInstruction instr = instruction(TEST_ID);
+    when(delegate.getInstruction(anyLong(), anyLong(), anyString())).thenReturn(instr);
+
+    // WHEN
+    SolarNetInstruction result = getInstruction();
+
+    // THEN
+    assertSame(instr, result, "Primary result returned");
+    verify(hedgeDelegate, never()).getInstruction(anyLong(), anyLong(), anyString());
+  }
+
+  @Test
+  public void nonIdempotentCallNotHedged() throws Exception {
+    // GIVEN
+    client.setHedgeDelegate(hedgeDelegate);
+    client.setHedgeDelayMillis(10);
+    client.init();
+    when(delegate.queueInstruction(anyString(), anyLong(), anyMap(),
+        anyLong(), anyString())).thenAnswer(invocation -> {
+          Thread.sleep(100);
+          return TEST_ID;
+        });
+
+    // WHEN
+    Long id = client.queueInstruction("Test", TEST_ID, Map.of(),
+        System.currentTimeMillis(), TEST_AUTH);
+
+    // THEN
+    assertEquals(TEST_ID, id, "Queued");
+    verify(hedgeDelegate, never()).queueInstruction(anyString(), anyLong(),
+        anyMap(), anyLong(), anyString());
+  }
+
+  private Long queueInstruction() throws IOException {
+    return client.queueInstruction("Test", TEST_ID, Map.of(), System.currentTimeMillis(),
+        TEST_AUTH);
+  }
+
+  @Test
+  public void queueInstructionIgnoresDefaultBudget() throws Exception {
+    // GIVEN
+    client.setDefaultBudgetMillis(50);
+    client.init();
+    when(delegate.queueInstruction(anyString(), anyLong(), anyMap(), anyLong(), anyString()))
+        .thenAnswer(invocation -> {
+          Thread.sleep(300);
+          return TEST_ID;
+        });
+
+    // WHEN
+    Long id = queueInstruction();
+
+    // THEN
+    assertEquals(TEST_ID, id, "Queued despite exceeding the default budget");
+    assertEquals(0L, client.performPingTest().getProperties().get("timeoutCount"),
+        "No timeout");
+  }
+
+  @Test
+  public void queueInstructionBudgetDoesNotCancel() throws Exception {
+    // GIVEN
+    client.setBudgetMillis(ResilientSolarNetClient.ENDPOINT_QUEUE_INSTRUCTION, 50);
+    client.init();
+    final AtomicBoolean interrupted = new AtomicBoolean();
+    final CountDownLatch completed = new CountDownLatch(1);
+    when(delegate.queueInstruction(anyString(), anyLong(), anyMap(), anyLong(), anyString()))
+        .thenAnswer(invocation -> {
+          try {
+            Thread.sleep(300);
+          } catch (InterruptedException e) {
+            interrupted.set(true);
+          }
+          completed.countDown();
+          return TEST_ID;
+        });
+
+    // WHEN
+    assertThrows(HttpTimeoutException.class, this::queueInstruction);
+
+    // THEN
+    assertTrue(completed.await(5, TimeUnit.SECONDS), "Request completed after caller released");
+    assertFalse(interrupted.get(), "In-flight request not cancelled");
+  }
+
+}
@@ -0,0 +1,154 @@
+/* ==================================================================
+ * SecurityPolicyInternerTests.java - 22/10/2026 7:12:19 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.central.security.SecurityPolicy;
+
+/**
+ * Test cases for the {@link SecurityPolicyInterner} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class SecurityPolicyInternerTests {
+
+  private SecurityPolicyInterner interner;
+
+  @BeforeEach
+  public void setup() {
+    interner = new SecurityPolicyInterner();
+  }
+
+  private static String policy(int nodeId) {
+    return "{\"nodeIds\":[" + nodeId + "]}";
+  }
+
+  @Test
+  public void sharedInstance() {
+    // WHEN
+    SecurityPolicy p1 = interner.intern(policy(1));
+    SecurityPolicy p2 = interner.intern(policy(1));
+
+    // THEN
+    assertNotNull(p1, "Policy parsed");
+    assertSame(p1, p2, "Same JSON shares one instance");
+    assertNotSame(p1, interner.intern(policy(2)), "Different JSON parsed apart");
+    assertEquals(1L, interner.getHitCount(), "Hits");
+    assertEquals(2L, interner.getMissCount(), "Misses");
+  }
+
+  @Test
+  public void nullAndInvalid() {
+    assertNull(interner.intern(null), "Null JSON");
+    assertNull(interner.intern("not JSON"), "Invalid JSON");
+    assertEquals(0, interner.size(), "Nothing held");
+  }
+
+  @Test
+  public void boundedLeastRecentlyUsed() {
+    // GIVEN
+    interner.setMaxEntries(3);
+    SecurityPolicy p1 = interner.intern(policy(1));
+    interner.intern(policy(2));
+    interner.intern(policy(3));
+    interner.intern(policy(1));
+
+    // WHEN
+    interner.intern(policy(4));
+
+    // THEN
+    assertEquals(3, interner.size(), "Size bounded");
+    assertSame(p1, interner.intern(policy(1)), "Recently used policy kept");
+    long misses = interner.getMissCount();
+    interner.intern(policy(2));
+    assertEquals(misses + 1, interner.getMissCount(), "Least recently used policy forgotten");
+  }
+
+  @Test
+  public void keepsSharingOnceFull() {
+    // GIVEN
+    interner.setMaxEntries(2);
+    for (int i = 0; i < 10; i++) {
+      interner.intern(policy(i));
+    }
+
+    // WHEN
+    SecurityPolicy p1 = interner.intern(policy(100));
+    SecurityPolicy p2 = interner.intern(policy(100));
+
+    // THEN
+    assertSame(p1, p2, "New policy shared after many others");
+    assertEquals(2, interner.size(), "Size bounded");
+  }
+
+  @Test
+  public void lowerMaxEntries() {
+    // GIVEN
+    for (int i = 0; i < 10; i++) {
+      interner.intern(policy(i));
+    }
+
+    // WHEN
+    interner.setMaxEntries(4);
+
+    // THEN
+    assertEquals(4, interner.size(), "Trimmed to new maximum");
+  }
+
+  @Test
+  public void sharingDisabled() {
+    // GIVEN
+    interner.setMaxEntries(0);
+
+    // WHEN
+    SecurityPolicy p1 = interner.intern(policy(1));
+    SecurityPolicy p2 = interner.intern(policy(1));
+
+    // THEN
+    assertNotSame(p1, p2, "Not shared");
+    assertEquals(0, interner.size(), "Nothing held");
+  }
+
+  @Test
+  public void clear() {
+    // GIVEN
+    SecurityPolicy p1 = interner.intern(policy(1));
+
+    // WHEN
+    interner.clear();
+
+    // THEN
+    assertEquals(0, interner.size(), "Nothing held");
+    assertNotSame(p1, interner.intern(policy(1)), "Parsed again");
+  }
+
+}
@@ -0,0 +1,159 @@
+/* ==================================================================
+ * SessionRateLimiterTests.java - 22/10/2026 4:48:17 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the {@link SessionRateLimiter} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class SessionRateLimiterTests {
+
+  private static final String TOKEN_ID = "test.token";
+  private static final Long NODE_ID = 123L;
+  private static final Long OTHER_NODE_ID = 234L;
+
+  private AtomicLong nanos;
+
+  @BeforeEach
+  public void setup() {
+    nanos = new AtomicLong();
+  }
+
+  private TokenBucketRateLimiter limiter(int burst) {
+    return new TokenBucketRateLimiter(1024, 60, burst, nanos::get);
+  }
+
+  private static InetAddress addr(String literal) {
+    return InetAddressUtils.parseLiteral(literal);
+  }
+
+  @Test
+  public void noLimits() {
+    // GIVEN
+    SessionRateLimiter limiter = new SessionRateLimiter(null, null, null);
+
+    // THEN
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limiter.tryAcquireAddress(addr("192.0.2.1")), "Address not limited");
+      assertTrue(limiter.tryAcquireTokenAndNode(TOKEN_ID, NODE_ID), "Token and node not limited");
+      assertTrue(limiter.hasTokenAndNodePermits(TOKEN_ID, NODE_ID), "Permits available");
+    }
+  }
+
+  @Test
+  public void addressLimit() {
+    // GIVEN
+    SessionRateLimiter limiter = new SessionRateLimiter(limiter(1), null, null);
+
+    // WHEN
+    assertTrue(limiter.tryAcquireAddress(addr("192.0.2.1")), "First request");
+
+    // THEN
+    assertFalse(limiter.tryAcquireAddress(addr("192.0.2.1")), "Address limited");
+    assertTrue(limiter.tryAcquireAddress(addr("192.0.2.2")), "Other address");
+    assertTrue(limiter.tryAcquireAddress(null), "Unknown address not limited");
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertTrue(limiter.tryAcquireAddress(addr("192.0.2.1")), "Permit after emission interval");
+  }
+
+  @Test
+  public void nodeRejectionReleasesTokenPermit() {
+    // GIVEN
+    SessionRateLimiter limiter = new SessionRateLimiter(null, limiter(2), limiter(1));
+    assertTrue(limiter.tryAcquireTokenAndNode(TOKEN_ID, NODE_ID), "First request");
+
+    // WHEN
+    assertFalse(limiter.tryAcquireTokenAndNode(TOKEN_ID, NODE_ID), "Node limited");
+
+    // THEN
+    assertTrue(limiter.tryAcquireTokenAndNode(TOKEN_ID, OTHER_NODE_ID),
+        "Token permit returned by node rejection");
+    assertFalse(limiter.tryAcquireTokenAndNode(TOKEN_ID, 345L), "Token burst used");
+  }
+
+  @Test
+  public void tokenRejectionDoesNotChargeNode() {
+    // GIVEN
+    SessionRateLimiter limiter = new SessionRateLimiter(null, limiter(1), limiter(1));
+    assertTrue(limiter.tryAcquireTokenAndNode(TOKEN_ID, NODE_ID), "First request");
+
+    // WHEN
+    assertFalse(limiter.tryAcquireTokenAndNode(TOKEN_ID, OTHER_NODE_ID), "Token limited");
+
+    // THEN
+    assertTrue(limiter.tryAcquireTokenAndNode("other.token", OTHER_NODE_ID),
+        "Node not charged by token rejection");
+  }
+
+  @Test
+  public void hasPermitsDoesNotCharge() {
+    // GIVEN
+    SessionRateLimiter limiter = new SessionRateLimiter(null, limiter(1), limiter(1));
+
+    // WHEN
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limiter.hasTokenAndNodePermits(TOKEN_ID, NODE_ID), "Permits available");
+    }
+
+    // THEN
+    assertTrue(limiter.tryAcquireTokenAndNode(TOKEN_ID, NODE_ID), "Permits not charged by check");
+    assertFalse(limiter.hasTokenAndNodePermits(TOKEN_ID, OTHER_NODE_ID), "Token exhausted");
+    assertFalse(limiter.hasTokenAndNodePermits("other.token", NODE_ID), "Node exhausted");
+    assertTrue(limiter.hasTokenAndNodePermits("other.token", OTHER_NODE_ID), "Others available");
+  }
+
+  @Test
+  public void rejectionCounts() throws Exception {
+    // GIVEN
+    SessionRateLimiter limiter = new SessionRateLimiter(limiter(1), limiter(1), limiter(1));
+    limiter.tryAcquireAddress(addr("192.0.2.1"));
+    limiter.tryAcquireTokenAndNode(TOKEN_ID, NODE_ID);
+
+    // WHEN
+    limiter.tryAcquireAddress(addr("192.0.2.1"));
+    limiter.tryAcquireTokenAndNode(TOKEN_ID, OTHER_NODE_ID);
+    limiter.tryAcquireTokenAndNode("other.token", NODE_ID);
+    limiter.hasTokenAndNodePermits("other.token", NODE_ID);
+
+    // THEN
+    Map<String, ?> props = limiter.performPingTest().getProperties();
+    assertEquals(1L, props.get("addressRejectionCount"), "Address rejections");
+    assertEquals(1L, props.get("tokenRejectionCount"), "Token rejections");
+    assertEquals(2L, props.get("nodeRejectionCount"), "Node rejections");
+  }
+
+}
@@ -0,0 +1,166 @@
+/* ==================================================================
+ * SigningKeyCacheTests.java - 21/10/2026 3:02:48 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import net.solarnetwork.security.Snws2AuthorizationBuilder;
+
+/**
+ * Test cases for the {@link SigningKeyCache} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class SigningKeyCacheTests {
+
+  private static final String TOKEN_ID = "test-token";
+  private static final String TOKEN_SECRET = "test-secret";
+
+  private SigningKeyCache cache;
+  private Instant date;
+
+  @BeforeEach
+  public void setup() {
+    cache = new SigningKeyCache();
+    date = Instant.now();
+  }
+
+  private String sign(Snws2AuthorizationBuilder builder, String secret) {
+    return builder.date(date).host("localhost").path("/test").build(secret);
+  }
+
+  @Test
+  public void unverifiedSecretNotCached() {
+    // WHEN
+    for (int i = 0; i < 10; i++) {
+      sign(cache.unverifiedAuthorizationBuilder(TOKEN_ID), TOKEN_SECRET + i);
+    }
+
+    // THEN
+    assertEquals(0, cache.size(), "Keys for unverified secrets are not cached");
+  }
+
+  @Test
+  public void verifiedSecretCached() {
+    // GIVEN
+    String expected = sign(new Snws2AuthorizationBuilder(TOKEN_ID), TOKEN_SECRET);
+
+    // WHEN
+    cache.cacheVerified(TOKEN_ID, TOKEN_SECRET, date);
+    String result = sign(cache.unverifiedAuthorizationBuilder(TOKEN_ID), TOKEN_SECRET);
+
+    // THEN
+    assertEquals(1, cache.size(), "Verified key cached");
+    assertEquals(1L, cache.getHitCount(), "Cached key used");
+    assertEquals(expected, result, "Cached key signs like a derived key");
+  }
+
+  @Test
+  public void pruneKeepsCachedKeysIntact() {
+    // GIVEN
+    cache.setMaxEntries(2);
+    String expected = sign(new Snws2AuthorizationBuilder(TOKEN_ID), TOKEN_SECRET);
+    cache.cacheVerified(TOKEN_ID, TOKEN_SECRET, date);
+
+    // WHEN
+    cache.cacheVerified("other-token-1", TOKEN_SECRET, date);
+    cache.cacheVerified("other-token-2", TOKEN_SECRET, date);
+    cache.cacheVerified("other-token-3", TOKEN_SECRET, date);
+
+    // THEN
+    assertEquals(2, cache.size(), "Cache pruned");
+    assertEquals(expected, sign(cache.authorizationBuilder(TOKEN_ID), TOKEN_SECRET),
+        "Signature correct whether or not the key was evicted");
+  }
+
+  private static byte[] testKey(String tokenId) {
+    byte[] key = new byte[32];
+    Arrays.fill(key, (byte) tokenId.hashCode());
+    key[0] = 1;
+    return key;
+  }
+
+  @Test
+  public void evictedKeyZeroedButCopiesIntact() {
+    // GIVEN
+    cache.setMaxEntries(1);
+    final byte[] derived = testKey(TOKEN_ID);
+    byte[] copy = cache.signingKey(TOKEN_ID, TOKEN_SECRET, date, () -> derived.clone());
+    byte[] cachedCopy = cache.signingKey(TOKEN_ID, TOKEN_SECRET, date, () -> null);
+
+    // WHEN
+    cache.signingKey("other-token", TOKEN_SECRET, date, () -> testKey("other-token"));
+
+    // THEN
+    assertEquals(1, cache.size(), "Cache pruned");
+    assertArrayEquals(derived, copy, "Derived key returned to caller intact");
+    assertArrayEquals(derived, cachedCopy, "Cached copy returned to caller intact");
+  }
+
+  @Test
+  public void concurrentEvictionNeverReturnsZeroedKey() throws Exception {
+    // GIVEN
+    cache.setMaxEntries(4);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    final List<Future<Integer>> results = new ArrayList<>();
+
+    // WHEN
+    for (int t = 0; t < 8; t++) {
+      results.add(executor.submit(() -> {
+        int bad = 0;
+        for (int i = 0; i < 20_000; i++) {
+          final String tokenId = "token-" + (i % 16);
+          final byte[] expected = testKey(tokenId);
+          byte[] key = cache.signingKey(tokenId, TOKEN_SECRET, date, () -> expected.clone());
+          if (!Arrays.equals(expected, key)) {
+            bad++;
+          }
+        }
+        return bad;
+      }));
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "Threads finished");
+
+    // THEN
+    for (Future<Integer> f : results) {
+      assertEquals(0, f.get(), "Every key returned matches the derived key");
+    }
+  }
+
+}
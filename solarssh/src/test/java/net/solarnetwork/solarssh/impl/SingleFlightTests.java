@@ -0,0 +1,188 @@
+/* ==================================================================
+ * SingleFlightTests.java - 23/10/2026 1:08:52 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the {@link SingleFlight} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class SingleFlightTests {
+
+  private SingleFlight<String, Object> flights;
+  private ExecutorService callers;
+  private AtomicInteger calls;
+
+  @BeforeEach
+  public void setup() {
+    flights = new SingleFlight<>();
+    callers = Executors.newCachedThreadPool();
+    calls = new AtomicInteger();
+  }
+
+  @AfterEach
+  public void teardown() {
+    callers.shutdownNow();
+  }
+
+  private static boolean await(BooleanSupplier condition) throws InterruptedException {
+    final long giveUp = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > giveUp) {
+        return false;
+      }
+      Thread.sleep(10);
+    }
+    return true;
+  }
+
+  private SingleFlight.Call<Object> blockingCall(CountDownLatch release, Object result,
+      IOException error) {
+    return () -> {
+      calls.incrementAndGet();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (error != null) {
+        throw error;
+      }
+      return result;
+    };
+  }
+
+  @Test
+  public void concurrentCallersShareResult() throws Exception {
+    // GIVEN
+    final CountDownLatch release = new CountDownLatch(1);
+    final Object result = new Object();
+    SingleFlight.Call<Object> call = blockingCall(release, result, null);
+
+    // WHEN
+    final Future<Object> first = callers.submit(() -> flights.execute("a", call));
+    assertTrue(await(() -> flights.getInFlightCount() == 1), "First call in flight");
+    final Future<Object> second = callers.submit(() -> flights.execute("a", call));
+    assertTrue(await(() -> flights.getSharedCount() == 1), "Second call joined");
+    release.countDown();
+
+    // THEN
+    assertSame(result, first.get(5, TimeUnit.SECONDS), "First caller result");
+    assertSame(result, second.get(5, TimeUnit.SECONDS), "Second caller shares result");
+    assertEquals(1, calls.get(), "Call executed once");
+    assertEquals(1L, flights.getExecutionCount(), "Execution count");
+    assertEquals(0, flights.getInFlightCount(), "Entry removed after completion");
+  }
+
+  @Test
+  public void concurrentCallersShareException() throws Exception {
+    // GIVEN
+    final CountDownLatch release = new CountDownLatch(1);
+    final IOException error = new IOException("boom");
+    SingleFlight.Call<Object> call = blockingCall(release, null, error);
+
+    // WHEN
+    final Future<Object> first = callers.submit(() -> flights.execute("a", call));
+    assertTrue(await(() -> flights.getInFlightCount() == 1), "First call in flight");
+    final Future<Object> second = callers.submit(() -> flights.execute("a", call));
+    assertTrue(await(() -> flights.getSharedCount() == 1), "Second call joined");
+    release.countDown();
+
+    // THEN
+    ExecutionException e1 = assertThrows(ExecutionException.class,
+        () -> first.get(5, TimeUnit.SECONDS));
+    ExecutionException e2 = assertThrows(ExecutionException.class,
+        () -> second.get(5, TimeUnit.SECONDS));
+    assertSame(error, e1.getCause(), "First caller exception");
+    assertSame(error, e2.getCause(), "Second caller shares exception");
+    assertEquals(1, calls.get(), "Call executed once");
+    assertEquals(0, flights.getInFlightCount(), "Entry removed after failure");
+  }
+
+  @Test
+  public void differentKeysNotShared() throws Exception {
+    // GIVEN
+    final CountDownLatch release = new CountDownLatch(1);
+    SingleFlight.Call<Object> call = blockingCall(release, "x", null);
+
+    // WHEN
+    final Future<Object> first = callers.submit(() -> flights.execute("a", call));
+    final Future<Object> second = callers.submit(() -> flights.execute("b", call));
+    assertTrue(await(() -> flights.getInFlightCount() == 2), "Both calls in flight");
+    release.countDown();
+
+    // THEN
+    assertEquals("x", first.get(5, TimeUnit.SECONDS), "First result");
+    assertEquals("x", second.get(5, TimeUnit.SECONDS), "Second result");
+    assertEquals(2, calls.get(), "Each key executed");
+    assertEquals(0L, flights.getSharedCount(), "Nothing shared");
+  }
+
+  @Test
+  public void completedResultNotCached() throws Exception {
+    // WHEN
+    Object first = flights.execute("a", () -> calls.incrementAndGet());
+    Object second = flights.execute("a", () -> calls.incrementAndGet());
+
+    // THEN
+    assertEquals(1, first, "First result");
+    assertEquals(2, second, "Sequential call executed again");
+    assertEquals(0, flights.getInFlightCount(), "Nothing in flight");
+  }
+
+  @Test
+  public void failedCallNotRemembered() throws Exception {
+    // GIVEN
+    assertThrows(IOException.class, () -> flights.execute("a", () -> {
+      throw new IOException("boom");
+    }));
+
+    // WHEN
+    Object result = flights.execute("a", () -> "ok");
+
+    // THEN
+    assertEquals("ok", result, "Call after failure executed");
+    assertEquals(0, flights.getInFlightCount(), "Nothing in flight");
+  }
+
+}
@@ -0,0 +1,224 @@
+/* ==================================================================
+ * TokenBucketRateLimiterTests.java - 22/10/2026 4:21:50 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test cases for the {@link TokenBucketRateLimiter} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class TokenBucketRateLimiterTests {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private AtomicLong nanos;
+
+  @BeforeEach
+  public void setup() {
+    // start at an arbitrary value, as System.nanoTime() does
+    nanos = new AtomicLong(-123_456_789L);
+  }
+
+  private TokenBucketRateLimiter limiter(double permitsPerMinute, int burst) {
+    return new TokenBucketRateLimiter(1024, permitsPerMinute, burst, nanos::get);
+  }
+
+  @Test
+  public void slotsRoundedToPowerOfTwo() {
+    assertEquals(2, new TokenBucketRateLimiter(0, 60, 1).getSlots(), "Minimum");
+    assertEquals(2, new TokenBucketRateLimiter(1, 60, 1).getSlots(), "Minimum");
+    assertEquals(2, new TokenBucketRateLimiter(2, 60, 1).getSlots(), "Exact");
+    assertEquals(4, new TokenBucketRateLimiter(3, 60, 1).getSlots(), "Rounded up");
+    assertEquals(1024, new TokenBucketRateLimiter(1000, 60, 1).getSlots(), "Rounded up");
+    assertEquals(1024, new TokenBucketRateLimiter(1024, 60, 1).getSlots(), "Exact");
+    assertEquals(2048, new TokenBucketRateLimiter(1025, 60, 1).getSlots(), "Rounded up");
+    assertEquals(1, new TokenBucketRateLimiter(1024, 0, 1).getSlots(), "Disabled");
+  }
+
+  @Test
+  public void disabled() {
+    // GIVEN
+    TokenBucketRateLimiter limiter = limiter(0, 1);
+
+    // THEN
+    assertFalse(limiter.isEnabled(), "Disabled");
+    for (int i = 0; i < 100; i++) {
+      assertTrue(limiter.tryAcquire("a"), "Always granted");
+    }
+    assertTrue(limiter.hasPermit("a"), "Always available");
+  }
+
+  @Test
+  public void nullKeyAlwaysGranted() {
+    // GIVEN
+    TokenBucketRateLimiter limiter = limiter(60, 1);
+
+    // THEN
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limiter.tryAcquire(null), "Null key granted");
+    }
+  }
+
+  @Test
+  public void burstThenEmissionInterval() {
+    // GIVEN
+    TokenBucketRateLimiter limiter = limiter(60, 3);
+
+    // WHEN
+    for (int i = 0; i < 3; i++) {
+      assertTrue(limiter.tryAcquire("a"), "Burst permit " + i);
+    }
+
+    // THEN
+    assertFalse(limiter.tryAcquire("a"), "Burst used");
+    nanos.addAndGet(SECOND - 1);
+    assertFalse(limiter.tryAcquire("a"), "Not quite one emission interval");
+    nanos.addAndGet(1);
+    assertTrue(limiter.tryAcquire("a"), "One permit per emission interval");
+    assertFalse(limiter.tryAcquire("a"), "Only one permit");
+  }
+
+  @Test
+  public void sustainedRate() {
+    // GIVEN
+    TokenBucketRateLimiter limiter = limiter(60, 1);
+    int granted = 0;
+
+    // WHEN
+    for (int i = 0; i < 600; i++) {
+      if (limiter.tryAcquire("a")) {
+        granted++;
+      }
+      nanos.addAndGet(SECOND / 10);
+    }
+
+    // THEN
+    assertEquals(60, granted, "One permit per second over one minute");
+  }
+
+  @Test
+  public void idleNeverExceedsBurst() {
+    // GIVEN
+    TokenBucketRateLimiter limiter = limiter(60, 3);
+
+    // WHEN
+    nanos.addAndGet(TimeUnit.HOURS.toNanos(1));
+
+    // THEN
+    for (int i = 0; i < 3; i++) {
+      assertTrue(limiter.tryAcquire("a"), "Burst permit " + i);
+    }
+    assertFalse(limiter.tryAcquire("a"), "No more than burst after idle time");
+  }
+
+  @Test
+  public void keysIndependent() {
+    // GIVEN
+    TokenBucketRateLimiter limiter = limiter(60, 1);
+
+    // WHEN
+    assertTrue(limiter.tryAcquire(1L), "Key 1 permit");
+
+    // THEN
+    assertFalse(limiter.tryAcquire(1L), "Key 1 limited");
+    for (long k = 2; k < 10; k++) {
+      assertTrue(limiter.tryAcquire(k), "Sequential key " + k + " has own bucket");
+    }
+  }
+
+  @Test
+  public void hasPermitDoesNotAcquire() {
+    // GIVEN
+    TokenBucketRateLimiter limiter = limiter(60, 1);
+
+    // WHEN
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limiter.hasPermit("a"), "Permit available");
+    }
+
+    // THEN
+    assertTrue(limiter.tryAcquire("a"), "Permit not spent by check");
+    assertFalse(limiter.hasPermit("a"), "No permit available");
+    nanos.addAndGet(SECOND);
+    assertTrue(limiter.hasPermit("a"), "Permit available again");
+  }
+
+  @Test
+  public void releaseReturnsPermit() {
+    // GIVEN
+    TokenBucketRateLimiter limiter = limiter(60, 2);
+    assertTrue(limiter.tryAcquire("a"), "First permit");
+    assertTrue(limiter.tryAcquire("a"), "Second permit");
+
+    // WHEN
+    limiter.release("a");
+
+    // THEN
+    assertTrue(limiter.tryAcquire("a"), "Released permit acquired again");
+    assertFalse(limiter.tryAcquire("a"), "Burst used");
+  }
+
+  @Test
+  public void releaseNeverExceedsBurst() {
+    // GIVEN
+    TokenBucketRateLimiter limiter = limiter(60, 2);
+
+    // WHEN
+    for (int i = 0; i < 5; i++) {
+      limiter.release("a");
+    }
+
+    // THEN
+    assertTrue(limiter.tryAcquire("a"), "First permit");
+    assertTrue(limiter.tryAcquire("a"), "Second permit");
+    assertFalse(limiter.tryAcquire("a"), "Releases did not add to burst");
+  }
+
+  @Test
+  public void releaseAfterRefill() {
+    // GIVEN
+    TokenBucketRateLimiter limiter = limiter(60, 2);
+    assertTrue(limiter.tryAcquire("a"), "First permit");
+    nanos.addAndGet(SECOND * 5);
+
+    // WHEN
+    limiter.release("a");
+
+    // THEN
+    assertTrue(limiter.tryAcquire("a"), "First permit");
+    assertTrue(limiter.tryAcquire("a"), "Second permit");
+    assertFalse(limiter.tryAcquire("a"), "Release of refilled bucket did not add to burst");
+  }
+
+}
@@ -0,0 +1,610 @@
+/* ==================================================================
+ * FakeSolarNetServer.java - 19/10/2026 11:21:47 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import net.solarnetwork.domain.datum.GeneralDatumMetadata;
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+import net.solarnetwork.solarssh.domain.SolarNetInstructionParameter;
+import net.solarnetwork.solarssh.domain.SolarNodeInstructionState;
+import net.solarnetwork.solarssh.impl.SolarNetResponseDecoder;
+
+/**
+ * In-process stand-in for the SolarNet API, for running tests and load suites offline.
+ *
+ * <p>
+ * The {@code instr/viewPending}, {@code instr/view}, {@code instr/add} and {@code nodes/meta}
+ * endpoints used by {@code SolarNetClient} are supported. Requests must carry an
+ * {@code Authorization} header, but signatures are not verified. Response latency, the rate of
+ * simulated server errors and the time it takes for a queued instruction to be handled are all
+ * configurable.
+ * </p>
+ *
+ * <p>
+ * Queued instructions are handed to the {@link InstructionHandler} registered for their node once
+ * the completion delay has elapsed; the state returned by the handler becomes the instruction's
+ * final state. Instructions for nodes without a handler simply become {@code Completed}. See
+ * {@link SimulatedNode} for a handler that opens real reverse SSH tunnels.
+ * </p>
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class FakeSolarNetServer implements Closeable {
+
+  /** The path prefix of all supported endpoints. */
+  public static final String API_PATH = "/solaruser/api/v1/sec";
+
+  /** The view pending instructions endpoint name. */
+  public static final String ENDPOINT_VIEW_PENDING = "instr/viewPending";
+
+  /** The view instruction endpoint name. */
+  public static final String ENDPOINT_VIEW = "instr/view";
+
+  /** The queue instruction endpoint name. */
+  public static final String ENDPOINT_ADD = "instr/add";
+
+  /** The view node metadata endpoint name. */
+  public static final String ENDPOINT_NODE_METADATA = "nodes/meta";
+
+  private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME
+      .withZone(ZoneOffset.UTC);
+
+  private static final Logger log = LoggerFactory.getLogger(FakeSolarNetServer.class);
+
+  /**
+   * API for something that acts on instructions on behalf of a node.
+   */
+  @FunctionalInterface
+  public interface InstructionHandler {
+
+    /**
+     * Handle an instruction.
+     *
+     * @param instruction
+     *        the instruction to handle
+     * @return the final instruction state, typically {@code Completed} or {@code Declined}
+     * @throws Exception
+     *         if any error occurs, which results in a {@code Declined} state
+     */
+    SolarNodeInstructionState handleInstruction(SolarNetInstruction instruction) throws Exception;
+
+  }
+
+  private final AtomicLong instructionIds = new AtomicLong();
+  private final ConcurrentMap<Long, SolarNetInstruction> instructions = new ConcurrentHashMap<>(64);
+  private final ConcurrentMap<Long, InstructionHandler> nodes = new ConcurrentHashMap<>(16);
+  private final ConcurrentMap<Long, Metadata> metadata = new ConcurrentHashMap<>(16);
+  private final ConcurrentMap<String, LongAdder> requestCounts = new ConcurrentHashMap<>(8);
+  private final ConcurrentMap<String, Headers> lastRequestHeaders = new ConcurrentHashMap<>(8);
+  private final LongAdder errorCount = new LongAdder();
+
+  private long latencyMillis;
+  private long latencyJitterMillis;
+  private double errorRate;
+  private long completionDelayMillis = 100;
+
+  private HttpServer server;
+  private ExecutorService executor;
+  private ScheduledExecutorService scheduler;
+
+  /** Node metadata with validators. */
+  private static final class Metadata {
+
+    private final byte[] json;
+    private final String etag;
+    private final long lastModified;
+
+    private Metadata(byte[] json, String etag, long lastModified) {
+      super();
+      this.json = json;
+      this.etag = etag;
+      this.lastModified = lastModified;
+    }
+
+  }
+
+  /**
+   * Start the server on an ephemeral loopback port.
+   *
+   * @throws IOException
+   *         if the server cannot be started
+   */
+  public synchronized void start() throws IOException {
+    if (server != null) {
+      return;
+    }
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.setExecutor(executor);
+    server.createContext(API_PATH + "/", this::handle);
+    server.start();
+    log.info("Fake SolarNet started at {}", getBaseUrl());
+  }
+
+  @Override
+  public synchronized void close() {
+    if (server == null) {
+      return;
+    }
+    server.stop(0);
+    scheduler.shutdownNow();
+    executor.shutdownNow();
+    server = null;
+  }
+
+  /**
+   * Get the base URL of the server, suitable for {@code SolarNetClient} configuration.
+   *
+   * @return the base URL, without a trailing slash
+   * @throws IllegalStateException
+   *         if the server has not been started
+   */
+  public synchronized String getBaseUrl() {
+    if (server == null) {
+      throw new IllegalStateException("Server not started.");
+    }
+    InetSocketAddress addr = server.getAddress();
+    return "http://" + addr.getHostString() + ":" + addr.getPort();
+  }
+
+  /**
+   * Register a handler for the instructions of a node.
+   *
+   * @param nodeId
+   *        the node ID
+   * @param handler
+   *        the handler, or {@literal null} to remove any existing handler
+   */
+  public void registerNode(Long nodeId, InstructionHandler handler) {
+    if (handler == null) {
+      nodes.remove(nodeId);
+    } else {
+      nodes.put(nodeId, handler);
+    }
+  }
+
+  /**
+   * Set the metadata of a node.
+   *
+   * <p>
+   * Each call changes the validators returned with the metadata, so cached copies are invalidated.
+   * </p>
+   *
+   * @param nodeId
+   *        the node ID
+   * @param meta
+   *        the metadata, or {@literal null} to remove any existing metadata
+   * @throws IOException
+   *         if the metadata cannot be encoded
+   */
+  public void setNodeMetadata(Long nodeId, GeneralDatumMetadata meta) throws IOException {
+    if (meta == null) {
+      metadata.remove(nodeId);
+      return;
+    }
+    byte[] json = SolarNetResponseDecoder.mapper().writeValueAsBytes(meta);
+    metadata.compute(nodeId, (k, v) -> {
+      long modified = System.currentTimeMillis() / 1000 * 1000;
+      if (v != null && modified <= v.lastModified) {
+        modified = v.lastModified + 1000;
+      }
+      return new Metadata(json, "\"" + nodeId + "-" + modified + "\"", modified);
+    });
+  }
+
+  /**
+   * Get an instruction.
+   *
+   * @param id
+   *        the instruction ID
+   * @return the instruction, or {@literal null} if not found
+   */
+  public SolarNetInstruction getInstruction(Long id) {
+    return instructions.get(id);
+  }
+
+  /**
+   * Get the number of requests received for an endpoint.
+   *
+   * @param endpoint
+   *        the endpoint name, for example {@link #ENDPOINT_VIEW}
+   * @return the count
+   */
+  public long getRequestCount(String endpoint) {
+    LongAdder count = requestCounts.get(endpoint);
+    return (count != null ? count.sum() : 0);
+  }
+
+  /**
+   * Get a header of the most recent request received for an endpoint.
+   *
+   * @param endpoint
+   *        the endpoint name, for example {@link #ENDPOINT_VIEW}
+   * @param name
+   *        the header name, matched case-insensitively
+   * @return the first header value, or {@literal null} if no request has been received or the
+   *         header was not sent
+   */
+  public String getLastRequestHeader(String endpoint, String name) {
+    Headers headers = lastRequestHeaders.get(endpoint);
+    return (headers != null ? headers.getFirst(name) : null);
+  }
+
+  /**
+   * Get the number of simulated errors returned.
+   *
+   * @return the error count
+   */
+  public long getErrorCount() {
+    return errorCount.sum();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      final String path = exchange.getRequestURI().getPath().substring(API_PATH.length() + 1);
+      final String endpoint = (path.startsWith(ENDPOINT_NODE_METADATA + "/")
+          ? ENDPOINT_NODE_METADATA
+          : path);
+      requestCounts.computeIfAbsent(endpoint, k -> new LongAdder()).increment();
+      lastRequestHeaders.put(endpoint, exchange.getRequestHeaders());
+      simulateLatency();
+      if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+        respond(exchange, 401, null);
+        return;
+      }
+      if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+        errorCount.increment();
+        respond(exchange, 500, "{\"success\":false,\"message\":\"Simulated error.\"}");
+        return;
+      }
+      switch (endpoint) {
+        case ENDPOINT_VIEW_PENDING:
+          viewPending(exchange);
+          break;
+
+        case ENDPOINT_VIEW:
+          view(exchange);
+          break;
+
+        case ENDPOINT_ADD:
+          add(exchange);
+          break;
+
+        case ENDPOINT_NODE_METADATA:
+          nodeMetadata(exchange, path.substring(ENDPOINT_NODE_METADATA.length() + 1));
+          break;
+
+        default:
+          respond(exchange, 404, null);
+      }
+    } catch (IllegalArgumentException e) {
+      respond(exchange, 422, null);
+    }
+  }
+
+  private void simulateLatency() {
+    long delay = latencyMillis;
+    if (latencyJitterMillis > 0) {
+      delay += ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1);
+    }
+    if (delay < 1) {
+      return;
+    }
+    try {
+      Thread.sleep(delay);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void viewPending(HttpExchange exchange) throws IOException {
+    Long nodeId = Long.valueOf(requireParam(query(exchange), "nodeId"));
+    List<SolarNetInstruction> result = new ArrayList<>(4);
+    for (SolarNetInstruction instr : instructions.values()) {
+      if (nodeId.equals(instr.getNodeId()) && !isFinal(instr.getState())) {
+        result.add(instr);
+      }
+    }
+    respondData(exchange, result);
+  }
+
+  private void view(HttpExchange exchange) throws IOException {
+    Long id = Long.valueOf(requireParam(query(exchange), "id"));
+    respondData(exchange, instructions.get(id));
+  }
+
+  private void add(HttpExchange exchange) throws IOException {
+    if (!"POST".equals(exchange.getRequestMethod())) {
+      respond(exchange, 405, null);
+      return;
+    }
+    Map<String, String> form;
+    try (InputStream in = exchange.getRequestBody()) {
+      form = parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+    SolarNetInstruction instr = new SolarNetInstruction();
+    instr.setId(instructionIds.incrementAndGet());
+    instr.setNodeId(Long.valueOf(requireParam(form, "nodeId")));
+    instr.setTopic(requireParam(form, "topic"));
+    instr.setInstructionDate(new Date());
+    instr.setState(SolarNodeInstructionState.Queued);
+    instr.setParameters(instructionParameters(form));
+    instructions.put(instr.getId(), instr);
+    scheduler.schedule(() -> executor.execute(() -> complete(instr)), completionDelayMillis,
+        TimeUnit.MILLISECONDS);
+    respondData(exchange, instr);
+  }
+
+  private void complete(SolarNetInstruction instr) {
+    InstructionHandler handler = nodes.get(instr.getNodeId());
+    SolarNodeInstructionState state = SolarNodeInstructionState.Completed;
+    if (handler != null) {
+      instructions.put(instr.getId(), withState(instr, SolarNodeInstructionState.Executing));
+      try {
+        state = handler.handleInstruction(instr);
+      } catch (Exception e) {
+        log.info("Node {} failed to handle instruction {} {}: {}", instr.getNodeId(),
+            instr.getId(), instr.getTopic(), e.toString());
+        state = SolarNodeInstructionState.Declined;
+      }
+    }
+    instructions.put(instr.getId(),
+        withState(instr, state != null ? state : SolarNodeInstructionState.Completed));
+  }
+
+  private static SolarNetInstruction withState(SolarNetInstruction instr,
+      SolarNodeInstructionState state) {
+    // stored instructions are never modified once published, so always store a new copy
+    SolarNetInstruction copy = new SolarNetInstruction();
+    copy.setId(instr.getId());
+    copy.setNodeId(instr.getNodeId());
+    copy.setTopic(instr.getTopic());
+    copy.setInstructionDate(instr.getInstructionDate());
+    copy.setParameters(instr.getParameters());
+    copy.setState(state);
+    return copy;
+  }
+
+  private void nodeMetadata(HttpExchange exchange, String nodeId) throws IOException {
+    Metadata meta = metadata.get(Long.valueOf(nodeId));
+    if (meta == null) {
+      respondData(exchange, null);
+      return;
+    }
+    exchange.getResponseHeaders().set("ETag", meta.etag);
+    exchange.getResponseHeaders().set("Last-Modified",
+        HTTP_DATE.format(Instant.ofEpochMilli(meta.lastModified)));
+    String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+    String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+    if ((ifNoneMatch != null && ifNoneMatch.equals(meta.etag)) || (ifNoneMatch == null
+        && ifModifiedSince != null && Instant.from(HTTP_DATE.parse(ifModifiedSince))
+            .toEpochMilli() >= meta.lastModified)) {
+      exchange.sendResponseHeaders(304, -1);
+      return;
+    }
+    respond(exchange, 200, "{\"success\":true,\"data\":"
+        + new String(meta.json, StandardCharsets.UTF_8) + "}");
+  }
+
+  private static boolean isFinal(SolarNodeInstructionState state) {
+    return (state == SolarNodeInstructionState.Completed
+        || state == SolarNodeInstructionState.Declined);
+  }
+
+  private static String requireParam(Map<String, String> params, String name) {
+    String value = params.get(name);
+    if (value == null) {
+      throw new IllegalArgumentException("Missing parameter " + name);
+    }
+    return value;
+  }
+
+  private static Map<String, String> query(HttpExchange exchange) {
+    String query = exchange.getRequestURI().getRawQuery();
+    return (query != null ? parseForm(query) : Collections.emptyMap());
+  }
+
+  private static Map<String, String> parseForm(String data) {
+    Map<String, String> result = new LinkedHashMap<>(8);
+    for (String pair : data.split("&")) {
+      if (pair.isEmpty()) {
+        continue;
+      }
+      int eq = pair.indexOf('=');
+      String name = (eq < 0 ? pair : pair.substring(0, eq));
+      String value = (eq < 0 ? "" : pair.substring(eq + 1));
+      result.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+          URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return result;
+  }
+
+  private static List<SolarNetInstructionParameter> instructionParameters(
+      Map<String, String> form) {
+    Map<Integer, SolarNetInstructionParameter> params = new TreeMap<>();
+    for (Map.Entry<String, String> e : form.entrySet()) {
+      String key = e.getKey();
+      if (!key.startsWith("parameters[")) {
+        continue;
+      }
+      int end = key.indexOf("].");
+      if (end < 0) {
+        continue;
+      }
+      Integer index = Integer.valueOf(key.substring("parameters[".length(), end));
+      SolarNetInstructionParameter param = params.computeIfAbsent(index,
+          k -> new SolarNetInstructionParameter());
+      switch (key.substring(end + 2)) {
+        case "name":
+          param.setName(e.getValue());
+          break;
+
+        case "value":
+          param.setValue(e.getValue());
+          break;
+
+        default:
+          // ignore
+      }
+    }
+    return new ArrayList<>(params.values());
+  }
+
+  private static void respondData(HttpExchange exchange, Object data) throws IOException {
+    Map<String, Object> body = new LinkedHashMap<>(2);
+    body.put("success", true);
+    body.put("data", data);
+    respond(exchange, 200, SolarNetResponseDecoder.mapper().writeValueAsString(body));
+  }
+
+  private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+    if (json == null) {
+      exchange.sendResponseHeaders(status, -1);
+      return;
+    }
+    byte[] body = json.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  /**
+   * Get the fixed response latency.
+   *
+   * @return the latency added to every response, in milliseconds; defaults to {@literal 0}
+   */
+  public long getLatencyMillis() {
+    return latencyMillis;
+  }
+
+  /**
+   * Set the fixed response latency.
+   *
+   * @param latencyMillis
+   *        the latency to add to every response, in milliseconds
+   */
+  public void setLatencyMillis(long latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  /**
+   * Get the random response latency.
+   *
+   * @return the maximum random latency added to every response on top of the fixed latency, in
+   *         milliseconds; defaults to {@literal 0}
+   */
+  public long getLatencyJitterMillis() {
+    return latencyJitterMillis;
+  }
+
+  /**
+   * Set the random response latency.
+   *
+   * @param latencyJitterMillis
+   *        the maximum random latency to add to every response on top of the fixed latency, in
+   *        milliseconds
+   */
+  public void setLatencyJitterMillis(long latencyJitterMillis) {
+    this.latencyJitterMillis = latencyJitterMillis;
+  }
+
+  /**
+   * Get the error rate.
+   *
+   * @return the fraction of requests, from {@literal 0} to {@literal 1}, that fail with a server
+   *         error; defaults to {@literal 0}
+   */
+  public double getErrorRate() {
+    return errorRate;
+  }
+
+  /**
+   * Set the error rate.
+   *
+   * @param errorRate
+   *        the fraction of requests, from {@literal 0} to {@literal 1}, that should fail with a
+   *        server error
+   */
+  public void setErrorRate(double errorRate) {
+    this.errorRate = errorRate;
+  }
+
+  /**
+   * Get the instruction completion delay.
+   *
+   * @return the time after an instruction is queued that it is handed to its node, in
+   *         milliseconds; defaults to {@literal 100}
+   */
+  public long getCompletionDelayMillis() {
+    return completionDelayMillis;
+  }
+
+  /**
+   * Set the instruction completion delay.
+   *
+   * @param completionDelayMillis
+   *        the time after an instruction is queued that it is handed to its node, in milliseconds
+   */
+  public void setCompletionDelayMillis(long completionDelayMillis) {
+    this.completionDelayMillis = completionDelayMillis;
+  }
+
+}
@@ -0,0 +1,81 @@
+/* ==================================================================
+ * MutableClock.java - 22/10/2026 5:32:40 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A {@link Clock} that only moves when told to, for testing time-based logic.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class MutableClock extends Clock {
+
+  private volatile long millis;
+
+  /**
+   * Constructor.
+   *
+   * @param millis
+   *        the starting time, in milliseconds since the epoch
+   */
+  public MutableClock(long millis) {
+    super();
+    this.millis = millis;
+  }
+
+  /**
+   * Move the clock forward.
+   *
+   * @param ms
+   *        the number of milliseconds to move
+   */
+  public void advance(long ms) {
+    millis += ms;
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return ZoneOffset.UTC;
+  }
+
+  @Override
+  public Clock withZone(ZoneId zone) {
+    return this;
+  }
+
+  @Override
+  public Instant instant() {
+    return Instant.ofEpochMilli(millis);
+  }
+
+  @Override
+  public long millis() {
+    return millis;
+  }
+
+}
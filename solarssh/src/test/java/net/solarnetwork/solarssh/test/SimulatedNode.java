@@ -0,0 +1,303 @@
+/* ==================================================================
+ * SimulatedNode.java - 19/10/2026 11:38:02 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.test;
+
+import static net.solarnetwork.solarssh.service.SolarNetClient.HOST_PARAM;
+import static net.solarnetwork.solarssh.service.SolarNetClient.INSTRUCTION_TOPIC_START_REMOTE_SSH;
+import static net.solarnetwork.solarssh.service.SolarNetClient.INSTRUCTION_TOPIC_STOP_REMOTE_SSH;
+import static net.solarnetwork.solarssh.service.SolarNetClient.PORT_PARAM;
+import static net.solarnetwork.solarssh.service.SolarNetClient.REVERSE_PORT_PARAM;
+import static net.solarnetwork.solarssh.service.SolarNetClient.USER_PARAM;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.keyverifier.AcceptAllServerKeyVerifier;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.util.net.SshdSocketAddress;
+import org.apache.sshd.server.forward.AcceptAllForwardingFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.solarnetwork.solarssh.domain.SolarNetInstruction;
+import net.solarnetwork.solarssh.domain.SolarNodeInstructionState;
+
+/**
+ * A simulated SolarNode that handles SolarSSH instructions by opening real reverse SSH tunnels.
+ *
+ * <p>
+ * A {@code StartRemoteSsh} instruction makes the node connect to the SolarSSH server named in the
+ * instruction, authenticate with a generated key using the session ID as the username, and then
+ * forward the reverse port to {@code sshTarget} and the reverse port {@literal + 1} to
+ * {@code httpTarget}, just as a real node forwards to its own SSH and HTTP servers. A
+ * {@code StopRemoteSsh} instruction closes the matching connection, and a connection closed by
+ * SolarSSH is forgotten as well.
+ * </p>
+ *
+ * <p>
+ * If no targets are configured, both ports are forwarded to an echo server started by the node,
+ * which is enough to exercise the session setup flow and measure tunnel throughput.
+ * </p>
+ *
+ * @author matt
+ * @version 1.1
+ */
+public class SimulatedNode implements FakeSolarNetServer.InstructionHandler, Closeable {
+
+  /** The default value for the {@code timeout} property. */
+  public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+  /** The address reverse ports are bound to on the SolarSSH server. */
+  private static final String LOOPBACK = "127.0.0.1";
+
+  private static final Logger log = LoggerFactory.getLogger(SimulatedNode.class);
+
+  private final Long nodeId;
+  private final ConcurrentMap<String, ClientSession> sessions = new ConcurrentHashMap<>(4);
+  private final LongAdder tunnelCount = new LongAdder();
+  private SshdSocketAddress sshTarget;
+  private SshdSocketAddress httpTarget;
+  private Duration timeout = DEFAULT_TIMEOUT;
+
+  private SshClient client;
+  private KeyPair keyPair;
+  private ServerSocket echoServer;
+
+  /**
+   * Constructor.
+   *
+   * @param nodeId
+   *        the node ID
+   */
+  public SimulatedNode(Long nodeId) {
+    super();
+    this.nodeId = nodeId;
+  }
+
+  /**
+   * Start the node and register it with a server.
+   *
+   * @param server
+   *        the server to receive instructions from
+   * @throws IOException
+   *         if the node cannot be started
+   */
+  public synchronized void start(FakeSolarNetServer server) throws IOException {
+    if (client == null) {
+      try {
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC");
+        keyGen.initialize(256);
+        keyPair = keyGen.generateKeyPair();
+      } catch (GeneralSecurityException e) {
+        throw new IOException("Error generating node key: " + e.getMessage(), e);
+      }
+      if (sshTarget == null || httpTarget == null) {
+        startEchoServer();
+      }
+      client = SshClient.setUpDefaultClient();
+      client.setServerKeyVerifier(AcceptAllServerKeyVerifier.INSTANCE);
+      // the client rejects forwarded channels by default, which would close every tunnel
+      client.setForwardingFilter(AcceptAllForwardingFilter.INSTANCE);
+      client.start();
+    }
+    server.registerNode(nodeId, this);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    for (ClientSession session : sessions.values()) {
+      session.close(true);
+    }
+    sessions.clear();
+    if (client != null) {
+      client.stop();
+      client = null;
+    }
+    if (echoServer != null) {
+      echoServer.close();
+      echoServer = null;
+    }
+  }
+
+  @Override
+  public SolarNodeInstructionState handleInstruction(SolarNetInstruction instruction)
+      throws Exception {
+    switch (instruction.getTopic()) {
+      case INSTRUCTION_TOPIC_START_REMOTE_SSH:
+        startRemoteSsh(instruction);
+        break;
+
+      case INSTRUCTION_TOPIC_STOP_REMOTE_SSH:
+        stopRemoteSsh(instruction);
+        break;
+
+      default:
+        // nothing to do
+    }
+    return SolarNodeInstructionState.Completed;
+  }
+
+  private void startRemoteSsh(SolarNetInstruction instruction) throws IOException {
+    final String host = instruction.parameterValue(HOST_PARAM);
+    final String user = instruction.parameterValue(USER_PARAM);
+    final int port = Integer.parseInt(instruction.parameterValue(PORT_PARAM));
+    final int rport = Integer.parseInt(instruction.parameterValue(REVERSE_PORT_PARAM));
+    final SshClient c;
+    synchronized (this) {
+      c = client;
+    }
+    if (c == null) {
+      throw new IllegalStateException("Node " + nodeId + " not started.");
+    }
+    ClientSession session = c.connect(user, host, port).verify(timeout).getSession();
+    try {
+      session.addPublicKeyIdentity(keyPair);
+      session.auth().verify(timeout);
+      SshdSocketAddress ssh = (sshTarget != null ? sshTarget : echoAddress());
+      SshdSocketAddress http = (httpTarget != null ? httpTarget : echoAddress());
+      session.startRemotePortForwarding(new SshdSocketAddress(LOOPBACK, rport), ssh);
+      session.startRemotePortForwarding(new SshdSocketAddress(LOOPBACK, rport + 1), http);
+    } catch (IOException | RuntimeException e) {
+      session.close(true);
+      throw e;
+    }
+    ClientSession old = sessions.put(user, session);
+    if (old != null) {
+      old.close(true);
+    }
+    session.addCloseFutureListener(f -> sessions.remove(user, session));
+    tunnelCount.increment();
+    log.debug("Node {} opened reverse tunnel for session {} on port {}", nodeId, user, rport);
+  }
+
+  private void stopRemoteSsh(SolarNetInstruction instruction) {
+    final String user = instruction.parameterValue(USER_PARAM);
+    ClientSession session = (user != null ? sessions.remove(user) : null);
+    if (session != null) {
+      session.close(false);
+      log.debug("Node {} closed reverse tunnel for session {}", nodeId, user);
+    }
+  }
+
+  private synchronized SshdSocketAddress echoAddress() {
+    return new SshdSocketAddress(echoServer.getInetAddress().getHostAddress(),
+        echoServer.getLocalPort());
+  }
+
+  private void startEchoServer() throws IOException {
+    echoServer = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    final ServerSocket ss = echoServer;
+    Thread.ofVirtual().name("SimulatedNode-" + nodeId + "-echo").start(() -> {
+      while (!ss.isClosed()) {
+        try {
+          Socket s = ss.accept();
+          Thread.ofVirtual().start(() -> echo(s));
+        } catch (IOException e) {
+          // closed
+        }
+      }
+    });
+  }
+
+  private static void echo(Socket socket) {
+    try (socket; InputStream in = socket.getInputStream();
+        OutputStream out = socket.getOutputStream()) {
+      in.transferTo(out);
+    } catch (IOException e) {
+      // ignore
+    }
+  }
+
+  /**
+   * Get the node ID.
+   *
+   * @return the node ID
+   */
+  public Long getNodeId() {
+    return nodeId;
+  }
+
+  /**
+   * Get the number of reverse tunnels opened.
+   *
+   * @return the count
+   */
+  public long getTunnelCount() {
+    return tunnelCount.sum();
+  }
+
+  /**
+   * Get the number of reverse tunnels currently open.
+   *
+   * @return the count
+   */
+  public int getOpenTunnelCount() {
+    return sessions.size();
+  }
+
+  /**
+   * Set the address to forward the reverse SSH port to.
+   *
+   * @param sshTarget
+   *        the address, or {@literal null} to use an echo server; must be set before
+   *        {@link #start(FakeSolarNetServer)}
+   */
+  public void setSshTarget(SshdSocketAddress sshTarget) {
+    this.sshTarget = sshTarget;
+  }
+
+  /**
+   * Set the address to forward the reverse HTTP port to.
+   *
+   * @param httpTarget
+   *        the address, or {@literal null} to use an echo server; must be set before
+   *        {@link #start(FakeSolarNetServer)}
+   */
+  public void setHttpTarget(SshdSocketAddress httpTarget) {
+    this.httpTarget = httpTarget;
+  }
+
+  /**
+   * Set the timeout for connecting and authenticating to SolarSSH.
+   *
+   * @param timeout
+   *        the timeout; defaults to {@link #DEFAULT_TIMEOUT}
+   */
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+}
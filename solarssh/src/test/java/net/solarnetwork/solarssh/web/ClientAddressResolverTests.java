@@ -0,0 +1,186 @@
+/* ==================================================================
+ * ClientAddressResolverTests.java - 22/10/2026 11:06:52 am
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.web;
+
+import static net.solarnetwork.solarssh.web.ClientAddressResolver.FORWARDED_FOR_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Test cases for the {@link ClientAddressResolver} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class ClientAddressResolverTests {
+
+  private ClientAddressResolver resolver;
+
+  @BeforeEach
+  public void setup() {
+    resolver = new ClientAddressResolver();
+  }
+
+  private static HttpServletRequest request(String remoteAddr, String... forwardedFor) {
+    HttpServletRequest req = mock(HttpServletRequest.class);
+    when(req.getRemoteAddr()).thenReturn(remoteAddr);
+    if (forwardedFor.length > 0) {
+      when(req.getHeader(FORWARDED_FOR_HEADER)).thenReturn(forwardedFor[0]);
+    }
+    when(req.getHeaders(FORWARDED_FOR_HEADER))
+        .thenReturn(Collections.enumeration(Arrays.asList(forwardedFor)));
+    return req;
+  }
+
+  private String resolve(HttpServletRequest request) {
+    InetAddress result = resolver.resolveClientAddress(request);
+    return (result != null ? result.getHostAddress() : null);
+  }
+
+  @Test
+  public void noForwardedHeader() {
+    assertEquals("203.0.113.7", resolve(request("203.0.113.7")), "Remote address used");
+  }
+
+  @Test
+  public void spoofedHeaderFromUntrustedPeerIgnored() {
+    // GIVEN
+    HttpServletRequest req = request("203.0.113.7", "10.0.0.1");
+
+    // THEN
+    assertEquals("203.0.113.7", resolve(req), "Header from untrusted peer ignored");
+  }
+
+  @Test
+  public void forwardedFromTrustedProxy() {
+    // GIVEN
+    HttpServletRequest req = request("127.0.0.1", "198.51.100.2");
+
+    // THEN
+    assertEquals("198.51.100.2", resolve(req), "Forwarded client used");
+  }
+
+  @Test
+  public void chainOfTrustedProxies() {
+    // GIVEN
+    resolver.setTrustedProxies(new String[] { "127.0.0.0/8", "10.0.0.0/8" });
+    HttpServletRequest req = request("10.0.0.5", "192.0.2.1, 198.51.100.2, 10.1.2.3");
+
+    // THEN
+    assertEquals("198.51.100.2", resolve(req),
+        "First untrusted address from the right used; client supplied entries ignored");
+  }
+
+  @Test
+  public void chainAcrossMultipleHeaders() {
+    // GIVEN
+    resolver.setTrustedProxies(new String[] { "127.0.0.0/8", "10.0.0.0/8" });
+    HttpServletRequest req = request("127.0.0.1", "192.0.2.1, 198.51.100.2", "10.1.2.3");
+
+    // THEN
+    assertEquals("198.51.100.2", resolve(req), "Headers walked as one list");
+  }
+
+  @Test
+  public void allHopsTrusted() {
+    // GIVEN
+    resolver.setTrustedProxies(new String[] { "127.0.0.0/8", "10.0.0.0/8" });
+    HttpServletRequest req = request("127.0.0.1", "10.0.0.1, 10.0.0.2");
+
+    // THEN
+    assertEquals("10.0.0.1", resolve(req), "Left-most trusted hop used");
+  }
+
+  @Test
+  public void invalidHopStopsWalk() {
+    // GIVEN
+    resolver.setTrustedProxies(new String[] { "127.0.0.0/8", "10.0.0.0/8" });
+    HttpServletRequest req = request("127.0.0.1", "198.51.100.2, garbage, 10.0.0.2");
+
+    // THEN
+    assertEquals("10.0.0.2", resolve(req), "Last known address kept");
+  }
+
+  @Test
+  public void hostNameHopNotLookedUp() {
+    // GIVEN
+    HttpServletRequest req = request("127.0.0.1", "localhost");
+
+    // THEN
+    assertEquals("127.0.0.1", resolve(req), "Host name treated as invalid");
+  }
+
+  @Test
+  public void forwardedWithPort() {
+    // GIVEN
+    HttpServletRequest req = request("127.0.0.1", "198.51.100.2:4321");
+
+    // THEN
+    assertEquals("198.51.100.2", resolve(req), "Port stripped");
+  }
+
+  @Test
+  public void ipv6Chain() {
+    // GIVEN
+    resolver.setTrustedProxies(new String[] { "::1/128", "2001:db8:1::/48" });
+    HttpServletRequest req = request("::1", "2001:db8:ffff::1, [2001:db8:1::5]:443");
+
+    // THEN
+    assertEquals("2001:db8:ffff:0:0:0:0:1", resolve(req), "IPv6 client used");
+  }
+
+  @Test
+  public void ipv6SpoofedHeaderFromUntrustedPeerIgnored() {
+    // GIVEN
+    HttpServletRequest req = request("2001:db8::7", "::1");
+
+    // THEN
+    assertEquals("2001:db8:0:0:0:0:0:7", resolve(req), "Header from untrusted peer ignored");
+  }
+
+  @Test
+  public void ipv4ClientBehindIpv6Proxy() {
+    // GIVEN
+    HttpServletRequest req = request("::1", "198.51.100.2");
+
+    // THEN
+    assertEquals("198.51.100.2", resolve(req), "IPv4 client used");
+  }
+
+  @Test
+  public void unparsableRemoteAddress() {
+    assertNull(resolve(request("unknown")), "No address");
+  }
+
+}
@@ -0,0 +1,176 @@
+/* ==================================================================
+ * SolarSshControllerTests.java - 21/10/2026 2:14:36 pm
+ *
+ * Copyright 2026 SolarNetwork.net Dev Team
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of
+ * the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ * 02111-1307 USA
+ * ==================================================================
+ */
+
+package net.solarnetwork.solarssh.web;
+
+import static net.solarnetwork.solarssh.web.WebConstants.PRESIGN_AUTHORIZATION_HEADER;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.http.HttpServletRequest;
+import net.solarnetwork.solarssh.AuthorizationException;
+import net.solarnetwork.solarssh.RateLimitException;
+import net.solarnetwork.solarssh.domain.SshSession;
+import net.solarnetwork.solarssh.impl.SessionRateLimiter;
+import net.solarnetwork.solarssh.impl.TokenBucketRateLimiter;
+import net.solarnetwork.solarssh.service.SolarSshService;
+import net.solarnetwork.web.jakarta.security.WebConstants;
+
+/**
+ * Test cases for the {@link SolarSshController} class.
+ *
+ * @author matt
+ * @version 1.0
+ */
+public class SolarSshControllerTests {
+
+  private static final String VICTIM_AUTH = "SNWS2 Credential=victim,"
+      + "SignedHeaders=host;x-sn-date,Signature=0123456789abcdef";
+
+  private static final String FORGED_AUTH = "SNWS2 Credential=victim,"
+      + "SignedHeaders=host;x-sn-date,Signature=badbadbadbadbad0";
+
+  private static final Long NODE_ID = 123L;
+  private static final Long OTHER_NODE_ID = 234L;
+
+  private SolarSshService service;
+  private SolarSshController controller;
+
+  @BeforeEach
+  public void setup() {
+    service = mock(SolarSshService.class);
+    controller = new SolarSshController(service, new ClientAddressResolver());
+  }
+
+  private static HttpServletRequest request(String remoteAddr, String authorization) {
+    HttpServletRequest req = mock(HttpServletRequest.class);
+    when(req.getRemoteAddr()).thenReturn(remoteAddr);
+    when(req.getHeader(PRESIGN_AUTHORIZATION_HEADER)).thenReturn(authorization);
+    when(req.getDateHeader(WebConstants.HEADER_DATE)).thenReturn(-1L);
+    return req;
+  }
+
+  private SshSession givenNewSession(Long nodeId) throws Exception {
+    SshSession sess = new SshSession(System.currentTimeMillis(), "s-" + nodeId, nodeId,
+        "localhost", 8022, 50000, 50001);
+    when(service.createNewSession(eq(nodeId), anyLong(), eq(VICTIM_AUTH))).thenReturn(sess);
+    return sess;
+  }
+
+  @Test
+  public void forgedCredentialDoesNotSpendVictimPermits() throws Exception {
+    // GIVEN
+    controller.setSessionRateLimiter(new SessionRateLimiter(null,
+        new TokenBucketRateLimiter(64, 10, 2), new TokenBucketRateLimiter(64, 10, 2)));
+    SshSession sess = givenNewSession(NODE_ID);
+    when(service.createNewSession(eq(NODE_ID), anyLong(), eq(FORGED_AUTH)))
+        .thenThrow(new AuthorizationException("Bad signature."));
+
+    // WHEN
+    for (int i = 0; i < 20; i++) {
+      assertThrows(AuthorizationException.class,
+          () -> controller.createNewSession(NODE_ID, request("203.0.113.7", FORGED_AUTH)),
+          "Forged request rejected by SolarNet");
+    }
+
+    // THEN
+    for (int i = 0; i < 2; i++) {
+      assertSame(sess,
+          controller.createNewSession(NODE_ID, request("198.51.100.2", VICTIM_AUTH)).getData(),
+          "Victim still has the full token and node burst");
+    }
+    assertThrows(RateLimitException.class,
+        () -> controller.createNewSession(NODE_ID, request("198.51.100.2", VICTIM_AUTH)),
+        "Victim limited once burst used");
+  }
+
+  @Test
+  public void nodeRejectionDoesNotSpendTokenPermit() throws Exception {
+    // GIVEN
+    controller.setSessionRateLimiter(new SessionRateLimiter(null,
+        new TokenBucketRateLimiter(64, 10, 2), new TokenBucketRateLimiter(64, 10, 1)));
+    givenNewSession(NODE_ID);
+    SshSession other = givenNewSession(OTHER_NODE_ID);
+    controller.createNewSession(NODE_ID, request("198.51.100.2", VICTIM_AUTH));
+
+    // WHEN
+    assertThrows(RateLimitException.class,
+        () -> controller.createNewSession(NODE_ID, request("198.51.100.2", VICTIM_AUTH)),
+        "Node limited");
+
+    // THEN
+    verify(service, times(1)).createNewSession(eq(NODE_ID), anyLong(), eq(VICTIM_AUTH));
+    verify(service, never()).delete(any(SshSession.class));
+    assertSame(other,
+        controller.createNewSession(OTHER_NODE_ID, request("198.51.100.2", VICTIM_AUTH))
+            .getData(),
+        "Token permit not spent by node rejection");
+  }
+
+  @Test
+  public void tokenLimitCheckedBeforeSolarNet() throws Exception {
+    // GIVEN
+    controller.setSessionRateLimiter(
+        new SessionRateLimiter(null, new TokenBucketRateLimiter(64, 10, 1), null));
+    givenNewSession(NODE_ID);
+    controller.createNewSession(NODE_ID, request("198.51.100.2", VICTIM_AUTH));
+
+    // WHEN
+    for (int i = 0; i < 10; i++) {
+      assertThrows(RateLimitException.class,
+          () -> controller.createNewSession(NODE_ID, request("198.51.100.2", VICTIM_AUTH)),
+          "Token limited");
+    }
+
+    // THEN
+    verify(service, times(1)).createNewSession(eq(NODE_ID), anyLong(), eq(VICTIM_AUTH));
+  }
+
+  @Test
+  public void addressLimitCheckedBeforeSolarNet() throws Exception {
+    // GIVEN
+    controller.setSessionRateLimiter(
+        new SessionRateLimiter(new TokenBucketRateLimiter(64, 10, 1), null, null));
+    givenNewSession(NODE_ID);
+    controller.createNewSession(NODE_ID, request("203.0.113.7", VICTIM_AUTH));
+
+    // WHEN
+    assertThrows(RateLimitException.class,
+        () -> controller.createNewSession(NODE_ID, request("203.0.113.7", FORGED_AUTH)),
+        "Address limited");
+
+    // THEN
+    verify(service, never()).createNewSession(eq(NODE_ID), anyLong(), eq(FORGED_AUTH));
+  }
+
+}